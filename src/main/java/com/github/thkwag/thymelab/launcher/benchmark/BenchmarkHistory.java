@@ -0,0 +1,75 @@
+package com.github.thkwag.thymelab.launcher.benchmark;
+
+import com.github.thkwag.thymelab.launcher.util.AppLogger;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps every benchmark run as a JSON file of its own, so runs with other
+ * cache or JVM settings can be compared later.
+ */
+public class BenchmarkHistory {
+    private static final String FILE_PREFIX = "benchmark-";
+    private static final String FILE_SUFFIX = ".json";
+
+    private final Path directory;
+
+    public BenchmarkHistory(Path directory) {
+        this.directory = directory;
+    }
+
+    public static BenchmarkHistory create() {
+        return new BenchmarkHistory(Paths.get(System.getProperty("user.home"), ".thymelab", "benchmarks"));
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Writes a run to a file named after its start time.
+     */
+    public synchronized void save(BenchmarkResult result) {
+        Path file = directory.resolve(FILE_PREFIX + result.startMillis() + FILE_SUFFIX);
+        try {
+            Files.createDirectories(directory);
+            Files.writeString(file, result.toJson().toString(2), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            AppLogger.warn("Failed to save benchmark result: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads all saved runs, newest first. Files that cannot be read are
+     * skipped.
+     */
+    public synchronized List<BenchmarkResult> load() {
+        List<BenchmarkResult> results = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return results;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                try {
+                    results.add(BenchmarkResult.fromJson(new JSONObject(Files.readString(file, StandardCharsets.UTF_8))));
+                } catch (IOException | JSONException e) {
+                    AppLogger.debug("Skipping benchmark result " + file + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            AppLogger.warn("Failed to read benchmark results: " + e.getMessage());
+        }
+        results.sort(Comparator.comparingLong(BenchmarkResult::startMillis).reversed());
+        return results;
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.thkwag.thymelab.launcher.benchmark;
+
+import com.github.thkwag.thymelab.launcher.metrics.LatencyHistogram;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of one benchmark run: what was requested, how often, and the
+ * latency percentiles of the successful requests in microseconds.
+ */
+public record BenchmarkResult(long startMillis, String baseUrl, List<String> paths, int concurrency,
+                              long durationMillis, long requests, long errors,
+                              long p50Micros, long p90Micros, long p99Micros, long p999Micros,
+                              long maxMicros, double meanMicros) {
+
+    public BenchmarkResult {
+        paths = List.copyOf(paths);
+    }
+
+    static BenchmarkResult of(long startMillis, String baseUrl, List<String> paths, int concurrency,
+                              long durationMillis, long errors, LatencyHistogram histogram) {
+        return new BenchmarkResult(startMillis, baseUrl, paths, concurrency, durationMillis,
+            histogram.getCount() + errors, errors,
+            histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+            histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9),
+            histogram.getMaxMicros(), histogram.getMeanMicros());
+    }
+
+    /**
+     * Returns the requests completed per second, failed ones included.
+     */
+    public double throughput() {
+        return durationMillis == 0 ? 0 : requests * 1000.0 / durationMillis;
+    }
+
+    JSONObject toJson() {
+        return new JSONObject()
+            .put("startMillis", startMillis)
+            .put("baseUrl", baseUrl)
+            .put("paths", new JSONArray(paths))
+            .put("concurrency", concurrency)
+            .put("durationMillis", durationMillis)
+            .put("requests", requests)
+            .put("errors", errors)
+            .put("p50Micros", p50Micros)
+            .put("p90Micros", p90Micros)
+            .put("p99Micros", p99Micros)
+            .put("p999Micros", p999Micros)
+            .put("maxMicros", maxMicros)
+            .put("meanMicros", meanMicros);
+    }
+
+    static BenchmarkResult fromJson(JSONObject json) {
+        JSONArray pathArray = json.getJSONArray("paths");
+        List<String> paths = new ArrayList<>(pathArray.length());
+        for (int i = 0; i < pathArray.length(); i++) {
+            paths.add(pathArray.getString(i));
+        }
+        return new BenchmarkResult(json.getLong("startMillis"), json.getString("baseUrl"), paths,
+            json.getInt("concurrency"), json.getLong("durationMillis"), json.getLong("requests"),
+            json.getLong("errors"), json.getLong("p50Micros"), json.getLong("p90Micros"),
+            json.getLong("p99Micros"), json.getLong("p999Micros"), json.getLong("maxMicros"),
+            json.getDouble("meanMicros"));
+    }
+}
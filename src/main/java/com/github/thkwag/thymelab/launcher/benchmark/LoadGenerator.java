@@ -0,0 +1,162 @@
+package com.github.thkwag.thymelab.launcher.benchmark;
+
+import com.github.thkwag.thymelab.launcher.metrics.LatencyHistogram;
+import com.github.thkwag.thymelab.launcher.util.TaskRuntime;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends requests to the running processor from a number of concurrent
+ * workers for a fixed time, each worker cycling through the given paths.
+ * Workers run on the launcher's {@link TaskRuntime}, so on virtual threads
+ * where available, and share a pool of kept-alive connections. Each records
+ * the latency of its successful requests in a {@link LatencyHistogram} of
+ * its own; they are merged when the run ends.
+ * <p>
+ * Only loopback servers can be targeted.
+ */
+public class LoadGenerator {
+    private static final Set<String> LOOPBACK_HOSTS = Set.of("localhost", "127.0.0.1", "[::1]", "::1");
+    private static final long CONNECT_TIMEOUT_MS = 2000;
+    private static final long READ_TIMEOUT_MS = 10_000;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final String baseUrl;
+    private final List<String> paths;
+    private final int concurrency;
+    private final long durationMillis;
+    private final List<Request> requests = new ArrayList<>();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private volatile boolean stopped;
+    private TaskRuntime.Scope scope;
+
+    /**
+     * @param baseUrl     the server, such as {@code http://localhost:8080}
+     * @param paths       paths on the server, such as {@code /} or {@code /templates/home}
+     * @param concurrency the number of requests in flight at any time
+     * @throws IllegalArgumentException when the server is not on this machine or
+     *                                  a path is not a path
+     */
+    public LoadGenerator(String baseUrl, List<String> paths, int concurrency, long durationMillis) {
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException("No paths to request");
+        }
+        URI base = URI.create(baseUrl);
+        if (base.getHost() == null || !LOOPBACK_HOSTS.contains(base.getHost().toLowerCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("Not a local server: " + baseUrl);
+        }
+        String root = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        for (String path : paths) {
+            if (path.contains("://") || path.startsWith("//")) {
+                throw new IllegalArgumentException("Not a path: " + path);
+            }
+            requests.add(new Request.Builder().url(root + (path.startsWith("/") ? path : "/" + path)).get().build());
+        }
+        this.baseUrl = root;
+        this.paths = List.copyOf(paths);
+        this.concurrency = Math.max(1, concurrency);
+        this.durationMillis = Math.max(1, durationMillis);
+    }
+
+    /**
+     * Starts the run. The future completes with the result once every
+     * worker has finished its last request.
+     */
+    public synchronized CompletableFuture<BenchmarkResult> start() {
+        if (scope != null) {
+            throw new IllegalStateException("Already started");
+        }
+        OkHttpClient client = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(concurrency, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS))
+            .connectTimeout(CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+            .readTimeout(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+            .followRedirects(false)
+            .build();
+        scope = TaskRuntime.get().openScope("benchmark");
+        long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        LatencyHistogram[] histograms = new LatencyHistogram[concurrency];
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histograms[i] = histogram;
+            int first = i;
+            workers[i] = scope.run("worker-" + i, () -> work(client, histogram, first, deadline));
+        }
+        TaskRuntime.Scope runScope = scope;
+        return CompletableFuture.allOf(workers)
+            .handle((v, e) -> {
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                LatencyHistogram merged = new LatencyHistogram();
+                for (LatencyHistogram histogram : histograms) {
+                    merged.add(histogram);
+                }
+                client.connectionPool().evictAll();
+                runScope.shutdown();
+                return BenchmarkResult.of(startMillis, baseUrl, paths, concurrency, elapsedMillis,
+                    errors.sum(), merged);
+            });
+    }
+
+    /**
+     * Ends the run early. Requests in flight are completed and counted.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Returns the requests completed so far, failed ones included.
+     */
+    public long getCompleted() {
+        return completed.sum() + errors.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    private void work(OkHttpClient client, LatencyHistogram histogram, int first, long deadline) {
+        // Workers start at different paths so all of them are requested from the start
+        int next = first % requests.size();
+        while (!stopped && System.nanoTime() - deadline < 0 && !Thread.currentThread().isInterrupted()) {
+            Request request = requests.get(next);
+            next = (next + 1) % requests.size();
+            long start = System.nanoTime();
+            try (Response response = client.newCall(request).execute()) {
+                ResponseBody body = response.body();
+                if (body != null) {
+                    body.byteStream().transferTo(OutputStream.nullOutputStream());
+                }
+                if (response.isSuccessful()) {
+                    histogram.recordNanos(System.nanoTime() - start);
+                    completed.increment();
+                } else {
+                    errors.increment();
+                }
+            } catch (IOException e) {
+                errors.increment();
+            }
+        }
+    }
+}
@@ -8,13 +8,16 @@ import java.nio.file.Paths;
 import java.util.Properties;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 public class ConfigManager {
-    private final Properties props = new Properties();
+    private final Properties props;
     private final String path;
-    private final String version = loadVersion();
-    private final List<LanguageChangeListener> listeners = new ArrayList<>();
+    private final String version;
+    private final List<LanguageChangeListener> listeners;
     private final LocaleManager localeManager;
+    // Key prefix of a processor instance view, null for the launcher-wide config
+    private final String instancePrefix;
 
     // Version related constants
     private static final String VERSION_NOT_FOUND = "not-found";
@@ -22,12 +25,97 @@ public class ConfigManager {
     private static final String VERSION_PROPERTY_KEY = "version";
     private static final String GRADLE_SETTINGS_FILE = "settings.gradle";
     private static final String PROCESSOR_JAR_PATH = "processor.jar.path";
+    private static final String JVM_PROFILE = "jvm.profile";
+    private static final String JVM_PROFILE_OPTIONS = "jvm.profile.%s.options";
+    private static final String INSTANCES = "instances";
+    private static final String INSTANCE_PREFIX = "instance.%s.";
+
+    /** The instance that uses the launcher-wide settings, present from before instances existed. */
+    public static final String DEFAULT_INSTANCE = "default";
+
+    // Settings that each processor instance has its own value for
+    private static final Set<String> INSTANCE_KEYS = Set.of(
+        "server.port", "static.folder.path", "templates.folder.path", "data.folder.path", "log.level", JVM_PROFILE);
 
     public ConfigManager(String path) {
+        this.props = new Properties();
         this.path = path;
+        this.version = loadVersion();
+        this.listeners = new ArrayList<>();
+        this.instancePrefix = null;
         this.localeManager = new LocaleManager(getProperty("language", "en"));
     }
 
+    private ConfigManager(ConfigManager root, String instanceId) {
+        this.props = root.props;
+        this.path = root.path;
+        this.version = root.version;
+        this.listeners = root.listeners;
+        this.localeManager = root.localeManager;
+        this.instancePrefix = String.format(INSTANCE_PREFIX, instanceId);
+    }
+
+    /**
+     * Returns a view of this config for one processor instance. Instance
+     * settings such as the port and watch directories are read and written
+     * under the instance's own keys, falling back to the launcher-wide value;
+     * everything else is shared.
+     */
+    public ConfigManager forInstance(String instanceId) {
+        if (instancePrefix != null) {
+            throw new IllegalStateException("Already an instance view");
+        }
+        return DEFAULT_INSTANCE.equals(instanceId) ? this : new ConfigManager(this, instanceId);
+    }
+
+    /**
+     * Returns the ids of all configured processor instances, the default one
+     * first.
+     */
+    public List<String> getInstanceIds() {
+        List<String> ids = new ArrayList<>();
+        ids.add(DEFAULT_INSTANCE);
+        for (String id : props.getProperty(INSTANCES, "").split(",")) {
+            if (!id.isBlank() && !ids.contains(id.trim())) {
+                ids.add(id.trim());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Adds an instance with the next free id and returns the id.
+     */
+    public String addInstance() {
+        List<String> ids = getInstanceIds();
+        int number = ids.size() + 1;
+        while (ids.contains(String.valueOf(number))) {
+            number++;
+        }
+        String id = String.valueOf(number);
+        ids.add(id);
+        saveInstanceIds(ids);
+        return id;
+    }
+
+    /**
+     * Removes an instance and its settings. The default instance stays.
+     */
+    public void removeInstance(String instanceId) {
+        if (DEFAULT_INSTANCE.equals(instanceId)) {
+            return;
+        }
+        List<String> ids = getInstanceIds();
+        ids.remove(instanceId);
+        saveInstanceIds(ids);
+        String prefix = String.format(INSTANCE_PREFIX, instanceId);
+        props.keySet().removeIf(key -> key.toString().startsWith(prefix));
+    }
+
+    private void saveInstanceIds(List<String> ids) {
+        props.setProperty(INSTANCES, String.join(",", ids.subList(1, ids.size())));
+    }
+
     public LocaleManager getLocaleManager() {
         return localeManager;
     }
@@ -126,10 +214,17 @@ public class ConfigManager {
     }
 
     public String getProperty(String key, String def) {
+        if (instancePrefix != null && INSTANCE_KEYS.contains(key)) {
+            return props.getProperty(instancePrefix + key, props.getProperty(key, def));
+        }
         return props.getProperty(key, def);
     }
 
     public void setProperty(String key, String value) {
+        if (instancePrefix != null && INSTANCE_KEYS.contains(key)) {
+            props.setProperty(instancePrefix + key, value);
+            return;
+        }
         props.setProperty(key, value);
     }
 
@@ -177,6 +272,25 @@ public class ConfigManager {
         save();
     }
 
+    public JvmProfile getJvmProfile() {
+        return JvmProfile.fromId(getProperty(JVM_PROFILE, JvmProfile.CUSTOM.getId()));
+    }
+
+    public void setJvmProfile(JvmProfile profile) {
+        setProperty(JVM_PROFILE, profile.getId());
+    }
+
+    /**
+     * Returns the JVM options of a profile, as edited or else its defaults.
+     */
+    public String getJvmOptions(JvmProfile profile) {
+        return props.getProperty(String.format(JVM_PROFILE_OPTIONS, profile.getId()), profile.getDefaultOptions());
+    }
+
+    public void setJvmOptions(JvmProfile profile, String options) {
+        props.setProperty(String.format(JVM_PROFILE_OPTIONS, profile.getId()), options);
+    }
+
     public interface LanguageChangeListener {
         void onLanguageChange(String languageCode);
     }
@@ -0,0 +1,93 @@
+package com.github.thkwag.thymelab.launcher.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Named sets of JVM options for the spawned processor. Each profile starts
+ * from the defaults below and its options can be edited in the settings;
+ * the edited options are stored per profile.
+ */
+public enum JvmProfile {
+    /** Client compiler only and a serial collector, for the quickest restart. */
+    FAST_START("fast-start", "-XX:TieredStopAtLevel=1 -XX:+UseSerialGC -Xshare:auto"),
+    /** Full JIT and a larger heap for long sessions with many templates. */
+    THROUGHPUT("throughput", "-XX:+UseG1GC -Xms512m -Xmx2g"),
+    /** Small heap and few threads, for running next to a heavy IDE. */
+    LOW_MEMORY("low-memory", "-Xmx192m -Xss512k -XX:ActiveProcessorCount=2 -XX:+UseSerialGC "
+        + "-XX:MaxMetaspaceSize=160m -XX:CompressedClassSpaceSize=64m -XX:ReservedCodeCacheSize=48m"),
+    /** Whatever the user enters; empty by default, which matches a plain {@code java -jar}. */
+    CUSTOM("custom", "");
+
+    private final String id;
+    private final String defaultOptions;
+
+    JvmProfile(String id, String defaultOptions) {
+        this.id = id;
+        this.defaultOptions = defaultOptions;
+    }
+
+    /**
+     * Returns the name the profile is stored under.
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getDefaultOptions() {
+        return defaultOptions;
+    }
+
+    /**
+     * Returns the resource bundle key of the display name.
+     */
+    public String getMessageKey() {
+        return "jvm_profile_" + id.replace('-', '_');
+    }
+
+    /**
+     * Looks up a profile by its stored name, falling back to {@link #CUSTOM}.
+     */
+    public static JvmProfile fromId(String id) {
+        for (JvmProfile profile : values()) {
+            if (profile.id.equals(id)) {
+                return profile;
+            }
+        }
+        return CUSTOM;
+    }
+
+    /**
+     * Splits an option string on whitespace. Double quotes group an option
+     * that contains spaces and are removed.
+     */
+    public static List<String> splitOptions(String options) {
+        List<String> result = new ArrayList<>();
+        if (options == null) {
+            return result;
+        }
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        boolean pending = false;
+        for (int i = 0; i < options.length(); i++) {
+            char c = options.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                pending = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (pending) {
+                    result.add(current.toString());
+                    current.setLength(0);
+                    pending = false;
+                }
+            } else {
+                current.append(c);
+                pending = true;
+            }
+        }
+        if (pending) {
+            result.add(current.toString());
+        }
+        return result;
+    }
+}
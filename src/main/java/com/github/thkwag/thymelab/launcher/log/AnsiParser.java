@@ -0,0 +1,302 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+import java.util.Arrays;
+
+/**
+ * Streaming parser for ANSI SGR escape sequences. It strips all CSI sequences
+ * from the text and turns the color and bold changes into style runs that
+ * refer to interned {@link LogStyle}s. Style state carries over from one line
+ * to the next, as it does on a terminal.
+ * <p>
+ * An instance keeps per-stream state and must only be used by one thread at a time.
+ */
+public class AnsiParser {
+    private static final char ESC = '\u001B';
+    private static final int TAB_WIDTH = 4;
+    private static final int MAX_PARAMS = 16;
+    private static final int MAX_PARAM_VALUE = 0xFFFF;
+
+    // Parser states
+    private static final int STATE_TEXT = 0;
+    private static final int STATE_ESCAPE = 1;
+    private static final int STATE_CSI = 2;
+
+    // ANSI code offsets
+    private static final int FOREGROUND_COLOR_OFFSET = 30;
+    private static final int BACKGROUND_COLOR_OFFSET = 40;
+    private static final int BRIGHT_COLOR_OFFSET = 82;  // 90-8
+    private static final int BRIGHT_BG_COLOR_OFFSET = 92;  // 100-8
+
+    // ANSI control codes
+    private static final int ANSI_RESET = 0;
+    private static final int ANSI_BOLD = 1;
+    private static final int ANSI_NORMAL_INTENSITY = 22;
+    private static final int ANSI_EXTENDED_FOREGROUND = 38;
+    private static final int ANSI_DEFAULT_FOREGROUND = 39;
+    private static final int ANSI_EXTENDED_BACKGROUND = 48;
+    private static final int ANSI_DEFAULT_BACKGROUND = 49;
+    private static final int EXTENDED_INDEXED = 5;
+    private static final int EXTENDED_RGB = 2;
+
+    private static final int[] ANSI_COLORS = {
+        0x000000,    // BLACK
+        0xCD0000,    // RED
+        0x00CD00,    // GREEN
+        0xCDCD00,    // YELLOW
+        0x0000EE,    // BLUE
+        0xCD00CD,    // MAGENTA
+        0x00CDCD,    // CYAN
+        0xE5E5E5,    // WHITE
+        // Bright colors
+        0x7F7F7F,    // BRIGHT BLACK (GRAY)
+        0xFF0000,    // BRIGHT RED
+        0x00FF00,    // BRIGHT GREEN
+        0xFFFF00,    // BRIGHT YELLOW
+        0x5C5CFF,    // BRIGHT BLUE
+        0xFF00FF,    // BRIGHT MAGENTA
+        0x00FFFF,    // BRIGHT CYAN
+        0xFFFFFF     // BRIGHT WHITE
+    };
+    private static final int[] CUBE_LEVELS = {0, 95, 135, 175, 215, 255};
+
+    private static final int DEFAULT_FOREGROUND = LogStyle.DEFAULT_FOREGROUND.getRGB() & 0xFFFFFF;
+    private static final int DEFAULT_BACKGROUND = LogStyle.DEFAULT_BACKGROUND.getRGB() & 0xFFFFFF;
+
+    // Small direct-mapped cache in front of the global style registry
+    private static final int STYLE_CACHE_SIZE = 64;
+    private final long[] styleCacheKeys = new long[STYLE_CACHE_SIZE];
+    private final int[] styleCacheIds = new int[STYLE_CACHE_SIZE];
+
+    private int state = STATE_TEXT;
+    private final int[] params = new int[MAX_PARAMS];
+    private int paramCount;
+    private int currentParam;
+    private boolean paramPending;
+
+    private int foreground = DEFAULT_FOREGROUND;
+    private int background = DEFAULT_BACKGROUND;
+    private boolean bold;
+    private int styleId = LogStyle.DEFAULT.getId();
+
+    private final StringBuilder text = new StringBuilder(256);
+    private int[] runs = new int[16];
+    private int runLength;
+
+    public AnsiParser() {
+        Arrays.fill(styleCacheKeys, -1L);
+    }
+
+    /**
+     * Parses one line of output, given without its line terminator.
+     */
+    public LogLine parseLine(CharSequence line) {
+        return parseLine(line, 0, line.length());
+    }
+
+    public LogLine parseLine(CharSequence chars, int start, int end) {
+        for (int i = start; i < end; i++) {
+            feed(chars.charAt(i));
+        }
+        return finishLine();
+    }
+
+    /**
+     * Forgets the current style and any partial escape sequence.
+     */
+    public void reset() {
+        state = STATE_TEXT;
+        resetStyle();
+        text.setLength(0);
+        runLength = 0;
+    }
+
+    private void feed(char c) {
+        switch (state) {
+            case STATE_TEXT:
+                if (c == ESC) {
+                    state = STATE_ESCAPE;
+                } else if (c == '\t') {
+                    addRun();
+                    do {
+                        text.append(' ');
+                    } while (text.length() % TAB_WIDTH != 0);
+                } else if (c >= ' ') {
+                    addRun();
+                    text.append(c);
+                }
+                break;
+            case STATE_ESCAPE:
+                if (c == '[') {
+                    state = STATE_CSI;
+                    paramCount = 0;
+                    currentParam = 0;
+                    paramPending = false;
+                } else {
+                    // Other escape sequences are not rendered
+                    state = STATE_TEXT;
+                }
+                break;
+            case STATE_CSI:
+                if (c >= '0' && c <= '9') {
+                    currentParam = Math.min(currentParam * 10 + (c - '0'), MAX_PARAM_VALUE);
+                    paramPending = true;
+                } else if (c == ';' || c == ':') {
+                    pushParam();
+                } else if (c >= 0x40 && c <= 0x7E) {
+                    if (paramPending || paramCount > 0) {
+                        pushParam();
+                    }
+                    if (c == 'm') {
+                        applySgr();
+                    }
+                    state = STATE_TEXT;
+                } else if (c < 0x20 || c > 0x3F) {
+                    // Malformed sequence, drop it
+                    state = STATE_TEXT;
+                }
+                break;
+            default:
+                state = STATE_TEXT;
+        }
+    }
+
+    private void pushParam() {
+        if (paramCount < MAX_PARAMS) {
+            params[paramCount++] = currentParam;
+        }
+        currentParam = 0;
+        paramPending = false;
+    }
+
+    private void applySgr() {
+        if (paramCount == 0) {
+            resetStyle();
+            return;
+        }
+        for (int i = 0; i < paramCount; i++) {
+            int code = params[i];
+            switch (code) {
+                case ANSI_RESET:
+                    foreground = DEFAULT_FOREGROUND;
+                    background = DEFAULT_BACKGROUND;
+                    bold = false;
+                    break;
+                case ANSI_BOLD:
+                    bold = true;
+                    break;
+                case ANSI_NORMAL_INTENSITY:
+                    bold = false;
+                    break;
+                case 30: case 31: case 32: case 33:
+                case 34: case 35: case 36: case 37:
+                    foreground = ANSI_COLORS[code - FOREGROUND_COLOR_OFFSET];
+                    break;
+                case 90: case 91: case 92: case 93:
+                case 94: case 95: case 96: case 97:
+                    foreground = ANSI_COLORS[code - BRIGHT_COLOR_OFFSET];
+                    break;
+                case 40: case 41: case 42: case 43:
+                case 44: case 45: case 46: case 47:
+                    background = ANSI_COLORS[code - BACKGROUND_COLOR_OFFSET];
+                    break;
+                case 100: case 101: case 102: case 103:
+                case 104: case 105: case 106: case 107:
+                    background = ANSI_COLORS[code - BRIGHT_BG_COLOR_OFFSET];
+                    break;
+                case ANSI_DEFAULT_FOREGROUND:
+                    foreground = DEFAULT_FOREGROUND;
+                    break;
+                case ANSI_DEFAULT_BACKGROUND:
+                    background = DEFAULT_BACKGROUND;
+                    break;
+                case ANSI_EXTENDED_FOREGROUND:
+                case ANSI_EXTENDED_BACKGROUND: {
+                    int color = -1;
+                    if (i + 2 < paramCount && params[i + 1] == EXTENDED_INDEXED) {
+                        color = indexedColor(params[i + 2]);
+                        i += 2;
+                    } else if (i + 4 < paramCount && params[i + 1] == EXTENDED_RGB) {
+                        color = (Math.min(params[i + 2], 255) << 16)
+                            | (Math.min(params[i + 3], 255) << 8)
+                            | Math.min(params[i + 4], 255);
+                        i += 4;
+                    } else {
+                        i = paramCount;  // Incomplete sequence, ignore the rest
+                    }
+                    if (color >= 0) {
+                        if (code == ANSI_EXTENDED_FOREGROUND) {
+                            foreground = color;
+                        } else {
+                            background = color;
+                        }
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+        updateStyle();
+    }
+
+    private static int indexedColor(int index) {
+        if (index < 16) {
+            return ANSI_COLORS[index];
+        }
+        if (index < 232) {
+            int cube = index - 16;
+            return CUBE_LEVELS[cube / 36] << 16 | CUBE_LEVELS[(cube / 6) % 6] << 8 | CUBE_LEVELS[cube % 6];
+        }
+        if (index < 256) {
+            int gray = 8 + (index - 232) * 10;
+            return gray << 16 | gray << 8 | gray;
+        }
+        return -1;
+    }
+
+    private void resetStyle() {
+        foreground = DEFAULT_FOREGROUND;
+        background = DEFAULT_BACKGROUND;
+        bold = false;
+        styleId = LogStyle.DEFAULT.getId();
+    }
+
+    private void updateStyle() {
+        long key = foreground | (long) background << 24 | (bold ? 1L << 48 : 0L);
+        int slot = (int) ((key ^ (key >>> 17) ^ (key >>> 31)) & (STYLE_CACHE_SIZE - 1));
+        if (styleCacheKeys[slot] != key) {
+            styleCacheKeys[slot] = key;
+            styleCacheIds[slot] = LogStyle.of(foreground, background, bold).getId();
+        }
+        styleId = styleCacheIds[slot];
+    }
+
+    private void addRun() {
+        if (runLength > 0 && runs[runLength - 1] == styleId) {
+            return;
+        }
+        if (runLength > 0 && runs[runLength - 2] == text.length()) {
+            // Previous run is still empty, just change its style
+            runs[runLength - 1] = styleId;
+            return;
+        }
+        if (runLength + 2 > runs.length) {
+            runs = Arrays.copyOf(runs, runs.length * 2);
+        }
+        runs[runLength++] = text.length();
+        runs[runLength++] = styleId;
+    }
+
+    private LogLine finishLine() {
+        int[] lineRuns = null;
+        boolean defaultOnly = runLength == 0
+            || (runLength == 2 && runs[1] == LogStyle.DEFAULT.getId());
+        if (!defaultOnly) {
+            lineRuns = Arrays.copyOf(runs, runLength);
+        }
+        LogLine line = new LogLine(text.toString(), lineRuns);
+        text.setLength(0);
+        runLength = 0;
+        return line;
+    }
+}
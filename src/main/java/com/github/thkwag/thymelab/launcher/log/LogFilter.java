@@ -0,0 +1,20 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+/**
+ * Which buffered lines to show, judged only by their structured fields: a
+ * minimum level and optionally a single thread and logger. Lines without a
+ * level are hidden by any level filter.
+ */
+public record LogFilter(byte minLevel, int threadId, int loggerId) {
+    public static final LogFilter NONE = new LogFilter(LogLevel.UNKNOWN_CODE, LogSymbolTable.NONE, LogSymbolTable.NONE);
+
+    public boolean isEmpty() {
+        return minLevel == LogLevel.UNKNOWN_CODE && threadId == LogSymbolTable.NONE && loggerId == LogSymbolTable.NONE;
+    }
+
+    public boolean matches(LogLineBuffer buffer, int index) {
+        return (minLevel == LogLevel.UNKNOWN_CODE || buffer.getLevel(index) >= minLevel)
+            && (threadId == LogSymbolTable.NONE || buffer.getThreadId(index) == threadId)
+            && (loggerId == LogSymbolTable.NONE || buffer.getLoggerId(index) == loggerId);
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+/**
+ * Severity of a parsed log line. Lines keep the level as a byte code, with
+ * {@link #UNKNOWN_CODE} for lines that carry no level.
+ */
+public enum LogLevel {
+    TRACE, DEBUG, INFO, WARN, ERROR, FATAL;
+
+    public static final byte UNKNOWN_CODE = 0;
+
+    private static final LogLevel[] VALUES = values();
+
+    public byte code() {
+        return (byte) (ordinal() + 1);
+    }
+
+    /**
+     * Returns the level for a byte code, or {@code null} for an unknown one.
+     */
+    public static LogLevel fromCode(byte code) {
+        return code > 0 && code <= VALUES.length ? VALUES[code - 1] : null;
+    }
+
+    /**
+     * Parses a level name starting at {@code start}, returning its code or
+     * {@link #UNKNOWN_CODE}.
+     */
+    public static byte parse(String text, int start, int end) {
+        for (LogLevel level : VALUES) {
+            String name = level.name();
+            if (end - start == name.length() && text.startsWith(name, start)) {
+                return level.code();
+            }
+        }
+        return UNKNOWN_CODE;
+    }
+}
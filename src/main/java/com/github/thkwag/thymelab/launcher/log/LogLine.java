@@ -0,0 +1,33 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+/**
+ * A parsed log line: plain text without escape sequences plus its packed
+ * style runs, in the format kept by {@link LogLineBuffer}. Lines recognized
+ * by {@link SpringLogLineParser} also carry their timestamp, level code and
+ * interned thread and logger ids. Lines written to the session log carry
+ * their line number in its {@link SessionLogStore}; others, such as overflow
+ * markers, carry {@link #NOT_SPOOLED}.
+ */
+public record LogLine(String text, int[] runs, long timestamp, byte level, int threadId, int loggerId, long spoolLine) {
+
+    public static final long NOT_SPOOLED = -1;
+
+    public LogLine(String text, int[] runs, long timestamp, byte level, int threadId, int loggerId) {
+        this(text, runs, timestamp, level, threadId, loggerId, NOT_SPOOLED);
+    }
+
+    public LogLine(String text, int[] runs) {
+        this(text, runs, 0, LogLevel.UNKNOWN_CODE, LogSymbolTable.NONE, LogSymbolTable.NONE);
+    }
+
+    public static LogLine plain(String text) {
+        return new LogLine(text, null);
+    }
+
+    /**
+     * Returns this line numbered as the given session log line.
+     */
+    public LogLine withSpoolLine(long lineNumber) {
+        return new LogLine(text, runs, timestamp, level, threadId, loggerId, lineNumber);
+    }
+}
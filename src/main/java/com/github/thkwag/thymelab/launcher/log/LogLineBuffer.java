@@ -0,0 +1,211 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+/**
+ * Fixed-capacity ring of log lines. Each line keeps its plain text plus packed
+ * style runs: pairs of (start column, {@link LogStyle} id) in ascending column
+ * order, or {@code null} when the whole line uses the default style. The
+ * structured fields of a {@link LogLine} are kept in parallel primitive
+ * arrays, so lines can be filtered without touching their text.
+ * <p>
+ * Lines are addressed either by index (0 is the oldest line kept) or by their
+ * absolute line number, which keeps increasing as old lines are evicted.
+ */
+public class LogLineBuffer {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private String[] texts;
+    private int[][] runs;
+    private long[] timestamps;
+    private byte[] levels;
+    private int[] threadIds;
+    private int[] loggerIds;
+    private long[] spoolLines;
+    private int capacity;
+    private int head;
+    private int size;
+    private long firstLineNumber;
+    private int maxLineLength;
+
+    public LogLineBuffer(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        allocate(Math.min(this.capacity, INITIAL_CAPACITY));
+    }
+
+    /**
+     * Appends a line without structured fields, evicting the oldest one when
+     * the buffer is full.
+     *
+     * @return the number of evicted lines (0 or 1)
+     */
+    public int append(String text, int[] lineRuns) {
+        return append(text, lineRuns, 0, LogLevel.UNKNOWN_CODE, LogSymbolTable.NONE, LogSymbolTable.NONE,
+            LogLine.NOT_SPOOLED);
+    }
+
+    /**
+     * Appends a line with its structured fields, evicting the oldest one when
+     * the buffer is full.
+     *
+     * @return the number of evicted lines (0 or 1)
+     */
+    public int append(LogLine line) {
+        return append(line.text(), line.runs(), line.timestamp(), line.level(), line.threadId(), line.loggerId(),
+            line.spoolLine());
+    }
+
+    private int append(String text, int[] lineRuns, long timestamp, byte level, int threadId, int loggerId,
+                       long spoolLine) {
+        int evicted = 0;
+        if (size == texts.length) {
+            if (size < capacity) {
+                grow();
+            } else {
+                head = (head + 1) % texts.length;
+                size--;
+                firstLineNumber++;
+                evicted = 1;
+            }
+        }
+        int slot = (head + size) % texts.length;
+        texts[slot] = text;
+        runs[slot] = lineRuns;
+        timestamps[slot] = timestamp;
+        levels[slot] = level;
+        threadIds[slot] = threadId;
+        loggerIds[slot] = loggerId;
+        spoolLines[slot] = spoolLine;
+        size++;
+        if (text.length() > maxLineLength) {
+            maxLineLength = text.length();
+        }
+        return evicted;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public String getText(int index) {
+        return texts[slot(index)];
+    }
+
+    public int[] getRuns(int index) {
+        return runs[slot(index)];
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[slot(index)];
+    }
+
+    public byte getLevel(int index) {
+        return levels[slot(index)];
+    }
+
+    public int getThreadId(int index) {
+        return threadIds[slot(index)];
+    }
+
+    public int getLoggerId(int index) {
+        return loggerIds[slot(index)];
+    }
+
+    /**
+     * Returns the session log line number of a line, or
+     * {@link LogLine#NOT_SPOOLED}.
+     */
+    public long getSpoolLine(int index) {
+        return spoolLines[slot(index)];
+    }
+
+    public long getFirstLineNumber() {
+        return firstLineNumber;
+    }
+
+    /**
+     * Returns the index of the given absolute line number, or -1 when the line
+     * has been evicted or not appended yet.
+     */
+    public int indexOf(long lineNumber) {
+        long index = lineNumber - firstLineNumber;
+        return index >= 0 && index < size ? (int) index : -1;
+    }
+
+    public int getMaxLineLength() {
+        return maxLineLength;
+    }
+
+    public void clear() {
+        firstLineNumber += size;
+        size = 0;
+        head = 0;
+        maxLineLength = 0;
+        allocate(Math.min(capacity, INITIAL_CAPACITY));
+    }
+
+    /**
+     * Changes the capacity, dropping the oldest lines that no longer fit.
+     *
+     * @return the number of evicted lines
+     */
+    public int setCapacity(int newCapacity) {
+        newCapacity = Math.max(1, newCapacity);
+        int evicted = Math.max(0, size - newCapacity);
+        int kept = size - evicted;
+        capacity = newCapacity;
+        reallocate(head + evicted, kept, Math.min(newCapacity, Math.max(kept, INITIAL_CAPACITY)));
+        size = kept;
+        firstLineNumber += evicted;
+        return evicted;
+    }
+
+    private int slot(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Line index " + index + " out of " + size);
+        }
+        return (head + index) % texts.length;
+    }
+
+    private void allocate(int length) {
+        texts = new String[length];
+        runs = new int[length][];
+        timestamps = new long[length];
+        levels = new byte[length];
+        threadIds = new int[length];
+        loggerIds = new int[length];
+        spoolLines = new long[length];
+        head = 0;
+    }
+
+    private void grow() {
+        reallocate(head, size, (int) Math.min(capacity, texts.length * 2L));
+    }
+
+    /**
+     * Moves {@code count} lines starting at slot {@code fromHead} into new
+     * arrays of the given length, oldest first.
+     */
+    private void reallocate(int fromHead, int count, int length) {
+        String[] oldTexts = texts;
+        int[][] oldRuns = runs;
+        long[] oldTimestamps = timestamps;
+        byte[] oldLevels = levels;
+        int[] oldThreadIds = threadIds;
+        int[] oldLoggerIds = loggerIds;
+        long[] oldSpoolLines = spoolLines;
+        allocate(length);
+        for (int i = 0; i < count; i++) {
+            int from = (fromHead + i) % oldTexts.length;
+            texts[i] = oldTexts[from];
+            runs[i] = oldRuns[from];
+            timestamps[i] = oldTimestamps[from];
+            levels[i] = oldLevels[from];
+            threadIds[i] = oldThreadIds[from];
+            loggerIds[i] = oldLoggerIds[from];
+            spoolLines[i] = oldSpoolLines[from];
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+import java.util.Arrays;
+
+/**
+ * The lines a log view can scroll through: the styled lines kept in a
+ * {@link LogLineBuffer}, preceded by older lines paged in from a
+ * {@link SessionLogStore} once they have left the buffer. Lines are addressed
+ * by the buffer's absolute line numbers; history lines come back without
+ * styles.
+ * <p>
+ * The store holds every line the processor wrote, the buffer only those that
+ * reached the view, plus overflow markers. The two are joined through the
+ * store line number each buffered line carries: the history is the run of
+ * store lines before the newest evicted one, so lines the view skipped show
+ * up in the history once the lines around them leave the buffer. History
+ * line numbers count back from the buffer's first line.
+ * <p>
+ * The view addresses rows rather than lines. Without a {@link LogFilter}
+ * every line is a row; with one, the rows are the matching buffered lines,
+ * tracked as an ascending array of line numbers. Not thread-safe; used on
+ * the event thread.
+ */
+public class LogScrollback {
+    private final LogLineBuffer buffer;
+    private SessionLogStore store;
+    // Store lines [historyStart, historyEnd) precede the buffer; the end is past the newest evicted line
+    private long historyStart;
+    private long historyEnd;
+    private int historyMaxLineLength;
+
+    // Line numbers of the rows shown while a filter is set
+    private LogFilter filter = LogFilter.NONE;
+    private long[] filteredLines = new long[INITIAL_FILTERED_SIZE];
+    private int filteredStart;
+    private int filteredEnd;
+    private long droppedRows;
+
+    private static final int INITIAL_FILTERED_SIZE = 1024;
+
+    public LogScrollback(LogLineBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Attaches the store that the {@link LogLine#spoolLine() spool line}
+     * numbers of appended lines refer to.
+     */
+    public void attachStore(SessionLogStore store) {
+        this.store = store;
+        historyStart = 0;
+        historyEnd = 0;
+    }
+
+    public LogLineBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Appends a line to the buffer and, when it matches, to the filtered rows.
+     */
+    public void append(LogLine line) {
+        if (buffer.size() == buffer.getCapacity()) {
+            evicted(0);
+        }
+        buffer.append(line);
+        if (!filter.isEmpty()) {
+            if (filter.matches(buffer, buffer.size() - 1)) {
+                addFilteredLine(getEndLineNumber() - 1);
+            }
+            dropEvictedRows();
+        }
+    }
+
+    public void setCapacity(int capacity) {
+        for (int i = 0; i < buffer.size() - Math.max(1, capacity); i++) {
+            evicted(i);
+        }
+        buffer.setCapacity(capacity);
+        dropEvictedRows();
+    }
+
+    public LogFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Shows only the buffered lines matching the filter. History lines have
+     * no structured fields and are hidden while a filter is set.
+     */
+    public void setFilter(LogFilter filter) {
+        this.filter = filter;
+        filteredStart = 0;
+        filteredEnd = 0;
+        if (filter.isEmpty()) {
+            return;
+        }
+        long firstLine = buffer.getFirstLineNumber();
+        for (int i = 0; i < buffer.size(); i++) {
+            if (filter.matches(buffer, i)) {
+                addFilteredLine(firstLine + i);
+            }
+        }
+    }
+
+    public long getRowCount() {
+        return filter.isEmpty() ? size() : filteredEnd - filteredStart;
+    }
+
+    public long getLineAt(long row) {
+        return filter.isEmpty() ? getFirstLineNumber() + row : filteredLines[filteredStart + (int) row];
+    }
+
+    /**
+     * Returns the row showing the given line, or -1 when it is not shown.
+     */
+    public long getRowOf(long lineNumber) {
+        if (filter.isEmpty()) {
+            return contains(lineNumber) ? lineNumber - getFirstLineNumber() : -1;
+        }
+        int index = Arrays.binarySearch(filteredLines, filteredStart, filteredEnd, lineNumber);
+        return index >= 0 ? index - filteredStart : -1;
+    }
+
+    /**
+     * Returns a counter that grows by one for every row removed from the top,
+     * so the view can keep its position while old rows go away.
+     */
+    public long getTopRowNumber() {
+        return filter.isEmpty() ? getFirstLineNumber() : droppedRows;
+    }
+
+    /**
+     * Returns the absolute number of the oldest line that can be shown.
+     */
+    public long getFirstLineNumber() {
+        if (store == null) {
+            return buffer.getFirstLineNumber();
+        }
+        long start = Math.max(historyStart, store.getFirstLine());
+        return buffer.getFirstLineNumber() - Math.max(0, historyEnd - start);
+    }
+
+    /**
+     * Returns the absolute number just past the newest line.
+     */
+    public long getEndLineNumber() {
+        return buffer.getFirstLineNumber() + buffer.size();
+    }
+
+    public long size() {
+        return getEndLineNumber() - getFirstLineNumber();
+    }
+
+    public boolean contains(long lineNumber) {
+        return lineNumber >= getFirstLineNumber() && lineNumber < getEndLineNumber();
+    }
+
+    /**
+     * Returns the text of a line, or an empty string for a history line that
+     * has not reached the disk yet.
+     */
+    public String getText(long lineNumber) {
+        int index = buffer.indexOf(lineNumber);
+        if (index >= 0) {
+            return buffer.getText(index);
+        }
+        String text = store == null ? null : store.getLine(historyEnd - (buffer.getFirstLineNumber() - lineNumber));
+        if (text == null) {
+            return "";
+        }
+        if (text.length() > historyMaxLineLength) {
+            historyMaxLineLength = text.length();
+        }
+        return text;
+    }
+
+    public int[] getRuns(long lineNumber) {
+        int index = buffer.indexOf(lineNumber);
+        return index >= 0 ? buffer.getRuns(index) : null;
+    }
+
+    /**
+     * Returns the longest line seen so far, counting history lines that have
+     * been read.
+     */
+    public int getMaxLineLength() {
+        return Math.max(buffer.getMaxLineLength(), historyMaxLineLength);
+    }
+
+    /**
+     * Empties the buffer and hides the history before this point.
+     */
+    public void clear() {
+        for (int i = 0; i < buffer.size(); i++) {
+            evicted(i);
+        }
+        buffer.clear();
+        historyStart = historyEnd;
+        historyMaxLineLength = 0;
+        droppedRows += filteredEnd - filteredStart;
+        filteredStart = 0;
+        filteredEnd = 0;
+    }
+
+    /**
+     * Moves the end of the history past a buffered line that is about to be
+     * evicted. Messages can reach the store slightly out of display order, so
+     * the end only ever moves forward.
+     */
+    private void evicted(int index) {
+        long spoolLine = buffer.getSpoolLine(index);
+        if (spoolLine != LogLine.NOT_SPOOLED && spoolLine >= historyEnd) {
+            historyEnd = spoolLine + 1;
+        }
+    }
+
+    private void addFilteredLine(long lineNumber) {
+        if (filteredEnd == filteredLines.length) {
+            int count = filteredEnd - filteredStart;
+            if (filteredStart > count) {
+                System.arraycopy(filteredLines, filteredStart, filteredLines, 0, count);
+            } else {
+                filteredLines = Arrays.copyOfRange(filteredLines, filteredStart,
+                    filteredStart + Math.max(INITIAL_FILTERED_SIZE, count * 2));
+            }
+            filteredStart = 0;
+            filteredEnd = count;
+        }
+        filteredLines[filteredEnd++] = lineNumber;
+    }
+
+    private void dropEvictedRows() {
+        long firstLine = buffer.getFirstLineNumber();
+        while (filteredStart < filteredEnd && filteredLines[filteredStart] < firstLine) {
+            filteredStart++;
+            droppedRows++;
+        }
+    }
+}
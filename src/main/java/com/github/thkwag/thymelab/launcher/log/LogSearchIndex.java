@@ -0,0 +1,279 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+import java.util.Arrays;
+
+/**
+ * Case-insensitive substring search over a {@link LogLineBuffer}, kept up to
+ * date as lines are appended. Lines are grouped into blocks of 16 and every
+ * trigram maps to the ascending list of blocks containing it, stored in plain
+ * {@code int[]} postings behind an open-addressing table. A query intersects
+ * the postings of all its trigrams and only scans the blocks left over.
+ * <p>
+ * Evicted lines are skipped at query time and their postings are purged in
+ * bulk once the dead part outgrows the live one. Not thread-safe; used on
+ * the event thread alongside the buffer.
+ */
+public class LogSearchIndex {
+    private static final int BLOCK_BITS = 4;
+    private static final int INITIAL_TABLE_SIZE = 1024;
+    private static final int INITIAL_POSTINGS_SIZE = 4;
+    private static final long EMPTY_KEY = 0;
+
+    private final LogLineBuffer buffer;
+
+    // Trigram table, keys pack three lowercase chars
+    private long[] keys;
+    private int[][] postings;
+    private int[] postingSizes;
+    private int keyCount;
+
+    private long purgedBeforeBlock;
+
+    public LogSearchIndex(LogLineBuffer buffer) {
+        this.buffer = buffer;
+        clear();
+    }
+
+    /**
+     * Indexes a line that was just appended to the buffer.
+     */
+    public void add(long lineNumber, String text) {
+        int block = (int) (lineNumber >>> BLOCK_BITS);
+        int length = text.length();
+        if (length >= 3) {
+            char c0 = Character.toLowerCase(text.charAt(0));
+            char c1 = Character.toLowerCase(text.charAt(1));
+            for (int i = 2; i < length; i++) {
+                char c2 = Character.toLowerCase(text.charAt(i));
+                addPosting(trigram(c0, c1, c2), block);
+                c0 = c1;
+                c1 = c2;
+            }
+        }
+        purgeIfNeeded();
+    }
+
+    public void clear() {
+        keys = new long[INITIAL_TABLE_SIZE];
+        postings = new int[INITIAL_TABLE_SIZE][];
+        postingSizes = new int[INITIAL_TABLE_SIZE];
+        keyCount = 0;
+        purgedBeforeBlock = buffer.getFirstLineNumber() >>> BLOCK_BITS;
+    }
+
+    /**
+     * Finds every occurrence of the query in the lines currently held by the
+     * buffer, in line and column order.
+     *
+     * @param maxHits the most occurrences to collect
+     */
+    public LogSearchResult search(String query, int maxHits) {
+        LogSearchResult.Builder result = new LogSearchResult.Builder(query, maxHits);
+        if (query.isEmpty() || buffer.size() == 0) {
+            return result.build();
+        }
+        long firstLine = buffer.getFirstLineNumber();
+        long endLine = firstLine + buffer.size();
+        if (query.length() < 3) {
+            scanLines(query, firstLine, endLine, result);
+            return result.build();
+        }
+
+        int[] slots = new int[query.length() - 2];
+        char c0 = Character.toLowerCase(query.charAt(0));
+        char c1 = Character.toLowerCase(query.charAt(1));
+        for (int i = 2; i < query.length(); i++) {
+            char c2 = Character.toLowerCase(query.charAt(i));
+            int slot = find(trigram(c0, c1, c2));
+            if (slot < 0) {
+                return result.build();
+            }
+            slots[i - 2] = slot;
+            c0 = c1;
+            c1 = c2;
+        }
+
+        // Intersect starting from the shortest postings
+        Integer[] order = new Integer[slots.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = slots[i];
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(postingSizes[a], postingSizes[b]));
+        int candidateCount = postingSizes[order[0]];
+        int[] candidates = Arrays.copyOf(postings[order[0]], candidateCount);
+        for (int i = 1; i < order.length && candidateCount > 0; i++) {
+            candidateCount = intersect(candidates, candidateCount, postings[order[i]], postingSizes[order[i]]);
+        }
+
+        long firstBlock = firstLine >>> BLOCK_BITS;
+        for (int i = 0; i < candidateCount && !result.isFull(); i++) {
+            long block = candidates[i] & 0xFFFFFFFFL;
+            if (block < firstBlock) {
+                continue;
+            }
+            long start = Math.max(firstLine, block << BLOCK_BITS);
+            long end = Math.min(endLine, (block + 1) << BLOCK_BITS);
+            scanLines(query, start, end, result);
+        }
+        return result.build();
+    }
+
+    private void scanLines(String query, long start, long end, LogSearchResult.Builder result) {
+        for (long line = start; line < end && !result.isFull(); line++) {
+            String text = buffer.getText(buffer.indexOf(line));
+            int column = indexOfIgnoreCase(text, query, 0);
+            while (column >= 0 && !result.isFull()) {
+                result.add(line, column);
+                column = indexOfIgnoreCase(text, query, column + query.length());
+            }
+        }
+    }
+
+    /**
+     * Keeps the blocks of {@code target} that also occur in {@code other};
+     * both lists are ascending.
+     *
+     * @return the number of blocks kept
+     */
+    private static int intersect(int[] target, int targetSize, int[] other, int otherSize) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < targetSize && j < otherSize; i++) {
+            long block = target[i] & 0xFFFFFFFFL;
+            while (j < otherSize && (other[j] & 0xFFFFFFFFL) < block) {
+                j++;
+            }
+            if (j < otherSize && other[j] == target[i]) {
+                target[kept++] = target[i];
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Returns the first position of {@code query} in {@code text} at or after
+     * {@code from}, ignoring case, or -1.
+     */
+    public static int indexOfIgnoreCase(String text, String query, int from) {
+        int last = text.length() - query.length();
+        if (query.isEmpty()) {
+            return from <= text.length() ? from : -1;
+        }
+        char lower = Character.toLowerCase(query.charAt(0));
+        char upper = Character.toUpperCase(query.charAt(0));
+        for (int i = from; i <= last; i++) {
+            char c = text.charAt(i);
+            if ((c == lower || c == upper || (c > 0x7F && Character.toLowerCase(c) == lower))
+                    && text.regionMatches(true, i, query, 0, query.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long trigram(char c0, char c1, char c2) {
+        return ((long) c0 << 32) | ((long) c1 << 16) | c2;
+    }
+
+    private void addPosting(long key, int block) {
+        if (key == EMPTY_KEY) {
+            return;
+        }
+        int slot = slotFor(key);
+        if (keys[slot] == EMPTY_KEY) {
+            keys[slot] = key;
+            postings[slot] = new int[INITIAL_POSTINGS_SIZE];
+            keyCount++;
+        }
+        int size = postingSizes[slot];
+        int[] list = postings[slot];
+        if (size > 0 && list[size - 1] == block) {
+            return;
+        }
+        if (size == list.length) {
+            list = postings[slot] = Arrays.copyOf(list, size * 2);
+        }
+        list[size] = block;
+        postingSizes[slot] = size + 1;
+        if (keyCount * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    private int find(long key) {
+        int slot = slotFor(key);
+        return keys[slot] == key ? slot : -1;
+    }
+
+    private int slotFor(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY_KEY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Drops postings of evicted blocks once they outnumber the live blocks.
+     */
+    private void purgeIfNeeded() {
+        long firstBlock = buffer.getFirstLineNumber() >>> BLOCK_BITS;
+        long liveBlocks = ((buffer.getFirstLineNumber() + buffer.size()) >>> BLOCK_BITS) - firstBlock + 1;
+        if (firstBlock - purgedBeforeBlock <= liveBlocks) {
+            return;
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] == EMPTY_KEY) {
+                continue;
+            }
+            int[] list = postings[slot];
+            int size = postingSizes[slot];
+            int dead = 0;
+            while (dead < size && (list[dead] & 0xFFFFFFFFL) < firstBlock) {
+                dead++;
+            }
+            if (dead == size) {
+                keys[slot] = EMPTY_KEY;
+                postings[slot] = null;
+                postingSizes[slot] = 0;
+                keyCount--;
+            } else if (dead > 0) {
+                int kept = size - dead;
+                int[] trimmed = new int[Math.max(INITIAL_POSTINGS_SIZE, Integer.highestOneBit(kept) << 1)];
+                System.arraycopy(list, dead, trimmed, 0, kept);
+                postings[slot] = trimmed;
+                postingSizes[slot] = kept;
+            }
+        }
+        // Emptied slots break probe chains, so rebuild the table
+        int size = INITIAL_TABLE_SIZE;
+        while (keyCount * 2 > size) {
+            size *= 2;
+        }
+        rehash(size);
+        purgedBeforeBlock = firstBlock;
+    }
+
+    private void rehash(int newSize) {
+        long[] oldKeys = keys;
+        int[][] oldPostings = postings;
+        int[] oldSizes = postingSizes;
+        keys = new long[newSize];
+        postings = new int[newSize][];
+        postingSizes = new int[newSize];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                int slot = slotFor(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                postings[slot] = oldPostings[i];
+                postingSizes[slot] = oldSizes[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+import java.util.Arrays;
+
+/**
+ * Occurrences of a search query as parallel arrays of absolute line numbers
+ * and columns, sorted by position.
+ */
+public class LogSearchResult {
+    private final String query;
+    private final long[] lines;
+    private final int[] columns;
+    private final int count;
+    private final boolean truncated;
+
+    private LogSearchResult(String query, long[] lines, int[] columns, int count, boolean truncated) {
+        this.query = query;
+        this.lines = lines;
+        this.columns = columns;
+        this.count = count;
+        this.truncated = truncated;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long getLine(int hit) {
+        return lines[hit];
+    }
+
+    public int getColumn(int hit) {
+        return columns[hit];
+    }
+
+    /**
+     * Returns whether more occurrences exist than were collected.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Returns the first hit at or after the given position, or {@code size()}
+     * when there is none.
+     */
+    public int indexAtOrAfter(long line, int column) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (lines[mid] < line || (lines[mid] == line && columns[mid] < column)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static class Builder {
+        private static final int INITIAL_SIZE = 64;
+
+        private final String query;
+        private final int maxHits;
+        private long[] lines = new long[INITIAL_SIZE];
+        private int[] columns = new int[INITIAL_SIZE];
+        private int count;
+        private boolean truncated;
+
+        Builder(String query, int maxHits) {
+            this.query = query;
+            this.maxHits = maxHits;
+        }
+
+        boolean isFull() {
+            return truncated;
+        }
+
+        void add(long line, int column) {
+            if (count == maxHits) {
+                truncated = true;
+                return;
+            }
+            if (count == lines.length) {
+                lines = Arrays.copyOf(lines, count * 2);
+                columns = Arrays.copyOf(columns, count * 2);
+            }
+            lines[count] = line;
+            columns[count] = column;
+            count++;
+        }
+
+        LogSearchResult build() {
+            return new LogSearchResult(query, lines, columns, count, truncated);
+        }
+    }
+}
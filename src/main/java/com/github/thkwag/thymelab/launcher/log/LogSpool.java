@@ -0,0 +1,483 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+import com.github.thkwag.thymelab.launcher.config.ConfigManager;
+import com.github.thkwag.thymelab.launcher.util.AppLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Appends log lines to segmented files under
+ * {@code ~/.thymelab/logs/<session>/}. Lines are queued by the caller and
+ * written by a background thread, so appending never waits on disk I/O.
+ * Segments roll by size or age and stay uncompressed while the session is
+ * live, so the {@link SessionLogStore} can map them. Segments of ended
+ * sessions are gzip-compressed in the background, and old data is pruned by
+ * total size and age. Every spool of the launcher, one per processor
+ * instance, shares a single low-priority housekeeping thread.
+ */
+public class LogSpool implements AutoCloseable {
+    // Configuration keys
+    private static final String KEY_ENABLED = "log.spool.enabled";
+    private static final String KEY_SEGMENT_SIZE_MB = "log.spool.segment.size.mb";
+    private static final String KEY_SEGMENT_MINUTES = "log.spool.segment.minutes";
+    private static final String KEY_RETENTION_MB = "log.spool.retention.mb";
+    private static final String KEY_RETENTION_DAYS = "log.spool.retention.days";
+
+    // Default settings
+    private static final int DEFAULT_SEGMENT_SIZE_MB = 16;
+    private static final int DEFAULT_SEGMENT_MINUTES = 60;
+    private static final int DEFAULT_RETENTION_MB = 512;
+    private static final int DEFAULT_RETENTION_DAYS = 7;
+
+    // Writer settings
+    private static final int QUEUE_CAPACITY = 65536;
+    private static final int WRITE_BUFFER_SIZE = 256 * 1024;
+    private static final int DRAIN_BATCH_SIZE = 4096;
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    // File naming
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String COMPRESSED_SUFFIX = ".gz";
+    private static final String LOCK_FILE = "session.lock";
+    private static final DateTimeFormatter SESSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final ExecutorService HOUSEKEEPING = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "log-spool-housekeeping");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    // Compared by identity, so it can never collide with a real line
+    private static final Entry END_OF_STREAM = new Entry("");
+
+    private final Path rootDir;
+    private final Path sessionDir;
+    private final long segmentMaxBytes;
+    private final long segmentMaxAgeMillis;
+    private final long retentionBytes;
+    private final long retentionMillis;
+
+    private final SessionLogStore store = new SessionLogStore();
+    private final FileChannel lockChannel;
+    private final FileLock sessionLock;
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong droppedLines = new AtomicLong();
+    private long nextLineNumber;
+    // Lines dropped since the last marker, guarded by this
+    private long unreportedDrops;
+    private final Thread writerThread;
+    // Held while housekeeping runs, so closing waits for a pass of this spool
+    private final Object housekeepingLock = new Object();
+
+    // Writer thread state
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private FileChannel channel;
+    private Path segmentPath;
+    private long writtenLines;
+    private int segmentNumber;
+    private long segmentBytes;
+    private long segmentOpenedAt;
+    private volatile boolean closed;
+
+    public LogSpool(Path rootDir, long segmentMaxBytes, long segmentMaxAgeMillis,
+                    long retentionBytes, long retentionMillis) throws IOException {
+        this(rootDir, segmentMaxBytes, segmentMaxAgeMillis, retentionBytes, retentionMillis, null);
+    }
+
+    /**
+     * @param sessionLabel appended to the session directory name, so the
+     *                     sessions of concurrent processor instances can be told apart;
+     *                     may be null
+     */
+    public LogSpool(Path rootDir, long segmentMaxBytes, long segmentMaxAgeMillis,
+                    long retentionBytes, long retentionMillis, String sessionLabel) throws IOException {
+        this.rootDir = rootDir;
+        this.segmentMaxBytes = segmentMaxBytes;
+        this.segmentMaxAgeMillis = segmentMaxAgeMillis;
+        this.retentionBytes = retentionBytes;
+        this.retentionMillis = retentionMillis;
+        this.sessionDir = createSessionDir(rootDir, sessionLabel);
+        this.lockChannel = FileChannel.open(sessionDir.resolve(LOCK_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.sessionLock = lockChannel.lock();
+
+        openSegment();
+        HOUSEKEEPING.submit(this::housekeeping);
+
+        writerThread = new Thread(this::writeLoop,
+            sessionLabel != null ? "log-spool-writer-" + sessionLabel : "log-spool-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Opens a spool for this launcher session as configured, or returns
+     * {@code null} when spooling is disabled or the directory is unusable.
+     */
+    public static LogSpool create(ConfigManager config) {
+        return create(config, null);
+    }
+
+    /**
+     * Opens a spool for one processor instance, labelling its session
+     * directory with the instance id.
+     */
+    public static LogSpool create(ConfigManager config, String instanceId) {
+        if (!config.getBoolean(KEY_ENABLED, true)) {
+            return null;
+        }
+        Path rootDir = Paths.get(System.getProperty("user.home"), ".thymelab", "logs");
+        try {
+            return new LogSpool(rootDir,
+                config.getInt(KEY_SEGMENT_SIZE_MB, DEFAULT_SEGMENT_SIZE_MB) * BYTES_PER_MB,
+                TimeUnit.MINUTES.toMillis(config.getInt(KEY_SEGMENT_MINUTES, DEFAULT_SEGMENT_MINUTES)),
+                config.getInt(KEY_RETENTION_MB, DEFAULT_RETENTION_MB) * BYTES_PER_MB,
+                TimeUnit.DAYS.toMillis(config.getInt(KEY_RETENTION_DAYS, DEFAULT_RETENTION_DAYS)),
+                instanceId != null ? "instance-" + instanceId : null);
+        } catch (IOException e) {
+            AppLogger.error("Failed to open log spool: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Queues a line for writing and returns its line number in the
+     * {@link SessionLogStore}. Never blocks; when the writer falls too far
+     * behind the line is counted as dropped and {@link LogLine#NOT_SPOOLED}
+     * is returned. The next line that fits is preceded by a marker line
+     * saying how many were dropped, so numbers stay contiguous and every
+     * stored line is real output or a marker.
+     */
+    public synchronized long append(String line) {
+        if (closed) {
+            droppedLines.incrementAndGet();
+            return LogLine.NOT_SPOOLED;
+        }
+        if (unreportedDrops > 0) {
+            String marker = String.format("··· %,d lines not written to the session log (writer queue full) ···",
+                unreportedDrops);
+            if (!queue.offer(new Entry(marker))) {
+                unreportedDrops++;
+                droppedLines.incrementAndGet();
+                return LogLine.NOT_SPOOLED;
+            }
+            nextLineNumber++;
+            unreportedDrops = 0;
+        }
+        if (!queue.offer(new Entry(line))) {
+            unreportedDrops++;
+            droppedLines.incrementAndGet();
+            return LogLine.NOT_SPOOLED;
+        }
+        return nextLineNumber++;
+    }
+
+    public Path getSessionDir() {
+        return sessionDir;
+    }
+
+    public SessionLogStore getStore() {
+        return store;
+    }
+
+    public long getDroppedLines() {
+        return droppedLines.get();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(END_OF_STREAM);
+            writerThread.join(TimeUnit.SECONDS.toMillis(CLOSE_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // A pass that is already running finishes first; later ones see the spool closed
+        synchronized (housekeepingLock) {
+            store.close();
+        }
+        try {
+            sessionLock.release();
+            lockChannel.close();
+            Files.deleteIfExists(sessionDir.resolve(LOCK_FILE));
+            if (writtenLines == 0) {
+                deleteSession(sessionDir);
+            }
+        } catch (IOException e) {
+            AppLogger.warn("Failed to close log session " + sessionDir + ": " + e.getMessage());
+        }
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(DRAIN_BATCH_SIZE);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, DRAIN_BATCH_SIZE - 1);
+                for (Entry entry : batch) {
+                    if (entry == END_OF_STREAM) {
+                        flushBuffer();
+                        closeSegment();
+                        return;
+                    }
+                    writeLine(entry.text());
+                }
+                batch.clear();
+                if (queue.isEmpty()) {
+                    flushBuffer();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            AppLogger.error("Log spool stopped: " + e.getMessage(), e);
+            closed = true;
+        }
+    }
+
+    private void writeLine(String line) throws IOException {
+        if (segmentBytes + writeBuffer.position() >= segmentMaxBytes
+                || System.currentTimeMillis() - segmentOpenedAt >= segmentMaxAgeMillis) {
+            rollSegment();
+        }
+        store.recordLine(segmentBytes + writeBuffer.position());
+        writtenLines++;
+        CharBuffer chars = CharBuffer.wrap(line);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, writeBuffer, true);
+            if (result.isOverflow()) {
+                flushBuffer();
+            } else {
+                break;
+            }
+        }
+        encoder.flush(writeBuffer);
+        if (!writeBuffer.hasRemaining()) {
+            flushBuffer();
+        }
+        writeBuffer.put((byte) '\n');
+    }
+
+    private void flushBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            segmentBytes += channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+        store.markDurable(segmentBytes);
+    }
+
+    private void rollSegment() throws IOException {
+        flushBuffer();
+        closeSegment();
+        openSegment();
+        HOUSEKEEPING.submit(this::housekeeping);
+    }
+
+    private void openSegment() throws IOException {
+        segmentNumber++;
+        segmentPath = sessionDir.resolve(String.format("%s%05d%s", SEGMENT_PREFIX, segmentNumber, SEGMENT_SUFFIX));
+        channel = FileChannel.open(segmentPath,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentBytes = 0;
+        segmentOpenedAt = System.currentTimeMillis();
+        store.beginSegment(segmentPath);
+    }
+
+    private void closeSegment() throws IOException {
+        channel.close();
+        store.endSegment();
+    }
+
+    private static Path createSessionDir(Path rootDir, String label) throws IOException {
+        String name = LocalDateTime.now().format(SESSION_FORMAT);
+        if (label != null) {
+            name += "-" + label;
+        }
+        Path dir = rootDir.resolve(name);
+        for (int suffix = 2; Files.exists(dir); suffix++) {
+            dir = rootDir.resolve(name + "-" + suffix);
+        }
+        return Files.createDirectories(dir);
+    }
+
+    /**
+     * Gzips a segment of an ended session and returns the file that remains.
+     */
+    private static Path compress(Path segment) {
+        Path target = segment.resolveSibling(segment.getFileName() + COMPRESSED_SUFFIX);
+        try {
+            try (InputStream in = Files.newInputStream(segment);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(target), WRITE_BUFFER_SIZE)) {
+                in.transferTo(out);
+            }
+            // Keep the original age so retention still removes the oldest data first
+            Files.setLastModifiedTime(target, Files.getLastModifiedTime(segment));
+            Files.delete(segment);
+            return target;
+        } catch (IOException e) {
+            AppLogger.warn("Failed to compress log segment " + segment + ": " + e.getMessage());
+            return segment;
+        }
+    }
+
+    /**
+     * Compresses the segments of ended sessions, then deletes the oldest
+     * closed segments until the spool fits the configured size and age
+     * limits. Sessions still held by another launcher or instance are left
+     * alone. Runs on the shared housekeeping thread.
+     */
+    private void housekeeping() {
+        synchronized (housekeepingLock) {
+            if (!closed) {
+                housekeepingPass();
+            }
+        }
+    }
+
+    private void housekeepingPass() {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> sessions = Files.newDirectoryStream(rootDir, Files::isDirectory)) {
+            for (Path session : sessions) {
+                boolean own = session.equals(sessionDir);
+                if (!own && isLive(session)) {
+                    continue;
+                }
+                try (DirectoryStream<Path> segments = Files.newDirectoryStream(session, SEGMENT_PREFIX + "*")) {
+                    for (Path segment : segments) {
+                        if (own) {
+                            files.add(segment);
+                        } else if (segment.toString().endsWith(SEGMENT_SUFFIX)) {
+                            files.add(compress(segment));
+                        } else {
+                            files.add(segment);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            AppLogger.warn("Failed to scan log spool: " + e.getMessage());
+            return;
+        }
+        applyRetention(files);
+    }
+
+    private void applyRetention(List<Path> files) {
+        files.sort((a, b) -> Long.compare(lastModified(a), lastModified(b)));
+        try {
+            long totalBytes = 0;
+            for (Path file : files) {
+                totalBytes += Files.size(file);
+            }
+            long oldestAllowed = System.currentTimeMillis() - retentionMillis;
+            for (Path file : files) {
+                if (totalBytes <= retentionBytes && lastModified(file) >= oldestAllowed) {
+                    break;
+                }
+                boolean own = file.getParent().equals(sessionDir);
+                // The store only lets go of its oldest closed segment; never the one being written
+                if (own && !store.release(file)) {
+                    continue;
+                }
+                long size = Files.size(file);
+                Files.deleteIfExists(file);
+                totalBytes -= size;
+                if (!own) {
+                    deleteIfEmpty(file.getParent());
+                }
+            }
+        } catch (IOException e) {
+            AppLogger.warn("Failed to apply log retention: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns whether another launcher still holds the session's lock.
+     */
+    private static boolean isLive(Path session) {
+        Path lockFile = session.resolve(LOCK_FILE);
+        if (!Files.exists(lockFile)) {
+            return false;
+        }
+        try (FileChannel lock = FileChannel.open(lockFile, StandardOpenOption.WRITE)) {
+            FileLock acquired = lock.tryLock();
+            if (acquired == null) {
+                return true;
+            }
+            acquired.release();
+            return false;
+        } catch (OverlappingFileLockException e) {
+            // Held by another spool in this process
+            return true;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static void deleteIfEmpty(Path dir) throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            if (entries.iterator().hasNext()) {
+                return;
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private static void deleteSession(Path dir) throws IOException {
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*")) {
+            for (Path segment : segments) {
+                Files.delete(segment);
+            }
+        }
+        deleteIfEmpty(dir);
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private record Entry(String text) {
+    }
+}
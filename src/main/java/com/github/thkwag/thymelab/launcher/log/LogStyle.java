@@ -0,0 +1,78 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable text style of a log run. Styles are interned so a line only has
+ * to store a small integer id per run.
+ */
+public final class LogStyle {
+    public static final Color DEFAULT_FOREGROUND = new Color(229, 229, 229);
+    public static final Color DEFAULT_BACKGROUND = Color.BLACK;
+
+    // Upper bound for distinct styles, reached only by unusual true-color output
+    private static final int MAX_STYLES = 4096;
+
+    private static final Map<Long, LogStyle> STYLES_BY_KEY = new HashMap<>();
+    private static volatile LogStyle[] stylesById = new LogStyle[0];
+
+    public static final LogStyle DEFAULT = of(DEFAULT_FOREGROUND, DEFAULT_BACKGROUND, false);
+
+    private final int id;
+    private final Color foreground;
+    private final Color background;
+    private final boolean bold;
+
+    private LogStyle(int id, Color foreground, Color background, boolean bold) {
+        this.id = id;
+        this.foreground = foreground;
+        this.background = background;
+        this.bold = bold;
+    }
+
+    public static LogStyle of(Color foreground, Color background, boolean bold) {
+        return of(foreground.getRGB(), background.getRGB(), bold);
+    }
+
+    public static synchronized LogStyle of(int foregroundRgb, int backgroundRgb, boolean bold) {
+        long key = (foregroundRgb & 0xFFFFFFL) | (backgroundRgb & 0xFFFFFFL) << 24 | (bold ? 1L << 48 : 0L);
+        LogStyle style = STYLES_BY_KEY.get(key);
+        if (style != null) {
+            return style;
+        }
+        LogStyle[] current = stylesById;
+        if (current.length >= MAX_STYLES) {
+            return current[0];
+        }
+        style = new LogStyle(current.length, new Color(foregroundRgb), new Color(backgroundRgb), bold);
+        LogStyle[] grown = new LogStyle[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[style.id] = style;
+        STYLES_BY_KEY.put(key, style);
+        stylesById = grown;
+        return style;
+    }
+
+    public static LogStyle get(int id) {
+        LogStyle[] current = stylesById;
+        return id >= 0 && id < current.length ? current[id] : current[0];
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Color getForeground() {
+        return foreground;
+    }
+
+    public Color getBackground() {
+        return background;
+    }
+
+    public boolean isBold() {
+        return bold;
+    }
+}
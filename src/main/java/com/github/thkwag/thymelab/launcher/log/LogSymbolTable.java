@@ -0,0 +1,66 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interns thread and logger names so parsed lines only store an int id.
+ * Any thread may intern; names are read without locking.
+ */
+public final class LogSymbolTable {
+    public static final LogSymbolTable THREADS = new LogSymbolTable();
+    public static final LogSymbolTable LOGGERS = new LogSymbolTable();
+
+    public static final int NONE = -1;
+
+    // Upper bound for distinct names, reached only by runaway thread naming
+    private static final int MAX_SYMBOLS = 65536;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<String, Integer> idsByName = new HashMap<>();
+    // Grown by doubling; a name is written before the count that makes it visible
+    private volatile String[] namesById = new String[INITIAL_CAPACITY];
+    private volatile int count;
+
+    private LogSymbolTable() {
+    }
+
+    /**
+     * Returns the id for a name, or {@link #NONE} once the table is full.
+     */
+    public synchronized int intern(String name) {
+        Integer id = idsByName.get(name);
+        if (id != null) {
+            return id;
+        }
+        int size = count;
+        if (size >= MAX_SYMBOLS) {
+            return NONE;
+        }
+        String[] current = namesById;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, Math.min(current.length * 2, MAX_SYMBOLS));
+            namesById = current;
+        }
+        current[size] = name;
+        idsByName.put(name, size);
+        count = size + 1;
+        return size;
+    }
+
+    public String getName(int id) {
+        // Read the count first: any array published since holds every name below it
+        int size = count;
+        String[] current = namesById;
+        return id >= 0 && id < size ? current[id] : null;
+    }
+
+    /**
+     * Returns a snapshot of all names, indexed by id.
+     */
+    public String[] getNames() {
+        int size = count;
+        return Arrays.copyOf(namesById, size);
+    }
+}
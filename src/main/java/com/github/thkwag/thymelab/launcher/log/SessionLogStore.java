@@ -0,0 +1,233 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+import com.github.thkwag.thymelab.launcher.util.AppLogger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Random access to the lines of one spool session. The spool writer records
+ * the byte offset of every line in a chunked {@code long[]} index; readers
+ * fetch a line by number straight from the segment file. Closed segments are
+ * memory-mapped, so reading old lines costs page faults rather than heap.
+ * <p>
+ * One thread writes (the spool writer), any thread may read. Lines become
+ * readable once their bytes have been flushed to disk.
+ */
+public class SessionLogStore {
+    private static final int INDEX_CHUNK_BITS = 16;
+    private static final int INDEX_CHUNK_SIZE = 1 << INDEX_CHUNK_BITS;
+    private static final int INDEX_CHUNK_MASK = INDEX_CHUNK_SIZE - 1;
+    private static final int LINE_READ_LIMIT = 64 * 1024;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private volatile long[][] indexChunks = new long[16][];
+    private volatile long durableLines;
+    private volatile long firstLine;
+
+    // Writer thread state
+    private long indexedLines;
+    private Segment currentSegment;
+
+    /**
+     * Returns the number of the oldest line still available.
+     */
+    public long getFirstLine() {
+        return firstLine;
+    }
+
+    /**
+     * Returns the number of lines that can be read, counting from line 0.
+     */
+    public long getLineCount() {
+        return durableLines;
+    }
+
+    /**
+     * Reads a line, or returns {@code null} when it is not available.
+     */
+    public String getLine(long lineNumber) {
+        long available = durableLines;
+        if (lineNumber < firstLine || lineNumber >= available) {
+            return null;
+        }
+        Segment segment = findSegment(lineNumber);
+        if (segment == null) {
+            return null;
+        }
+        long start = offsetOf(lineNumber);
+        long end = lineNumber + 1 < available && lineNumber + 1 < segment.endLine
+            ? offsetOf(lineNumber + 1) - 1
+            : -1;
+        try {
+            return segment.read(start, end);
+        } catch (IOException e) {
+            AppLogger.warn("Failed to read log line " + lineNumber + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    void beginSegment(Path path) {
+        currentSegment = new Segment(path, indexedLines);
+        segments.add(currentSegment);
+    }
+
+    void recordLine(long offset) {
+        int chunk = (int) (indexedLines >>> INDEX_CHUNK_BITS);
+        long[][] chunks = indexChunks;
+        if (chunk == chunks.length) {
+            long[][] grown = new long[chunks.length * 2][];
+            System.arraycopy(chunks, 0, grown, 0, chunks.length);
+            indexChunks = chunks = grown;
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new long[INDEX_CHUNK_SIZE];
+        }
+        chunks[chunk][(int) (indexedLines & INDEX_CHUNK_MASK)] = offset;
+        indexedLines++;
+    }
+
+    /**
+     * Publishes every recorded line once the current segment has been
+     * flushed up to {@code segmentLength} bytes.
+     */
+    void markDurable(long segmentLength) {
+        if (currentSegment != null) {
+            currentSegment.length = segmentLength;
+        }
+        durableLines = indexedLines;
+    }
+
+    void endSegment() {
+        if (currentSegment != null) {
+            currentSegment.endLine = indexedLines;
+            currentSegment.closed = true;
+            currentSegment = null;
+        }
+    }
+
+    /**
+     * Drops the oldest segment if it is the given file, so it can be deleted.
+     *
+     * @return whether the segment was released
+     */
+    boolean release(Path path) {
+        if (segments.isEmpty()) {
+            return false;
+        }
+        Segment oldest = segments.get(0);
+        if (!oldest.closed || !oldest.path.equals(path)) {
+            return false;
+        }
+        firstLine = oldest.endLine;
+        segments.remove(0);
+        oldest.close();
+        return true;
+    }
+
+    void close() {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+    }
+
+    private long offsetOf(long lineNumber) {
+        return indexChunks[(int) (lineNumber >>> INDEX_CHUNK_BITS)][(int) (lineNumber & INDEX_CHUNK_MASK)];
+    }
+
+    private Segment findSegment(long lineNumber) {
+        List<Segment> snapshot = segments;
+        int low = 0;
+        int high = snapshot.size() - 1;
+        Segment found = null;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Segment segment = snapshot.get(mid);
+            if (segment.firstLine <= lineNumber) {
+                found = segment;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final long firstLine;
+        private volatile long endLine = Long.MAX_VALUE;
+        private volatile long length;
+        private volatile boolean closed;
+        private FileChannel channel;
+        private MappedByteBuffer mapped;
+
+        Segment(Path path, long firstLine) {
+            this.path = path;
+            this.firstLine = firstLine;
+        }
+
+        /**
+         * Reads the bytes from {@code start} up to {@code end}, or up to the
+         * next line break when {@code end} is -1.
+         */
+        synchronized String read(long start, long end) throws IOException {
+            long limit = length;
+            if (end < 0) {
+                end = Math.min(limit, start + LINE_READ_LIMIT);
+            }
+            int count = (int) Math.max(0, Math.min(end, limit) - start);
+            byte[] bytes = new byte[count];
+            if (closed && limit <= Integer.MAX_VALUE) {
+                if (mapped == null) {
+                    mapped = channel().map(FileChannel.MapMode.READ_ONLY, 0, limit);
+                }
+                mapped.get((int) start, bytes, 0, count);
+            } else {
+                ByteBuffer target = ByteBuffer.wrap(bytes);
+                while (target.hasRemaining()) {
+                    if (channel().read(target, start + target.position()) < 0) {
+                        break;
+                    }
+                }
+            }
+            int newline = indexOf(bytes, (byte) '\n');
+            return new String(bytes, 0, newline < 0 ? count : newline, StandardCharsets.UTF_8);
+        }
+
+        synchronized void close() {
+            mapped = null;
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // Ignore close errors
+                }
+                channel = null;
+            }
+        }
+
+        private FileChannel channel() throws IOException {
+            if (channel == null) {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+            }
+            return channel;
+        }
+
+        private static int indexOf(byte[] bytes, byte value) {
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Recognizes Spring Boot console lines such as
+ * <pre>
+ * 2024-01-15T10:23:45.123+09:00  INFO 12345 --- [app] [           main] c.g.t.Application : Started
+ * 2024-01-15 10:23:45.123  INFO 12345 --- [           main] c.g.t.Application : Started
+ * </pre>
+ * and fills in the timestamp, level, thread and logger of the {@link LogLine}.
+ * Lines without a header, like stack trace frames, inherit the fields of the
+ * entry they belong to. Keeps state between lines, so use one instance per
+ * output stream.
+ */
+public class SpringLogLineParser {
+    private static final String PID_SEPARATOR = "---";
+    private static final String MESSAGE_SEPARATOR = " : ";
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final ZoneId zone;
+
+    // Fields of the last entry, inherited by continuation lines
+    private long timestamp;
+    private byte level = LogLevel.UNKNOWN_CODE;
+    private int threadId = LogSymbolTable.NONE;
+    private int loggerId = LogSymbolTable.NONE;
+
+    // Last parsed local date and its start as if it were UTC
+    private int cachedDate = -1;
+    private long cachedDateMillis;
+    private int cachedOffsetDate = -1;
+    private long cachedOffsetMillis;
+
+    public SpringLogLineParser() {
+        this(ZoneId.systemDefault());
+    }
+
+    public SpringLogLineParser(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    public LogLine parse(LogLine line) {
+        if (!parseHeader(line.text()) && level == LogLevel.UNKNOWN_CODE) {
+            return line;
+        }
+        return new LogLine(line.text(), line.runs(), timestamp, level, threadId, loggerId);
+    }
+
+    /**
+     * Parses a header line and remembers its fields.
+     *
+     * @return whether the line starts a new entry
+     */
+    private boolean parseHeader(String text) {
+        int length = text.length();
+        // yyyy-MM-dd?HH:mm:ss.SSS
+        if (length < 23 || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || (text.charAt(10) != 'T' && text.charAt(10) != ' ')
+                || text.charAt(13) != ':' || text.charAt(16) != ':' || text.charAt(19) != '.') {
+            return false;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        int millis = digits(text, 20, 3);
+        if ((year | month | day | hour | minute | second | millis) < 0) {
+            return false;
+        }
+        int pos = 23;
+        // Optional fraction digits beyond millis
+        while (pos < length && isDigit(text.charAt(pos))) {
+            pos++;
+        }
+
+        long offsetMillis;
+        boolean explicitOffset = true;
+        if (pos < length && text.charAt(pos) == 'Z') {
+            offsetMillis = 0;
+            pos++;
+        } else if (pos + 6 <= length && (text.charAt(pos) == '+' || text.charAt(pos) == '-') && text.charAt(pos + 3) == ':') {
+            int offsetHours = digits(text, pos + 1, 2);
+            int offsetMinutes = digits(text, pos + 4, 2);
+            if ((offsetHours | offsetMinutes) < 0) {
+                return false;
+            }
+            offsetMillis = (offsetHours * 60L + offsetMinutes) * 60_000L * (text.charAt(pos) == '-' ? -1 : 1);
+            pos += 6;
+        } else {
+            offsetMillis = 0;
+            explicitOffset = false;
+        }
+
+        // Level
+        pos = skipSpaces(text, pos);
+        int levelEnd = wordEnd(text, pos);
+        byte parsedLevel = LogLevel.parse(text, pos, levelEnd);
+        if (parsedLevel == LogLevel.UNKNOWN_CODE) {
+            return false;
+        }
+
+        // Pid and separator
+        pos = skipSpaces(text, levelEnd);
+        pos = skipSpaces(text, wordEnd(text, pos));
+        if (!text.startsWith(PID_SEPARATOR, pos)) {
+            return false;
+        }
+        pos = skipSpaces(text, pos + PID_SEPARATOR.length());
+
+        // Optional application name, then thread
+        int threadStart = -1;
+        int threadEnd = -1;
+        while (pos < length && text.charAt(pos) == '[') {
+            int close = text.indexOf(']', pos + 1);
+            if (close < 0) {
+                return false;
+            }
+            threadStart = pos + 1;
+            threadEnd = close;
+            pos = skipSpaces(text, close + 1);
+        }
+        if (threadStart < 0) {
+            return false;
+        }
+
+        // Logger
+        int separator = text.indexOf(MESSAGE_SEPARATOR, pos);
+        if (separator < 0) {
+            return false;
+        }
+
+        int date = year * 10000 + month * 100 + day;
+        if (date != cachedDate) {
+            try {
+                cachedDateMillis = LocalDate.of(year, month, day).toEpochDay() * MILLIS_PER_DAY;
+            } catch (DateTimeException e) {
+                return false;
+            }
+            cachedDate = date;
+        }
+        long dayMillis = cachedDateMillis;
+        long localMillis = dayMillis + ((hour * 60L + minute) * 60L + second) * 1000L + millis;
+        if (!explicitOffset) {
+            offsetMillis = zoneOffsetMillis(date, localMillis);
+        }
+        timestamp = localMillis - offsetMillis;
+        level = parsedLevel;
+        threadId = LogSymbolTable.THREADS.intern(text.substring(threadStart, threadEnd).trim());
+        loggerId = LogSymbolTable.LOGGERS.intern(text.substring(pos, separator).trim());
+        return true;
+    }
+
+    private long zoneOffsetMillis(int date, long localMillis) {
+        // Resolved once per day; a DST switch shifts the rest of that day's lines
+        if (date != cachedOffsetDate) {
+            LocalDateTime local = LocalDateTime.ofEpochSecond(localMillis / 1000, 0, ZoneOffset.UTC);
+            cachedOffsetMillis = zone.getRules().getOffset(local).getTotalSeconds() * 1000L;
+            cachedOffsetDate = date;
+        }
+        return cachedOffsetMillis;
+    }
+
+    private static int digits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int skipSpaces(String text, int pos) {
+        while (pos < text.length() && text.charAt(pos) == ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int wordEnd(String text, int pos) {
+        while (pos < text.length() && text.charAt(pos) != ' ') {
+            pos++;
+        }
+        return pos;
+    }
+}
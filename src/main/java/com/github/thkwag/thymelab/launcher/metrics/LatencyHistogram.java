@@ -0,0 +1,115 @@
+package com.github.thkwag.thymelab.launcher.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts latencies in log-linear buckets, in the manner of HdrHistogram:
+ * values below 128 µs have a bucket each, and every power of two above that
+ * is split into 64 buckets, so any recorded value is known to within about
+ * 1.6%. Recording is a shift and an array increment; the bucket array has a
+ * fixed size no matter how many values are recorded.
+ * <p>
+ * Not thread safe. Concurrent recorders each keep a histogram and
+ * {@link #add(LatencyHistogram) merge} them afterwards.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    // Values up to 2^36 µs, about 19 hours; longer ones count as that
+    private static final int MAX_EXPONENT = 36 - SUB_BUCKET_BITS;
+    private static final long MAX_MICROS = (1L << 36) - 1;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + MAX_EXPONENT * SUB_BUCKET_HALF;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count;
+    private long totalMicros;
+    private long minMicros = Long.MAX_VALUE;
+    private long maxMicros;
+
+    public void recordNanos(long nanos) {
+        recordMicros(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public void recordMicros(long micros) {
+        long value = Math.max(0, Math.min(micros, MAX_MICROS));
+        counts[bucketOf(value)]++;
+        count++;
+        totalMicros += value;
+        minMicros = Math.min(minMicros, value);
+        maxMicros = Math.max(maxMicros, value);
+    }
+
+    /**
+     * Adds the values of another histogram to this one.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        totalMicros += other.totalMicros;
+        minMicros = Math.min(minMicros, other.minMicros);
+        maxMicros = Math.max(maxMicros, other.maxMicros);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMinMicros() {
+        return count == 0 ? 0 : minMicros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public double getMeanMicros() {
+        return count == 0 ? 0 : (double) totalMicros / count;
+    }
+
+    /**
+     * Returns the value below which {@code percentile} percent of the values
+     * fall, such as 99.9 for p999, as the middle of its bucket, or 0 when
+     * nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        double clamped = Math.max(0, Math.min(percentile, 100));
+        long rank = Math.max(1, (long) Math.ceil(clamped / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                long middle = (lowerBound(i) + upperBound(i)) / 2;
+                return Math.max(minMicros, Math.min(middle, maxMicros));
+            }
+        }
+        return maxMicros;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // Shift so the value lands in [64, 128)
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKET_COUNT + (exponent - 1) * SUB_BUCKET_HALF + (int) (value >> exponent) - SUB_BUCKET_HALF;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int exponent = (bucket - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+        long sub = (bucket - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return sub << exponent;
+    }
+
+    static long upperBound(int bucket) {
+        return bucket + 1 < BUCKET_COUNT ? lowerBound(bucket + 1) - 1 : MAX_MICROS;
+    }
+}
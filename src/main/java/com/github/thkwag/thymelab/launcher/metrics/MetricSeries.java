@@ -0,0 +1,147 @@
+package com.github.thkwag.thymelab.launcher.metrics;
+
+/**
+ * The recent values of one metric at three resolutions. Every sample is
+ * kept at {@link Resolution#SECOND}; the coarser resolutions keep the
+ * average of each 10 second and 1 minute bucket once the bucket is over.
+ * Each resolution is a fixed-capacity ring of primitive arrays, so adding a
+ * sample allocates nothing.
+ */
+public final class MetricSeries {
+
+    public enum Resolution {
+        /** Every sample, one per second at the default sampling interval. */
+        SECOND(1000),
+        TEN_SECONDS(10_000),
+        MINUTE(60_000);
+
+        private final long bucketMillis;
+
+        Resolution(long bucketMillis) {
+            this.bucketMillis = bucketMillis;
+        }
+
+        public long getBucketMillis() {
+            return bucketMillis;
+        }
+    }
+
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+    private final String name;
+    private final int capacity;
+
+    // Rings by resolution ordinal, guarded by this
+    private final long[][] times;
+    private final double[][] values;
+    private final int[] next;
+    private final int[] size;
+
+    // The bucket being averaged for each coarser resolution
+    private final long[] bucketStart;
+    private final double[] bucketSum;
+    private final int[] bucketCount;
+
+    public MetricSeries(String name, int capacity) {
+        this.name = name;
+        this.capacity = Math.max(1, capacity);
+        int levels = RESOLUTIONS.length;
+        times = new long[levels][this.capacity];
+        values = new double[levels][this.capacity];
+        next = new int[levels];
+        size = new int[levels];
+        bucketStart = new long[levels];
+        bucketSum = new double[levels];
+        bucketCount = new int[levels];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Adds a sample. Samples are expected in time order.
+     */
+    public synchronized void add(long timeMillis, double value) {
+        push(Resolution.SECOND.ordinal(), timeMillis, value);
+        for (int level = Resolution.SECOND.ordinal() + 1; level < RESOLUTIONS.length; level++) {
+            long bucketMillis = RESOLUTIONS[level].bucketMillis;
+            long bucket = timeMillis - Math.floorMod(timeMillis, bucketMillis);
+            if (bucketCount[level] > 0 && bucket != bucketStart[level]) {
+                push(level, bucketStart[level], bucketSum[level] / bucketCount[level]);
+                bucketSum[level] = 0;
+                bucketCount[level] = 0;
+            }
+            bucketStart[level] = bucket;
+            bucketSum[level] += value;
+            bucketCount[level]++;
+        }
+    }
+
+    /**
+     * Drops all samples.
+     */
+    public synchronized void clear() {
+        for (int level = 0; level < RESOLUTIONS.length; level++) {
+            next[level] = 0;
+            size[level] = 0;
+            bucketSum[level] = 0;
+            bucketCount[level] = 0;
+        }
+    }
+
+    public synchronized int size(Resolution resolution) {
+        return size[resolution.ordinal()];
+    }
+
+    // Samples are addressed by age: 0 is the latest
+
+    public synchronized long getTime(Resolution resolution, int age) {
+        int level = resolution.ordinal();
+        return times[level][index(level, age)];
+    }
+
+    public synchronized double getValue(Resolution resolution, int age) {
+        int level = resolution.ordinal();
+        return values[level][index(level, age)];
+    }
+
+    /**
+     * Returns the latest value, or NaN when there is none.
+     */
+    public synchronized double getLatest() {
+        int level = Resolution.SECOND.ordinal();
+        return size[level] == 0 ? Double.NaN : values[level][index(level, 0)];
+    }
+
+    /**
+     * Copies up to {@code out.length} of the latest values into {@code out},
+     * oldest first, and returns how many were copied.
+     */
+    public synchronized int copyValues(Resolution resolution, double[] out) {
+        int level = resolution.ordinal();
+        int count = Math.min(out.length, size[level]);
+        for (int i = 0; i < count; i++) {
+            out[i] = values[level][index(level, count - 1 - i)];
+        }
+        return count;
+    }
+
+    private void push(int level, long timeMillis, double value) {
+        times[level][next[level]] = timeMillis;
+        values[level][next[level]] = value;
+        next[level] = (next[level] + 1) % capacity;
+        size[level] = Math.min(size[level] + 1, capacity);
+    }
+
+    private int index(int level, int age) {
+        if (age < 0 || age >= size[level]) {
+            throw new IndexOutOfBoundsException("No sample of age " + age);
+        }
+        return Math.floorMod(next[level] - 1 - age, capacity);
+    }
+}
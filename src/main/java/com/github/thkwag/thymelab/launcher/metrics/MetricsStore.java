@@ -0,0 +1,341 @@
+package com.github.thkwag.thymelab.launcher.metrics;
+
+import com.github.thkwag.thymelab.launcher.config.ConfigManager;
+import com.github.thkwag.thymelab.launcher.process.ActuatorClient;
+import com.github.thkwag.thymelab.launcher.util.AppLogger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Samples the actuator metrics of a running processor into
+ * {@link MetricSeries}, whether or not anything is showing them.
+ * <p>
+ * When the processor exposes {@code /actuator/prometheus}, every metric is
+ * collected with one scrape per interval. Series of several label sets are
+ * summed, except {@code _max} series, which keep the largest value.
+ * Histogram buckets and summary quantiles are left out, as they mean
+ * nothing once summed; their {@code _count} and {@code _sum} are kept. The
+ * metrics the launcher charts are stored under their actuator names and all
+ * others under their Prometheus names.
+ * <p>
+ * Otherwise the charted metrics are fetched one by one from
+ * {@code /actuator/metrics} every interval, and all other metrics listed
+ * there every {@value #FULL_SAMPLE_TICKS} intervals. A metric with one
+ * {@code VALUE} measurement is stored under its name, any other measurement
+ * under the name and the lower-case statistic, such as
+ * {@code jvm.gc.pause.max}.
+ * <p>
+ * Samples stay readable after sampling stops and are cleared when it starts
+ * again.
+ */
+public class MetricsStore {
+    public static final String MEMORY_USED = "jvm.memory.used";
+    public static final String CPU_USAGE = "process.cpu.usage";
+    public static final String THREADS_LIVE = "jvm.threads.live";
+    public static final String GC_PAUSE = "jvm.gc.pause";
+    public static final String GC_PAUSE_MAX = GC_PAUSE + ".max";
+
+    private static final String KEY_INTERVAL_MS = "metrics.interval.ms";
+    private static final String KEY_HISTORY = "metrics.history";
+    private static final int DEFAULT_INTERVAL_MS = 1000;
+    private static final int DEFAULT_HISTORY = 600;
+    private static final int MIN_INTERVAL_MS = 250;
+    private static final int FULL_SAMPLE_TICKS = 10;
+    private static final int NAMES_REFRESH_TICKS = 60;
+    private static final List<String> CORE_METRICS = Arrays.asList(MEMORY_USED, CPU_USAGE, THREADS_LIVE, GC_PAUSE);
+    private static final String MAX_SUFFIX = "_max";
+    private static final Map<String, String> PROMETHEUS_ALIASES = Map.of(
+        "jvm_memory_used_bytes", MEMORY_USED,
+        "process_cpu_usage", CPU_USAGE,
+        "jvm_threads_live_threads", THREADS_LIVE,
+        "jvm_gc_pause_seconds_max", GC_PAUSE_MAX,
+        "jvm_gc_pause_seconds_count", GC_PAUSE + ".count",
+        "jvm_gc_pause_seconds_sum", GC_PAUSE + ".total_time");
+
+    private static volatile ScheduledExecutorService sharedScheduler;
+
+    private final long intervalMillis;
+    private final int history;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, MetricSeries> series = new ConcurrentHashMap<>();
+
+    // Sampling state, used by the scheduler thread only
+    private int sampledRun;
+    private volatile List<String> metricNames = Collections.emptyList();
+    private long ticks;
+    private CompletableFuture<Void> inFlight;
+    // Null until the first scrape tells whether the processor has the endpoint; set by the answer
+    private volatile Boolean prometheus;
+
+    // Scrape state, used under the parser's lock by the thread reading an answer
+    private final PrometheusParser parser = new PrometheusParser();
+    private final Map<String, Aggregate> aggregates = new HashMap<>();
+
+    private ScheduledFuture<?> task;
+    private int runs;
+
+    public MetricsStore(long intervalMillis, int history) {
+        this(intervalMillis, history, sharedScheduler());
+    }
+
+    public MetricsStore(long intervalMillis, int history, ScheduledExecutorService scheduler) {
+        this.intervalMillis = Math.max(MIN_INTERVAL_MS, intervalMillis);
+        this.history = Math.max(1, history);
+        this.scheduler = scheduler;
+    }
+
+    public static MetricsStore create(ConfigManager config) {
+        return new MetricsStore(config.getInt(KEY_INTERVAL_MS, DEFAULT_INTERVAL_MS),
+            config.getInt(KEY_HISTORY, DEFAULT_HISTORY));
+    }
+
+    private static ScheduledExecutorService sharedScheduler() {
+        ScheduledExecutorService scheduler = sharedScheduler;
+        if (scheduler == null) {
+            synchronized (MetricsStore.class) {
+                scheduler = sharedScheduler;
+                if (scheduler == null) {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread thread = new Thread(r, "metrics-sampler");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    sharedScheduler = scheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Starts sampling the processor on {@code port}, clearing the samples of
+     * the previous run.
+     */
+    public synchronized void start(int port) {
+        stop();
+        series.clear();
+        ActuatorClient client = ActuatorClient.forPort(port);
+        int run = ++runs;
+        try {
+            task = scheduler.scheduleWithFixedDelay(() -> sample(client, run), 0, intervalMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            AppLogger.debug("Metrics sampling not started: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops sampling. The samples taken stay readable.
+     */
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    public synchronized boolean isSampling() {
+        return task != null;
+    }
+
+    /**
+     * Returns the series of a metric, or null when it has no samples.
+     */
+    public MetricSeries getSeries(String name) {
+        return series.get(name);
+    }
+
+    /**
+     * Returns the names of the series with samples, sorted.
+     */
+    public Set<String> getSeriesNames() {
+        return Collections.unmodifiableSet(new TreeSet<>(series.keySet()));
+    }
+
+    /**
+     * Adds a sample to the series of {@code name}, creating it on first use.
+     */
+    public void record(String name, long timeMillis, double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        series.computeIfAbsent(name, n -> new MetricSeries(n, history)).add(timeMillis, value);
+    }
+
+    private void sample(ActuatorClient client, int run) {
+        if (run != sampledRun) {
+            sampledRun = run;
+            metricNames = Collections.emptyList();
+            ticks = 0;
+            inFlight = null;
+            prometheus = null;
+        }
+        // A slow processor skips samples instead of piling up calls
+        if (inFlight != null && !inFlight.isDone()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        // The client's own futures, since cancelling a dependent does not cancel the call
+        List<CompletableFuture<?>> calls = new ArrayList<>();
+        CompletableFuture<?>[] round = !Boolean.FALSE.equals(prometheus)
+            ? new CompletableFuture<?>[] {scrape(client, now, calls)}
+            : fetchMetrics(client, now, ticks++, calls);
+        inFlight = CompletableFuture.allOf(round).orTimeout(intervalMillis, TimeUnit.MILLISECONDS);
+        inFlight.whenComplete((v, e) -> {
+            if (e instanceof TimeoutException) {
+                for (CompletableFuture<?> call : calls) {
+                    call.cancel(true);
+                }
+            }
+        });
+    }
+
+    private CompletableFuture<Void> scrape(ActuatorClient client, long now, List<CompletableFuture<?>> calls) {
+        CompletableFuture<Void> call = client.read("prometheus", body -> {
+            recordScrape(body, now);
+            return null;
+        });
+        calls.add(call);
+        return call.handle((v, e) -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause == null) {
+                prometheus = Boolean.TRUE;
+            } else if (cause instanceof ActuatorClient.StatusException && prometheus == null) {
+                AppLogger.debug("No Prometheus endpoint, fetching metrics one by one: " + cause.getMessage());
+                prometheus = Boolean.FALSE;
+            }
+            return null;
+        });
+    }
+
+    private CompletableFuture<?>[] fetchMetrics(ActuatorClient client, long now, long tick,
+                                                List<CompletableFuture<?>> calls) {
+        List<CompletableFuture<?>> fetches = new ArrayList<>();
+        if (metricNames.isEmpty() || tick % NAMES_REFRESH_TICKS == 0) {
+            CompletableFuture<JSONObject> call = client.getJson("metrics");
+            calls.add(call);
+            fetches.add(call.thenAccept(this::updateNames));
+        }
+        List<String> names = tick % FULL_SAMPLE_TICKS == 0 && !metricNames.isEmpty() ? metricNames : CORE_METRICS;
+        for (String name : names) {
+            CompletableFuture<JSONObject> call = client.getJson("metrics/" + name);
+            calls.add(call);
+            fetches.add(call.thenAccept(json -> recordMeasurements(name, now, json)));
+        }
+        return fetches.toArray(new CompletableFuture<?>[0]);
+    }
+
+    /**
+     * Parses one scrape answer and records its sums. A body that fails
+     * partway records nothing.
+     */
+    void recordScrape(InputStream body, long timeMillis) throws IOException {
+        synchronized (parser) {
+            // Sums left by a scrape that was cancelled or cut off mid-body
+            for (Aggregate aggregate : aggregates.values()) {
+                aggregate.samples = 0;
+            }
+            parser.parse(body, this::aggregate);
+            recordAggregates(timeMillis);
+        }
+    }
+
+    private void aggregate(String name, double value) {
+        Aggregate aggregate = aggregates.get(name);
+        if (aggregate == null) {
+            aggregate = new Aggregate(PROMETHEUS_ALIASES.getOrDefault(name, name), name.endsWith(MAX_SUFFIX));
+            aggregates.put(name, aggregate);
+        }
+        aggregate.add(value);
+    }
+
+    private void recordAggregates(long timeMillis) {
+        for (Aggregate aggregate : aggregates.values()) {
+            if (aggregate.samples > 0) {
+                record(aggregate.seriesName, timeMillis, aggregate.value);
+                aggregate.samples = 0;
+            }
+        }
+    }
+
+    private void updateNames(JSONObject json) {
+        JSONArray array = json.optJSONArray("names");
+        if (array == null) {
+            return;
+        }
+        List<String> names = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            names.add(array.getString(i));
+        }
+        metricNames = Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Records the measurements of one {@code /actuator/metrics/<name>}
+     * answer.
+     */
+    void recordMeasurements(String name, long timeMillis, JSONObject json) {
+        JSONArray measurements = json.optJSONArray("measurements");
+        if (measurements == null) {
+            return;
+        }
+        for (int i = 0; i < measurements.length(); i++) {
+            JSONObject measurement = measurements.getJSONObject(i);
+            String statistic = measurement.optString("statistic", "VALUE");
+            double value = measurement.optDouble("value", Double.NaN);
+            record(seriesName(name, statistic), timeMillis, value);
+        }
+    }
+
+    static String seriesName(String name, String statistic) {
+        return "VALUE".equals(statistic) ? name : name + "." + statistic.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Combines the label sets of one Prometheus metric within a scrape.
+     * Reused across scrapes.
+     */
+    private static final class Aggregate {
+        private final String seriesName;
+        private final boolean max;
+        private double value;
+        private int samples;
+
+        Aggregate(String seriesName, boolean max) {
+            this.seriesName = seriesName;
+            this.max = max;
+        }
+
+        void add(double sample) {
+            if (Double.isNaN(sample)) {
+                return;
+            }
+            value = samples == 0 ? sample : max ? Math.max(value, sample) : value + sample;
+            samples++;
+        }
+    }
+}
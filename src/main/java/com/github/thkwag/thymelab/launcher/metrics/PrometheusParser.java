@@ -0,0 +1,302 @@
+package com.github.thkwag.thymelab.launcher.metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Parses the Prometheus text exposition format, as served by
+ * {@code /actuator/prometheus}, straight from the response stream. Lines are
+ * split in a reused byte buffer, labels and timestamps are skipped, values
+ * are parsed from the bytes and metric names are looked up in a small cache,
+ * so a scrape of known metrics allocates next to nothing.
+ * <p>
+ * Not thread safe; each scraper keeps its own parser.
+ */
+public final class PrometheusParser {
+
+    public interface SampleSink {
+        /**
+         * One sample line other than a bucket or quantile; labels are
+         * dropped, so a metric with several label sets is reported once per
+         * set.
+         */
+        void sample(String name, double value);
+
+        /**
+         * One histogram bucket or summary quantile sample, told apart by its
+         * {@code le} or {@code quantile} label, which is dropped like the
+         * others. Such samples cannot be combined across label sets and are
+         * ignored unless this is overridden.
+         */
+        default void distributionSample(String name, double value) {
+        }
+    }
+
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int INITIAL_LINE_SIZE = 256;
+    // Longer lines are skipped; only label values of runaway cardinality get there
+    private static final int MAX_LINE_SIZE = 65536;
+    private static final int NAME_CACHE_SIZE = 1024;
+    private static final int MAX_CACHED_NAMES = NAME_CACHE_SIZE * 3 / 4;
+    private static final int MAX_MANTISSA_DIGITS = 18;
+    private static final byte[] LE_LABEL = "le".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] QUANTILE_LABEL = "quantile".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+    private byte[] line = new byte[INITIAL_LINE_SIZE];
+
+    // Open-addressing cache of metric names by their bytes
+    private final int[] cachedHashes = new int[NAME_CACHE_SIZE];
+    private final byte[][] cachedBytes = new byte[NAME_CACHE_SIZE][];
+    private final String[] cachedNames = new String[NAME_CACHE_SIZE];
+    private int cachedCount;
+
+    /**
+     * Reads the exposition from {@code in} to its end, reporting every sample
+     * to {@code sink}. Malformed lines are skipped.
+     */
+    public void parse(InputStream in, SampleSink sink) throws IOException {
+        int length = 0;
+        boolean overlong = false;
+        int read;
+        while ((read = in.read(readBuffer)) > 0) {
+            for (int i = 0; i < read; i++) {
+                byte b = readBuffer[i];
+                if (b == '\n') {
+                    if (!overlong) {
+                        parseLine(line, length, sink);
+                    }
+                    length = 0;
+                    overlong = false;
+                } else if (!overlong) {
+                    if (length == line.length) {
+                        if (length == MAX_LINE_SIZE) {
+                            overlong = true;
+                            continue;
+                        }
+                        line = Arrays.copyOf(line, Math.min(length * 2, MAX_LINE_SIZE));
+                    }
+                    line[length++] = b;
+                }
+            }
+        }
+        if (length > 0 && !overlong) {
+            parseLine(line, length, sink);
+        }
+    }
+
+    void parseLine(byte[] bytes, int length, SampleSink sink) {
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        int pos = 0;
+        while (pos < length && bytes[pos] == ' ') {
+            pos++;
+        }
+        if (pos == length || bytes[pos] == '#') {
+            return;
+        }
+        int nameStart = pos;
+        while (pos < length && bytes[pos] != '{' && bytes[pos] != ' ') {
+            pos++;
+        }
+        int nameEnd = pos;
+        if (nameEnd == nameStart) {
+            return;
+        }
+        boolean distribution = false;
+        if (pos < length && bytes[pos] == '{') {
+            int labelsStart = pos + 1;
+            pos = skipLabels(bytes, labelsStart, length);
+            if (pos < 0) {
+                return;
+            }
+            distribution = hasDistributionLabel(bytes, labelsStart, pos - 1);
+        }
+        while (pos < length && bytes[pos] == ' ') {
+            pos++;
+        }
+        int valueStart = pos;
+        while (pos < length && bytes[pos] != ' ') {
+            pos++;
+        }
+        double value = parseDouble(bytes, valueStart, pos);
+        if (Double.isNaN(value) && !isNaNLiteral(bytes, valueStart, pos)) {
+            return;
+        }
+        if (distribution) {
+            sink.distributionSample(name(bytes, nameStart, nameEnd), value);
+        } else {
+            sink.sample(name(bytes, nameStart, nameEnd), value);
+        }
+    }
+
+    /**
+     * Returns the position after the closing brace of a label set starting
+     * at {@code pos}, or -1 when it does not close.
+     */
+    private static int skipLabels(byte[] bytes, int pos, int length) {
+        boolean quoted = false;
+        while (pos < length) {
+            byte b = bytes[pos++];
+            if (quoted) {
+                if (b == '\\') {
+                    pos++;
+                } else if (b == '"') {
+                    quoted = false;
+                }
+            } else if (b == '"') {
+                quoted = true;
+            } else if (b == '}') {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether the labels between {@code start} and the closing brace
+     * at {@code end} include {@code le} or {@code quantile}.
+     */
+    private static boolean hasDistributionLabel(byte[] bytes, int start, int end) {
+        boolean quoted = false;
+        boolean atName = true;
+        for (int pos = start; pos < end; pos++) {
+            byte b = bytes[pos];
+            if (quoted) {
+                if (b == '\\') {
+                    pos++;
+                } else if (b == '"') {
+                    quoted = false;
+                }
+            } else if (b == '"') {
+                quoted = true;
+            } else if (b == ',') {
+                atName = true;
+            } else if (atName && b != ' ') {
+                if (isLabel(bytes, pos, end, LE_LABEL) || isLabel(bytes, pos, end, QUANTILE_LABEL)) {
+                    return true;
+                }
+                atName = false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLabel(byte[] bytes, int pos, int end, byte[] label) {
+        int nameEnd = pos + label.length;
+        if (nameEnd > end || !Arrays.equals(bytes, pos, nameEnd, label, 0, label.length)) {
+            return false;
+        }
+        while (nameEnd < end && bytes[nameEnd] == ' ') {
+            nameEnd++;
+        }
+        return nameEnd < end && bytes[nameEnd] == '=';
+    }
+
+    private String name(byte[] bytes, int start, int end) {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        int mask = NAME_CACHE_SIZE - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            byte[] cached = cachedBytes[slot];
+            if (cached == null) {
+                String name = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+                if (cachedCount < MAX_CACHED_NAMES) {
+                    cachedHashes[slot] = hash;
+                    cachedBytes[slot] = Arrays.copyOfRange(bytes, start, end);
+                    cachedNames[slot] = name;
+                    cachedCount++;
+                }
+                return name;
+            }
+            if (cachedHashes[slot] == hash && Arrays.equals(cached, 0, cached.length, bytes, start, end)) {
+                return cachedNames[slot];
+            }
+        }
+    }
+
+    /**
+     * Parses a sample value: a decimal with optional exponent, {@code NaN},
+     * {@code +Inf} or {@code -Inf}. Returns NaN for anything else. Values
+     * with more than 18 significant digits lose the rest, which is far below
+     * what a chart shows.
+     */
+    static double parseDouble(byte[] bytes, int start, int end) {
+        if (start >= end) {
+            return Double.NaN;
+        }
+        int pos = start;
+        boolean negative = false;
+        if (bytes[pos] == '+' || bytes[pos] == '-') {
+            negative = bytes[pos] == '-';
+            pos++;
+        }
+        if (end - pos == 3 && bytes[pos] == 'I' && bytes[pos + 1] == 'n' && bytes[pos + 2] == 'f') {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean anyDigit = false;
+        boolean fraction = false;
+        for (; pos < end; pos++) {
+            byte b = bytes[pos];
+            if (b >= '0' && b <= '9') {
+                anyDigit = true;
+                if (digits < MAX_MANTISSA_DIGITS) {
+                    if (mantissa != 0 || b != '0') {
+                        digits++;
+                    }
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (fraction) {
+                        scale--;
+                    }
+                } else if (!fraction) {
+                    scale++;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (!anyDigit) {
+            return Double.NaN;
+        }
+        if (pos < end) {
+            if (bytes[pos] != 'e' && bytes[pos] != 'E') {
+                return Double.NaN;
+            }
+            pos++;
+            boolean negativeExponent = false;
+            if (pos < end && (bytes[pos] == '+' || bytes[pos] == '-')) {
+                negativeExponent = bytes[pos] == '-';
+                pos++;
+            }
+            if (pos == end) {
+                return Double.NaN;
+            }
+            int exponent = 0;
+            for (; pos < end; pos++) {
+                byte b = bytes[pos];
+                if (b < '0' || b > '9') {
+                    return Double.NaN;
+                }
+                exponent = Math.min(exponent * 10 + (b - '0'), 9999);
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        double value = scale == 0 ? mantissa
+            : scale > 0 ? mantissa * Math.pow(10, scale) : mantissa / Math.pow(10, -scale);
+        return negative ? -value : value;
+    }
+
+    private static boolean isNaNLiteral(byte[] bytes, int start, int end) {
+        return end - start == 3 && bytes[start] == 'N' && bytes[start + 1] == 'a' && bytes[start + 2] == 'N';
+    }
+}
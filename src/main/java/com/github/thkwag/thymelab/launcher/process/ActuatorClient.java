@@ -0,0 +1,274 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import com.github.thkwag.thymelab.launcher.util.TaskRuntime;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Talks to the actuator of a processor on {@code localhost}. All clients
+ * share one HTTP client, so calls reuse kept-alive connections instead of
+ * opening one each, and all use the same timeouts. Calls are asynchronous
+ * and run on the launcher's {@link TaskRuntime}; cancelling a returned
+ * future cancels its call.
+ * <p>
+ * Each client keeps the latency of the calls made through it, per endpoint.
+ */
+public final class ActuatorClient {
+    private static final String URL_FORMAT = "http://localhost:%d/actuator/%s";
+    private static final MediaType JSON = MediaType.get("application/json");
+    private static final long CONNECT_TIMEOUT_MS = 1000;
+    private static final long READ_TIMEOUT_MS = 2000;
+    private static final long CALL_TIMEOUT_MS = 3000;
+    private static final int MAX_IDLE_CONNECTIONS = 4;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    // All calls go to one host; the default of 5 would queue parallel metric fetches
+    private static final int MAX_REQUESTS_PER_HOST = 16;
+
+    private static final OkHttpClient HTTP_CLIENT = createHttpClient();
+    private static final Map<Integer, ActuatorClient> CLIENTS = new ConcurrentHashMap<>();
+
+    private final int port;
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    private ActuatorClient(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Returns the client for the processor listening on {@code port}.
+     */
+    public static ActuatorClient forPort(int port) {
+        return CLIENTS.computeIfAbsent(port, ActuatorClient::new);
+    }
+
+    private static OkHttpClient createHttpClient() {
+        Dispatcher dispatcher = new Dispatcher(TaskRuntime.get().openScope("actuator"));
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        return new OkHttpClient.Builder()
+            .dispatcher(dispatcher)
+            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+            .connectTimeout(CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+            .readTimeout(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+            .writeTimeout(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+            .callTimeout(CALL_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+            .retryOnConnectionFailure(true)
+            .build();
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Fetches an endpoint, such as {@code "health"} or
+     * {@code "metrics/jvm.threads.live"}, as text. The future fails with a
+     * {@link StatusException} unless the endpoint answers 2xx, or another
+     * {@link IOException} when the call fails.
+     */
+    public CompletableFuture<String> getText(String endpoint) {
+        return call(endpoint, get(endpoint), response -> {
+            requireSuccess(endpoint, response);
+            return body(response).string();
+        });
+    }
+
+    /**
+     * Fetches an endpoint as a JSON object, failing like
+     * {@link #getText(String)} or when the answer is not a JSON object.
+     */
+    public CompletableFuture<JSONObject> getJson(String endpoint) {
+        return call(endpoint, get(endpoint), response -> {
+            requireSuccess(endpoint, response);
+            String text = body(response).string();
+            try {
+                return new JSONObject(text);
+            } catch (JSONException e) {
+                throw new IOException("Invalid JSON from " + endpoint + ": " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Fetches an endpoint and hands its body to {@code reader} as a stream,
+     * on the thread that received the answer. Fails like
+     * {@link #getText(String)}.
+     */
+    public <T> CompletableFuture<T> read(String endpoint, BodyReader<T> reader) {
+        return call(endpoint, get(endpoint), response -> {
+            requireSuccess(endpoint, response);
+            return reader.read(body(response).byteStream());
+        });
+    }
+
+    /**
+     * Fetches an endpoint and returns only its HTTP status.
+     */
+    public CompletableFuture<Integer> getStatus(String endpoint) {
+        return call(endpoint, get(endpoint), Response::code);
+    }
+
+    /**
+     * Posts a JSON body, or none when {@code json} is null, and returns the
+     * HTTP status.
+     */
+    public CompletableFuture<Integer> post(String endpoint, String json) {
+        Request request = new Request.Builder()
+            .url(url(endpoint))
+            .post(RequestBody.create(json != null ? json : "", JSON))
+            .build();
+        return call(endpoint, request, Response::code);
+    }
+
+    /**
+     * Returns the latency of the calls made so far, by endpoint.
+     */
+    public Map<String, EndpointStats> getEndpointStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    private Request get(String endpoint) {
+        return new Request.Builder().url(url(endpoint)).get().build();
+    }
+
+    private String url(String endpoint) {
+        return String.format(URL_FORMAT, port, endpoint);
+    }
+
+    private <T> CompletableFuture<T> call(String endpoint, Request request, ResponseHandler<T> handler) {
+        EndpointStats endpointStats = stats.computeIfAbsent(statsKey(endpoint), k -> new EndpointStats());
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Call call = HTTP_CLIENT.newCall(request);
+        long startNanos = System.nanoTime();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call c, IOException e) {
+                endpointStats.record(System.nanoTime() - startNanos, false);
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call c, Response response) {
+                try (response) {
+                    T value = handler.handle(response);
+                    endpointStats.record(System.nanoTime() - startNanos, response.isSuccessful());
+                    future.complete(value);
+                } catch (IOException | RuntimeException e) {
+                    endpointStats.record(System.nanoTime() - startNanos, false);
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        // Cancelled or timed out from outside, so drop the call too
+        future.whenComplete((value, e) -> {
+            if (e != null) {
+                call.cancel();
+            }
+        });
+        return future;
+    }
+
+    private static String statsKey(String endpoint) {
+        int query = endpoint.indexOf('?');
+        return query < 0 ? endpoint : endpoint.substring(0, query);
+    }
+
+    private static void requireSuccess(String endpoint, Response response) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new StatusException(endpoint, response.code());
+        }
+    }
+
+    private static ResponseBody body(Response response) throws IOException {
+        ResponseBody body = response.body();
+        if (body == null) {
+            throw new IOException("Empty response");
+        }
+        return body;
+    }
+
+    @FunctionalInterface
+    private interface ResponseHandler<T> {
+        T handle(Response response) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface BodyReader<T> {
+        T read(InputStream body) throws IOException;
+    }
+
+    /**
+     * An endpoint answered with a status other than 2xx, such as 404 for an
+     * endpoint the processor does not expose.
+     */
+    public static final class StatusException extends IOException {
+        private final int status;
+
+        StatusException(String endpoint, int status) {
+            super("Actuator " + endpoint + " returned HTTP " + status);
+            this.status = status;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    /**
+     * Call count, failures and latency of one endpoint.
+     */
+    public static final class EndpointStats {
+        private long calls;
+        private long failures;
+        private long totalNanos;
+        private long maxNanos;
+        private long lastNanos;
+
+        synchronized void record(long nanos, boolean success) {
+            calls++;
+            if (!success) {
+                failures++;
+            }
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            lastNanos = nanos;
+        }
+
+        public synchronized long getCalls() {
+            return calls;
+        }
+
+        public synchronized long getFailures() {
+            return failures;
+        }
+
+        public synchronized double getMeanMillis() {
+            return calls == 0 ? 0 : totalNanos / 1e6 / calls;
+        }
+
+        public synchronized double getMaxMillis() {
+            return maxNanos / 1e6;
+        }
+
+        public synchronized double getLastMillis() {
+            return lastNanos / 1e6;
+        }
+    }
+}
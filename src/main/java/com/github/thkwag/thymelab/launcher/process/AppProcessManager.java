@@ -1,31 +1,123 @@
 package com.github.thkwag.thymelab.launcher.process;
 
 import com.github.thkwag.thymelab.launcher.config.ConfigManager;
+import com.github.thkwag.thymelab.launcher.config.JvmProfile;
+import com.github.thkwag.thymelab.launcher.log.AnsiParser;
+import com.github.thkwag.thymelab.launcher.log.LogLine;
+import com.github.thkwag.thymelab.launcher.log.LogSpool;
+import com.github.thkwag.thymelab.launcher.log.SpringLogLineParser;
+import com.github.thkwag.thymelab.launcher.metrics.MetricsStore;
+import com.github.thkwag.thymelab.launcher.util.AppLogger;
+import com.github.thkwag.thymelab.launcher.util.TaskRuntime;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public class AppProcessManager {
     private final ConfigManager config;
-    private Process process;
-    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private volatile Process process;
+    // The process a stop was asked for, so its exit is not taken for a crash
+    private volatile Process stopRequested;
+    private final AtomicReference<ProcessState> state = new AtomicReference<>(ProcessState.STOPPED);
+    private final List<Consumer<ProcessState>> stateListeners = new CopyOnWriteArrayList<>();
+    // Completed by the exit watcher of the current process
+    private volatile CompletableFuture<Integer> exited = CompletableFuture.completedFuture(0);
+    // Completes once the stop asked for has finished; guarded by this
+    private CompletableFuture<Void> stopping;
+    // The port the current process was started with
+    private volatile int runningPort;
+    // The java executable the current process was started with
+    private volatile String runningJavaPath;
+    // JVM options for the next start only, such as a flight recording
+    private final List<String> nextStartOptions = new ArrayList<>();
+    private final ExecutorService executor;
+    private final ScheduledExecutorService flushScheduler;
+    // False when the executors are shared with other instances and shut down by their owner
+    private final boolean ownsExecutors;
     private final LogConsumer logConsumer;
+    private final LogBatcher outputBatcher;
+    // Receives every output line and message before the log queue can drop any
+    private volatile LogSpool logSpool;
     private final Runnable onProcessExit;
+    private final CdsArchive cdsArchive;
+    private final StartupTimeline startupTimeline = new StartupTimeline();
+    private final StartupHistory startupHistory;
+    private final ProcessResourceSampler resourceSampler;
+    private final MetricsStore metricsStore;
+    private volatile StartupHistory.Session startupSession;
+    private volatile ReadinessDetector readinessDetector;
+    private volatile ReadinessDetector.Listener readinessListener;
+    private volatile ExitListener exitListener;
+
+    // Process output is handed to the UI at most once per frame
+    private static final long LOG_FLUSH_INTERVAL_MS = 33;
+    // How long the exit message waits for the remaining output to be read
+    private static final long OUTPUT_DRAIN_TIMEOUT_MS = 2000;
+    // Stop sequence: actuator shutdown, then SIGTERM, then a forced kill
+    private static final int DEFAULT_GRACEFUL_STOP_SECONDS = 5;
+    private static final int DEFAULT_TERMINATE_SECONDS = 5;
 
     public AppProcessManager(LogConsumer logConsumer, Runnable onProcessExit, ConfigManager config) {
+        this(logConsumer, onProcessExit, config, TaskRuntime.get().openScope("processor"),
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "log-flush");
+                thread.setDaemon(true);
+                return thread;
+            }), true);
+    }
+
+    /**
+     * Creates a manager that runs its output readers and log flushes on
+     * executors shared with other processor instances.
+     */
+    public AppProcessManager(LogConsumer logConsumer, Runnable onProcessExit, ConfigManager config,
+                             ExecutorService executor, ScheduledExecutorService flushScheduler) {
+        this(logConsumer, onProcessExit, config, executor, flushScheduler, false);
+    }
+
+    private AppProcessManager(LogConsumer logConsumer, Runnable onProcessExit, ConfigManager config,
+                              ExecutorService executor, ScheduledExecutorService flushScheduler, boolean ownsExecutors) {
+        this.executor = executor;
+        this.flushScheduler = flushScheduler;
+        this.ownsExecutors = ownsExecutors;
         this.logConsumer = logConsumer;
         this.onProcessExit = onProcessExit;
         this.config = config;
+        this.outputBatcher = new LogBatcher(logConsumer, flushScheduler, LOG_FLUSH_INTERVAL_MS, createLogQueue(config));
+        this.cdsArchive = CdsArchive.create(config);
+        this.startupHistory = StartupHistory.create(config);
+        this.resourceSampler = ProcessResourceSampler.create(config);
+        this.metricsStore = MetricsStore.create(config);
+        // A start is complete once the server is healthy
+        startupTimeline.addListener(timeline -> {
+            if (timeline.isReached(StartupTimeline.Phase.HEALTHY)) {
+                recordStartup();
+            }
+            // The "Started" line ends the port probing
+            ReadinessDetector detector = readinessDetector;
+            if (detector != null && timeline.isReached(StartupTimeline.Phase.STARTED)) {
+                detector.signalStarted();
+            }
+        });
         
         // Register shutdown hook for process cleanup
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -34,12 +126,305 @@ public class AppProcessManager {
         }));
     }
 
+    private static LogQueue createLogQueue(ConfigManager config) {
+        int capacity = config.getInt("log.queue.capacity", 65536);
+        LogQueue.OverflowPolicy policy = LogQueue.OverflowPolicy.parse(config.getProperty("log.queue.policy", "BLOCK"));
+        int sampleRate = config.getInt("log.queue.sample.rate", 10);
+        return new LogQueue(capacity, policy, sampleRate);
+    }
+
+    /**
+     * Returns the queue between the output reader and the log view, whose
+     * counters tell how much output was dropped or held back.
+     */
+    public LogQueue getLogQueue() {
+        return outputBatcher.getQueue();
+    }
+
+    /**
+     * Returns the phase timings of the current or last start.
+     */
+    public StartupTimeline getStartupTimeline() {
+        return startupTimeline;
+    }
+
+    /**
+     * Returns the sampler of the running processor's CPU, memory, threads and
+     * open files, which keeps the samples of the last run once it exits.
+     */
+    public ProcessResourceSampler getResourceSampler() {
+        return resourceSampler;
+    }
+
+    /**
+     * Returns the actuator metrics sampled since the processor became ready,
+     * which keeps the samples of the last run once it exits.
+     */
+    public MetricsStore getMetricsStore() {
+        return metricsStore;
+    }
+
+    /**
+     * Told when a started processor exits, before {@code onProcessExit}.
+     */
+    public interface ExitListener {
+        /**
+         * @param exitCode  the exit code of the process
+         * @param requested whether the exit followed {@link #stopProcess()}
+         */
+        void onExit(int exitCode, boolean requested);
+    }
+
+    /**
+     * Sets who is told how a processor exited. Called from the exit watcher.
+     */
+    public void setExitListener(ExitListener listener) {
+        this.exitListener = listener;
+    }
+
+    /**
+     * Sets who is told when a started processor becomes ready or fails to.
+     * Called from a probe thread.
+     */
+    public void setReadinessListener(ReadinessDetector.Listener listener) {
+        this.readinessListener = listener;
+    }
+
+    /**
+     * Returns whether the running processor answered its health check.
+     */
+    public boolean isReady() {
+        return state.get() == ProcessState.READY;
+    }
+
+    public ProcessState getState() {
+        return state.get();
+    }
+
+    /**
+     * Adds a listener told of every state change, on the thread that made it.
+     */
+    public void addStateListener(Consumer<ProcessState> listener) {
+        stateListeners.add(listener);
+    }
+
+    private boolean transition(ProcessState from, ProcessState to) {
+        if (!state.compareAndSet(from, to)) {
+            return false;
+        }
+        notifyState(to);
+        return true;
+    }
+
+    /**
+     * Moves to {@code STOPPED} from whatever state the process is in and
+     * returns that state.
+     */
+    private ProcessState moveToStopped() {
+        ProcessState from = state.getAndSet(ProcessState.STOPPED);
+        if (from != ProcessState.STOPPED) {
+            notifyState(ProcessState.STOPPED);
+        }
+        return from;
+    }
+
+    private void notifyState(ProcessState to) {
+        for (Consumer<ProcessState> listener : stateListeners) {
+            listener.accept(to);
+        }
+    }
+
+    /**
+     * Starts the processor on a background thread. The future completes once
+     * the process was spawned, or exceptionally when it could not be.
+     */
+    public CompletableFuture<Void> start() {
+        return CompletableFuture.runAsync(() -> {
+            startProcess();
+            if (!isRunning()) {
+                throw new IllegalStateException("Processor did not start");
+            }
+        }, executor);
+    }
+
+    /**
+     * Stops the processor without blocking the caller: the actuator shutdown
+     * endpoint is asked first, then the process is terminated, then killed.
+     * The future completes once the process has exited and its last output
+     * was handed on. Stopping a processor that is already stopping returns
+     * the same future.
+     * <p>
+     * A stop that comes while the process is still being launched only
+     * records the request; the start sees it once the process was spawned
+     * and stops it then, so the caller never waits for the launch.
+     */
+    public synchronized CompletableFuture<Void> stop() {
+        Process current = process;
+        if (current == null) {
+            if (transition(ProcessState.STARTING, ProcessState.STOPPING)) {
+                cancelReadiness();
+                stopping = new CompletableFuture<>();
+            }
+            return state.get() == ProcessState.STOPPING && stopping != null
+                ? stopping : CompletableFuture.completedFuture(null);
+        }
+        if (!current.isAlive()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (stopRequested == current && stopping != null) {
+            return stopping;
+        }
+        stopRequested = current;
+        cancelReadiness();
+        // The readiness probe may move STARTING to READY meanwhile
+        ProcessState from = state.get();
+        while ((from == ProcessState.STARTING || from == ProcessState.READY) && !transition(from, ProcessState.STOPPING)) {
+            from = state.get();
+        }
+        stopping = shutdownAsync(current, exited);
+        return stopping;
+    }
+
+    /**
+     * Runs the stop sequence for the process on the executor and returns a
+     * future completed once it has exited.
+     */
+    private CompletableFuture<Void> shutdownAsync(Process current, CompletableFuture<Integer> exit) {
+        CompletableFuture<Void> shutdown;
+        try {
+            shutdown = CompletableFuture.runAsync(() -> shutdown(current), executor);
+        } catch (RejectedExecutionException e) {
+            shutdown(current);
+            shutdown = CompletableFuture.completedFuture(null);
+        }
+        return shutdown.thenCompose(v -> exit).thenApply(code -> null);
+    }
+
+    /**
+     * Stops the processor and starts it again.
+     */
+    public CompletableFuture<Void> restart() {
+        return stop().thenCompose(v -> start());
+    }
+
+    private void shutdown(Process current) {
+        try {
+            if (requestShutdown(runningPort)
+                    && current.waitFor(config.getInt("process.stop.graceful.seconds", DEFAULT_GRACEFUL_STOP_SECONDS), TimeUnit.SECONDS)) {
+                return;
+            }
+            current.destroy();
+            if (current.waitFor(config.getInt("process.stop.terminate.seconds", DEFAULT_TERMINATE_SECONDS), TimeUnit.SECONDS)) {
+                return;
+            }
+            AppLogger.warn("Processor did not terminate; killing it");
+            current.destroyForcibly();
+        } catch (InterruptedException e) {
+            current.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Asks Spring Boot to close its context through the actuator. Returns
+     * false when the endpoint is not there, which it is not unless the
+     * processor enables it.
+     */
+    private static boolean requestShutdown(int port) {
+        try {
+            int responseCode = ActuatorClient.forPort(port).post("shutdown", null).get();
+            AppLogger.debug("Actuator shutdown answered HTTP " + responseCode);
+            return responseCode == 200;
+        } catch (ExecutionException e) {
+            AppLogger.debug("Actuator shutdown not available: " + e.getCause().getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Writes a launcher message to this instance's log, after the output
+     * read so far.
+     */
+    public void log(String message) {
+        appendMessage(message + "\n");
+    }
+
+    /**
+     * Writes the processor's output and launcher messages to the given
+     * session log as they are read, ahead of the log queue, so lines the
+     * queue drops on their way to the view are still kept on disk.
+     */
+    public void setLogSpool(LogSpool spool) {
+        this.logSpool = spool;
+    }
+
+    public int getPort() {
+        return config.getInt("server.port", 8080);
+    }
+
+    /**
+     * Returns the port the running processor was started with, which stays
+     * the same when the setting is changed meanwhile.
+     */
+    public int getRunningPort() {
+        return runningPort;
+    }
+
+    /**
+     * Returns the java executable the running processor was started with,
+     * or null before the first start.
+     */
+    public String getRunningJavaPath() {
+        return runningJavaPath;
+    }
+
+    /**
+     * Returns the process id of the running processor, or -1 when it is not
+     * running.
+     */
+    public long getPid() {
+        Process current = process;
+        return current != null && current.isAlive() ? current.pid() : -1;
+    }
+
+    /**
+     * Adds JVM options to the next start only; they are not kept in the
+     * settings.
+     */
+    public synchronized void addNextStartOptions(List<String> options) {
+        nextStartOptions.addAll(options);
+    }
+
+    public ConfigManager getConfig() {
+        return config;
+    }
+
     public boolean isRunning() {
-        return process != null && process.isAlive();
+        // Read once: a start clears the field until it has spawned its process
+        Process current = process;
+        return current != null && current.isAlive();
     }
 
+    /**
+     * Launches the processor unless it is running or being started. Only the
+     * hand-over of the spawned process holds the lock {@link #stop()} takes;
+     * finding and hashing the jar and spawning the process do not.
+     */
     public void startProcess() {
-        if (isRunning()) return;
+        List<String> startOptions;
+        synchronized (this) {
+            if (isRunning() || !transition(ProcessState.STOPPED, ProcessState.STARTING)) return;
+            // Tells stop() that this start has not spawned its process yet
+            process = null;
+            startOptions = new ArrayList<>(nextStartOptions);
+            nextStartOptions.clear();
+        }
+        cancelReadiness();
+        startupTimeline.begin();
+        startupSession = null;
 
         List<String> command = new ArrayList<>();
         
@@ -67,16 +452,36 @@ public class AppProcessManager {
             // Set process name for Unix-like systems
             command.add("-Dproc_name=ThymeleafProcessor");
         }
-        
-        command.add("-jar");
 
+        // Ask the child to write its console output in the charset it is read with
+        Charset outputCharset = ProcessOutputReader.charsetOf(config.getProperty("process.output.charset", "UTF-8"));
+        command.add("-Dstdout.encoding=" + outputCharset.name());
+        command.add("-Dstderr.encoding=" + outputCharset.name());
+        command.add("-Dsun.stdout.encoding=" + outputCharset.name());
+        command.add("-Dsun.stderr.encoding=" + outputCharset.name());
+
+        // Options of the active JVM profile
+        JvmProfile profile = config.getJvmProfile();
+        if (profile != null) {
+            command.addAll(JvmProfile.splitOptions(config.getJvmOptions(profile)));
+        }
+        command.addAll(startOptions);
+        
         File jarFile = findProcessorJar();
         if (jarFile == null) {
             //logConsumer.accept("Error: Cannot find processor jar\n");
-            onProcessExit.run();  // Notify process exit to reset UI state
+            abortStart();
             return;
         }
+        startupTimeline.mark(StartupTimeline.Phase.JAR_FOUND);
+
+        // Map the class archive of an earlier run, or dump one for the next
+        CdsArchive.Run cdsRun = cdsArchive != null ? cdsArchive.prepare(javaPath, jarFile) : null;
+        if (cdsRun != null) {
+            command.addAll(cdsRun.getVmOptions());
+        }
 
+        command.add("-jar");
         command.add(jarFile.getAbsolutePath());
 
         // Add log level setting
@@ -86,6 +491,7 @@ public class AppProcessManager {
         // Add port setting
         int port = config.getInt("server.port", 8080);
         command.add("--server.port=" + port);
+        command.add("--logging.charset.console=" + outputCharset.name());
 
         // Add Thymeleaf directory settings
         String staticPath = config.getProperty("static.folder.path", "");
@@ -109,55 +515,236 @@ public class AppProcessManager {
         Map<String, String> env = pb.environment();
         env.put("PROCESS_NAME", "ThymeleafProcessor");
 
+        String commandLine = formatCommandLine(command);
+        AppLogger.info("Starting processor: " + commandLine);
+        appendMessage("JVM profile: " + (profile != null ? profile.getId() : JvmProfile.CUSTOM.getId()) + "\n"
+            + "Command line: " + commandLine + "\n");
+
+        // Do not spawn at all when a stop came while the command was prepared
+        if (state.get() != ProcessState.STARTING) {
+            abortStart();
+            return;
+        }
+
         try {
-            process = pb.start();
-            executor.submit(() -> {
-                try (BufferedReader br = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                    String line;
-                    while ((line = br.readLine()) != null) {
-                        logConsumer.accept(line + "\n");
-                    }
-                } catch (IOException e) {
-                    logConsumer.accept("Error reading process output: " + e.getMessage() + "\n");
+            Process started = pb.start();
+            CompletableFuture<Integer> exit = new CompletableFuture<>();
+            CompletableFuture<Void> pendingStop;
+            synchronized (this) {
+                process = started;
+                exited = exit;
+                // A stop that came during the launch is carried out now
+                pendingStop = state.get() == ProcessState.STOPPING ? stopping : null;
+                if (pendingStop != null) {
+                    stopRequested = started;
                 }
-            });
+            }
+            startupTimeline.mark(StartupTimeline.Phase.SPAWNED);
+            startupSession = new StartupHistory.Session(jarFile.getAbsolutePath(), jarFile.length(),
+                profile != null ? profile.getId() : JvmProfile.CUSTOM.getId(),
+                cdsRun == null ? "off" : cdsRun.isUsingArchive() ? "with" : "without", javaPath);
+            if (cdsRun != null) {
+                appendMessage(cdsRun.isUsingArchive()
+                    ? "Using CDS archive " + cdsRun.getArchive() + "\n"
+                    : "Creating CDS archive; it is used from the next start\n");
+            }
+            runningPort = port;
+            runningJavaPath = javaPath;
+            if (pendingStop == null) {
+                startReadiness(port);
+            }
+            resourceSampler.start(started.toHandle());
+            Future<?> readerTask = executor.submit(TaskRuntime.named("output-reader",
+                () -> readOutput(started.getInputStream(), outputCharset, cdsRun)));
 
-            executor.submit(() -> {
+            executor.submit(TaskRuntime.named("exit-watcher", () -> {
                 try {
-                    int exitCode = process.waitFor();
-                    logConsumer.accept("Process exited with code: " + exitCode + "\n");
+                    int exitCode = started.waitFor();
+                    cancelReadiness();
+                    resourceSampler.stop();
+                    metricsStore.stop();
+                    // Let the reader queue the last lines so the exit message comes after them
+                    try {
+                        readerTask.get(OUTPUT_DRAIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    } catch (ExecutionException | TimeoutException ignored) {}
+                    // Record starts that never became healthy too
+                    recordStartup();
+                    if (cdsRun != null && cdsRun.processExited()) {
+                        appendMessage("CDS archive created: " + cdsRun.getArchive() + "\n");
+                    }
+                    appendMessage("Process exited with code: " + exitCode + "\n");
+                    outputBatcher.flush();
+                    moveToStopped();
+                    exit.complete(exitCode);
+                    ExitListener listener = exitListener;
+                    if (listener != null) {
+                        listener.onExit(exitCode, stopRequested == started);
+                    }
                     onProcessExit.run();
-                } catch (InterruptedException ignored) {}
-            });
+                } catch (InterruptedException ignored) {
+                } finally {
+                    // Never leave a stop waiting, even when interrupted on shutdown
+                    exit.complete(-1);
+                }
+            }));
+            if (pendingStop != null) {
+                shutdownAsync(started, exit).whenComplete((v, e) -> pendingStop.complete(null));
+            }
         } catch (IOException e) {
             logConsumer.accept("Failed to start process: " + e.getMessage() + "\n");
-            onProcessExit.run();  // Notify process exit to reset UI state
+            abortStart();
+        }
+    }
+
+    /**
+     * Ends a start that spawned no process, completing a stop that was asked
+     * for meanwhile.
+     */
+    private void abortStart() {
+        CompletableFuture<Void> pendingStop;
+        synchronized (this) {
+            pendingStop = moveToStopped() == ProcessState.STOPPING ? stopping : null;
+        }
+        if (pendingStop != null) {
+            pendingStop.complete(null);
+        }
+        onProcessExit.run();  // Notify process exit to reset UI state
+    }
+
+    private void startReadiness(int port) {
+        ReadinessDetector detector = new ReadinessDetector(port, new ReadinessDetector.Listener() {
+            @Override
+            public void onReady() {
+                // A stop or an exit came first
+                if (!transition(ProcessState.STARTING, ProcessState.READY)) {
+                    return;
+                }
+                startupTimeline.mark(StartupTimeline.Phase.HEALTHY);
+                metricsStore.start(port);
+                ReadinessDetector.Listener listener = readinessListener;
+                if (listener != null) {
+                    listener.onReady();
+                }
+            }
+
+            @Override
+            public void onTimeout() {
+                ReadinessDetector.Listener listener = readinessListener;
+                if (listener != null) {
+                    listener.onTimeout();
+                }
+            }
+        });
+        readinessDetector = detector;
+        // The "Started" line may already have been logged
+        if (startupTimeline.isReached(StartupTimeline.Phase.STARTED)) {
+            detector.signalStarted();
+        }
+        detector.start();
+    }
+
+    private void cancelReadiness() {
+        ReadinessDetector detector = readinessDetector;
+        if (detector != null) {
+            detector.cancel();
+            readinessDetector = null;
         }
     }
 
+    private void recordStartup() {
+        StartupHistory.Session session = startupSession;
+        if (startupHistory != null && session != null && startupTimeline.claimRecording()) {
+            startupHistory.append(session, startupTimeline);
+        }
+    }
+
+    /**
+     * Joins the command for display, quoting arguments that contain spaces.
+     */
+    static String formatCommandLine(List<String> command) {
+        StringBuilder line = new StringBuilder();
+        for (String arg : command) {
+            if (line.length() > 0) {
+                line.append(' ');
+            }
+            if (arg.isEmpty() || arg.indexOf(' ') >= 0 || arg.indexOf('\t') >= 0) {
+                line.append('"').append(arg.replace("\"", "\\\"")).append('"');
+            } else {
+                line.append(arg);
+            }
+        }
+        return line.toString();
+    }
+
+    private void readOutput(InputStream output, Charset charset, CdsArchive.Run cdsRun) {
+        // Escape sequences are parsed here so the EDT only inserts styled runs
+        AnsiParser ansiParser = new AnsiParser();
+        SpringLogLineParser springParser = new SpringLogLineParser();
+        ProcessOutputReader reader = new ProcessOutputReader(output, charset);
+        reader.setFirstDataListener(() -> startupTimeline.mark(StartupTimeline.Phase.FIRST_OUTPUT));
+        try (output) {
+            reader.readLines((chars, start, end) -> {
+                LogLine line = spool(springParser.parse(ansiParser.parseLine(chars, start, end)));
+                outputBatcher.add(line);
+                if (startupTimeline.markIfStarted(line.text()) && cdsRun != null) {
+                    appendMessage(cdsRun.recordStartup(startupTimeline.getReportedSeconds()) + "\n");
+                }
+            });
+        } catch (IOException e) {
+            appendMessage("Error reading process output: " + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Writes a line to the session log and returns it numbered as stored there.
+     */
+    private LogLine spool(LogLine line) {
+        LogSpool spool = logSpool;
+        return spool != null ? line.withSpoolLine(spool.append(line.text())) : line;
+    }
+
+    /**
+     * Queues launcher message text for the view, after writing it to the
+     * session log.
+     */
+    private void appendMessage(String text) {
+        List<LogLine> lines = LogBatcher.splitLines(text);
+        lines.replaceAll(this::spool);
+        outputBatcher.acceptBatch(lines);
+    }
+
+    /**
+     * Stops the processor and waits until it has exited. Never call this on
+     * the EDT; use {@link #stop()} there.
+     */
     public void stopProcess() {
         if (!isRunning()) return;
-        process.destroy();
         try {
-            // Force kill process if not terminated within 5 seconds
-            if (!process.waitFor(5, TimeUnit.SECONDS)) {
-                process.destroyForcibly();
-            }
-        } catch (InterruptedException ignored) {
-            process.destroyForcibly();
+            stop().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            AppLogger.error("Failed to stop processor: " + e.getCause().getMessage(), e.getCause());
         }
     }
 
     private void forceStopProcess() {
-        if (process != null) {
-            process.destroyForcibly();
+        Process current = process;
+        if (current != null) {
+            stopRequested = current;
+            current.destroyForcibly();
             try {
-                process.waitFor(5, TimeUnit.SECONDS);
+                current.waitFor(5, TimeUnit.SECONDS);
             } catch (InterruptedException ignored) {}
         }
     }
 
     private void shutdownExecutor() {
+        outputBatcher.flush();
+        if (!ownsExecutors) {
+            return;
+        }
+        flushScheduler.shutdownNow();
         executor.shutdownNow();
         try {
             if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
@@ -0,0 +1,282 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import com.github.thkwag.thymelab.launcher.config.ConfigManager;
+import com.github.thkwag.thymelab.launcher.util.AppLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps dynamic AppCDS archives of the processor's loaded classes, so later
+ * starts take already parsed and verified classes from the archive.
+ * <p>
+ * With {@code java -jar} on a Spring Boot jar only the JDK classes and
+ * Boot's launcher are mapped outright. The libraries in {@code BOOT-INF/lib}
+ * are loaded by Boot's own class loader, which still reads and inflates
+ * every class from the nested jar; the archive copy is used only once its
+ * bytes match, which saves parsing and verification but not the reading.
+ * An extracted processor would be needed for the full benefit.
+ * <p>
+ * Archives live in {@code ~/.thymelab/cds/} and are keyed by the SHA-256 of
+ * the processor jar and the identity of the java runtime, so replacing
+ * either one simply leads to a new archive. The first run of a key dumps
+ * the archive when the JVM exits normally; every later run maps it. The
+ * startup time Spring Boot reports is remembered per key for both kinds of
+ * run so they can be compared.
+ */
+public class CdsArchive {
+    private static final String KEY_ENABLED = "jvm.cds.enabled";
+
+    private static final String ARCHIVE_SUFFIX = ".jsa";
+    private static final String PARTIAL_SUFFIX = ".jsa.part";
+    private static final String INFO_SUFFIX = ".properties";
+    private static final String PROP_JAR = "jar";
+    private static final String PROP_STARTUP_WITHOUT = "startup.without";
+    private static final String PROP_STARTUP_WITH = "startup.with";
+
+    // Tells apart the dumps of instances that start the same jar at the same time
+    private static final AtomicLong RUN_IDS = new AtomicLong();
+
+    private final Path archiveDir;
+    // Jar hashes by path, size and modification time, so unchanged jars are hashed once
+    private final Map<String, String> jarHashes = new ConcurrentHashMap<>();
+
+    public CdsArchive(Path archiveDir) {
+        this.archiveDir = archiveDir;
+    }
+
+    /**
+     * Creates the archive manager for the configured settings, or returns
+     * null when class data sharing is disabled.
+     */
+    public static CdsArchive create(ConfigManager config) {
+        if (!config.getBoolean(KEY_ENABLED, true)) {
+            return null;
+        }
+        return new CdsArchive(Paths.get(System.getProperty("user.home"), ".thymelab", "cds"));
+    }
+
+    /**
+     * Picks the archive for the next start of {@code jar} on the given java
+     * binary, or returns null when no key can be computed.
+     */
+    public Run prepare(String javaPath, File jar) {
+        try {
+            Files.createDirectories(archiveDir);
+            String key = jarHash(jar).substring(0, 32) + "-" + runtimeHash(javaPath).substring(0, 16);
+            return new Run(key, jar.getAbsolutePath());
+        } catch (IOException e) {
+            AppLogger.warn("CDS archive disabled for this start: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * One start of the processor with or without an existing archive.
+     */
+    public class Run {
+        private final String key;
+        private final String jarPath;
+        private final Path archive;
+        private final Path partialArchive;
+        private final Path infoFile;
+        private final boolean usingArchive;
+
+        private Run(String key, String jarPath) {
+            this.key = key;
+            this.jarPath = jarPath;
+            this.archive = archiveDir.resolve(key + ARCHIVE_SUFFIX);
+            this.partialArchive = archiveDir.resolve(key + "-" + ProcessHandle.current().pid() + "-"
+                + RUN_IDS.incrementAndGet() + PARTIAL_SUFFIX);
+            this.infoFile = archiveDir.resolve(key + INFO_SUFFIX);
+            this.usingArchive = Files.isRegularFile(archive);
+        }
+
+        /**
+         * Returns the VM options that map or create the archive.
+         */
+        public List<String> getVmOptions() {
+            String option = usingArchive
+                ? "-XX:SharedArchiveFile=" + archive
+                : "-XX:ArchiveClassesAtExit=" + partialArchive;
+            // Runtimes older than JDK 13 do not know these and should still start
+            return List.of("-XX:+IgnoreUnrecognizedVMOptions", option);
+        }
+
+        public boolean isUsingArchive() {
+            return usingArchive;
+        }
+
+        public Path getArchive() {
+            return archive;
+        }
+
+        /**
+         * Remembers the reported startup time for this kind of run and returns
+         * a line comparing it with the other kind, if known.
+         */
+        public String recordStartup(double seconds) {
+            Properties info = loadInfo();
+            info.setProperty(PROP_JAR, jarPath);
+            info.setProperty(usingArchive ? PROP_STARTUP_WITH : PROP_STARTUP_WITHOUT, Double.toString(seconds));
+            saveInfo(info);
+
+            String other = info.getProperty(usingArchive ? PROP_STARTUP_WITHOUT : PROP_STARTUP_WITH);
+            String message = String.format(Locale.ROOT, "Startup took %.2f s %s the CDS archive", seconds,
+                usingArchive ? "with" : "without");
+            if (other != null) {
+                try {
+                    message += String.format(Locale.ROOT, " (%.2f s %s)", Double.parseDouble(other),
+                        usingArchive ? "without" : "with");
+                } catch (NumberFormatException ignored) {}
+            }
+            return message;
+        }
+
+        /**
+         * Publishes an archive dumped by this run and removes archives of
+         * earlier versions of the same jar or runtime. Call after the process
+         * has exited.
+         *
+         * @return whether a new archive was created
+         */
+        public boolean processExited() {
+            if (usingArchive) {
+                return false;
+            }
+            try {
+                // The dump is only complete if the JVM got to exit normally
+                if (!Files.isRegularFile(partialArchive) || Files.size(partialArchive) == 0) {
+                    Files.deleteIfExists(partialArchive);
+                    return false;
+                }
+                Files.move(partialArchive, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Properties info = loadInfo();
+                info.setProperty(PROP_JAR, jarPath);
+                saveInfo(info);
+                removeStaleArchives();
+                return true;
+            } catch (IOException e) {
+                AppLogger.error("Failed to store CDS archive: " + e.getMessage(), e);
+                return false;
+            }
+        }
+
+        private void removeStaleArchives() throws IOException {
+            try (DirectoryStream<Path> infos = Files.newDirectoryStream(archiveDir, "*" + INFO_SUFFIX)) {
+                for (Path other : infos) {
+                    String otherKey = other.getFileName().toString();
+                    otherKey = otherKey.substring(0, otherKey.length() - INFO_SUFFIX.length());
+                    if (otherKey.equals(key) || !jarPath.equals(readInfo(other).getProperty(PROP_JAR))) {
+                        continue;
+                    }
+                    Files.deleteIfExists(archiveDir.resolve(otherKey + ARCHIVE_SUFFIX));
+                    Files.deleteIfExists(other);
+                }
+            }
+        }
+
+        private Properties loadInfo() {
+            return readInfo(infoFile);
+        }
+
+        private void saveInfo(Properties info) {
+            try (OutputStream out = Files.newOutputStream(infoFile)) {
+                info.store(out, "ThymeLab CDS archive");
+            } catch (IOException e) {
+                AppLogger.warn("Failed to save CDS archive info: " + e.getMessage());
+            }
+        }
+    }
+
+    private static Properties readInfo(Path file) {
+        Properties info = new Properties();
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                info.load(in);
+            } catch (IOException e) {
+                AppLogger.warn("Failed to read CDS archive info: " + e.getMessage());
+            }
+        }
+        return info;
+    }
+
+    private String jarHash(File jar) throws IOException {
+        String cacheKey = jar.getAbsolutePath() + "|" + jar.length() + "|" + jar.lastModified();
+        String hash = jarHashes.get(cacheKey);
+        if (hash == null) {
+            MessageDigest digest = sha256();
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = Files.newInputStream(jar.toPath())) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            hash = HexFormat.of().formatHex(digest.digest());
+            jarHashes.put(cacheKey, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * Identifies the runtime by the java binary and the JDK's release file,
+     * which changes with every update.
+     */
+    private static String runtimeHash(String javaPath) throws IOException {
+        Path java = resolveExecutable(javaPath).toRealPath();
+        MessageDigest digest = sha256();
+        digest.update((java + "|" + Files.size(java) + "|" + Files.getLastModifiedTime(java).toMillis())
+            .getBytes(StandardCharsets.UTF_8));
+        Path binDir = java.getParent();
+        Path release = binDir != null && binDir.getParent() != null ? binDir.getParent().resolve("release") : null;
+        if (release != null && Files.isRegularFile(release)) {
+            digest.update(Files.readAllBytes(release));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static Path resolveExecutable(String command) throws IOException {
+        Path path = Paths.get(command);
+        if (path.getParent() != null || Files.isRegularFile(path)) {
+            return path;
+        }
+        String pathEnv = System.getenv("PATH");
+        if (pathEnv != null) {
+            for (String dir : pathEnv.split(File.pathSeparator)) {
+                for (String name : new String[]{command, command + ".exe"}) {
+                    Path candidate = Paths.get(dir, name);
+                    if (Files.isRegularFile(candidate) && Files.isExecutable(candidate)) {
+                        return candidate;
+                    }
+                }
+            }
+        }
+        throw new IOException("Cannot find " + command + " on the PATH");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import com.github.thkwag.thymelab.launcher.log.LogLine;
+import com.github.thkwag.thymelab.launcher.log.LogStyle;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects lines from the process reader and hands them to the downstream
+ * consumer at most once per flush interval, so a burst of output turns into
+ * one UI update per frame instead of one per line.
+ * <p>
+ * Process output passes through a bounded {@link LogQueue}, and only one
+ * batch is handed downstream until the consumer reports it applied. When the
+ * UI falls behind, the queue's overflow policy decides what happens and a
+ * marker line reports how many lines were skipped.
+ */
+public class LogBatcher implements LogConsumer {
+    private final LogConsumer downstream;
+    private final ScheduledExecutorService scheduler;
+    private final long flushIntervalMillis;
+    private final LogQueue queue;
+    private final Object flushLock = new Object();
+
+    // Launcher messages come from other threads than the reader, so they bypass the SPSC queue
+    private final List<LogLine> messages = new ArrayList<>();
+    private boolean flushScheduled;
+    private boolean batchInFlight;
+    private long reportedSkippedLines;
+
+    // Most lines handed downstream in one batch
+    private static final int MAX_BATCH_LINES = 4096;
+    private static final int DEFAULT_QUEUE_CAPACITY = 65536;
+
+    private static final int MARKER_STYLE = LogStyle.of(new Color(229, 192, 123), LogStyle.DEFAULT_BACKGROUND, true).getId();
+
+    public LogBatcher(LogConsumer downstream, ScheduledExecutorService scheduler, long flushIntervalMillis) {
+        this(downstream, scheduler, flushIntervalMillis,
+            new LogQueue(DEFAULT_QUEUE_CAPACITY, LogQueue.OverflowPolicy.BLOCK, 1));
+    }
+
+    public LogBatcher(LogConsumer downstream, ScheduledExecutorService scheduler, long flushIntervalMillis,
+                      LogQueue queue) {
+        this.downstream = downstream;
+        this.scheduler = scheduler;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.queue = queue;
+    }
+
+    /**
+     * Queues plain launcher messages. Text is split into lines and is not
+     * scanned for escape sequences.
+     */
+    @Override
+    public void accept(String text) {
+        acceptBatch(splitLines(text));
+    }
+
+    /**
+     * Splits launcher message text into plain lines.
+     */
+    static List<LogLine> splitLines(String text) {
+        List<LogLine> lines = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                end = text.length();
+            }
+            lines.add(LogLine.plain(text.substring(start, end)));
+            start = end + 1;
+        }
+        return lines;
+    }
+
+    @Override
+    public void acceptBatch(List<LogLine> lines) {
+        synchronized (messages) {
+            messages.addAll(lines);
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * Queues a line of process output. Must only be called from the process
+     * reader thread.
+     */
+    public void add(LogLine line) {
+        queue.offer(line);
+        scheduleFlush();
+    }
+
+    public LogQueue getQueue() {
+        return queue;
+    }
+
+    /**
+     * Hands the next batch downstream now, unless the previous one has not
+     * been applied yet; then the lines go out as soon as it has.
+     */
+    public void flush() {
+        // Hold the flush lock while delivering so batches never overtake each other
+        synchronized (flushLock) {
+            synchronized (this) {
+                flushScheduled = false;
+                if (batchInFlight) {
+                    return;
+                }
+            }
+            List<LogLine> batch = new ArrayList<>();
+            long skipped = queue.getSkippedLines();
+            if (skipped > reportedSkippedLines) {
+                batch.add(skippedMarker(skipped - reportedSkippedLines));
+                reportedSkippedLines = skipped;
+            }
+            queue.drainTo(batch, MAX_BATCH_LINES);
+            if (queue.isEmpty()) {
+                synchronized (messages) {
+                    batch.addAll(messages);
+                    messages.clear();
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            synchronized (this) {
+                batchInFlight = true;
+            }
+            downstream.acceptBatch(batch, this::batchApplied);
+        }
+    }
+
+    private void batchApplied() {
+        synchronized (this) {
+            batchInFlight = false;
+        }
+        boolean morePending;
+        synchronized (messages) {
+            morePending = !queue.isEmpty() || !messages.isEmpty() || queue.getSkippedLines() > reportedSkippedLines;
+        }
+        if (morePending) {
+            scheduleFlush();
+        }
+    }
+
+    private void scheduleFlush() {
+        synchronized (this) {
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        try {
+            scheduler.schedule(this::flush, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // Scheduler already shut down, deliver directly
+            flush();
+        }
+    }
+
+    private LogLine skippedMarker(long skipped) {
+        String text = String.format("··· %,d lines skipped (log queue full, policy %s) ···", skipped, queue.getPolicy());
+        return new LogLine(text, new int[]{0, MARKER_STYLE});
+    }
+}
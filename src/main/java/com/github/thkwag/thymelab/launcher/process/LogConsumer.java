@@ -1,6 +1,33 @@
 package com.github.thkwag.thymelab.launcher.process;
 
+import com.github.thkwag.thymelab.launcher.log.LogLine;
+
+import java.util.List;
+
 @FunctionalInterface
 public interface LogConsumer {
     void accept(String line);
-} 
\ No newline at end of file
+
+    /**
+     * Accepts several parsed lines at once. Consumers that render on the EDT
+     * should override this to apply the whole batch in a single UI update.
+     */
+    default void acceptBatch(List<LogLine> lines) {
+        for (LogLine line : lines) {
+            accept(line.text() + "\n");
+        }
+    }
+
+    /**
+     * Accepts a batch and runs {@code onApplied} once it has been applied, so
+     * the producer can hold back the next batch until then. Consumers that
+     * apply batches asynchronously should override this.
+     */
+    default void acceptBatch(List<LogLine> lines, Runnable onApplied) {
+        try {
+            acceptBatch(lines);
+        } finally {
+            onApplied.run();
+        }
+    }
+} 
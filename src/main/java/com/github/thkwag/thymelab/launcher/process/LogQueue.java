@@ -0,0 +1,198 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import com.github.thkwag.thymelab.launcher.log.LogLine;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded, lock-free ring between the process reader (the single producer)
+ * and the log flush thread (the single consumer). What happens when the
+ * consumer falls behind is decided by the {@link OverflowPolicy}; every line
+ * that does not make it through is counted.
+ * <p>
+ * The consumer owns the head, except that {@link OverflowPolicy#DROP_OLDEST}
+ * lets the producer push it forward too, so the head is advanced with CAS.
+ * Drained slots are cleared, so a burst does not keep its lines reachable.
+ */
+public class LogQueue {
+
+    public enum OverflowPolicy {
+        /** Wait for room, which in turn stalls the child's output pipe. */
+        BLOCK,
+        /** Discard the oldest queued line to make room. */
+        DROP_OLDEST,
+        /** Past half full keep only one line in N; discard lines when full. */
+        SAMPLE;
+
+        /**
+         * Parses a configured policy name, falling back to {@link #BLOCK}.
+         */
+        public static OverflowPolicy parse(String name) {
+            if (name != null) {
+                try {
+                    return valueOf(name.trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    // Fall through to the default
+                }
+            }
+            return BLOCK;
+        }
+    }
+
+    private static final int MIN_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 1 << 24;
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final AtomicReferenceArray<LogLine> slots;
+    private final int mask;
+    private final OverflowPolicy policy;
+    private final int sampleRate;
+
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+
+    // Producer-side sampling state
+    private long sampleCounter;
+
+    private final AtomicLong droppedLines = new AtomicLong();
+    private final AtomicLong sampledOutLines = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+
+    public LogQueue(int capacity, OverflowPolicy policy, int sampleRate) {
+        int size = Integer.highestOneBit(Math.max(MIN_CAPACITY, Math.min(MAX_CAPACITY, capacity)) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.policy = policy;
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    /**
+     * Adds a line from the producer thread, applying the overflow policy when
+     * the queue is full.
+     *
+     * @return whether the line was queued
+     */
+    public boolean offer(LogLine line) {
+        long t = tail;
+        if (policy == OverflowPolicy.SAMPLE && t - head.get() >= slots.length() / 2
+                && sampleCounter++ % sampleRate != 0) {
+            sampledOutLines.incrementAndGet();
+            return false;
+        }
+        while (t - head.get() >= slots.length()) {
+            switch (policy) {
+                case BLOCK -> {
+                    if (!waitForRoom(t)) {
+                        droppedLines.incrementAndGet();
+                        return false;
+                    }
+                }
+                case DROP_OLDEST -> {
+                    long h = head.get();
+                    if (t - h >= slots.length() && head.compareAndSet(h, h + 1)) {
+                        droppedLines.incrementAndGet();
+                    }
+                }
+                case SAMPLE -> {
+                    droppedLines.incrementAndGet();
+                    return false;
+                }
+            }
+        }
+        if (policy == OverflowPolicy.SAMPLE && t - head.get() < slots.length() / 2) {
+            sampleCounter = 0;
+        }
+        slots.set((int) (t & mask), line);
+        tail = t + 1;
+        return true;
+    }
+
+    /**
+     * Moves up to {@code maxLines} queued lines into {@code target} on the
+     * consumer thread.
+     *
+     * @return the number of lines moved
+     */
+    public int drainTo(List<LogLine> target, int maxLines) {
+        int moved = 0;
+        while (moved < maxLines) {
+            long h = head.get();
+            if (h >= tail) {
+                break;
+            }
+            int index = (int) (h & mask);
+            LogLine line = slots.get(index);
+            // Fails when the producer dropped this line meanwhile; the slot may hold a newer one
+            if (head.compareAndSet(h, h + 1)) {
+                target.add(line);
+                moved++;
+                // The producer may already have reused the slot, so only clear it if it still holds this line
+                slots.compareAndSet(index, line, null);
+            }
+        }
+        return moved;
+    }
+
+    public boolean isEmpty() {
+        return head.get() >= tail;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail - head.get());
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    public long getDroppedLines() {
+        return droppedLines.get();
+    }
+
+    public long getSampledOutLines() {
+        return sampledOutLines.get();
+    }
+
+    /**
+     * Returns the total number of lines that did not make it through.
+     */
+    public long getSkippedLines() {
+        return droppedLines.get() + sampledOutLines.get();
+    }
+
+    /**
+     * Returns how long the producer has waited for room in total.
+     */
+    public long getBlockedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(blockedNanos.get());
+    }
+
+    /**
+     * Parks the producer until the consumer makes room.
+     *
+     * @return false when the producer was interrupted while waiting
+     */
+    private boolean waitForRoom(long t) {
+        long start = System.nanoTime();
+        try {
+            while (t - head.get() >= slots.length()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            }
+            return true;
+        } finally {
+            blockedNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+}
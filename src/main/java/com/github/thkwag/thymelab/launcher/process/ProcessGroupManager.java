@@ -0,0 +1,150 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import com.github.thkwag.thymelab.launcher.config.ConfigManager;
+import com.github.thkwag.thymelab.launcher.util.TaskRuntime;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs several processor instances side by side, each with its own config
+ * view, port and log consumer. Each instance runs its output reader and exit
+ * watcher in its own {@link TaskRuntime} scope, closed when the instance is
+ * removed, and all share one scheduler for log flushes; readiness probes
+ * share {@link ReadinessDetector#sharedScheduler()}.
+ */
+public class ProcessGroupManager {
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+    private static final int MAX_PORT = 65535;
+
+    private final Map<String, AppProcessManager> instances = new LinkedHashMap<>();
+    private final Map<String, TaskRuntime.Scope> scopes = new LinkedHashMap<>();
+    private final ScheduledExecutorService flushScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "log-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ProcessGroupManager() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
+    }
+
+    /**
+     * Creates the manager of one instance. Its process is not started.
+     *
+     * @param config the instance's view of the config, see {@link ConfigManager#forInstance(String)}
+     */
+    public synchronized AppProcessManager addInstance(String id, LogConsumer logConsumer,
+                                                      Runnable onProcessExit, ConfigManager config) {
+        if (instances.containsKey(id)) {
+            throw new IllegalArgumentException("Instance already exists: " + id);
+        }
+        TaskRuntime.Scope scope = TaskRuntime.get().openScope("instance-" + id);
+        AppProcessManager manager = new AppProcessManager(logConsumer, onProcessExit, config, scope, flushScheduler);
+        instances.put(id, manager);
+        scopes.put(id, scope);
+        return manager;
+    }
+
+    public synchronized AppProcessManager get(String id) {
+        return instances.get(id);
+    }
+
+    public synchronized List<String> getInstanceIds() {
+        return new ArrayList<>(instances.keySet());
+    }
+
+    /**
+     * Forgets the instance and stops its process in the background. Once it
+     * has exited, the tasks left in the instance's scope are cancelled.
+     *
+     * @return completes once the process has exited
+     */
+    public CompletableFuture<Void> removeInstance(String id) {
+        AppProcessManager manager;
+        TaskRuntime.Scope scope;
+        synchronized (this) {
+            manager = instances.remove(id);
+            scope = scopes.remove(id);
+        }
+        if (manager == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return manager.stop().whenComplete((v, e) -> scope.close());
+    }
+
+    /**
+     * Stops every instance in parallel.
+     *
+     * @return completes once all processes have exited
+     */
+    public CompletableFuture<Void> stopAll() {
+        List<AppProcessManager> managers;
+        synchronized (this) {
+            managers = new ArrayList<>(instances.values());
+        }
+        return CompletableFuture.allOf(managers.stream()
+            .map(AppProcessManager::stop)
+            .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Returns the ports the instances are configured with.
+     */
+    public synchronized List<Integer> getPorts() {
+        List<Integer> ports = new ArrayList<>();
+        for (AppProcessManager manager : instances.values()) {
+            ports.add(manager.getPort());
+        }
+        return ports;
+    }
+
+    /**
+     * Returns the first port from {@code start} that no instance is
+     * configured with and that can be bound on loopback right now.
+     */
+    public static int nextFreePort(int start, Collection<Integer> taken) {
+        for (int port = Math.max(start, 1); port <= MAX_PORT; port++) {
+            if (!taken.contains(port) && canBind(port)) {
+                return port;
+            }
+        }
+        throw new IllegalStateException("No free port from " + start);
+    }
+
+    private static boolean canBind(int port) {
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void shutdown() {
+        flushScheduler.shutdownNow();
+        List<TaskRuntime.Scope> open;
+        synchronized (this) {
+            open = new ArrayList<>(scopes.values());
+        }
+        for (TaskRuntime.Scope scope : open) {
+            scope.shutdownNow();
+        }
+        try {
+            for (TaskRuntime.Scope scope : open) {
+                scope.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException ignored) {}
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+
+/**
+ * Reads the child process output in large byte chunks and splits it into
+ * lines on the raw bytes. Each line is decoded with one reused decoder into
+ * a reused char buffer and handed over as a slice of that buffer, so reading
+ * allocates nothing per line.
+ * <p>
+ * Lines are split on {@code '\n'} bytes, which holds for UTF-8 and the other
+ * ASCII-compatible charsets a JVM writes its console output in.
+ */
+public class ProcessOutputReader {
+
+    /**
+     * Receives each line without its terminator. The characters are only
+     * valid until the handler returns.
+     */
+    @FunctionalInterface
+    public interface LineHandler {
+        void onLine(CharSequence chars, int start, int end);
+    }
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    // Longer lines are handed over in pieces of this size
+    private static final int MAX_LINE_BYTES = 1024 * 1024;
+
+    private final InputStream in;
+    private final CharsetDecoder decoder;
+    private ByteBuffer bytes = ByteBuffer.allocate(CHUNK_SIZE);
+    // Second view over the bytes of bytes, positioned on the line being decoded
+    private ByteBuffer lineBytes = bytes.duplicate();
+    private CharBuffer chars = CharBuffer.allocate(CHUNK_SIZE);
+    // Read-only view over the whole of chars, handed to the line handler
+    private CharSequence charView = CharBuffer.wrap(chars.array());
+    private Runnable firstDataListener;
+
+    public ProcessOutputReader(InputStream in, Charset charset) {
+        this.in = in;
+        this.decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Resolves a configured charset name, falling back to UTF-8.
+     */
+    public static Charset charsetOf(String name) {
+        if (name != null && !name.isBlank()) {
+            try {
+                return Charset.forName(name.trim());
+            } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                // Fall through to the default
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Sets a callback run on the reading thread when the first bytes arrive.
+     */
+    public void setFirstDataListener(Runnable listener) {
+        this.firstDataListener = listener;
+    }
+
+    /**
+     * Reads until the end of the stream, passing every line to the handler.
+     * A last line without terminator is passed too.
+     */
+    public void readLines(LineHandler handler) throws IOException {
+        byte[] array = bytes.array();
+        int lineStart = 0;
+        int scanFrom = 0;
+        while (true) {
+            int read = in.read(array, bytes.position(), array.length - bytes.position());
+            if (read < 0) {
+                break;
+            }
+            if (read > 0 && firstDataListener != null) {
+                firstDataListener.run();
+                firstDataListener = null;
+            }
+            int limit = bytes.position() + read;
+            for (int i = scanFrom; i < limit; i++) {
+                if (array[i] == '\n') {
+                    decodeLine(lineStart, i, true, handler);
+                    lineStart = i + 1;
+                }
+            }
+            if (limit - lineStart >= MAX_LINE_BYTES) {
+                // Keep an incomplete character at the end for the next piece
+                lineStart = decodeLine(lineStart, limit, false, handler);
+            }
+
+            // Move the partial line to the front, growing the buffer if it fills it
+            int pending = limit - lineStart;
+            if (pending == array.length) {
+                bytes = ByteBuffer.wrap(Arrays.copyOf(array, array.length * 2));
+                array = bytes.array();
+                lineBytes = bytes.duplicate();
+            } else if (lineStart > 0) {
+                System.arraycopy(array, lineStart, array, 0, pending);
+            }
+            lineStart = 0;
+            scanFrom = pending;
+            bytes.position(pending);
+        }
+        if (bytes.position() > 0) {
+            decodeLine(0, bytes.position(), true, handler);
+        }
+    }
+
+    /**
+     * Decodes the bytes {@code [start, end)} without a trailing CR and hands
+     * the characters over.
+     *
+     * @param complete whether this is the end of the line; if not, bytes of
+     *                 an unfinished character are left undecoded
+     * @return the offset of the first byte that was not decoded
+     */
+    private int decodeLine(int start, int end, boolean complete, LineHandler handler) {
+        if (complete && end > start && bytes.array()[end - 1] == '\r') {
+            end--;
+        }
+        ByteBuffer input = lineBytes;
+        input.limit(end).position(start);
+        chars.clear();
+        decoder.reset();
+        while (decoder.decode(input, chars, complete).isOverflow()) {
+            growChars();
+        }
+        if (complete) {
+            while (decoder.flush(chars).isOverflow()) {
+                growChars();
+            }
+        }
+        handler.onLine(charView, 0, chars.position());
+        return input.position();
+    }
+
+    private void growChars() {
+        CharBuffer larger = CharBuffer.allocate(chars.capacity() * 2);
+        chars.flip();
+        larger.put(chars);
+        chars = larger;
+        charView = CharBuffer.wrap(chars.array());
+    }
+}
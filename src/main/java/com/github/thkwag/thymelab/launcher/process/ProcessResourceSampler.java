@@ -0,0 +1,406 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import com.github.thkwag.thymelab.launcher.config.ConfigManager;
+import com.github.thkwag.thymelab.launcher.util.AppLogger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Samples the CPU, memory, thread and file descriptor use of a processor
+ * from the outside, so it works while the JVM is still booting or hung and
+ * without the actuator. On Linux the numbers come from
+ * {@code /proc/<pid>/stat}, {@code status} and {@code fd}, read through
+ * channels that stay open for the life of the process into a reused buffer.
+ * Elsewhere only the CPU time from {@link ProcessHandle} is available.
+ * <p>
+ * Samples are kept in primitive ring buffers; values that cannot be read are
+ * stored as -1.
+ */
+public class ProcessResourceSampler {
+    private static final String KEY_INTERVAL_MS = "process.sampler.interval.ms";
+    private static final String KEY_HISTORY = "process.sampler.history";
+    private static final int DEFAULT_INTERVAL_MS = 1000;
+    private static final int DEFAULT_HISTORY = 300;
+    private static final int MIN_INTERVAL_MS = 100;
+
+    private static final Path PROC = Paths.get("/proc");
+    // USER_HZ, the unit of the times in /proc/<pid>/stat; fixed at 100 for user space on Linux
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+    private static final int READ_BUFFER_SIZE = 4096;
+    private static final byte[] VM_RSS = "VmRSS:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] THREADS = "Threads:".getBytes(StandardCharsets.US_ASCII);
+
+    private static volatile ScheduledExecutorService sharedScheduler;
+
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+    private final List<Consumer<ProcessResourceSampler>> listeners = new CopyOnWriteArrayList<>();
+
+    // Ring buffers, guarded by this
+    private final long[] times;
+    private final double[] cpuPercent;
+    private final long[] rssBytes;
+    private final int[] threadCounts;
+    private final int[] fdCounts;
+    private int next;
+    private int size;
+
+    // Sampling state, used by the scheduler thread only
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private ProcessHandle handle;
+    private FileChannel statChannel;
+    private FileChannel statusChannel;
+    private Path fdDir;
+    private long lastCpuNanos = -1;
+    private long lastSampleNanos;
+
+    private ScheduledFuture<?> task;
+
+    public ProcessResourceSampler(long intervalMillis, int history) {
+        this(intervalMillis, history, sharedScheduler());
+    }
+
+    public ProcessResourceSampler(long intervalMillis, int history, ScheduledExecutorService scheduler) {
+        this.intervalMillis = Math.max(MIN_INTERVAL_MS, intervalMillis);
+        this.scheduler = scheduler;
+        int capacity = Math.max(1, history);
+        times = new long[capacity];
+        cpuPercent = new double[capacity];
+        rssBytes = new long[capacity];
+        threadCounts = new int[capacity];
+        fdCounts = new int[capacity];
+    }
+
+    public static ProcessResourceSampler create(ConfigManager config) {
+        return new ProcessResourceSampler(config.getInt(KEY_INTERVAL_MS, DEFAULT_INTERVAL_MS),
+            config.getInt(KEY_HISTORY, DEFAULT_HISTORY));
+    }
+
+    private static ScheduledExecutorService sharedScheduler() {
+        ScheduledExecutorService scheduler = sharedScheduler;
+        if (scheduler == null) {
+            synchronized (ProcessResourceSampler.class) {
+                scheduler = sharedScheduler;
+                if (scheduler == null) {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread thread = new Thread(r, "resource-sampler");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    sharedScheduler = scheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * Adds a listener called on the sampler thread after every sample.
+     */
+    public void addListener(Consumer<ProcessResourceSampler> listener) {
+        listeners.add(listener);
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Starts sampling a process, clearing the samples of the previous one.
+     */
+    public synchronized void start(ProcessHandle process) {
+        stop();
+        size = 0;
+        next = 0;
+        ProcessHandle target = process;
+        task = scheduler.scheduleWithFixedDelay(() -> sample(target), 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops sampling. The samples taken stay readable.
+     */
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+            // Close on the sampler thread, after any sample still running
+            scheduler.execute(this::closeChannels);
+        }
+    }
+
+    public synchronized boolean isSampling() {
+        return task != null;
+    }
+
+    /**
+     * Returns the number of samples kept.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    // Samples are addressed by age: 0 is the latest
+
+    public synchronized long getTime(int age) {
+        return times[index(age)];
+    }
+
+    /**
+     * Returns the CPU use in percent of one core, so a busy process on four
+     * cores can reach 400.
+     */
+    public synchronized double getCpuPercent(int age) {
+        return cpuPercent[index(age)];
+    }
+
+    public synchronized long getRssBytes(int age) {
+        return rssBytes[index(age)];
+    }
+
+    public synchronized int getThreadCount(int age) {
+        return threadCounts[index(age)];
+    }
+
+    public synchronized int getFdCount(int age) {
+        return fdCounts[index(age)];
+    }
+
+    public synchronized double getPeakCpuPercent() {
+        double peak = -1;
+        for (int age = 0; age < size; age++) {
+            peak = Math.max(peak, cpuPercent[index(age)]);
+        }
+        return peak;
+    }
+
+    public synchronized long getPeakRssBytes() {
+        long peak = -1;
+        for (int age = 0; age < size; age++) {
+            peak = Math.max(peak, rssBytes[index(age)]);
+        }
+        return peak;
+    }
+
+    private int index(int age) {
+        if (age < 0 || age >= size) {
+            throw new IndexOutOfBoundsException("No sample of age " + age);
+        }
+        return Math.floorMod(next - 1 - age, times.length);
+    }
+
+    private void sample(ProcessHandle process) {
+        if (!process.isAlive()) {
+            return;
+        }
+        if (process != handle) {
+            open(process);
+        }
+        long now = System.nanoTime();
+        long cpuNanos = -1;
+        long rss = -1;
+        int threads = -1;
+        int fds = -1;
+        if (statChannel != null) {
+            int length = read(statChannel);
+            long ticks = length > 0 ? parseStatCpuTicks(readBuffer.array(), length) : -1;
+            if (ticks >= 0) {
+                cpuNanos = ticks * (TimeUnit.SECONDS.toNanos(1) / CLOCK_TICKS_PER_SECOND);
+            }
+        } else {
+            cpuNanos = process.info().totalCpuDuration().map(Duration::toNanos).orElse(-1L);
+        }
+        if (statusChannel != null) {
+            int length = read(statusChannel);
+            if (length > 0) {
+                long rssKb = parseStatusValue(readBuffer.array(), length, VM_RSS);
+                rss = rssKb >= 0 ? rssKb * 1024 : -1;
+                threads = (int) parseStatusValue(readBuffer.array(), length, THREADS);
+            }
+        }
+        if (fdDir != null) {
+            fds = countEntries(fdDir);
+        }
+
+        double cpu = -1;
+        if (cpuNanos >= 0 && lastCpuNanos >= 0 && now > lastSampleNanos) {
+            cpu = 100.0 * (cpuNanos - lastCpuNanos) / (now - lastSampleNanos);
+        }
+        lastCpuNanos = cpuNanos;
+        lastSampleNanos = now;
+
+        synchronized (this) {
+            times[next] = System.currentTimeMillis();
+            cpuPercent[next] = cpu;
+            rssBytes[next] = rss;
+            threadCounts[next] = threads;
+            fdCounts[next] = fds;
+            next = (next + 1) % times.length;
+            size = Math.min(size + 1, times.length);
+        }
+        for (Consumer<ProcessResourceSampler> listener : listeners) {
+            listener.accept(this);
+        }
+    }
+
+    private void open(ProcessHandle process) {
+        closeChannels();
+        handle = process;
+        lastCpuNanos = -1;
+        Path procDir = PROC.resolve(Long.toString(process.pid()));
+        if (!Files.isDirectory(procDir)) {
+            return;
+        }
+        try {
+            statChannel = FileChannel.open(procDir.resolve("stat"), StandardOpenOption.READ);
+            statusChannel = FileChannel.open(procDir.resolve("status"), StandardOpenOption.READ);
+            fdDir = procDir.resolve("fd");
+        } catch (IOException e) {
+            AppLogger.debug("Cannot read " + procDir + ": " + e.getMessage());
+            closeChannels();
+        }
+    }
+
+    private void closeChannels() {
+        for (FileChannel channel : new FileChannel[] {statChannel, statusChannel}) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {}
+            }
+        }
+        statChannel = null;
+        statusChannel = null;
+        fdDir = null;
+        handle = null;
+    }
+
+    /**
+     * Reads a proc file from the start into the read buffer, returning the
+     * length read or -1.
+     */
+    private int read(FileChannel channel) {
+        readBuffer.clear();
+        try {
+            int total = 0;
+            int read;
+            while (readBuffer.hasRemaining() && (read = channel.read(readBuffer, total)) > 0) {
+                total += read;
+            }
+            return total;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static int countEntries(Path dir) {
+        int count = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path ignored : entries) {
+                count++;
+            }
+            return count;
+        } catch (IOException | SecurityException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns utime + stime from a {@code /proc/<pid>/stat} line, in clock
+     * ticks, or -1. Fields are counted from the last ')' because the command
+     * name may contain spaces.
+     */
+    static long parseStatCpuTicks(byte[] stat, int length) {
+        int pos = -1;
+        for (int i = length - 1; i >= 0; i--) {
+            if (stat[i] == ')') {
+                pos = i + 1;
+                break;
+            }
+        }
+        if (pos < 0) {
+            return -1;
+        }
+        // After ')' come field 3 (state) onwards; utime and stime are fields 14 and 15
+        long ticks = 0;
+        int field = 2;
+        while (pos < length && field < 15) {
+            while (pos < length && stat[pos] == ' ') {
+                pos++;
+            }
+            field++;
+            long value = 0;
+            boolean numeric = true;
+            while (pos < length && stat[pos] != ' ' && stat[pos] != '\n') {
+                byte b = stat[pos++];
+                if (b >= '0' && b <= '9') {
+                    value = value * 10 + (b - '0');
+                } else {
+                    numeric = false;
+                }
+            }
+            if (field == 14 || field == 15) {
+                if (!numeric) {
+                    return -1;
+                }
+                ticks += value;
+            }
+        }
+        return field == 15 ? ticks : -1;
+    }
+
+    /**
+     * Returns the number after a key such as {@code VmRSS:} in
+     * {@code /proc/<pid>/status}, or -1 when the key is missing.
+     */
+    static long parseStatusValue(byte[] status, int length, byte[] key) {
+        int lineStart = 0;
+        while (lineStart < length) {
+            if (startsWith(status, lineStart, length, key)) {
+                int pos = lineStart + key.length;
+                while (pos < length && (status[pos] == ' ' || status[pos] == '\t')) {
+                    pos++;
+                }
+                long value = 0;
+                int digits = 0;
+                while (pos < length && status[pos] >= '0' && status[pos] <= '9') {
+                    value = value * 10 + (status[pos++] - '0');
+                    digits++;
+                }
+                return digits > 0 ? value : -1;
+            }
+            while (lineStart < length && status[lineStart] != '\n') {
+                lineStart++;
+            }
+            lineStart++;
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, int length, byte[] prefix) {
+        if (offset + prefix.length > length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+/**
+ * Lifecycle of a processor run by {@link AppProcessManager}:
+ * {@code STOPPED → STARTING → READY → STOPPING → STOPPED}. A processor that
+ * exits on its own goes straight back to {@code STOPPED}.
+ */
+public enum ProcessState {
+    /** No process is running. */
+    STOPPED,
+    /** The process is being launched or has not answered its health check yet. */
+    STARTING,
+    /** The health endpoint answered. */
+    READY,
+    /** A stop was asked for and the process has not exited yet. */
+    STOPPING
+}
@@ -0,0 +1,256 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import com.github.thkwag.thymelab.launcher.config.ConfigManager;
+import com.github.thkwag.thymelab.launcher.util.AppLogger;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restarts a processor that crashed or stopped answering its health check.
+ * Restarts back off exponentially with jitter, and after too many crashes
+ * in a short window the supervisor gives up until the processor is started
+ * by hand again. Off unless {@code supervisor.enabled} is set.
+ */
+public class ProcessSupervisor implements AutoCloseable {
+
+    public interface Listener {
+        /** A crashed processor is started again after the delay. */
+        void onRestartScheduled(int attempt, long delayMillis);
+
+        /** The processor was started again; {@code restarts} counts all automatic restarts. */
+        void onRestarted(int restarts);
+
+        /** The processor crashed too often and is left stopped. */
+        void onCrashLoop(int crashes, int windowMinutes);
+    }
+
+    // Configuration keys
+    public static final String KEY_ENABLED = "supervisor.enabled";
+    private static final String KEY_BACKOFF_INITIAL_MS = "supervisor.backoff.initial.ms";
+    private static final String KEY_BACKOFF_MAX_MS = "supervisor.backoff.max.ms";
+    private static final String KEY_BACKOFF_JITTER = "supervisor.backoff.jitter";
+    private static final String KEY_CRASH_LOOP_CRASHES = "supervisor.crashloop.crashes";
+    private static final String KEY_CRASH_LOOP_MINUTES = "supervisor.crashloop.minutes";
+    private static final String KEY_WATCHDOG_SECONDS = "supervisor.watchdog.seconds";
+    private static final String KEY_WATCHDOG_FAILURES = "supervisor.watchdog.failures";
+
+    // Default settings
+    private static final int DEFAULT_BACKOFF_INITIAL_MS = 1000;
+    private static final int DEFAULT_BACKOFF_MAX_MS = 60_000;
+    private static final double DEFAULT_BACKOFF_JITTER = 0.2;
+    private static final int DEFAULT_CRASH_LOOP_CRASHES = 5;
+    private static final int DEFAULT_CRASH_LOOP_MINUTES = 10;
+    private static final int DEFAULT_WATCHDOG_SECONDS = 15;
+    private static final int DEFAULT_WATCHDOG_FAILURES = 3;
+
+    private static volatile ScheduledExecutorService sharedScheduler;
+
+    private final AppProcessManager manager;
+    private final ConfigManager config;
+    private final Listener listener;
+    private final ScheduledExecutorService scheduler;
+    private final ScheduledFuture<?> watchdog;
+
+    // Guarded by this
+    private final Deque<Long> crashTimes = new ArrayDeque<>();
+    private int attempt;
+    private int restarts;
+    private boolean gaveUp;
+    private ScheduledFuture<?> pendingRestart;
+
+    // Watchdog thread only
+    private int healthFailures;
+
+    public ProcessSupervisor(AppProcessManager manager, Listener listener) {
+        this(manager, listener, sharedScheduler());
+    }
+
+    public ProcessSupervisor(AppProcessManager manager, Listener listener, ScheduledExecutorService scheduler) {
+        this.manager = manager;
+        this.config = manager.getConfig();
+        this.listener = listener;
+        this.scheduler = scheduler;
+        manager.setExitListener(this::onExit);
+        long interval = Math.max(1, config.getInt(KEY_WATCHDOG_SECONDS, DEFAULT_WATCHDOG_SECONDS));
+        watchdog = scheduler.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.SECONDS);
+    }
+
+    private static ScheduledExecutorService sharedScheduler() {
+        ScheduledExecutorService scheduler = sharedScheduler;
+        if (scheduler == null) {
+            synchronized (ProcessSupervisor.class) {
+                scheduler = sharedScheduler;
+                if (scheduler == null) {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread thread = new Thread(r, "process-supervisor");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    sharedScheduler = scheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    public boolean isEnabled() {
+        return config.getBoolean(KEY_ENABLED, false);
+    }
+
+    public synchronized int getRestarts() {
+        return restarts;
+    }
+
+    public synchronized boolean isRestartPending() {
+        return pendingRestart != null;
+    }
+
+    /**
+     * Returns whether the crash-loop breaker tripped since the last start by
+     * hand.
+     */
+    public synchronized boolean hasGivenUp() {
+        return gaveUp;
+    }
+
+    /**
+     * The processor was started by hand, which re-arms a supervisor that
+     * gave up.
+     */
+    public synchronized void processStarted() {
+        cancelRestart();
+        crashTimes.clear();
+        attempt = 0;
+        gaveUp = false;
+    }
+
+    /**
+     * Drops a scheduled restart, as when the processor is stopped by hand.
+     */
+    public synchronized void cancelRestart() {
+        if (pendingRestart != null) {
+            pendingRestart.cancel(false);
+            pendingRestart = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        cancelRestart();
+        watchdog.cancel(false);
+        manager.setExitListener(null);
+    }
+
+    void onExit(int exitCode, boolean requested) {
+        if (requested || exitCode == 0 || !isEnabled()) {
+            return;
+        }
+        crashed("Processor exited with code " + exitCode);
+    }
+
+    private synchronized void crashed(String reason) {
+        if (gaveUp) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int windowMinutes = config.getInt(KEY_CRASH_LOOP_MINUTES, DEFAULT_CRASH_LOOP_MINUTES);
+        crashTimes.addLast(now);
+        while (!crashTimes.isEmpty() && now - crashTimes.peekFirst() > TimeUnit.MINUTES.toMillis(windowMinutes)) {
+            crashTimes.removeFirst();
+        }
+
+        int crashes = crashTimes.size();
+        if (crashes >= config.getInt(KEY_CRASH_LOOP_CRASHES, DEFAULT_CRASH_LOOP_CRASHES)) {
+            gaveUp = true;
+            String message = String.format("%s; %d crashes in %d minutes, not restarting again", reason, crashes, windowMinutes);
+            AppLogger.error(message);
+            manager.log(message);
+            listener.onCrashLoop(crashes, windowMinutes);
+            return;
+        }
+
+        attempt++;
+        long delay = backoffMillis(attempt,
+            config.getInt(KEY_BACKOFF_INITIAL_MS, DEFAULT_BACKOFF_INITIAL_MS),
+            config.getInt(KEY_BACKOFF_MAX_MS, DEFAULT_BACKOFF_MAX_MS),
+            getJitter(), ThreadLocalRandom.current().nextDouble());
+        String message = String.format(Locale.ROOT, "%s; restarting in %.1f s (attempt %d)", reason, delay / 1000.0, attempt);
+        AppLogger.warn(message);
+        manager.log(message);
+        cancelRestart();
+        pendingRestart = scheduler.schedule(this::restart, delay, TimeUnit.MILLISECONDS);
+        listener.onRestartScheduled(attempt, delay);
+    }
+
+    private void restart() {
+        int count;
+        synchronized (this) {
+            pendingRestart = null;
+            if (gaveUp || manager.isRunning() || !isEnabled()) {
+                return;
+            }
+            count = ++restarts;
+        }
+        manager.startProcess();
+        listener.onRestarted(count);
+    }
+
+    /**
+     * Probes the health of a processor that was ready. A run of failed probes
+     * counts as a crash: the processor is stopped and restarted.
+     */
+    private void checkHealth() {
+        if (!isEnabled() || !manager.isReady()) {
+            healthFailures = 0;
+            return;
+        }
+        if (ReadinessDetector.isHealthy(manager.getRunningPort())) {
+            healthFailures = 0;
+            synchronized (this) {
+                // Healthy again, so the next crash starts with the shortest delay
+                attempt = 0;
+            }
+            return;
+        }
+        int allowed = config.getInt(KEY_WATCHDOG_FAILURES, DEFAULT_WATCHDOG_FAILURES);
+        if (++healthFailures < allowed) {
+            return;
+        }
+        healthFailures = 0;
+        // Counted as a crash once the stop is through, so the restart does not race it
+        manager.stop().whenComplete((v, e) -> crashed("Processor failed " + allowed + " health checks in a row"));
+    }
+
+    private double getJitter() {
+        try {
+            double jitter = Double.parseDouble(config.getProperty(KEY_BACKOFF_JITTER, String.valueOf(DEFAULT_BACKOFF_JITTER)));
+            return Math.min(Math.max(jitter, 0), 1);
+        } catch (NumberFormatException e) {
+            return DEFAULT_BACKOFF_JITTER;
+        }
+    }
+
+    /**
+     * Returns the delay before a restart: {@code initial} doubled for every
+     * earlier attempt up to {@code max}, then spread by up to
+     * {@code jitter} either way so instances that crashed together do not
+     * restart together.
+     *
+     * @param random a value in [0, 1)
+     */
+    static long backoffMillis(int attempt, long initial, long max, double jitter, double random) {
+        long delay = initial;
+        for (int i = 1; i < attempt && delay < max; i++) {
+            delay *= 2;
+        }
+        delay = Math.min(delay, max);
+        return Math.max(0, Math.round(delay * (1 - jitter + 2 * jitter * random)));
+    }
+}
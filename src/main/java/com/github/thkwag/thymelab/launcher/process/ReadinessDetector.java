@@ -0,0 +1,242 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import com.github.thkwag.thymelab.launcher.util.AppLogger;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Detects when a freshly started processor is ready to serve, as early as
+ * possible. Until the port accepts loopback connections or the processor
+ * logs its "Started" line, a cheap TCP connect is retried with a backoff
+ * that starts at a few milliseconds. Readiness is then confirmed with the
+ * health endpoint, retried on the same backoff.
+ * <p>
+ * Probes run as short tasks on a scheduler shared by all detectors, so
+ * watching several processors does not cost a thread each. A detector can
+ * be cancelled at any time, after which no callback is made.
+ */
+public class ReadinessDetector {
+
+    public interface Listener {
+        /** The health endpoint answered 200. */
+        void onReady();
+
+        /** The processor did not become ready before the deadline. */
+        void onTimeout();
+    }
+
+    private static final long INITIAL_BACKOFF_MS = 5;
+    private static final long MAX_BACKOFF_MS = 250;
+    private static final int CONNECT_TIMEOUT_MS = 200;
+    private static final long DEFAULT_DEADLINE_MS = 60_000;
+    private static final int SHARED_PROBE_THREADS = 2;
+
+    private static volatile ScheduledExecutorService sharedScheduler;
+
+    private final int port;
+    private final Listener listener;
+    private final long deadlineMillis;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean probing = new AtomicBoolean();
+    // A probe came due while another ran; the running one schedules it again
+    private final AtomicBoolean rerun = new AtomicBoolean();
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private volatile boolean started;
+    private volatile boolean cancelled;
+    private volatile boolean portOpen;
+    private long backoff = INITIAL_BACKOFF_MS;
+    private long deadline;
+    private ScheduledFuture<?> pending;
+
+    public ReadinessDetector(int port, Listener listener) {
+        this(port, listener, DEFAULT_DEADLINE_MS);
+    }
+
+    public ReadinessDetector(int port, Listener listener, long deadlineMillis) {
+        this(port, listener, deadlineMillis, sharedScheduler());
+    }
+
+    public ReadinessDetector(int port, Listener listener, long deadlineMillis, ScheduledExecutorService scheduler) {
+        this.port = port;
+        this.listener = listener;
+        this.deadlineMillis = deadlineMillis;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Returns the scheduler detectors use unless given one, created on first
+     * use. Its daemon threads only ever run short probes.
+     */
+    public static ScheduledExecutorService sharedScheduler() {
+        ScheduledExecutorService scheduler = sharedScheduler;
+        if (scheduler == null) {
+            synchronized (ReadinessDetector.class) {
+                scheduler = sharedScheduler;
+                if (scheduler == null) {
+                    AtomicInteger count = new AtomicInteger();
+                    scheduler = Executors.newScheduledThreadPool(SHARED_PROBE_THREADS, r -> {
+                        Thread thread = new Thread(r, "readiness-probe-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    sharedScheduler = scheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    public synchronized void start() {
+        if (deadline != 0) {
+            return;
+        }
+        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        schedule(0);
+    }
+
+    /**
+     * Reports that the processor logged its "Started" line, which skips the
+     * rest of the connect probing.
+     */
+    public void signalStarted() {
+        started = true;
+        synchronized (this) {
+            if (deadline != 0 && !portOpen && !cancelled) {
+                schedule(0);
+            }
+        }
+    }
+
+    /**
+     * Stops probing. No callback is made afterwards.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private synchronized void schedule(long delayMillis) {
+        if (cancelled) {
+            return;
+        }
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        try {
+            pending = scheduler.schedule(this::probe, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            AppLogger.debug("Readiness probe not scheduled: " + e.getMessage());
+        }
+    }
+
+    // One probe; a probe due while another runs is run again after it
+    private void probe() {
+        if (cancelled || finished.get()) {
+            return;
+        }
+        // Set before trying, so the running probe sees it once it lets go
+        rerun.set(true);
+        if (!probing.compareAndSet(false, true)) {
+            return;
+        }
+        rerun.set(false);
+        try {
+            if (!portOpen) {
+                if (!started && !canConnect()) {
+                    retry();
+                    return;
+                }
+                portOpen = true;
+                backoff = INITIAL_BACKOFF_MS;
+                AppLogger.debug("Processor port " + port + " is open, confirming health");
+            }
+            if (isHealthy()) {
+                finish(true);
+            } else {
+                retry();
+            }
+        } finally {
+            probing.set(false);
+            // The probe that came due may have cancelled the retry scheduled above
+            if (rerun.getAndSet(false) && !finished.get()) {
+                schedule(0);
+            }
+        }
+    }
+
+    private void retry() {
+        if (cancelled) {
+            return;
+        }
+        if (System.nanoTime() - deadline >= 0) {
+            finish(false);
+            return;
+        }
+        long delay = backoff;
+        backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        schedule(delay);
+    }
+
+    private void finish(boolean ready) {
+        if (cancelled || !finished.compareAndSet(false, true)) {
+            return;
+        }
+        if (ready) {
+            AppLogger.debug("Actuator health check successful");
+            listener.onReady();
+        } else {
+            AppLogger.error("Actuator health check timed out after " + deadlineMillis / 1000 + " seconds");
+            listener.onTimeout();
+        }
+    }
+
+    private boolean canConnect() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MS);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean isHealthy() {
+        return isHealthy(port);
+    }
+
+    /**
+     * Asks the processor's health endpoint once; true when it answers 200.
+     */
+    static boolean isHealthy(int port) {
+        try {
+            int responseCode = ActuatorClient.forPort(port).getStatus("health").get();
+            if (responseCode != 200) {
+                AppLogger.debug("Actuator health check failed: HTTP " + responseCode);
+            }
+            return responseCode == 200;
+        } catch (ExecutionException e) {
+            AppLogger.debug("Server not yet ready: " + e.getCause().getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
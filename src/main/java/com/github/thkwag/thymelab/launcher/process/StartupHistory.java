@@ -0,0 +1,102 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import com.github.thkwag.thymelab.launcher.config.ConfigManager;
+import com.github.thkwag.thymelab.launcher.util.AppLogger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Appends the timings of every processor start to a CSV file, together with
+ * what was started and where, so JVM flags, processor versions and machines
+ * can be compared afterwards.
+ */
+public class StartupHistory {
+    private static final String KEY_ENABLED = "startup.history.enabled";
+
+    private static final String HEADER = "time,processor_jar,jar_bytes,jvm_profile,cds,java,os,cpus,"
+        + "jar_ms,spawn_ms,first_output_ms,started_ms,healthy_ms,reported_s";
+
+    private final Path file;
+
+    public StartupHistory(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Creates the history for the configured settings, or returns null when
+     * it is disabled.
+     */
+    public static StartupHistory create(ConfigManager config) {
+        if (!config.getBoolean(KEY_ENABLED, true)) {
+            return null;
+        }
+        return new StartupHistory(Paths.get(System.getProperty("user.home"), ".thymelab", "startup-history.csv"));
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * What was started; the parts of a history row that are not timings.
+     */
+    public record Session(String jarPath, long jarBytes, String jvmProfile, String cds, String javaPath) {
+    }
+
+    /**
+     * Appends one row. Phases that were not reached are left empty.
+     */
+    public synchronized void append(Session session, StartupTimeline timeline) {
+        StringBuilder row = new StringBuilder();
+        row.append(OffsetDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+        appendField(row, session.jarPath());
+        appendField(row, Long.toString(session.jarBytes()));
+        appendField(row, session.jvmProfile());
+        appendField(row, session.cds());
+        appendField(row, session.javaPath());
+        appendField(row, System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        appendField(row, Integer.toString(Runtime.getRuntime().availableProcessors()));
+        for (StartupTimeline.Phase phase : StartupTimeline.Phase.values()) {
+            long millis = timeline.getMillis(phase);
+            appendField(row, millis >= 0 ? Long.toString(millis) : "");
+        }
+        double reported = timeline.getReportedSeconds();
+        appendField(row, reported >= 0 ? String.format(Locale.ROOT, "%.3f", reported) : "");
+        row.append('\n');
+
+        try {
+            Files.createDirectories(file.getParent());
+            boolean newFile = !Files.exists(file);
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (newFile) {
+                    out.write(HEADER + "\n");
+                }
+                out.write(row.toString());
+            }
+        } catch (IOException e) {
+            AppLogger.warn("Failed to write startup history: " + e.getMessage());
+        }
+    }
+
+    private static void appendField(StringBuilder row, String value) {
+        row.append(',');
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+            row.append('"').append(value.replace("\"", "\"\"")).append('"');
+        } else {
+            row.append(value);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Timestamps the phases of one processor start with {@link System#nanoTime()},
+ * relative to the click on Start. The same instance is reused for every
+ * start; {@link #begin()} clears it. Phases may be marked from any thread and
+ * only the first mark of each phase counts.
+ */
+public class StartupTimeline {
+
+    public enum Phase {
+        /** The processor jar was found. */
+        JAR_FOUND("startup_phase_jar"),
+        /** The JVM process was spawned. */
+        SPAWNED("startup_phase_spawn"),
+        /** The first byte of output arrived. */
+        FIRST_OUTPUT("startup_phase_output"),
+        /** Spring Boot logged its "Started" line. */
+        STARTED("startup_phase_started"),
+        /** The health endpoint answered 200 for the first time. */
+        HEALTHY("startup_phase_healthy");
+
+        private final String messageKey;
+
+        Phase(String messageKey) {
+            this.messageKey = messageKey;
+        }
+
+        public String getMessageKey() {
+            return messageKey;
+        }
+    }
+
+    private static final long NOT_REACHED = -1;
+
+    // "Started App in 2.1 seconds (process running for 2.6)"; Boot 2 says "JVM running for"
+    private static final Pattern STARTED_PATTERN = Pattern.compile(
+        "Started \\S+ in ([0-9.]+) seconds(?: \\((?:JVM|process) running for ([0-9.]+)\\))?");
+
+    private final AtomicLongArray marks = new AtomicLongArray(Phase.values().length);
+    private final List<Consumer<StartupTimeline>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean recorded = new AtomicBoolean();
+    private volatile long startNanos;
+    private volatile double reportedSeconds = -1;
+
+    public StartupTimeline() {
+        clearMarks();
+    }
+
+    /**
+     * Starts timing a new start of the processor.
+     */
+    public void begin() {
+        clearMarks();
+        reportedSeconds = -1;
+        recorded.set(false);
+        startNanos = System.nanoTime();
+        fireChanged();
+    }
+
+    /**
+     * Records that a phase was reached now, unless it already was.
+     */
+    public void mark(Phase phase) {
+        if (marks.compareAndSet(phase.ordinal(), NOT_REACHED, System.nanoTime())) {
+            fireChanged();
+        }
+    }
+
+    /**
+     * Looks for Spring Boot's "Started" line and marks {@link Phase#STARTED}
+     * when it is one.
+     *
+     * @return whether the line was the "Started" line
+     */
+    public boolean markIfStarted(String line) {
+        if (isReached(Phase.STARTED)) {
+            return false;
+        }
+        double seconds = parseStartedSeconds(line);
+        if (seconds < 0) {
+            return false;
+        }
+        reportedSeconds = seconds;
+        mark(Phase.STARTED);
+        return true;
+    }
+
+    public boolean isReached(Phase phase) {
+        return marks.get(phase.ordinal()) != NOT_REACHED;
+    }
+
+    /**
+     * Returns the milliseconds from Start to the phase, or -1 if it has not
+     * been reached.
+     */
+    public long getMillis(Phase phase) {
+        long mark = marks.get(phase.ordinal());
+        return mark == NOT_REACHED ? -1 : TimeUnit.NANOSECONDS.toMillis(mark - startNanos);
+    }
+
+    /**
+     * Returns the JVM startup time Spring Boot reported, in seconds, or -1.
+     */
+    public double getReportedSeconds() {
+        return reportedSeconds;
+    }
+
+    /**
+     * Claims the right to record this start in the history, so it is written
+     * only once however the session ends.
+     */
+    public boolean claimRecording() {
+        return recorded.compareAndSet(false, true);
+    }
+
+    public void addListener(Consumer<StartupTimeline> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Returns the JVM's own startup time from a Spring Boot "Started" line,
+     * in seconds, or a negative value if the line is not one.
+     */
+    public static double parseStartedSeconds(String line) {
+        if (!line.contains("Started ")) {
+            return -1;
+        }
+        Matcher matcher = STARTED_PATTERN.matcher(line);
+        if (!matcher.find()) {
+            return -1;
+        }
+        try {
+            return Double.parseDouble(matcher.group(2) != null ? matcher.group(2) : matcher.group(1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void clearMarks() {
+        for (int i = 0; i < marks.length(); i++) {
+            marks.set(i, NOT_REACHED);
+        }
+    }
+
+    private void fireChanged() {
+        for (Consumer<StartupTimeline> listener : listeners) {
+            listener.accept(this);
+        }
+    }
+}
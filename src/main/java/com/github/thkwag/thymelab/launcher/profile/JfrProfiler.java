@@ -0,0 +1,183 @@
+package com.github.thkwag.thymelab.launcher.profile;
+
+import com.github.thkwag.thymelab.launcher.util.AppLogger;
+import com.github.thkwag.thymelab.launcher.util.TaskRuntime;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the processor with Java Flight Recorder, in one of two ways:
+ * <ul>
+ *   <li>attaching to the running processor with {@code jcmd}, when the
+ *       processor's JDK has it;</li>
+ *   <li>starting the processor with {@code -XX:StartFlightRecording}, which
+ *       writes the file when the recording ends.</li>
+ * </ul>
+ * Recordings are written to {@code ~/.thymelab/profiles}.
+ */
+public class JfrProfiler {
+    static final String RECORDING_NAME = "thymelab-profile";
+    private static final String FILE_PREFIX = "profile-";
+    private static final String FILE_SUFFIX = ".jfr";
+    private static final long JCMD_TIMEOUT_SECONDS = 30;
+    private static final long POLL_INTERVAL_MS = 500;
+
+    private final Path directory;
+
+    public JfrProfiler(Path directory) {
+        this.directory = directory;
+    }
+
+    public static JfrProfiler create() {
+        return new JfrProfiler(Paths.get(System.getProperty("user.home"), ".thymelab", "profiles"));
+    }
+
+    /**
+     * Returns a new file for a recording, named after the current time.
+     */
+    public Path newRecordingFile() throws IOException {
+        Files.createDirectories(directory);
+        return directory.resolve(FILE_PREFIX + System.currentTimeMillis() + FILE_SUFFIX);
+    }
+
+    /**
+     * Finds {@code jcmd} next to the given java executable, or in
+     * {@code JAVA_HOME} when java is taken from the path. Returns null when
+     * there is none, as in the runtime bundled with the launcher.
+     */
+    public static Path findJcmd(String javaPath) {
+        String name = System.getProperty("os.name").toLowerCase().contains("windows") ? "jcmd.exe" : "jcmd";
+        Path bin = null;
+        if (javaPath != null && (javaPath.contains("/") || javaPath.contains(File.separator))) {
+            bin = Paths.get(javaPath).toAbsolutePath().getParent();
+        } else if (System.getenv("JAVA_HOME") != null) {
+            bin = Paths.get(System.getenv("JAVA_HOME"), "bin");
+        }
+        if (bin == null) {
+            return null;
+        }
+        Path jcmd = bin.resolve(name);
+        return Files.isExecutable(jcmd) ? jcmd : null;
+    }
+
+    /**
+     * Returns the JVM options that record the processor from its start for
+     * the given time and then write the recording to the file.
+     */
+    public static List<String> startOptions(Path file, int seconds) {
+        return List.of("-XX:StartFlightRecording=name=" + RECORDING_NAME + ",settings=profile,duration="
+            + seconds + "s,filename=" + file.toAbsolutePath());
+    }
+
+    /**
+     * Records a running JVM for the given time through {@code jcmd}. The
+     * future completes with the recording file; cancelling it stops the
+     * recording without writing the file.
+     */
+    public CompletableFuture<Path> attach(Path jcmd, long pid, int seconds) {
+        return TaskRuntime.get().background().supply("jfr-attach", () -> {
+            try {
+                Path file = newRecordingFile();
+                jcmd(jcmd, pid, "JFR.start", "name=" + RECORDING_NAME, "settings=profile");
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+                } catch (InterruptedException e) {
+                    // Stop the recording before restoring the interrupt, which would end jcmd early
+                    stopQuietly(jcmd, pid);
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(e);
+                }
+                jcmd(jcmd, pid, "JFR.stop", "name=" + RECORDING_NAME, "filename=" + file.toAbsolutePath());
+                return file;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Waits until a recording started with {@link #startOptions} has been
+     * written completely: the file exists and its size stays the same
+     * between two looks.
+     */
+    public static CompletableFuture<Path> awaitFile(Path file, long timeoutMillis) {
+        return TaskRuntime.get().background().supply("jfr-await", () -> {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            long lastSize = -1;
+            try {
+                while (System.nanoTime() - deadline < 0) {
+                    long size = Files.exists(file) ? Files.size(file) : -1;
+                    if (size > 0 && size == lastSize) {
+                        return file;
+                    }
+                    lastSize = size;
+                    Thread.sleep(POLL_INTERVAL_MS);
+                }
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            throw new CompletionException(new IOException("Recording was not written: " + file));
+        });
+    }
+
+    private static void stopQuietly(Path jcmd, long pid) {
+        try {
+            jcmd(jcmd, pid, "JFR.stop", "name=" + RECORDING_NAME);
+        } catch (IOException e) {
+            AppLogger.debug("Failed to stop flight recording: " + e.getMessage());
+        }
+    }
+
+    private static String jcmd(Path jcmd, long pid, String... arguments) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(jcmd.toString());
+        command.add(Long.toString(pid));
+        command.addAll(List.of(arguments));
+        // Written to a file, so a jcmd that hangs with its output open cannot outlast the timeout
+        Path outputFile = Files.createTempFile("thymelab-jcmd-", ".txt");
+        String output;
+        int exitValue;
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(outputFile.toFile()).start();
+            try {
+                if (!process.waitFor(JCMD_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                    throw new IOException("jcmd did not finish: " + String.join(" ", arguments));
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while running jcmd", e);
+            }
+            output = new String(Files.readAllBytes(outputFile), Charset.defaultCharset());
+            exitValue = process.exitValue();
+        } finally {
+            try {
+                Files.deleteIfExists(outputFile);
+            } catch (IOException e) {
+                // Still held by a jcmd that is being killed
+                outputFile.toFile().deleteOnExit();
+            }
+        }
+        // jcmd exits with 0 even when the command fails in the target JVM
+        if (exitValue != 0 || output.contains("Could not") || output.contains("Exception")) {
+            throw new IOException("jcmd " + arguments[0] + " failed: " + output.trim());
+        }
+        AppLogger.debug("jcmd " + String.join(" ", arguments) + ": " + output.trim());
+        return output;
+    }
+}
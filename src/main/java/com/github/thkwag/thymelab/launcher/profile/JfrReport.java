@@ -0,0 +1,211 @@
+package com.github.thkwag.thymelab.launcher.profile;
+
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summarizes a Java Flight Recorder file: the methods most often on top of
+ * the stack in execution samples, the sites that allocated the most bytes
+ * and the places threads waited longest for monitors or parked. Events are
+ * read one at a time, so large recordings are not held in memory.
+ */
+public final class JfrReport {
+    static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+    static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+    static final String ALLOCATION_IN_TLAB = "jdk.ObjectAllocationInNewTLAB";
+    static final String ALLOCATION_OUTSIDE_TLAB = "jdk.ObjectAllocationOutsideTLAB";
+    static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+    static final String THREAD_PARK = "jdk.ThreadPark";
+
+    private static final String UNKNOWN = "<unknown>";
+    // Frames between a park and the code that waits, skipped when naming the site
+    private static final List<String> PARK_FRAME_PREFIXES = List.of(
+        "jdk.internal.misc.Unsafe", "sun.misc.Unsafe", "java.util.concurrent.");
+    // Parked on while waiting for work or a signal rather than for a lock
+    private static final List<String> IDLE_BLOCKER_SUFFIXES = List.of(
+        "$ConditionObject", "java.util.concurrent.ForkJoinPool", "java.util.concurrent.SynchronousQueue$TransferStack",
+        "java.util.concurrent.SynchronousQueue$TransferQueue", "java.util.concurrent.LinkedTransferQueue");
+
+    /**
+     * One row of a table: a code site, what it concerns (the allocated or
+     * contended class, if any), how many events hit it and their total
+     * weight in bytes, nanoseconds or samples.
+     */
+    public record Entry(String site, String detail, long count, long total) {
+    }
+
+    private final List<Entry> hotMethods;
+    private final List<Entry> allocations;
+    private final List<Entry> contention;
+    private final long samples;
+
+    private JfrReport(List<Entry> hotMethods, List<Entry> allocations, List<Entry> contention, long samples) {
+        this.hotMethods = hotMethods;
+        this.allocations = allocations;
+        this.contention = contention;
+        this.samples = samples;
+    }
+
+    /**
+     * Reads a recording and keeps the {@code limit} heaviest entries of each
+     * table.
+     */
+    public static JfrReport read(Path file, int limit) throws IOException {
+        Map<String, long[]> hot = new HashMap<>();
+        Map<String, long[]> allocated = new HashMap<>();
+        Map<String, long[]> contended = new HashMap<>();
+        // Use the allocation samples when the JVM has them, the TLAB events otherwise
+        Map<String, long[]> tlabAllocated = new HashMap<>();
+        boolean sampledAllocations = false;
+        long samples = 0;
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                switch (event.getEventType().getName()) {
+                    case EXECUTION_SAMPLE -> {
+                        samples++;
+                        add(hot, topFrame(event), 1);
+                    }
+                    case ALLOCATION_SAMPLE -> {
+                        sampledAllocations = true;
+                        add(allocated, key(topFrame(event), className(event, "objectClass")), event.getLong("weight"));
+                    }
+                    case ALLOCATION_IN_TLAB -> add(tlabAllocated,
+                        key(topFrame(event), className(event, "objectClass")), event.getLong("tlabSize"));
+                    case ALLOCATION_OUTSIDE_TLAB -> add(tlabAllocated,
+                        key(topFrame(event), className(event, "objectClass")), event.getLong("allocationSize"));
+                    case MONITOR_ENTER -> add(contended,
+                        key(topFrame(event), className(event, "monitorClass")), nanos(event.getDuration()));
+                    case THREAD_PARK -> {
+                        String blocker = className(event, "parkedClass");
+                        if (!isIdleBlocker(blocker)) {
+                            add(contended, key(waitingFrame(event), blocker), nanos(event.getDuration()));
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+        return new JfrReport(top(hot, limit), top(sampledAllocations ? allocated : tlabAllocated, limit),
+            top(contended, limit), samples);
+    }
+
+    /**
+     * Methods by the number of execution samples with the method on top.
+     */
+    public List<Entry> getHotMethods() {
+        return hotMethods;
+    }
+
+    /**
+     * Allocating methods and classes by bytes allocated.
+     */
+    public List<Entry> getAllocations() {
+        return allocations;
+    }
+
+    /**
+     * Blocked methods and monitor or lock classes by time spent waiting, in
+     * nanoseconds. Parks are attributed to the first frame outside
+     * {@code java.util.concurrent}; idle waits are left out.
+     */
+    public List<Entry> getContention() {
+        return contention;
+    }
+
+    /**
+     * Returns the number of execution samples in the recording.
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    private static void add(Map<String, long[]> table, String key, long weight) {
+        long[] counts = table.computeIfAbsent(key, k -> new long[2]);
+        counts[0]++;
+        counts[1] += weight;
+    }
+
+    // A site and a class are kept in one key, split again by top()
+    private static String key(String site, String detail) {
+        return site + '\n' + detail;
+    }
+
+    private static List<Entry> top(Map<String, long[]> table, int limit) {
+        List<Entry> entries = new ArrayList<>(table.size());
+        for (Map.Entry<String, long[]> e : table.entrySet()) {
+            String key = e.getKey();
+            int split = key.indexOf('\n');
+            String site = split < 0 ? key : key.substring(0, split);
+            String detail = split < 0 ? "" : key.substring(split + 1);
+            entries.add(new Entry(site, detail, e.getValue()[0], e.getValue()[1]));
+        }
+        entries.sort(Comparator.comparingLong(Entry::total).reversed());
+        return List.copyOf(entries.subList(0, Math.min(limit, entries.size())));
+    }
+
+    private static String topFrame(RecordedEvent event) {
+        return firstFrame(event, List.of());
+    }
+
+    /**
+     * Names the code that parked rather than the park itself, which is the
+     * same {@code Unsafe.park} for every lock, queue and pool.
+     */
+    private static String waitingFrame(RecordedEvent event) {
+        return firstFrame(event, PARK_FRAME_PREFIXES);
+    }
+
+    private static String firstFrame(RecordedEvent event, List<String> skippedPrefixes) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null) {
+            return UNKNOWN;
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (frame.isJavaFrame()) {
+                RecordedMethod method = frame.getMethod();
+                String type = method.getType().getName();
+                if (skippedPrefixes.stream().anyMatch(type::startsWith)) {
+                    continue;
+                }
+                return type + "." + method.getName()
+                    + (frame.getLineNumber() > 0 ? ":" + frame.getLineNumber() : "");
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Parks without a blocker and parks on a condition or an idle pool are
+     * threads waiting for work, not for a lock, and would fill the table.
+     */
+    private static boolean isIdleBlocker(String blocker) {
+        return blocker.equals(UNKNOWN) || IDLE_BLOCKER_SUFFIXES.stream().anyMatch(blocker::endsWith);
+    }
+
+    private static String className(RecordedEvent event, String field) {
+        if (!event.hasField(field)) {
+            return UNKNOWN;
+        }
+        RecordedClass type = event.getClass(field);
+        return type != null ? type.getName() : UNKNOWN;
+    }
+
+    private static long nanos(Duration duration) {
+        return duration.toNanos();
+    }
+}
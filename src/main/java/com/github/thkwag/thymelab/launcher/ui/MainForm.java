@@ -1,10 +1,13 @@
 package com.github.thkwag.thymelab.launcher.ui;
 
 import com.github.thkwag.thymelab.launcher.config.ConfigManager;
+import com.github.thkwag.thymelab.launcher.log.LogSpool;
 import com.github.thkwag.thymelab.launcher.process.AppProcessManager;
+import com.github.thkwag.thymelab.launcher.process.LogConsumer;
 import com.github.thkwag.thymelab.launcher.ui.components.ControlPanel;
 import com.github.thkwag.thymelab.launcher.ui.components.LogPanel;
 import com.github.thkwag.thymelab.launcher.ui.components.MainMenuBar;
+import com.github.thkwag.thymelab.launcher.ui.components.ResourceStatusBar;
 import com.github.thkwag.thymelab.launcher.ui.dialogs.AboutDialog;
 import com.github.thkwag.thymelab.launcher.ui.dialogs.SettingsDialog;
 import com.github.thkwag.thymelab.launcher.ui.dialogs.ThymeleafSettingsDialog;
@@ -12,15 +15,24 @@ import com.github.thkwag.thymelab.launcher.config.ConfigManager.LanguageChangeLi
 import com.github.thkwag.thymelab.launcher.util.AppLogger;
 
 import javax.swing.*;
+import javax.swing.event.ChangeListener;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 public class MainForm extends JFrame implements LanguageChangeListener {
     private final JPanel mainPanel;
-    private final LogPanel logPanel;
+    // One log tab per processor instance, keyed by instance id
+    private final JTabbedPane logTabs;
+    private final Map<String, LogPanel> logPanels = new LinkedHashMap<>();
+    private String logFontFamily;
+    private int logFontSize;
+    private int maxBufferSize;
     private final ControlPanel controlPanel;
+    private final ResourceStatusBar resourceStatusBar;
     private final MainMenuBar menuBar;
     private final ConfigManager config;
     private AppProcessManager processManager;
@@ -29,6 +41,8 @@ public class MainForm extends JFrame implements LanguageChangeListener {
     private static final int BORDER_SPACING = 0;
     private static final int VERTICAL_SPACING = 1;
     private static final int PANEL_PADDING = 5;
+    private static final int TAB_STATUS_ICON_SIZE = 8;
+    private static final Color TAB_STATUS_STOPPED = Color.LIGHT_GRAY;
 
     public MainForm(ConfigManager config) {
         this.config = config;
@@ -37,8 +51,9 @@ public class MainForm extends JFrame implements LanguageChangeListener {
         mainPanel = new JPanel(new BorderLayout(BORDER_SPACING, VERTICAL_SPACING));
         mainPanel.setBorder(BorderFactory.createEmptyBorder(PANEL_PADDING, PANEL_PADDING, PANEL_PADDING, PANEL_PADDING));
         
-        logPanel = new LogPanel();
+        logTabs = new JTabbedPane();
         controlPanel = new ControlPanel(config);
+        resourceStatusBar = new ResourceStatusBar(config);
         ResourceBundle bundle = config.getLocaleManager().getBundle();
         menuBar = new MainMenuBar(this, bundle);
         
@@ -64,7 +79,8 @@ public class MainForm extends JFrame implements LanguageChangeListener {
 
     private void layoutComponents() {
         mainPanel.add(controlPanel, BorderLayout.NORTH);
-        mainPanel.add(logPanel, BorderLayout.CENTER);
+        mainPanel.add(logTabs, BorderLayout.CENTER);
+        mainPanel.add(resourceStatusBar, BorderLayout.SOUTH);
     }
 
     private void initializeListeners() {
@@ -106,11 +122,102 @@ public class MainForm extends JFrame implements LanguageChangeListener {
     }
 
     public void appendLog(String line) {
-        logPanel.appendLog(line);
+        LogPanel panel = getSelectedLogPanel();
+        if (panel != null) {
+            panel.appendLog(line);
+        }
+    }
+
+    /**
+     * Adds the log tab of a processor instance, set up like the other tabs.
+     */
+    public LogPanel addLogTab(String instanceId, String title) {
+        LogPanel panel = new LogPanel();
+        panel.updateTexts(config.getLocaleManager().getBundle());
+        if (logFontFamily != null) {
+            panel.updateLogFont(logFontFamily, logFontSize);
+        }
+        if (maxBufferSize > 0) {
+            panel.setMaxBufferSize(maxBufferSize);
+        }
+        logPanels.put(instanceId, panel);
+        logTabs.addTab(title, new StatusIcon(TAB_STATUS_STOPPED), panel);
+        return panel;
+    }
+
+    public void removeLogTab(String instanceId) {
+        LogPanel panel = logPanels.remove(instanceId);
+        if (panel != null) {
+            logTabs.remove(panel);
+        }
+    }
+
+    public void setLogTabTitle(String instanceId, String title) {
+        int index = indexOfLogTab(instanceId);
+        if (index >= 0) {
+            logTabs.setTitleAt(index, title);
+        }
+    }
+
+    /**
+     * Colors the status light of an instance's tab; null shows it as stopped.
+     */
+    public void setLogTabStatus(String instanceId, Color color) {
+        int index = indexOfLogTab(instanceId);
+        if (index >= 0) {
+            logTabs.setIconAt(index, new StatusIcon(color != null ? color : TAB_STATUS_STOPPED));
+        }
+    }
+
+    public void selectLogTab(String instanceId) {
+        int index = indexOfLogTab(instanceId);
+        if (index >= 0) {
+            logTabs.setSelectedIndex(index);
+        }
+    }
+
+    /**
+     * Returns the id of the instance whose tab is shown, or null.
+     */
+    public String getSelectedInstanceId() {
+        Component selected = logTabs.getSelectedComponent();
+        for (Map.Entry<String, LogPanel> entry : logPanels.entrySet()) {
+            if (entry.getValue() == selected) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    public void addLogTabChangeListener(ChangeListener listener) {
+        logTabs.addChangeListener(listener);
+    }
+
+    public LogConsumer getLogConsumer(String instanceId) {
+        return logPanels.get(instanceId);
+    }
+
+    public void setLogSpool(String instanceId, LogSpool spool) {
+        LogPanel panel = logPanels.get(instanceId);
+        if (panel != null) {
+            panel.setLogSpool(spool);
+        }
     }
 
     public void setMaxBufferSize(int size) {
-        logPanel.setMaxBufferSize(size);
+        maxBufferSize = size;
+        for (LogPanel panel : logPanels.values()) {
+            panel.setMaxBufferSize(size);
+        }
+    }
+
+    private LogPanel getSelectedLogPanel() {
+        return (LogPanel) logTabs.getSelectedComponent();
+    }
+
+    private int indexOfLogTab(String instanceId) {
+        LogPanel panel = logPanels.get(instanceId);
+        return panel != null ? logTabs.indexOfComponent(panel) : -1;
     }
 
     public void setLogBufferText(String text) {
@@ -129,6 +236,10 @@ public class MainForm extends JFrame implements LanguageChangeListener {
         return controlPanel;
     }
 
+    public ResourceStatusBar getResourceStatusBar() {
+        return resourceStatusBar;
+    }
+
     public JMenuItem getProgramSettingsMenuItem() {
         return menuBar.getProgramSettingsMenuItem();
     }
@@ -142,7 +253,10 @@ public class MainForm extends JFrame implements LanguageChangeListener {
     }
 
     public void clearLog() {
-        logPanel.clearLog();
+        LogPanel panel = getSelectedLogPanel();
+        if (panel != null) {
+            panel.clearLog();
+        }
     }
 
     public void setSelectedFont(String font) {
@@ -162,11 +276,15 @@ public class MainForm extends JFrame implements LanguageChangeListener {
     }
 
     public void updateLogFont(String fontFamily, int fontSize) {
-        logPanel.updateLogFont(fontFamily, fontSize);
+        logFontFamily = fontFamily;
+        logFontSize = fontSize;
+        for (LogPanel panel : logPanels.values()) {
+            panel.updateLogFont(fontFamily, fontSize);
+        }
     }
 
-    public void showSettingsDialog(MainFrame parent) {
-        SettingsDialog dialog = new SettingsDialog(parent, config, config.getLocaleManager().getBundle());
+    public void showSettingsDialog(MainFrame parent, ConfigManager instanceConfig) {
+        SettingsDialog dialog = new SettingsDialog(parent, instanceConfig, config.getLocaleManager().getBundle());
         dialog.setVisible(true);
     }
 
@@ -185,7 +303,7 @@ public class MainForm extends JFrame implements LanguageChangeListener {
 
     private void initializeFunctionality() {
         processManager = new AppProcessManager(
-                logPanel::appendLog,
+                logPanels.get(ConfigManager.DEFAULT_INSTANCE),
                 controlPanel::onProcessStopped,
             config
         );
@@ -201,5 +319,39 @@ public class MainForm extends JFrame implements LanguageChangeListener {
         ResourceBundle bundle = config.getLocaleManager().getBundle();
         menuBar.updateTexts(bundle);
         controlPanel.updateTexts(bundle);
+        resourceStatusBar.updateTexts(bundle);
+        for (LogPanel panel : logPanels.values()) {
+            panel.updateTexts(bundle);
+        }
+    }
+
+    /**
+     * The status light shown on a log tab.
+     */
+    private static class StatusIcon implements Icon {
+        private final Color color;
+
+        StatusIcon(Color color) {
+            this.color = color;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setColor(color);
+            g2.fillOval(x, y, TAB_STATUS_ICON_SIZE, TAB_STATUS_ICON_SIZE);
+            g2.dispose();
+        }
+
+        @Override
+        public int getIconWidth() {
+            return TAB_STATUS_ICON_SIZE;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return TAB_STATUS_ICON_SIZE;
+        }
     }
 } 
\ No newline at end of file
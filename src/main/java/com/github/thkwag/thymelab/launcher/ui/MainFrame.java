@@ -2,11 +2,19 @@ package com.github.thkwag.thymelab.launcher.ui;
 
 import com.github.thkwag.thymelab.launcher.config.ConfigManager;
 import com.github.thkwag.thymelab.launcher.config.LocaleManager;
+import com.github.thkwag.thymelab.launcher.log.LogSpool;
 import com.github.thkwag.thymelab.launcher.process.AppProcessManager;
+import com.github.thkwag.thymelab.launcher.process.ProcessGroupManager;
+import com.github.thkwag.thymelab.launcher.process.ProcessState;
+import com.github.thkwag.thymelab.launcher.process.ProcessSupervisor;
+import com.github.thkwag.thymelab.launcher.process.ReadinessDetector;
 import com.github.thkwag.thymelab.launcher.ui.components.ControlPanel;
 import com.github.thkwag.thymelab.launcher.ui.components.LogPanel;
 import com.github.thkwag.thymelab.launcher.ui.components.MainMenuBar;
 import com.github.thkwag.thymelab.launcher.ui.dialogs.AboutDialog;
+import com.github.thkwag.thymelab.launcher.ui.dialogs.BenchmarkDialog;
+import com.github.thkwag.thymelab.launcher.ui.dialogs.ProfileDialog;
+import com.github.thkwag.thymelab.launcher.ui.dialogs.TaskListDialog;
 import com.github.thkwag.thymelab.launcher.util.AppLogger;
 import com.github.thkwag.thymelab.launcher.config.ConfigManager.LanguageChangeListener;
 
@@ -16,16 +24,23 @@ import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
 public class MainFrame extends JFrame implements LanguageChangeListener {
     private final ConfigManager config;
     private final LocaleManager localeManager;
     private ResourceBundle bundle;
 
-    private AppProcessManager appProcessManager;
+    private ProcessGroupManager processGroup;
+    private final Map<String, LogSpool> logSpools = new HashMap<>();
+    // Close each spool on JVM exit; removed with the instance so the closed spool is not kept
+    private final Map<String, Thread> logSpoolHooks = new HashMap<>();
+    private final Map<String, ProcessSupervisor> supervisors = new HashMap<>();
     private final MainForm mainForm;
     private ControlPanel controlPanel;
     private final MainMenuBar menuBar;
@@ -43,6 +58,15 @@ public class MainFrame extends JFrame implements LanguageChangeListener {
     private static final int DEFAULT_FONT_SIZE = 12;
     private static final int DEFAULT_PORT = 8080;
 
+    // Log tab status lights
+    private static final Color TAB_STARTING_COLOR = new Color(255, 170, 0);
+    private static final Color TAB_READY_COLOR = new Color(0, 180, 0);
+    private static final Color TAB_FAILED_COLOR = new Color(255, 50, 50);
+    // Settings a new instance takes over from the one shown
+    private static final String[] COPIED_INSTANCE_KEYS = {
+        "static.folder.path", "templates.folder.path", "data.folder.path", "log.level"
+    };
+
     // Window settings
     private static final int DEFAULT_WINDOW_WIDTH = 1024;
     private static final int DEFAULT_WINDOW_HEIGHT = 768;
@@ -157,11 +181,244 @@ public class MainFrame extends JFrame implements LanguageChangeListener {
     }
 
     private void setupProcessManager() {
-        appProcessManager = new AppProcessManager(
-            mainForm::appendLog,
-            () -> SwingUtilities.invokeLater(() -> updateButtonStates(false)),
-            config
+        processGroup = new ProcessGroupManager();
+        for (String instanceId : config.getInstanceIds()) {
+            addInstance(instanceId);
+        }
+        mainForm.addLogTabChangeListener(e -> showSelectedInstance());
+        showSelectedInstance();
+    }
+
+    private void addInstance(String instanceId) {
+        ConfigManager instanceConfig = config.forInstance(instanceId);
+        mainForm.addLogTab(instanceId, getTabTitle(instanceConfig));
+
+        // One spool session per instance and launcher run, shared by restarts
+        LogSpool spool = LogSpool.create(config,
+            ConfigManager.DEFAULT_INSTANCE.equals(instanceId) ? null : instanceId);
+        if (spool != null) {
+            AppLogger.info("Writing session log to " + spool.getSessionDir());
+            mainForm.setLogSpool(instanceId, spool);
+            logSpools.put(instanceId, spool);
+            Thread hook = new Thread(spool::close, "log-spool-close");
+            Runtime.getRuntime().addShutdownHook(hook);
+            logSpoolHooks.put(instanceId, hook);
+        }
+
+        AppProcessManager manager = processGroup.addInstance(
+            instanceId,
+            mainForm.getLogConsumer(instanceId),
+            () -> {},  // The state listener below covers exits too
+            instanceConfig
         );
+        if (spool != null) {
+            manager.setLogSpool(spool);
+        }
+        manager.addStateListener(state -> SwingUtilities.invokeLater(() -> onInstanceState(instanceId)));
+        manager.setReadinessListener(new ReadinessDetector.Listener() {
+            @Override
+            public void onReady() {
+                // Shown through the READY state
+            }
+
+            @Override
+            public void onTimeout() {
+                SwingUtilities.invokeLater(() -> onInstanceReadyTimeout(instanceId));
+            }
+        });
+        supervisors.put(instanceId, new ProcessSupervisor(manager, new ProcessSupervisor.Listener() {
+            @Override
+            public void onRestartScheduled(int attempt, long delayMillis) {
+                SwingUtilities.invokeLater(() -> onInstanceRestartScheduled(instanceId));
+            }
+
+            @Override
+            public void onRestarted(int restarts) {
+                SwingUtilities.invokeLater(() -> onInstanceRestarted(instanceId, restarts));
+            }
+
+            @Override
+            public void onCrashLoop(int crashes, int windowMinutes) {
+                SwingUtilities.invokeLater(() -> onInstanceCrashLoop(instanceId, crashes, windowMinutes));
+            }
+        }));
+    }
+
+    /**
+     * Adds an instance on the next free port, watching the same directories
+     * as the one shown.
+     */
+    private void addNewInstance() {
+        ConfigManager source = getSelectedConfig();
+        String instanceId = config.addInstance();
+        ConfigManager target = config.forInstance(instanceId);
+        int port = ProcessGroupManager.nextFreePort(source.getInt("server.port", DEFAULT_PORT) + 1,
+            processGroup.getPorts());
+        target.setInt("server.port", port);
+        for (String key : COPIED_INSTANCE_KEYS) {
+            String value = source.getProperty(key, null);
+            if (value != null) {
+                target.setProperty(key, value);
+            }
+        }
+        target.setJvmProfile(source.getJvmProfile());
+        config.save();
+
+        addInstance(instanceId);
+        mainForm.selectLogTab(instanceId);
+    }
+
+    private void removeSelectedInstance() {
+        String instanceId = mainForm.getSelectedInstanceId();
+        if (instanceId == null || ConfigManager.DEFAULT_INSTANCE.equals(instanceId)) {
+            return;
+        }
+        ProcessSupervisor supervisor = supervisors.remove(instanceId);
+        if (supervisor != null) {
+            supervisor.close();
+        }
+        CompletableFuture<Void> removed = processGroup.removeInstance(instanceId);
+        LogSpool spool = logSpools.remove(instanceId);
+        Thread hook = logSpoolHooks.remove(instanceId);
+        if (spool != null) {
+            // Closed once the processor has exited, so the lines it writes while stopping are kept
+            removed.whenComplete((v, e) -> {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(hook);
+                } catch (IllegalStateException ignored) {
+                    // The JVM is shutting down and the hook closes the spool anyway
+                }
+                spool.close();
+            });
+        }
+        mainForm.removeLogTab(instanceId);
+        config.removeInstance(instanceId);
+        config.save();
+        showSelectedInstance();
+    }
+
+    /**
+     * Shows a state change of an instance on its tab, and in the control
+     * panel when it is the one shown.
+     */
+    private void onInstanceState(String instanceId) {
+        AppProcessManager manager = processGroup.get(instanceId);
+        if (manager == null) {
+            return;  // Removed
+        }
+        ProcessSupervisor supervisor = supervisors.get(instanceId);
+        ProcessState state = manager.getState();
+        mainForm.setLogTabStatus(instanceId, getTabColor(state, supervisor));
+        if (!instanceId.equals(mainForm.getSelectedInstanceId())) {
+            return;
+        }
+        updateButtonStates(state, supervisor);
+        switch (state) {
+            case STARTING -> {
+                if (!isRunning) {
+                    onProcessStart();
+                }
+            }
+            case READY -> {
+                if (!isRunning) {
+                    onProcessStart();
+                }
+                controlPanel.onProcessReady();
+            }
+            case STOPPED -> {
+                if (isRunning) {
+                    onProcessStop();
+                }
+            }
+            default -> {
+                // STOPPING keeps showing the process until it is gone
+            }
+        }
+    }
+
+    private void onInstanceRestartScheduled(String instanceId) {
+        onInstanceState(instanceId);
+    }
+
+    private void onInstanceRestarted(String instanceId, int restarts) {
+        if (processGroup.get(instanceId) != null && instanceId.equals(mainForm.getSelectedInstanceId())) {
+            controlPanel.setRestartCount(restarts);
+        }
+    }
+
+    private void onInstanceCrashLoop(String instanceId, int crashes, int windowMinutes) {
+        AppProcessManager manager = processGroup.get(instanceId);
+        if (manager == null) {
+            return;
+        }
+        onInstanceState(instanceId);
+        if (trayIcon != null) {
+            trayIcon.displayMessage(bundle.getString("app_title"),
+                String.format(bundle.getString("crash_loop_alert"), getTabTitle(manager.getConfig()), crashes, windowMinutes),
+                TrayIcon.MessageType.WARNING);
+        }
+    }
+
+    private void onInstanceReadyTimeout(String instanceId) {
+        AppProcessManager manager = processGroup.get(instanceId);
+        if (manager == null || manager.getState() != ProcessState.STARTING) {
+            return;
+        }
+        mainForm.setLogTabStatus(instanceId, TAB_FAILED_COLOR);
+        if (instanceId.equals(mainForm.getSelectedInstanceId())) {
+            controlPanel.onProcessReadyTimeout();
+        }
+    }
+
+    private static Color getTabColor(ProcessState state, ProcessSupervisor supervisor) {
+        return switch (state) {
+            case STARTING, STOPPING -> TAB_STARTING_COLOR;
+            case READY -> TAB_READY_COLOR;
+            case STOPPED -> supervisor.isRestartPending() ? TAB_STARTING_COLOR
+                : supervisor.hasGivenUp() ? TAB_FAILED_COLOR : null;
+        };
+    }
+
+    /**
+     * Shows the state of the instance whose tab is selected in the control
+     * panel and tray.
+     */
+    private void showSelectedInstance() {
+        AppProcessManager manager = getSelectedManager();
+        if (manager == null) {
+            return;
+        }
+        ProcessSupervisor supervisor = supervisors.get(mainForm.getSelectedInstanceId());
+        ProcessState state = manager.getState();
+        isRunning = state != ProcessState.STOPPED;
+        updateButtonStates(state, supervisor);
+        controlPanel.showInstance(manager.getConfig(), manager.getStartupTimeline(),
+            getServerUrl(), isRunning, state == ProcessState.READY, supervisor.getRestarts());
+        mainForm.getResourceStatusBar().setSampler(manager.getResourceSampler());
+        controlPanel.setProcessManager(manager);
+        menuBar.getRemoveInstanceMenuItem().setEnabled(
+            !ConfigManager.DEFAULT_INSTANCE.equals(mainForm.getSelectedInstanceId()));
+        updateTrayIcon();
+    }
+
+    private AppProcessManager getSelectedManager() {
+        String instanceId = mainForm.getSelectedInstanceId();
+        return instanceId != null ? processGroup.get(instanceId) : null;
+    }
+
+    private ConfigManager getSelectedConfig() {
+        AppProcessManager manager = getSelectedManager();
+        return manager != null ? manager.getConfig() : config;
+    }
+
+    private void updateTabTitles() {
+        for (String instanceId : processGroup.getInstanceIds()) {
+            mainForm.setLogTabTitle(instanceId, getTabTitle(processGroup.get(instanceId).getConfig()));
+        }
+    }
+
+    private static String getTabTitle(ConfigManager instanceConfig) {
+        return "localhost:" + instanceConfig.getInt("server.port", DEFAULT_PORT);
     }
 
     private void updateTitle() {
@@ -209,20 +466,27 @@ public class MainFrame extends JFrame implements LanguageChangeListener {
         controlPanel.getLogLevelCombo().addActionListener(e -> {
             String level = (String) controlPanel.getLogLevelCombo().getSelectedItem();
             if (level != null) {
-                config.setProperty("log.level", level);
+                getSelectedConfig().setProperty("log.level", level);
             }
         });
     }
 
     private void setupMenuActions() {
         mainForm.getProgramSettingsMenuItem().addActionListener(e -> {
-            mainForm.showSettingsDialog(this);
+            mainForm.showSettingsDialog(this, getSelectedConfig());
             updateFromSettings();
+            updateTabTitles();
         });
 
         mainForm.getThymeleafSettingsMenuItem().addActionListener(e -> 
-            mainForm.showThymeleafSettingsDialog(this, bundle, config));
+            mainForm.showThymeleafSettingsDialog(this, bundle, getSelectedConfig()));
+
+        menuBar.getAddInstanceMenuItem().addActionListener(e -> addNewInstance());
+        menuBar.getRemoveInstanceMenuItem().addActionListener(e -> removeSelectedInstance());
 
+        menuBar.getTasksMenuItem().addActionListener(e -> new TaskListDialog(this, bundle).setVisible(true));
+        menuBar.getBenchmarkMenuItem().addActionListener(e -> showBenchmarkDialog());
+        menuBar.getProfileMenuItem().addActionListener(e -> showProfileDialog());
         mainForm.getAboutMenuItem().addActionListener(e -> showAboutDialog(this));
     }
 
@@ -279,24 +543,40 @@ public class MainFrame extends JFrame implements LanguageChangeListener {
         menuBar.getHelpMenu().setText(bundle.getString("menu_help"));
         menuBar.getProgramSettingsMenuItem().setText(bundle.getString("menu_program_settings"));
         menuBar.getThymeleafSettingsMenuItem().setText(bundle.getString("menu_thymeleaf_settings"));
+        menuBar.getAddInstanceMenuItem().setText(bundle.getString("menu_add_instance"));
+        menuBar.getRemoveInstanceMenuItem().setText(bundle.getString("menu_remove_instance"));
         menuBar.getExitMenuItem().setText(bundle.getString("menu_exit"));
+        menuBar.getTasksMenuItem().setText(bundle.getString("menu_tasks"));
+        menuBar.getBenchmarkMenuItem().setText(bundle.getString("menu_benchmark"));
+        menuBar.getProfileMenuItem().setText(bundle.getString("menu_profile"));
         menuBar.getAboutMenuItem().setText(bundle.getString("menu_about"));
     }
 
     private void startApp() {
-        if (!appProcessManager.isRunning()) {
-            appProcessManager.startProcess();
-            updateButtonStates(true);
-            onProcessStart();
+        AppProcessManager manager = getSelectedManager();
+        if (manager != null && manager.getState() == ProcessState.STOPPED) {
+            supervisors.get(mainForm.getSelectedInstanceId()).processStarted();
+            // Finding and hashing the jar is kept off the EDT; state changes update the UI
+            manager.start().exceptionally(e -> {
+                AppLogger.debug("Processor start failed: " + e.getMessage());
+                return null;
+            });
         }
     }
 
     private void stopApp() {
-        if (appProcessManager.isRunning()) {
-            appProcessManager.stopProcess();
-            updateButtonStates(false);
-            onProcessStop();
+        AppProcessManager manager = getSelectedManager();
+        if (manager == null) {
+            return;
+        }
+        String instanceId = mainForm.getSelectedInstanceId();
+        ProcessSupervisor supervisor = supervisors.get(instanceId);
+        if (supervisor.isRestartPending()) {
+            supervisor.cancelRestart();
+            onInstanceState(instanceId);
         }
+        // Returns at once; the instance goes through STOPPING to STOPPED
+        manager.stop();
     }
 
     private void updateButtonStates(boolean isRunning) {
@@ -304,6 +584,13 @@ public class MainFrame extends JFrame implements LanguageChangeListener {
         controlPanel.getStopButton().setEnabled(isRunning);
     }
 
+    private void updateButtonStates(ProcessState state, ProcessSupervisor supervisor) {
+        boolean restartPending = state == ProcessState.STOPPED && supervisor.isRestartPending();
+        controlPanel.getStartButton().setEnabled(state == ProcessState.STOPPED);
+        // A pending restart can be cancelled with Stop
+        controlPanel.getStopButton().setEnabled(state == ProcessState.STARTING || state == ProcessState.READY || restartPending);
+    }
+
     public void loadWindowState() {
         int width = config.getInt("window.width", DEFAULT_WINDOW_WIDTH);
         int height = config.getInt("window.height", DEFAULT_WINDOW_HEIGHT);
@@ -504,13 +791,47 @@ public class MainFrame extends JFrame implements LanguageChangeListener {
         }
     }
 
+    private void showBenchmarkDialog() {
+        AppProcessManager manager = getSelectedManager();
+        if (manager == null || manager.getState() != ProcessState.READY) {
+            JOptionPane.showMessageDialog(this, bundle.getString("benchmark_not_running"),
+                bundle.getString("benchmark_title"), JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        new BenchmarkDialog(this, bundle, String.format("http://localhost:%d", manager.getRunningPort()))
+            .setVisible(true);
+    }
+
+    private void showProfileDialog() {
+        AppProcessManager manager = getSelectedManager();
+        if (manager == null || (manager.getState() != ProcessState.READY && manager.getState() != ProcessState.STOPPED)) {
+            JOptionPane.showMessageDialog(this, bundle.getString("profile_not_ready"),
+                bundle.getString("profile_title"), JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        ProcessSupervisor supervisor = supervisors.get(mainForm.getSelectedInstanceId());
+        // A restart for a recording is started by hand, so it does not count as a crash
+        new ProfileDialog(this, bundle, manager, () -> {
+            supervisor.processStarted();
+            return manager.restart();
+        }).setVisible(true);
+    }
+
     public void showAboutDialog(MainFrame parent) {
         AboutDialog dialog = new AboutDialog(parent, bundle, config);
         dialog.setVisible(true);
     }
 
+    /**
+     * Returns the URL of the instance shown: the port it runs on while it
+     * runs, which stays the same when the setting is edited meanwhile, and
+     * the configured port otherwise.
+     */
     private String getServerUrl() {
-        int port = config.getInt("server.port", DEFAULT_PORT);
+        AppProcessManager manager = getSelectedManager();
+        int port = manager != null && manager.isRunning()
+            ? manager.getRunningPort()
+            : getSelectedConfig().getInt("server.port", DEFAULT_PORT);
         return String.format("http://localhost:%d", port);
     }
 } 
\ No newline at end of file
@@ -1,6 +1,9 @@
 package com.github.thkwag.thymelab.launcher.ui.components;
 
 import com.github.thkwag.thymelab.launcher.config.ConfigManager;
+import com.github.thkwag.thymelab.launcher.process.ActuatorClient;
+import com.github.thkwag.thymelab.launcher.process.AppProcessManager;
+import com.github.thkwag.thymelab.launcher.process.StartupTimeline;
 import com.github.thkwag.thymelab.launcher.ui.dialogs.ActuatorInfoDialog;
 import com.github.thkwag.thymelab.launcher.util.AppLogger;
 
@@ -9,9 +12,11 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 public class ControlPanel extends JPanel {
     private JButton startButton;
@@ -28,9 +33,15 @@ public class ControlPanel extends JPanel {
     private String selectedFont;
     private int selectedFontSize;
     private JLabel urlLabel;
-    private final ConfigManager config;
+    // The config view of the instance shown
+    private ConfigManager config;
     private JPanel statusIndicator;
     private Timer blinkTimer;
+    private JLabel startupLabel;
+    private JLabel restartLabel;
+    private StartupTimeline startupTimeline;
+    private AppProcessManager processManager;
+    private final Set<StartupTimeline> watchedTimelines = Collections.newSetFromMap(new WeakHashMap<>());
 
     // Layout constants
     private static final int BORDER_SPACING = 5;
@@ -48,13 +59,10 @@ public class ControlPanel extends JPanel {
     private static final Color STATUS_ERROR_COLOR = new Color(255, 50, 50);
     private static final Color STATUS_ERROR_BLINK = new Color(180, 0, 0);
     private static final Color STATUS_SUCCESS_COLOR = new Color(0, 180, 0);
+    private static final Color STARTUP_TEXT_COLOR = Color.GRAY;
 
     // Timer settings
     private static final int BLINK_INTERVAL = 500;
-    private static final int CONNECTION_TIMEOUT = 1000;
-    private static final int READ_TIMEOUT = 1000;
-    private static final int RETRY_INTERVAL = 1000;
-    private static final int MAX_RETRY_COUNT = 30;
 
     // Default settings
     private static final int DEFAULT_PORT = 8080;
@@ -62,10 +70,7 @@ public class ControlPanel extends JPanel {
     private static final String[] SUPPORTED_LANGUAGES = {"en", "ko", "ja"};
 
     // Endpoint paths
-    private static final String ENDPOINT_ACTUATOR_HEALTH = "/actuator/health";
-    private static final String ENDPOINT_ACTUATOR_LOGGERS = "/actuator/loggers/com.github.thkwag.thymelab";
-    private static final String SERVER_URL_FORMAT = "http://localhost:%d";
-    private static final String ACTUATOR_URL_FORMAT = SERVER_URL_FORMAT + "%s";
+    private static final String ENDPOINT_ACTUATOR_LOGGERS = "loggers/com.github.thkwag.thymelab";
 
     public ControlPanel(ConfigManager config) {
         this.config = config;
@@ -88,6 +93,8 @@ public class ControlPanel extends JPanel {
         leftPanel.add(Box.createHorizontalStrut(HORIZONTAL_SPACING));
         leftPanel.add(urlLabel);
         leftPanel.add(statusIndicator);
+        leftPanel.add(startupLabel);
+        leftPanel.add(restartLabel);
         
         // Right panel - Log level and clear button
         JPanel rightPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, HORIZONTAL_SPACING, VERTICAL_SPACING));
@@ -172,14 +179,25 @@ public class ControlPanel extends JPanel {
             @Override
             public void mouseClicked(MouseEvent e) {
                 if (statusIndicator.isVisible() && logLevelCombo.isEnabled()) {
-                    int port = config.getInt("server.port", DEFAULT_PORT);
                     ActuatorInfoDialog dialog = new ActuatorInfoDialog(
-                        (Frame) SwingUtilities.getWindowAncestor(ControlPanel.this), port);
+                        (Frame) SwingUtilities.getWindowAncestor(ControlPanel.this), getServerPort(),
+                        processManager != null ? processManager.getMetricsStore() : null);
                     dialog.setVisible(true);
                 }
             }
         });
         
+        // Startup phase breakdown, shown next to the status indicator
+        startupLabel = new JLabel();
+        startupLabel.setForeground(STARTUP_TEXT_COLOR);
+        startupLabel.setFont(startupLabel.getFont().deriveFont(Font.PLAIN));
+        startupLabel.setVisible(false);
+
+        // Automatic restarts of the instance shown
+        restartLabel = new JLabel();
+        restartLabel.setForeground(STATUS_ERROR_BLINK);
+        restartLabel.setVisible(false);
+
         // Setup blink timer
         blinkTimer = new Timer(BLINK_INTERVAL, e -> {
             if (statusIndicator.isVisible()) {
@@ -193,86 +211,108 @@ public class ControlPanel extends JPanel {
     }
 
     private void updateLogLevel(String level) {
-        int port = config.getInt("server.port", DEFAULT_PORT);
-        URI uri = URI.create(String.format(ACTUATOR_URL_FORMAT, port, ENDPOINT_ACTUATOR_LOGGERS));
-        
-        new Thread(() -> {
-            try {
-                AppLogger.debug("Updating log level to: " + level);
-                java.net.HttpURLConnection conn = (java.net.HttpURLConnection)
-                    uri.toURL().openConnection();
-
-                conn.setRequestMethod("POST");
-                conn.setRequestProperty("Content-Type", "application/json");
-                conn.setDoOutput(true);
-
-                try (java.io.OutputStream os = conn.getOutputStream()) {
-                    byte[] input = String.format("{\"configuredLevel\": \"%s\"}", level).getBytes(StandardCharsets.UTF_8);
-                    os.write(input, 0, input.length);
-                }
-
-                int responseCode = conn.getResponseCode();
-                if (responseCode != 200 && responseCode != 204) {  // Treat 204 as success too
+        AppLogger.debug("Updating log level to: " + level);
+        ActuatorClient.forPort(getServerPort())
+            .post(ENDPOINT_ACTUATOR_LOGGERS, String.format("{\"configuredLevel\": \"%s\"}", level))
+            .whenComplete((responseCode, ex) -> {
+                if (ex != null) {
+                    AppLogger.error("Failed to update log level: " + ex.getMessage(), ex);
+                } else if (responseCode != 200 && responseCode != 204) {  // Treat 204 as success too
                     AppLogger.error("Failed to update log level. Server returned: HTTP " + responseCode);
                 } else {
                     AppLogger.debug("Log level successfully updated to: " + level);
                 }
-                
-            } catch (Exception ex) {
-                AppLogger.error("Failed to update log level: " + ex.getMessage(), ex);
-            }
-        }).start();
+            });
     }
 
-    private void checkActuatorStatus() {
-        int port = config.getInt("server.port", DEFAULT_PORT);
-        URI uri = URI.create(String.format(ACTUATOR_URL_FORMAT, port, ENDPOINT_ACTUATOR_HEALTH));
-        
-        new Thread(() -> {
-            AppLogger.debug("Starting actuator health check...");
-            for (int i = 0; i < MAX_RETRY_COUNT; i++) {  // Try for 30 seconds
-                try {
-                    java.net.HttpURLConnection conn = (java.net.HttpURLConnection) 
-                        uri.toURL().openConnection();
-                    conn.setRequestMethod("GET");
-                    conn.setConnectTimeout(CONNECTION_TIMEOUT);
-                    conn.setReadTimeout(READ_TIMEOUT);
-                    
-                    int responseCode = conn.getResponseCode();
-                    if (responseCode == 200) {
-                        AppLogger.debug("Actuator health check successful");
-                        SwingUtilities.invokeLater(() -> {
-                            setLogControlsEnabled(true);
-                            statusIndicator.setBackground(STATUS_SUCCESS_COLOR);
-                            blinkTimer.stop();
-                        });
-                        return;
-                    }
-                    // Response code is not 200
-                    AppLogger.debug("Actuator health check failed: HTTP " + responseCode + " (attempt " + (i + 1) + "/" + MAX_RETRY_COUNT + ")");
-                    
-                } catch (java.net.ConnectException e) {
-                    AppLogger.debug("Server not yet ready: " + e.getMessage() + " (attempt " + (i + 1) + "/" + MAX_RETRY_COUNT + ")");
-                } catch (Exception e) {
-                    AppLogger.error("Error checking actuator status: " + e.getMessage(), e);
-                }
-                
-                try {
-                    Thread.sleep(RETRY_INTERVAL);  // Wait 1 second
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    AppLogger.debug("Actuator health check interrupted");
-                    break;
+    /**
+     * Shows the phase timings of each start of the instance shown.
+     */
+    public void setStartupTimeline(StartupTimeline timeline) {
+        this.startupTimeline = timeline;
+        if (watchedTimelines.add(timeline)) {
+            timeline.addListener(t -> SwingUtilities.invokeLater(() -> {
+                if (t == startupTimeline) {
+                    updateStartupLabel();
                 }
+            }));
+        }
+        updateStartupLabel();
+    }
+
+    /**
+     * Sets the processor of the instance shown, whose metrics the actuator
+     * info dialog charts and whose port it and log level changes talk to.
+     */
+    public void setProcessManager(AppProcessManager processManager) {
+        this.processManager = processManager;
+    }
+
+    /**
+     * Returns the port the shown processor runs on, which differs from the
+     * setting once it is edited while the processor runs.
+     */
+    private int getServerPort() {
+        AppProcessManager manager = processManager;
+        if (manager != null && manager.isRunning()) {
+            return manager.getRunningPort();
+        }
+        return config.getInt("server.port", DEFAULT_PORT);
+    }
+
+    /**
+     * Switches the panel to another processor instance and shows its state.
+     */
+    public void showInstance(ConfigManager instanceConfig, StartupTimeline timeline,
+                             String serverUrl, boolean running, boolean ready, int restarts) {
+        setLogControlsEnabled(false);
+        this.config = instanceConfig;
+        setRestartCount(restarts);
+        logLevelCombo.setSelectedItem(instanceConfig.getProperty("log.level", LOG_LEVELS[0]));
+        setStartupTimeline(timeline);
+        if (!running) {
+            onProcessStopped();
+            return;
+        }
+        onProcessStarted(serverUrl);
+        if (ready) {
+            onProcessReady();
+        }
+    }
+
+    /**
+     * Shows how often the supervisor restarted the instance shown.
+     */
+    public void setRestartCount(int restarts) {
+        restartLabel.setText(String.format(config.getLocaleManager().getBundle().getString("restart_count"), restarts));
+        restartLabel.setVisible(restarts > 0);
+    }
+
+    private void updateStartupLabel() {
+        if (startupTimeline == null) {
+            return;
+        }
+        ResourceBundle bundle = config.getLocaleManager().getBundle();
+        StringBuilder text = new StringBuilder();
+        for (StartupTimeline.Phase phase : StartupTimeline.Phase.values()) {
+            long millis = startupTimeline.getMillis(phase);
+            if (millis < 0) {
+                continue;
             }
-            // Connection failed after 30 seconds
-            AppLogger.error("Actuator health check timed out after " + (MAX_RETRY_COUNT * RETRY_INTERVAL / 1000) + " seconds");
-            SwingUtilities.invokeLater(() -> {
-                setLogControlsEnabled(false);
-                statusIndicator.setBackground(STATUS_ERROR_COLOR);  // Change to red
-                blinkTimer.stop();
-            });
-        }).start();
+            if (text.length() > 0) {
+                text.append(" \u00B7 ");
+            }
+            text.append(bundle.getString(phase.getMessageKey())).append(' ').append(formatMillis(millis));
+        }
+        startupLabel.setText(text.toString());
+        double reported = startupTimeline.getReportedSeconds();
+        startupLabel.setToolTipText(reported >= 0
+            ? String.format(bundle.getString("startup_reported"), formatMillis(Math.round(reported * 1000)))
+            : null);
+    }
+
+    private static String formatMillis(long millis) {
+        return millis < 1000 ? millis + " ms" : String.format(Locale.ROOT, "%.2f s", millis / 1000.0);
     }
 
     public JButton getStartButton() { return startButton; }
@@ -323,12 +363,30 @@ public class ControlPanel extends JPanel {
 
     public void onProcessStarted() {
         AppLogger.debug("Application process started");
-        setLogControlsEnabled(false);  // Initially disabled, will be enabled by checkActuatorStatus
+        setLogControlsEnabled(false);  // Initially disabled, enabled once the processor is ready
         urlLabel.setVisible(true);
         statusIndicator.setVisible(true);
         statusIndicator.setBackground(new Color(255, 50, 50));
+        startupLabel.setVisible(startupTimeline != null);
         blinkTimer.start();
-        checkActuatorStatus();
+    }
+
+    /**
+     * The health endpoint of the instance shown answered.
+     */
+    public void onProcessReady() {
+        setLogControlsEnabled(true);
+        statusIndicator.setBackground(STATUS_SUCCESS_COLOR);
+        blinkTimer.stop();
+    }
+
+    /**
+     * The instance shown did not become ready in time.
+     */
+    public void onProcessReadyTimeout() {
+        setLogControlsEnabled(false);
+        statusIndicator.setBackground(STATUS_ERROR_COLOR);  // Change to red
+        blinkTimer.stop();
     }
 
     public void onProcessStarted(String serverUrl) {
@@ -342,6 +400,7 @@ public class ControlPanel extends JPanel {
         setLogControlsEnabled(false);
         urlLabel.setVisible(false);
         statusIndicator.setVisible(false);
+        startupLabel.setVisible(false);
         blinkTimer.stop();
     }
 
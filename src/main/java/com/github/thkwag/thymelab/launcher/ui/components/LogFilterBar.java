@@ -0,0 +1,155 @@
+package com.github.thkwag.thymelab.launcher.ui.components;
+
+import com.github.thkwag.thymelab.launcher.log.LogFilter;
+import com.github.thkwag.thymelab.launcher.log.LogLevel;
+import com.github.thkwag.thymelab.launcher.log.LogSymbolTable;
+
+import javax.swing.*;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ResourceBundle;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Filters the lines already in the log by minimum level, logger and thread.
+ * Unlike the server log level, this applies to everything on screen at once.
+ */
+public class LogFilterBar extends JPanel {
+    private final Consumer<LogFilter> filterListener;
+    private final JLabel levelLabel;
+    private final JLabel loggerLabel;
+    private final JLabel threadLabel;
+    private final JComboBox<Integer> levelCombo;
+    private final JComboBox<Integer> loggerCombo;
+    private final JComboBox<Integer> threadCombo;
+    private String allText = "All";
+    private boolean reloading;
+
+    // Layout constants
+    private static final int HORIZONTAL_SPACING = 5;
+    private static final int PANEL_PADDING = 2;
+    private static final int LOGGER_COMBO_WIDTH = 240;
+    private static final int THREAD_COMBO_WIDTH = 160;
+
+    public LogFilterBar(Consumer<LogFilter> filterListener) {
+        this.filterListener = filterListener;
+        setLayout(new FlowLayout(FlowLayout.LEFT, HORIZONTAL_SPACING, 0));
+        setBorder(BorderFactory.createEmptyBorder(PANEL_PADDING, 0, PANEL_PADDING, 0));
+
+        levelLabel = new JLabel("Level");
+        loggerLabel = new JLabel("Logger");
+        threadLabel = new JLabel("Thread");
+
+        levelCombo = new JComboBox<>();
+        levelCombo.addItem((int) LogLevel.UNKNOWN_CODE);
+        for (LogLevel level : LogLevel.values()) {
+            levelCombo.addItem((int) level.code());
+        }
+        levelCombo.setRenderer(new NameRenderer(code -> code == LogLevel.UNKNOWN_CODE
+            ? allText
+            : LogLevel.fromCode((byte) code).name()));
+
+        loggerCombo = createSymbolCombo(LogSymbolTable.LOGGERS, LOGGER_COMBO_WIDTH);
+        threadCombo = createSymbolCombo(LogSymbolTable.THREADS, THREAD_COMBO_WIDTH);
+
+        add(levelLabel);
+        add(levelCombo);
+        add(loggerLabel);
+        add(loggerCombo);
+        add(threadLabel);
+        add(threadCombo);
+
+        levelCombo.addActionListener(e -> fireFilterChanged());
+        loggerCombo.addActionListener(e -> fireFilterChanged());
+        threadCombo.addActionListener(e -> fireFilterChanged());
+    }
+
+    public void updateTexts(ResourceBundle bundle) {
+        levelLabel.setText(bundle.getString("filter_level"));
+        loggerLabel.setText(bundle.getString("filter_logger"));
+        threadLabel.setText(bundle.getString("filter_thread"));
+        allText = bundle.getString("filter_all");
+        repaint();
+    }
+
+    private JComboBox<Integer> createSymbolCombo(LogSymbolTable symbols, int width) {
+        JComboBox<Integer> combo = new JComboBox<>();
+        combo.addItem(LogSymbolTable.NONE);
+        combo.setRenderer(new NameRenderer(id -> id == LogSymbolTable.NONE ? allText : symbols.getName(id)));
+        combo.setPreferredSize(new Dimension(width, combo.getPreferredSize().height));
+        // Names show up as lines arrive, so refresh the choices on every open
+        combo.addPopupMenuListener(new PopupMenuListener() {
+            @Override
+            public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+                reloadSymbols(combo, symbols);
+            }
+
+            @Override
+            public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+            }
+
+            @Override
+            public void popupMenuCanceled(PopupMenuEvent e) {
+            }
+        });
+        return combo;
+    }
+
+    private void reloadSymbols(JComboBox<Integer> combo, LogSymbolTable symbols) {
+        String[] names = symbols.getNames();
+        if (combo.getItemCount() == names.length + 1) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(names.length);
+        for (int id = 0; id < names.length; id++) {
+            ids.add(id);
+        }
+        ids.sort(Comparator.comparing(id -> names[id]));
+
+        Object selected = combo.getSelectedItem();
+        reloading = true;
+        try {
+            combo.removeAllItems();
+            combo.addItem(LogSymbolTable.NONE);
+            for (Integer id : ids) {
+                combo.addItem(id);
+            }
+            combo.setSelectedItem(selected);
+        } finally {
+            reloading = false;
+        }
+    }
+
+    private void fireFilterChanged() {
+        if (reloading) {
+            return;
+        }
+        Integer level = (Integer) levelCombo.getSelectedItem();
+        Integer logger = (Integer) loggerCombo.getSelectedItem();
+        Integer thread = (Integer) threadCombo.getSelectedItem();
+        if (level == null || logger == null || thread == null) {
+            return;
+        }
+        filterListener.accept(new LogFilter(level.byteValue(), thread, logger));
+    }
+
+    private static final class NameRenderer extends DefaultListCellRenderer {
+        private final IntFunction<String> names;
+
+        NameRenderer(IntFunction<String> names) {
+            this.names = names;
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            String name = value instanceof Integer id ? names.apply(id) : "";
+            return super.getListCellRendererComponent(list, name, index, isSelected, cellHasFocus);
+        }
+    }
+}
@@ -1,76 +1,75 @@
 package com.github.thkwag.thymelab.launcher.ui.components;
 
-import com.github.thkwag.thymelab.launcher.util.AppLogger;
+import com.github.thkwag.thymelab.launcher.log.AnsiParser;
+import com.github.thkwag.thymelab.launcher.log.LogFilter;
+import com.github.thkwag.thymelab.launcher.log.LogLine;
+import com.github.thkwag.thymelab.launcher.log.LogLineBuffer;
+import com.github.thkwag.thymelab.launcher.log.LogScrollback;
+import com.github.thkwag.thymelab.launcher.log.LogSearchIndex;
+import com.github.thkwag.thymelab.launcher.log.LogSpool;
+import com.github.thkwag.thymelab.launcher.log.LogStyle;
+import com.github.thkwag.thymelab.launcher.process.LogConsumer;
 
 import javax.swing.*;
-import javax.swing.text.*;
 import java.awt.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-public class LogPanel extends JPanel {
-    private final JTextPane logTextPane;
-    private final StyledDocument styledDoc;
-    private final SimpleAttributeSet defaultStyle;
-    private int maxBufferSize = DEFAULT_BUFFER_SIZE;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ResourceBundle;
+
+public class LogPanel extends JPanel implements LogConsumer {
+    private final LogLineBuffer lineBuffer;
+    private final LogScrollback scrollback;
+    private final LogView logView;
+    private final LogSearchIndex searchIndex;
+    private final LogSearchBar searchBar;
+    private final LogFilterBar filterBar;
+    private final AnsiParser messageParser = new AnsiParser();
 
     // Default settings
     private static final int DEFAULT_BUFFER_SIZE = 1000;
     private static final int DEFAULT_FONT_SIZE = 12;
-    private static final Color DEFAULT_BACKGROUND = Color.BLACK;
-    private static final Color DEFAULT_FOREGROUND = new Color(229, 229, 229);  // WHITE
 
     // Font settings
     private static final String WINDOWS_FONT = "Consolas";
     private static final String MAC_FONT = "Menlo";
     private static final String LINUX_FONT = "DejaVu Sans Mono";
 
-    // ANSI color settings
-    private static final Pattern ANSI_PATTERN = Pattern.compile("\u001B\\[([0-9;]*)m");
-    private static final Color[] ANSI_COLORS = {
-        new Color(0, 0, 0),          // BLACK
-        new Color(205, 0, 0),        // RED
-        new Color(0, 205, 0),        // GREEN
-        new Color(205, 205, 0),      // YELLOW
-        new Color(0, 0, 238),        // BLUE
-        new Color(205, 0, 205),      // MAGENTA
-        new Color(0, 205, 205),      // CYAN
-        new Color(229, 229, 229),    // WHITE
-        // Bright colors
-        new Color(127, 127, 127),    // BRIGHT BLACK (GRAY)
-        new Color(255, 0, 0),        // BRIGHT RED
-        new Color(0, 255, 0),        // BRIGHT GREEN
-        new Color(255, 255, 0),      // BRIGHT YELLOW
-        new Color(92, 92, 255),      // BRIGHT BLUE
-        new Color(255, 0, 255),      // BRIGHT MAGENTA
-        new Color(0, 255, 255),      // BRIGHT CYAN
-        new Color(255, 255, 255)     // BRIGHT WHITE
-    };
-
-    // ANSI code offsets
-    private static final int FOREGROUND_COLOR_OFFSET = 30;
-    private static final int BACKGROUND_COLOR_OFFSET = 40;
-    private static final int BRIGHT_COLOR_OFFSET = 82;  // 90-8
-    private static final int BRIGHT_BG_COLOR_OFFSET = 92;  // 100-8
-
-    // ANSI control codes
-    private static final int ANSI_RESET = 0;
-    private static final int ANSI_BOLD = 1;
-
     public LogPanel() {
         setLayout(new BorderLayout());
-        
-        logTextPane = new JTextPane();
-        styledDoc = logTextPane.getStyledDocument();
-        JScrollPane logScrollPane = new JScrollPane(logTextPane);
-        
-        defaultStyle = new SimpleAttributeSet();
-        StyleConstants.setForeground(defaultStyle, DEFAULT_FOREGROUND);
-        StyleConstants.setBackground(defaultStyle, DEFAULT_BACKGROUND);
-        StyleConstants.setFontFamily(defaultStyle, getDefaultMonospacedFont());
-        
-        configureLogTextPane();
+
+        lineBuffer = new LogLineBuffer(DEFAULT_BUFFER_SIZE);
+        scrollback = new LogScrollback(lineBuffer);
+        logView = new LogView(scrollback, new Font(getDefaultMonospacedFont(), Font.PLAIN, DEFAULT_FONT_SIZE));
+        JScrollPane logScrollPane = new JScrollPane(logView);
+        logScrollPane.getViewport().setBackground(LogStyle.DEFAULT_BACKGROUND);
+
+        searchIndex = new LogSearchIndex(lineBuffer);
+        searchBar = new LogSearchBar(searchIndex, logView);
+        filterBar = new LogFilterBar(this::setFilter);
+
+        JPanel toolPanel = new JPanel(new BorderLayout());
+        toolPanel.add(filterBar, BorderLayout.NORTH);
+        toolPanel.add(searchBar, BorderLayout.SOUTH);
+        add(toolPanel, BorderLayout.NORTH);
         add(logScrollPane, BorderLayout.CENTER);
+        installKeyBindings();
+    }
+
+    private void installKeyBindings() {
+        int shortcutMask = GraphicsEnvironment.isHeadless()
+            ? InputEvent.CTRL_DOWN_MASK
+            : Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F, shortcutMask), "find");
+        getActionMap().put("find", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                searchBar.open();
+                revalidate();
+            }
+        });
     }
 
     public static String getDefaultMonospacedFont() {
@@ -84,150 +83,110 @@ public class LogPanel extends JPanel {
         }
     }
 
-    private void configureLogTextPane() {
-        logTextPane.setEditable(false);
-        logTextPane.setBackground(DEFAULT_BACKGROUND);
-        logTextPane.setForeground(DEFAULT_FOREGROUND);
-        logTextPane.setFont(new Font(getDefaultMonospacedFont(), Font.PLAIN, DEFAULT_FONT_SIZE));
-        
-        // Set default style
-        StyleConstants.setForeground(defaultStyle, DEFAULT_FOREGROUND);
-        StyleConstants.setBackground(defaultStyle, DEFAULT_BACKGROUND);
-        StyleConstants.setFontFamily(defaultStyle, getDefaultMonospacedFont());
+    @Override
+    public void accept(String line) {
+        appendLog(line);
     }
 
-    public void appendLog(String text) {
-        SwingUtilities.invokeLater(() -> {
-            try {
-                processAnsiText(text);
-                trimBuffer();
-                logTextPane.setCaretPosition(styledDoc.getLength());
-            } catch (BadLocationException e) {
-                AppLogger.error("Failed to append log", e);
-            }
-        });
+    @Override
+    public void acceptBatch(List<LogLine> lines) {
+        appendLines(lines);
     }
 
-    private void processAnsiText(String text) throws BadLocationException {
-        Matcher matcher = ANSI_PATTERN.matcher(text);
-        int lastEnd = 0;
-        SimpleAttributeSet currentStyle = new SimpleAttributeSet(defaultStyle);
-
-        while (matcher.find()) {
-            String textBeforeCode = text.substring(lastEnd, matcher.start());
-            if (!textBeforeCode.isEmpty()) {
-                styledDoc.insertString(styledDoc.getLength(), textBeforeCode, currentStyle);
-            }
+    @Override
+    public void acceptBatch(List<LogLine> lines, Runnable onApplied) {
+        appendLines(lines, onApplied);
+    }
 
-            String[] codes = matcher.group(1).split(";");
-            for (String code : codes) {
-                if (code.isEmpty()) continue;
-                int value = Integer.parseInt(code);
-                updateStyle(currentStyle, value);
+    /**
+     * Appends launcher messages. The text is parsed on the calling thread.
+     */
+    public void appendLog(String text) {
+        List<LogLine> lines = new ArrayList<>();
+        synchronized (messageParser) {
+            int start = 0;
+            while (start < text.length()) {
+                int end = text.indexOf('\n', start);
+                if (end < 0) {
+                    end = text.length();
+                }
+                lines.add(messageParser.parseLine(text, start, end));
+                start = end + 1;
             }
-            
-            lastEnd = matcher.end();
         }
+        appendLines(lines);
+    }
 
-        String remainingText = text.substring(lastEnd);
-        if (!remainingText.isEmpty()) {
-            styledDoc.insertString(styledDoc.getLength(), remainingText, currentStyle);
-        }
+    /**
+     * Pages lines in from the given spool once they leave the in-memory
+     * buffer. The spool is written by the process manager; lines arrive here
+     * numbered as stored there.
+     */
+    public void setLogSpool(LogSpool spool) {
+        SwingUtilities.invokeLater(() -> scrollback.attachStore(spool.getStore()));
     }
 
-    private void updateStyle(SimpleAttributeSet style, int code) {
-        switch (code) {
-            case ANSI_RESET:  // Reset
-                StyleConstants.setForeground(style, DEFAULT_FOREGROUND);
-                StyleConstants.setBackground(style, DEFAULT_BACKGROUND);
-                StyleConstants.setBold(style, false);
-                break;
-            case ANSI_BOLD:  // Bold
-                StyleConstants.setBold(style, true);
-                break;
-            case 30: case 31: case 32: case 33:
-            case 34: case 35: case 36: case 37:
-                StyleConstants.setForeground(style, ANSI_COLORS[code - FOREGROUND_COLOR_OFFSET]);
-                break;
-            case 90: case 91: case 92: case 93:
-            case 94: case 95: case 96: case 97:
-                StyleConstants.setForeground(style, ANSI_COLORS[code - BRIGHT_COLOR_OFFSET]);
-                break;
-            case 40: case 41: case 42: case 43:
-            case 44: case 45: case 46: case 47:
-                StyleConstants.setBackground(style, ANSI_COLORS[code - BACKGROUND_COLOR_OFFSET]);
-                break;
-            case 100: case 101: case 102: case 103:
-            case 104: case 105: case 106: case 107:
-                StyleConstants.setBackground(style, ANSI_COLORS[code - BRIGHT_BG_COLOR_OFFSET]);
-                break;
-        }
+    public void appendLines(List<LogLine> lines) {
+        appendLines(lines, null);
     }
 
-    private void trimBuffer() {
-        try {
-            String text = styledDoc.getText(0, styledDoc.getLength());
-            int lineCount = text.split("\n").length;
-            if (lineCount > maxBufferSize) {
-                int toRemove = lineCount - maxBufferSize;
-                int removePos = indexOfNthLineEnd(text, toRemove);
-                if (removePos > 0) {
-                    styledDoc.remove(0, removePos);
+    /**
+     * Appends lines on the event thread and runs {@code onApplied} once they
+     * are in the view, even if appending failed.
+     */
+    public void appendLines(List<LogLine> lines, Runnable onApplied) {
+        SwingUtilities.invokeLater(() -> {
+            try {
+                applyLines(lines);
+            } finally {
+                if (onApplied != null) {
+                    onApplied.run();
                 }
             }
-        } catch (BadLocationException e) {
-            AppLogger.error(e.getMessage(), e);
-        }
+        });
     }
 
-    private int indexOfNthLineEnd(String text, int n) {
-        int count = 0;
-        for (int i = 0; i < text.length(); i++) {
-            if (text.charAt(i) == '\n') {
-                count++;
-                if (count == n) return i + 1;
-            }
+    private void applyLines(List<LogLine> lines) {
+        boolean followTail = logView.isAtBottom();
+        long topRowBefore = scrollback.getTopRowNumber();
+        for (LogLine line : lines) {
+            scrollback.append(line);
+            searchIndex.add(scrollback.getEndLineNumber() - 1, line.text());
         }
-        return -1;
+        logView.contentChanged(scrollback.getTopRowNumber() - topRowBefore, followTail);
+        searchBar.refresh();
     }
 
     public void setMaxBufferSize(int size) {
-        this.maxBufferSize = size;
-        trimBuffer();
+        long topRowBefore = scrollback.getTopRowNumber();
+        scrollback.setCapacity(size);
+        logView.contentChanged(scrollback.getTopRowNumber() - topRowBefore, logView.isAtBottom());
+    }
+
+    /**
+     * Shows only the lines matching the filter and keeps the newest one in view.
+     */
+    public void setFilter(LogFilter filter) {
+        scrollback.setFilter(filter);
+        logView.clearSelection();
+        logView.contentChanged(0, true);
     }
 
     public void clearLog() {
-        try {
-            styledDoc.remove(0, styledDoc.getLength());
-        } catch (BadLocationException e) {
-            AppLogger.error("Failed to clear log", e);
-        }
+        scrollback.clear();
+        searchIndex.clear();
+        searchBar.refresh();
+        logView.clearSelection();
+        logView.contentChanged(0, true);
+    }
+
+    public void updateTexts(ResourceBundle bundle) {
+        searchBar.updateTexts(bundle);
+        filterBar.updateTexts(bundle);
+        logView.setCopyTruncatedText(bundle.getString("log_copy_truncated"));
     }
 
     public void updateLogFont(String fontFamily, int fontSize) {
-        Font newFont = new Font(fontFamily, Font.PLAIN, fontSize);
-        logTextPane.setFont(newFont);
-        
-        // Update only font-related attributes
-        SimpleAttributeSet fontStyle = new SimpleAttributeSet();
-        StyleConstants.setFontFamily(fontStyle, fontFamily);
-        StyleConstants.setFontSize(fontStyle, fontSize);
-        
-        // Update font while preserving existing style attributes
-        StyledDocument doc = logTextPane.getStyledDocument();
-        Element root = doc.getDefaultRootElement();
-        for (int i = 0; i < root.getElementCount(); i++) {
-            Element elem = root.getElement(i);
-            AttributeSet attrs = elem.getAttributes();
-            SimpleAttributeSet newAttrs = new SimpleAttributeSet(attrs);
-            StyleConstants.setFontFamily(newAttrs, fontFamily);
-            StyleConstants.setFontSize(newAttrs, fontSize);
-            doc.setCharacterAttributes(elem.getStartOffset(), 
-                elem.getEndOffset() - elem.getStartOffset(), newAttrs, false);
-        }
-        
-        // Update default style
-        StyleConstants.setFontFamily(defaultStyle, fontFamily);
-        StyleConstants.setFontSize(defaultStyle, fontSize);
+        logView.setFont(new Font(fontFamily, Font.PLAIN, fontSize));
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,209 @@
+package com.github.thkwag.thymelab.launcher.ui.components;
+
+import com.github.thkwag.thymelab.launcher.log.LogSearchIndex;
+import com.github.thkwag.thymelab.launcher.log.LogSearchResult;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.util.ResourceBundle;
+
+/**
+ * Find bar for the log. Searches the {@link LogSearchIndex} as the query is
+ * typed, highlights the hits in the {@link LogView} and steps through them.
+ */
+public class LogSearchBar extends JPanel {
+    private final LogSearchIndex index;
+    private final LogView logView;
+    private final JLabel findLabel;
+    private final JTextField queryField;
+    private final JLabel matchLabel;
+    private final JButton previousButton;
+    private final JButton nextButton;
+    private final JButton closeButton;
+    private final Timer searchTimer;
+    private String noMatchesText = "No matches";
+
+    private LogSearchResult result;
+    private int currentHit = -1;
+
+    // Search settings
+    private static final int MAX_HITS = 10000;
+    private static final int SEARCH_DELAY = 150;
+
+    // Layout constants
+    private static final int HORIZONTAL_SPACING = 5;
+    private static final int PANEL_PADDING = 2;
+    private static final int QUERY_FIELD_COLUMNS = 24;
+
+    public LogSearchBar(LogSearchIndex index, LogView logView) {
+        this.index = index;
+        this.logView = logView;
+        setLayout(new FlowLayout(FlowLayout.LEFT, HORIZONTAL_SPACING, 0));
+        setBorder(BorderFactory.createEmptyBorder(PANEL_PADDING, 0, PANEL_PADDING, 0));
+
+        findLabel = new JLabel("Find");
+        queryField = new JTextField(QUERY_FIELD_COLUMNS);
+        matchLabel = new JLabel();
+        previousButton = new JButton("▲");
+        nextButton = new JButton("▼");
+        closeButton = new JButton("✕");
+
+        add(findLabel);
+        add(queryField);
+        add(previousButton);
+        add(nextButton);
+        add(matchLabel);
+        add(closeButton);
+
+        searchTimer = new Timer(SEARCH_DELAY, e -> search());
+        searchTimer.setRepeats(false);
+
+        queryField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+        });
+        previousButton.addActionListener(e -> step(-1));
+        nextButton.addActionListener(e -> step(1));
+        closeButton.addActionListener(e -> close());
+        installKeyBindings();
+        setVisible(false);
+    }
+
+    public void open() {
+        setVisible(true);
+        queryField.selectAll();
+        queryField.requestFocusInWindow();
+        search();
+    }
+
+    public void close() {
+        searchTimer.stop();
+        setVisible(false);
+        result = null;
+        currentHit = -1;
+        logView.setSearchHighlight(null, -1, -1);
+        logView.requestFocusInWindow();
+    }
+
+    /**
+     * Searches again after the log changed, keeping the current hit when it
+     * is still there. Bursts of changes are coalesced.
+     */
+    public void refresh() {
+        if (isVisible() && !searchTimer.isRunning()) {
+            searchTimer.start();
+        }
+    }
+
+    public void updateTexts(ResourceBundle bundle) {
+        findLabel.setText(bundle.getString("search_find"));
+        previousButton.setToolTipText(bundle.getString("search_previous"));
+        nextButton.setToolTipText(bundle.getString("search_next"));
+        closeButton.setToolTipText(bundle.getString("search_close"));
+        noMatchesText = bundle.getString("search_no_matches");
+        updateMatchLabel();
+    }
+
+    private void search() {
+        if (!isVisible()) {
+            return;
+        }
+        String query = queryField.getText();
+        long fromLine = currentHit >= 0 ? result.getLine(currentHit) : -1;
+        int fromColumn = currentHit >= 0 ? result.getColumn(currentHit) : 0;
+        boolean sameQuery = result != null && query.equals(result.getQuery());
+
+        result = index.search(query, MAX_HITS);
+        if (result.size() == 0) {
+            currentHit = -1;
+        } else if (sameQuery && fromLine >= 0) {
+            currentHit = Math.min(result.indexAtOrAfter(fromLine, fromColumn), result.size() - 1);
+        } else {
+            currentHit = result.size() - 1;
+        }
+        showCurrentHit(!sameQuery);
+    }
+
+    private void step(int direction) {
+        if (result == null || result.size() == 0) {
+            return;
+        }
+        currentHit = Math.floorMod(currentHit + direction, result.size());
+        showCurrentHit(true);
+    }
+
+    private void showCurrentHit(boolean scroll) {
+        String query = result == null || result.size() == 0 ? null : result.getQuery();
+        if (currentHit >= 0) {
+            long line = result.getLine(currentHit);
+            int column = result.getColumn(currentHit);
+            logView.setSearchHighlight(query, line, column);
+            if (scroll) {
+                logView.scrollToHit(line, column, query.length());
+            }
+        } else {
+            logView.setSearchHighlight(null, -1, -1);
+        }
+        updateMatchLabel();
+    }
+
+    private void updateMatchLabel() {
+        if (result == null || queryField.getText().isEmpty()) {
+            matchLabel.setText("");
+        } else if (result.size() == 0) {
+            matchLabel.setText(noMatchesText);
+        } else {
+            matchLabel.setText((currentHit + 1) + " / " + result.size() + (result.isTruncated() ? "+" : ""));
+        }
+    }
+
+    private void installKeyBindings() {
+        InputMap inputMap = queryField.getInputMap(WHEN_FOCUSED);
+        ActionMap actionMap = queryField.getActionMap();
+
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "search-next");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, InputEvent.SHIFT_DOWN_MASK), "search-previous");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "search-close");
+
+        actionMap.put("search-next", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (searchTimer.isRunning()) {
+                    searchTimer.stop();
+                    search();
+                } else {
+                    step(1);
+                }
+            }
+        });
+        actionMap.put("search-previous", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                step(-1);
+            }
+        });
+        actionMap.put("search-close", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                close();
+            }
+        });
+    }
+}
@@ -0,0 +1,555 @@
+package com.github.thkwag.thymelab.launcher.ui.components;
+
+import com.github.thkwag.thymelab.launcher.log.LogScrollback;
+import com.github.thkwag.thymelab.launcher.log.LogSearchIndex;
+import com.github.thkwag.thymelab.launcher.log.LogStyle;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Map;
+
+/**
+ * Log viewer that paints only the visible rows of a {@link LogScrollback}.
+ * Every row has the same height, so scrolling cost does not depend on how
+ * many lines are kept.
+ */
+public class LogView extends JComponent implements Scrollable {
+    private final LogScrollback lines;
+    private Font boldFont;
+    private FontMetrics metrics;
+    private FontMetrics boldMetrics;
+    private int rowHeight;
+    private int ascent;
+    private int charWidth;
+    private char[] rowChars = new char[256];
+    private int[] runX = new int[16];
+
+    // Selection bounds as absolute line numbers, anchorLine is NO_LINE when nothing is selected.
+    // History lines can have negative numbers, so -1 cannot mark an empty selection.
+    private static final long NO_LINE = Long.MIN_VALUE;
+    private long anchorLine = NO_LINE;
+    private int anchorColumn;
+    private long leadLine = NO_LINE;
+    private int leadColumn;
+
+    // Search highlight, searchQuery is null when there is nothing to highlight
+    private String searchQuery;
+    private long searchLine = -1;
+    private int searchColumn = -1;
+
+    // Copying stops here, as history paged in from disk can be far larger than the buffer
+    static final int MAX_COPY_CHARS = 8 * 1024 * 1024;
+    private String copyTruncatedText = "Only the first %d MB of the selection were copied.";
+
+    // Layout settings
+    private static final int TEXT_PADDING = 4;
+    private static final int VISIBLE_COLUMNS = 80;
+    private static final int VISIBLE_ROWS = 25;
+
+    // Color settings
+    private static final Color SELECTION_BACKGROUND = new Color(38, 79, 120);
+    private static final Color SEARCH_HIT_BACKGROUND = new Color(98, 84, 24);
+    private static final Color SEARCH_CURRENT_BACKGROUND = new Color(190, 120, 0);
+
+    public LogView(LogScrollback lines, Font font) {
+        this.lines = lines;
+        setOpaque(true);
+        setFocusable(true);
+        setAutoscrolls(true);
+        setBackground(LogStyle.DEFAULT_BACKGROUND);
+        setForeground(LogStyle.DEFAULT_FOREGROUND);
+        setCursor(Cursor.getPredefinedCursor(Cursor.TEXT_CURSOR));
+        setFont(font);
+
+        installMouseHandling();
+        installKeyBindings();
+    }
+
+    @Override
+    public void setFont(Font font) {
+        super.setFont(font);
+        boldFont = font.deriveFont(Font.BOLD);
+        metrics = getFontMetrics(font);
+        boldMetrics = getFontMetrics(boldFont);
+        rowHeight = Math.max(1, metrics.getHeight());
+        ascent = metrics.getAscent();
+        charWidth = Math.max(1, metrics.charWidth('m'));
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Refreshes the view after lines were appended or dropped.
+     *
+     * @param evicted    number of lines dropped from the top since the last refresh;
+     *                   negative when history lines were added above
+     * @param followTail whether the view should stay scrolled to the newest line
+     */
+    public void contentChanged(long evicted, boolean followTail) {
+        revalidate();
+        JViewport viewport = getViewport();
+        if (viewport != null) {
+            // Lay out now so the view size is current before scrolling
+            viewport.getParent().validate();
+            Point position = viewport.getViewPosition();
+            if (followTail) {
+                position.y = Math.max(0, getHeight() - viewport.getExtentSize().height);
+            } else if (evicted != 0) {
+                position.y = (int) Math.max(0, position.y - evicted * rowHeight);
+            }
+            viewport.setViewPosition(position);
+        }
+        repaint();
+    }
+
+    public boolean isAtBottom() {
+        JViewport viewport = getViewport();
+        if (viewport == null) {
+            return true;
+        }
+        Rectangle view = viewport.getViewRect();
+        return view.y + view.height >= getHeight() - rowHeight;
+    }
+
+    public void clearSelection() {
+        anchorLine = NO_LINE;
+        leadLine = NO_LINE;
+        repaint();
+    }
+
+    public void selectAll() {
+        if (rowCount() == 0) {
+            return;
+        }
+        anchorLine = lineAtRow(0);
+        anchorColumn = 0;
+        leadLine = lineAtRow(rowCount() - 1);
+        leadColumn = lines.getText(leadLine).length();
+        repaint();
+    }
+
+    public String getSelectedText() {
+        return getSelectedText(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the selected text, cut off after {@code maxChars} characters.
+     */
+    String getSelectedText(int maxChars) {
+        if (anchorLine == NO_LINE || rowCount() == 0) {
+            return "";
+        }
+        boolean forward = anchorLine < leadLine || (anchorLine == leadLine && anchorColumn <= leadColumn);
+        long startLine = forward ? anchorLine : leadLine;
+        int startColumn = forward ? anchorColumn : leadColumn;
+        long endLine = forward ? leadLine : anchorLine;
+        int endColumn = forward ? leadColumn : anchorColumn;
+
+        if (startLine < lineAtRow(0)) {
+            startLine = lineAtRow(0);
+            startColumn = 0;
+        }
+        long startRow = rowOf(startLine);
+        if (startRow < 0) {
+            return "";
+        }
+        StringBuilder selected = new StringBuilder();
+        for (long row = startRow; row < rowCount(); row++) {
+            long line = lineAtRow(row);
+            if (line > endLine) {
+                break;
+            }
+            String text = lines.getText(line);
+            int from = line == startLine ? Math.min(startColumn, text.length()) : 0;
+            int to = line == endLine ? Math.min(endColumn, text.length()) : text.length();
+            if (to > from) {
+                selected.append(text, from, Math.min(to, from + maxChars - selected.length()));
+            }
+            if (line == endLine || selected.length() >= maxChars) {
+                break;
+            }
+            selected.append('\n');
+        }
+        return selected.toString();
+    }
+
+    /**
+     * Copies the selection to the clipboard. Text past
+     * {@link #MAX_COPY_CHARS} is left out and the user is told so.
+     */
+    public void copySelection() {
+        // One character more than the limit tells whether anything was cut off
+        String selected = getSelectedText(MAX_COPY_CHARS + 1);
+        if (selected.isEmpty()) {
+            return;
+        }
+        boolean truncated = selected.length() > MAX_COPY_CHARS;
+        if (truncated) {
+            selected = selected.substring(0, MAX_COPY_CHARS);
+        }
+        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(selected), null);
+        if (truncated) {
+            JOptionPane.showMessageDialog(this, String.format(copyTruncatedText, MAX_COPY_CHARS / (1024 * 1024)),
+                null, JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
+    public void setCopyTruncatedText(String text) {
+        copyTruncatedText = text;
+    }
+
+    public void scrollToLine(long lineNumber) {
+        long row = rowOf(lineNumber);
+        if (row >= 0) {
+            scrollRectToVisible(new Rectangle(0, (int) row * rowHeight, 1, rowHeight));
+        }
+    }
+
+    /**
+     * Highlights every occurrence of the query and marks the hit at the given
+     * position as the current one. A {@code null} query removes the highlight.
+     */
+    public void setSearchHighlight(String query, long line, int column) {
+        searchQuery = query == null || query.isEmpty() ? null : query;
+        searchLine = line;
+        searchColumn = column;
+        repaint();
+    }
+
+    public void scrollToHit(long lineNumber, int column, int length) {
+        long row = rowOf(lineNumber);
+        if (row < 0) {
+            return;
+        }
+        String text = lines.getText(lineNumber);
+        int start = Math.min(column, text.length());
+        int end = Math.min(column + length, text.length());
+        int x = TEXT_PADDING + metrics.stringWidth(text.substring(0, start));
+        int width = Math.max(charWidth, metrics.stringWidth(text.substring(start, end)));
+        // Keep some context around the hit
+        JViewport viewport = getViewport();
+        int margin = viewport == null ? 0 : viewport.getExtentSize().height / 3;
+        scrollRectToVisible(new Rectangle(x, (int) row * rowHeight - margin, width, rowHeight + margin * 2));
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) {
+            return super.getPreferredSize();
+        }
+        int width = TEXT_PADDING * 2 + (lines.getMaxLineLength() + 1) * charWidth;
+        return new Dimension(width, rowCount() * rowHeight);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int size = rowCount();
+        if (size == 0) {
+            return;
+        }
+        Graphics2D g2 = (Graphics2D) g;
+        Map<?, ?> hints = (Map<?, ?>) Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+        if (hints != null) {
+            g2.addRenderingHints(hints);
+        }
+
+        int firstRow = Math.max(0, clip.y / rowHeight);
+        int lastRow = Math.min(size - 1, (clip.y + clip.height) / rowHeight);
+        for (int row = firstRow; row <= lastRow; row++) {
+            paintRow(g2, lineAtRow(row), row * rowHeight, clip);
+        }
+    }
+
+    private void paintRow(Graphics2D g, long lineNumber, int y, Rectangle clip) {
+        String text = lines.getText(lineNumber);
+        int[] runs = lines.getRuns(lineNumber);
+        int length = text.length();
+        if (rowChars.length < length) {
+            rowChars = new char[Math.max(length, rowChars.length * 2)];
+        }
+        text.getChars(0, length, rowChars, 0);
+
+        int runCount = runs == null ? 1 : runs.length / 2;
+        if (runX.length < runCount + 1) {
+            runX = new int[Math.max(runCount + 1, runX.length * 2)];
+        }
+
+        // Run backgrounds
+        int x = TEXT_PADDING;
+        for (int r = 0; r < runCount; r++) {
+            int start = runStart(runs, r);
+            int end = runEnd(runs, r, runCount, length);
+            LogStyle style = runStyle(runs, r);
+            runX[r] = x;
+            int width = end > start ? (style.isBold() ? boldMetrics : metrics).charsWidth(rowChars, start, end - start) : 0;
+            if (width > 0 && !style.getBackground().equals(getBackground())) {
+                g.setColor(style.getBackground());
+                g.fillRect(x, y, width, rowHeight);
+            }
+            x += width;
+        }
+        runX[runCount] = x;
+
+        paintSelection(g, lineNumber, y, length);
+        paintSearchHits(g, text, lineNumber, y);
+
+        // Run text
+        int baseline = y + ascent;
+        int clipRight = clip.x + clip.width;
+        for (int r = 0; r < runCount; r++) {
+            int start = runStart(runs, r);
+            int end = runEnd(runs, r, runCount, length);
+            if (end <= start || runX[r + 1] < clip.x) {
+                continue;
+            }
+            if (runX[r] > clipRight) {
+                break;
+            }
+            LogStyle style = runStyle(runs, r);
+            g.setFont(style.isBold() ? boldFont : getFont());
+            g.setColor(style.getForeground());
+            g.drawChars(rowChars, start, end - start, runX[r], baseline);
+        }
+    }
+
+    private void paintSelection(Graphics2D g, long lineNumber, int y, int length) {
+        if (anchorLine == NO_LINE) {
+            return;
+        }
+        boolean forward = anchorLine < leadLine || (anchorLine == leadLine && anchorColumn <= leadColumn);
+        long startLine = forward ? anchorLine : leadLine;
+        long endLine = forward ? leadLine : anchorLine;
+        if (lineNumber < startLine || lineNumber > endLine) {
+            return;
+        }
+        int startColumn = lineNumber == startLine ? Math.min(forward ? anchorColumn : leadColumn, length) : 0;
+        int endColumn = lineNumber == endLine ? Math.min(forward ? leadColumn : anchorColumn, length) : length;
+        int x0 = TEXT_PADDING + metrics.charsWidth(rowChars, 0, startColumn);
+        int x1 = TEXT_PADDING + metrics.charsWidth(rowChars, 0, endColumn);
+        if (lineNumber != endLine) {
+            x1 += charWidth;  // Show the selected line break
+        }
+        if (x1 > x0) {
+            g.setColor(SELECTION_BACKGROUND);
+            g.fillRect(x0, y, x1 - x0, rowHeight);
+        }
+    }
+
+    private void paintSearchHits(Graphics2D g, String text, long lineNumber, int y) {
+        if (searchQuery == null) {
+            return;
+        }
+        int length = searchQuery.length();
+        int column = LogSearchIndex.indexOfIgnoreCase(text, searchQuery, 0);
+        while (column >= 0) {
+            int x0 = TEXT_PADDING + metrics.charsWidth(rowChars, 0, column);
+            int x1 = x0 + metrics.charsWidth(rowChars, column, length);
+            boolean current = lineNumber == searchLine && column == searchColumn;
+            g.setColor(current ? SEARCH_CURRENT_BACKGROUND : SEARCH_HIT_BACKGROUND);
+            g.fillRect(x0, y, x1 - x0, rowHeight);
+            column = LogSearchIndex.indexOfIgnoreCase(text, searchQuery, column + length);
+        }
+    }
+
+    private static int runStart(int[] runs, int run) {
+        return runs == null ? 0 : runs[run * 2];
+    }
+
+    private static int runEnd(int[] runs, int run, int runCount, int length) {
+        return runs == null || run == runCount - 1 ? length : Math.min(length, runs[run * 2 + 2]);
+    }
+
+    private static LogStyle runStyle(int[] runs, int run) {
+        return runs == null ? LogStyle.DEFAULT : LogStyle.get(runs[run * 2 + 1]);
+    }
+
+    private JViewport getViewport() {
+        return getParent() instanceof JViewport viewport ? viewport : null;
+    }
+
+    /**
+     * Returns the number of rows shown. Very deep history is cut off where
+     * the view height would overflow.
+     */
+    private int rowCount() {
+        return (int) Math.min(lines.getRowCount(), Integer.MAX_VALUE / rowHeight);
+    }
+
+    private long lineAtRow(long row) {
+        return lines.getLineAt(lines.getRowCount() - rowCount() + row);
+    }
+
+    /**
+     * Returns the row showing the given line, or -1 when it is not shown.
+     */
+    private long rowOf(long lineNumber) {
+        long row = lines.getRowOf(lineNumber);
+        if (row < 0) {
+            return -1;
+        }
+        row -= lines.getRowCount() - rowCount();
+        return row >= 0 ? row : -1;
+    }
+
+    private long lineAt(int y) {
+        int row = Math.max(0, Math.min(rowCount() - 1, y / rowHeight));
+        return lineAtRow(row);
+    }
+
+    private int columnAt(long lineNumber, int x) {
+        if (rowOf(lineNumber) < 0) {
+            return 0;
+        }
+        String text = lines.getText(lineNumber);
+        int position = TEXT_PADDING;
+        for (int column = 0; column < text.length(); column++) {
+            int width = metrics.charWidth(text.charAt(column));
+            if (x < position + width / 2) {
+                return column;
+            }
+            position += width;
+        }
+        return text.length();
+    }
+
+    private void installMouseHandling() {
+        MouseAdapter mouseHandler = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                requestFocusInWindow();
+                if (rowCount() == 0 || !SwingUtilities.isLeftMouseButton(e)) {
+                    return;
+                }
+                long line = lineAt(e.getY());
+                int column = columnAt(line, e.getX());
+                if (e.getClickCount() == 3) {
+                    anchorLine = line;
+                    anchorColumn = 0;
+                    leadLine = line;
+                    leadColumn = lines.getText(line).length();
+                } else if (e.getClickCount() == 2) {
+                    selectWord(line, column);
+                } else if (e.isShiftDown() && anchorLine != NO_LINE) {
+                    leadLine = line;
+                    leadColumn = column;
+                } else {
+                    anchorLine = line;
+                    anchorColumn = column;
+                    leadLine = line;
+                    leadColumn = column;
+                }
+                repaint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (anchorLine == NO_LINE || rowCount() == 0 || !SwingUtilities.isLeftMouseButton(e)) {
+                    return;
+                }
+                leadLine = lineAt(e.getY());
+                leadColumn = columnAt(leadLine, e.getX());
+                scrollRectToVisible(new Rectangle(e.getX(), e.getY(), 1, 1));
+                repaint();
+            }
+        };
+        addMouseListener(mouseHandler);
+        addMouseMotionListener(mouseHandler);
+    }
+
+    private void selectWord(long line, int column) {
+        String text = lines.getText(line);
+        int start = Math.min(column, text.length());
+        int end = start;
+        while (start > 0 && !Character.isWhitespace(text.charAt(start - 1))) {
+            start--;
+        }
+        while (end < text.length() && !Character.isWhitespace(text.charAt(end))) {
+            end++;
+        }
+        anchorLine = line;
+        anchorColumn = start;
+        leadLine = line;
+        leadColumn = end;
+    }
+
+    private void installKeyBindings() {
+        int shortcutMask = GraphicsEnvironment.isHeadless()
+            ? InputEvent.CTRL_DOWN_MASK
+            : Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+        InputMap inputMap = getInputMap(WHEN_FOCUSED);
+        ActionMap actionMap = getActionMap();
+
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_C, shortcutMask), "copy");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_A, shortcutMask), "select-all");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_HOME, shortcutMask), "scroll-top");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_END, shortcutMask), "scroll-bottom");
+
+        actionMap.put("copy", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                copySelection();
+            }
+        });
+        actionMap.put("select-all", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                selectAll();
+            }
+        });
+        actionMap.put("scroll-top", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                scrollRectToVisible(new Rectangle(0, 0, 1, rowHeight));
+            }
+        });
+        actionMap.put("scroll-bottom", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                scrollRectToVisible(new Rectangle(0, Math.max(0, getHeight() - rowHeight), 1, rowHeight));
+            }
+        });
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return new Dimension(VISIBLE_COLUMNS * charWidth, VISIBLE_ROWS * rowHeight);
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? rowHeight : charWidth;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        if (orientation == SwingConstants.VERTICAL) {
+            return Math.max(rowHeight, visibleRect.height - rowHeight);
+        }
+        return Math.max(charWidth, visibleRect.width - charWidth);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        JViewport viewport = getViewport();
+        return viewport != null && viewport.getWidth() > getPreferredSize().width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        JViewport viewport = getViewport();
+        return viewport != null && viewport.getHeight() > getPreferredSize().height;
+    }
+}
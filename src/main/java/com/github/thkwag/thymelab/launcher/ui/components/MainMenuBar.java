@@ -10,6 +10,11 @@ public class MainMenuBar extends JMenuBar {
     private final JMenu helpMenu;
     private final JMenuItem programSettingsMenuItem;
     private final JMenuItem thymeleafSettingsMenuItem;
+    private final JMenuItem addInstanceMenuItem;
+    private final JMenuItem removeInstanceMenuItem;
+    private final JMenuItem tasksMenuItem;
+    private final JMenuItem benchmarkMenuItem;
+    private final JMenuItem profileMenuItem;
     private final JMenuItem aboutMenuItem;
     private final JMenuItem exitMenuItem;
 
@@ -19,16 +24,30 @@ public class MainMenuBar extends JMenuBar {
         
         programSettingsMenuItem = new JMenuItem(bundle.getString("menu_program_settings"));
         thymeleafSettingsMenuItem = new JMenuItem(bundle.getString("menu_thymeleaf_settings"));
+        tasksMenuItem = new JMenuItem(bundle.getString("menu_tasks"));
+        benchmarkMenuItem = new JMenuItem(bundle.getString("menu_benchmark"));
+        profileMenuItem = new JMenuItem(bundle.getString("menu_profile"));
         aboutMenuItem = new JMenuItem(bundle.getString("menu_about"));
         
         toolsMenu.add(programSettingsMenuItem);
         toolsMenu.add(thymeleafSettingsMenuItem);
         toolsMenu.addSeparator();
+        toolsMenu.add(benchmarkMenuItem);
+        toolsMenu.add(profileMenuItem);
+        toolsMenu.addSeparator();
+
+        addInstanceMenuItem = new JMenuItem(bundle.getString("menu_add_instance"));
+        removeInstanceMenuItem = new JMenuItem(bundle.getString("menu_remove_instance"));
+        toolsMenu.add(addInstanceMenuItem);
+        toolsMenu.add(removeInstanceMenuItem);
+        toolsMenu.addSeparator();
         
         exitMenuItem = new JMenuItem(bundle.getString("menu_exit"));
         exitMenuItem.addActionListener(e -> System.exit(0));
         toolsMenu.add(exitMenuItem);
         
+        helpMenu.add(tasksMenuItem);
+        helpMenu.addSeparator();
         helpMenu.add(aboutMenuItem);
         
         add(toolsMenu);
@@ -43,6 +62,26 @@ public class MainMenuBar extends JMenuBar {
         return thymeleafSettingsMenuItem;
     }
 
+    public JMenuItem getAddInstanceMenuItem() {
+        return addInstanceMenuItem;
+    }
+
+    public JMenuItem getRemoveInstanceMenuItem() {
+        return removeInstanceMenuItem;
+    }
+
+    public JMenuItem getTasksMenuItem() {
+        return tasksMenuItem;
+    }
+
+    public JMenuItem getBenchmarkMenuItem() {
+        return benchmarkMenuItem;
+    }
+
+    public JMenuItem getProfileMenuItem() {
+        return profileMenuItem;
+    }
+
     public JMenuItem getAboutMenuItem() {
         return aboutMenuItem;
     }
@@ -59,6 +98,11 @@ public class MainMenuBar extends JMenuBar {
         helpMenu.setText(bundle.getString("menu_help"));
         programSettingsMenuItem.setText(bundle.getString("menu_program_settings"));
         thymeleafSettingsMenuItem.setText(bundle.getString("menu_thymeleaf_settings"));
+        addInstanceMenuItem.setText(bundle.getString("menu_add_instance"));
+        removeInstanceMenuItem.setText(bundle.getString("menu_remove_instance"));
+        tasksMenuItem.setText(bundle.getString("menu_tasks"));
+        benchmarkMenuItem.setText(bundle.getString("menu_benchmark"));
+        profileMenuItem.setText(bundle.getString("menu_profile"));
         aboutMenuItem.setText(bundle.getString("menu_about"));
         exitMenuItem.setText(bundle.getString("menu_exit"));
     }
@@ -0,0 +1,97 @@
+package com.github.thkwag.thymelab.launcher.ui.components;
+
+import com.github.thkwag.thymelab.launcher.config.ConfigManager;
+import com.github.thkwag.thymelab.launcher.process.ProcessResourceSampler;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.ResourceBundle;
+
+/**
+ * Shows the latest resource sample of the selected processor: CPU, memory,
+ * threads and open files, with the peaks of the kept history in the tooltip.
+ */
+public class ResourceStatusBar extends JPanel {
+    private static final int BORDER_SPACING = 2;
+    private static final Color TEXT_COLOR = Color.DARK_GRAY;
+    private static final Color IDLE_TEXT_COLOR = Color.GRAY;
+    private static final String SEPARATOR = " · ";
+
+    private final ConfigManager config;
+    private final JLabel label = new JLabel();
+    private final Timer refreshTimer;
+    private ProcessResourceSampler sampler;
+
+    public ResourceStatusBar(ConfigManager config) {
+        super(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        this.config = config;
+        setBorder(BorderFactory.createEmptyBorder(BORDER_SPACING, BORDER_SPACING, 0, BORDER_SPACING));
+        label.setFont(label.getFont().deriveFont(Font.PLAIN, label.getFont().getSize2D() - 1));
+        add(label);
+        refreshTimer = new Timer(1000, e -> refresh());
+        refresh();
+    }
+
+    /**
+     * Shows the samples of another processor, or none.
+     */
+    public void setSampler(ProcessResourceSampler sampler) {
+        this.sampler = sampler;
+        refreshTimer.stop();
+        if (sampler != null) {
+            refreshTimer.setDelay((int) sampler.getIntervalMillis());
+            refreshTimer.start();
+        }
+        refresh();
+    }
+
+    public void updateTexts(ResourceBundle bundle) {
+        refresh();
+    }
+
+    private void refresh() {
+        ResourceBundle bundle = config.getLocaleManager().getBundle();
+        if (sampler == null || !sampler.isSampling() || sampler.size() == 0) {
+            label.setForeground(IDLE_TEXT_COLOR);
+            label.setText(bundle.getString("resource_not_running"));
+            label.setToolTipText(null);
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        append(text, bundle, "resource_cpu", formatPercent(sampler.getCpuPercent(0)));
+        append(text, bundle, "resource_memory", formatBytes(sampler.getRssBytes(0)));
+        append(text, bundle, "resource_threads", formatCount(sampler.getThreadCount(0)));
+        append(text, bundle, "resource_files", formatCount(sampler.getFdCount(0)));
+        label.setForeground(TEXT_COLOR);
+        label.setText(text.toString());
+        label.setToolTipText(String.format(bundle.getString("resource_peak"),
+            Objects.toString(formatPercent(sampler.getPeakCpuPercent()), "-"),
+            Objects.toString(formatBytes(sampler.getPeakRssBytes()), "-"), sampler.size()));
+    }
+
+    private static void append(StringBuilder text, ResourceBundle bundle, String key, String value) {
+        if (value == null) {
+            return;
+        }
+        if (text.length() > 0) {
+            text.append(SEPARATOR);
+        }
+        text.append(String.format(bundle.getString(key), value));
+    }
+
+    // Values that could not be sampled are -1 and left out
+
+    private static String formatPercent(double percent) {
+        return percent < 0 ? null : String.format(Locale.ROOT, "%.0f%%", percent);
+    }
+
+    private static String formatBytes(long bytes) {
+        return bytes < 0 ? null : String.format(Locale.ROOT, "%.0f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    private static String formatCount(int count) {
+        return count < 0 ? null : Integer.toString(count);
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.thkwag.thymelab.launcher.ui.components;
+
+import com.github.thkwag.thymelab.launcher.metrics.MetricSeries;
+import com.github.thkwag.thymelab.launcher.metrics.MetricsStore;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.function.DoubleFunction;
+
+/**
+ * Draws the recent values of one metric as a line, scaled between their
+ * minimum and maximum, with the title and latest value above it. The values
+ * are copied into a buffer kept between paints, at most one per pixel.
+ */
+public class SparklineChart extends JComponent {
+    private static final int PREFERRED_WIDTH = 220;
+    private static final int PREFERRED_HEIGHT = 64;
+    private static final int PADDING = 4;
+    private static final Color LINE_COLOR = new Color(0, 102, 204);
+    private static final Color FILL_COLOR = new Color(0, 102, 204, 40);
+    private static final Color TEXT_COLOR = Color.DARK_GRAY;
+    private static final Color EMPTY_TEXT_COLOR = Color.GRAY;
+
+    private final String title;
+    private final String seriesName;
+    private final DoubleFunction<String> formatter;
+    private MetricsStore store;
+    private MetricSeries.Resolution resolution = MetricSeries.Resolution.SECOND;
+    private double[] buffer = new double[0];
+    private int[] xPoints = new int[0];
+    private int[] yPoints = new int[0];
+
+    public SparklineChart(String title, String seriesName, DoubleFunction<String> formatter) {
+        this.title = title;
+        this.seriesName = seriesName;
+        this.formatter = formatter;
+        setPreferredSize(new Dimension(PREFERRED_WIDTH, PREFERRED_HEIGHT));
+        setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 11));
+    }
+
+    public void setStore(MetricsStore store) {
+        this.store = store;
+        repaint();
+    }
+
+    public void setResolution(MetricSeries.Resolution resolution) {
+        this.resolution = resolution;
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            FontMetrics metrics = g2.getFontMetrics();
+            int textBaseline = metrics.getAscent();
+            MetricSeries series = store != null ? store.getSeries(seriesName) : null;
+            int width = getWidth() - PADDING * 2;
+            int count = series != null && width > 1 ? copy(series, width) : 0;
+
+            g2.setColor(TEXT_COLOR);
+            g2.drawString(title, 0, textBaseline);
+            if (count == 0) {
+                g2.setColor(EMPTY_TEXT_COLOR);
+                String empty = "-";
+                g2.drawString(empty, getWidth() - metrics.stringWidth(empty), textBaseline);
+                return;
+            }
+            String latest = formatter.apply(buffer[count - 1]);
+            g2.drawString(latest, getWidth() - metrics.stringWidth(latest), textBaseline);
+
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                min = Math.min(min, buffer[i]);
+                max = Math.max(max, buffer[i]);
+            }
+            int top = metrics.getHeight() + PADDING;
+            int bottom = getHeight() - PADDING;
+            if (bottom <= top) {
+                return;
+            }
+            double range = max > min ? max - min : 1;
+            // Right-aligned, so the latest value is always at the right edge
+            int left = PADDING + width - count;
+            for (int i = 0; i < count; i++) {
+                xPoints[i] = left + i;
+                yPoints[i] = bottom - (int) Math.round((buffer[i] - min) / range * (bottom - top));
+            }
+            xPoints[count] = left + count - 1;
+            yPoints[count] = bottom;
+            xPoints[count + 1] = left;
+            yPoints[count + 1] = bottom;
+            g2.setColor(FILL_COLOR);
+            g2.fillPolygon(xPoints, yPoints, count + 2);
+            g2.setColor(LINE_COLOR);
+            g2.drawPolyline(xPoints, yPoints, count);
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    private int copy(MetricSeries series, int width) {
+        int length = Math.min(width, series.getCapacity());
+        if (buffer.length != length) {
+            buffer = new double[length];
+            xPoints = new int[length + 2];
+            yPoints = new int[length + 2];
+        }
+        return series.copyValues(resolution, buffer);
+    }
+}
@@ -1,32 +1,44 @@
 package com.github.thkwag.thymelab.launcher.ui.dialogs;
 
+import com.github.thkwag.thymelab.launcher.metrics.MetricSeries;
+import com.github.thkwag.thymelab.launcher.metrics.MetricsStore;
+import com.github.thkwag.thymelab.launcher.process.ActuatorClient;
+import com.github.thkwag.thymelab.launcher.ui.components.SparklineChart;
 import org.json.JSONObject;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 public class ActuatorInfoDialog extends JDialog {
-    private static final int TIMEOUT_SECONDS = 5;
+    // Overall deadline of one refresh round, shared by its parallel fetches
+    private static final long DEADLINE_MILLIS = 2000;
     private static final int REFRESH_INTERVAL = 1000;
+    private static final String[] RESOLUTION_LABELS = {"Per second", "Per 10 seconds", "Per minute"};
     private final JTextArea textArea;
-    private final int port;
+    private final ActuatorClient client;
     private final Timer refreshTimer;
+    private final Map<Section, String> sectionTexts = new EnumMap<>(Section.class);
+    private CompletableFuture<Void> pending;
+    // The client's own futures: cancelling them cancels the HTTP calls, unlike their dependents
+    private CompletableFuture<?>[] calls = new CompletableFuture<?>[0];
+    private SparklineChart[] charts;
 
-    public ActuatorInfoDialog(Frame owner, int port) {
+    public ActuatorInfoDialog(Frame owner, int port, MetricsStore metricsStore) {
         super(owner, "Server Health Status", true);
-        this.port = port;
+        this.client = ActuatorClient.forPort(port);
         
-        setSize(500, 400);
+        setSize(500, 560);
         setLocationRelativeTo(owner);
         
         JPanel panel = new JPanel(new BorderLayout(15, 15));
@@ -39,100 +51,151 @@ public class ActuatorInfoDialog extends JDialog {
         textArea.setText("Loading system information...");
         
         panel.add(new JScrollPane(textArea), BorderLayout.CENTER);
+        panel.add(createTrendPanel(metricsStore), BorderLayout.SOUTH);
         add(panel);
 
-        refreshTimer = new Timer(REFRESH_INTERVAL, e -> refreshInfo());
+        refreshTimer = new Timer(REFRESH_INTERVAL, e -> {
+            refreshInfo();
+            for (SparklineChart chart : charts) {
+                chart.repaint();
+            }
+        });
         refreshTimer.start();
 
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
                 refreshTimer.stop();
+                for (CompletableFuture<?> call : calls) {
+                    call.cancel(true);
+                }
             }
         });
 
         refreshInfo();
     }
 
-    private void refreshInfo() {
-        SwingWorker<String, Void> worker = new SwingWorker<>() {
+    private JPanel createTrendPanel(MetricsStore metricsStore) {
+        charts = new SparklineChart[] {
+            new SparklineChart("Memory Used", MetricsStore.MEMORY_USED,
+                v -> String.format("%.1f MB", v / 1024 / 1024)),
+            new SparklineChart("Process CPU", MetricsStore.CPU_USAGE,
+                v -> String.format("%.1f%%", v * 100)),
+            new SparklineChart("Live Threads", MetricsStore.THREADS_LIVE,
+                v -> String.format("%d", (long) v)),
+            new SparklineChart("Max GC Pause", MetricsStore.GC_PAUSE_MAX,
+                v -> String.format("%.0f ms", v * 1000))
+        };
+        JPanel grid = new JPanel(new GridLayout(2, 2, 10, 10));
+        for (SparklineChart chart : charts) {
+            chart.setStore(metricsStore);
+            grid.add(chart);
+        }
+
+        JComboBox<MetricSeries.Resolution> resolutionCombo = new JComboBox<>(MetricSeries.Resolution.values());
+        resolutionCombo.setRenderer(new DefaultListCellRenderer() {
             @Override
-            protected String doInBackground() {
-                return loadSystemInfo();
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                String text = value == null ? "" : RESOLUTION_LABELS[((MetricSeries.Resolution) value).ordinal()];
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
             }
+        });
+        resolutionCombo.addActionListener(e -> {
+            MetricSeries.Resolution resolution = (MetricSeries.Resolution) resolutionCombo.getSelectedItem();
+            for (SparklineChart chart : charts) {
+                chart.setResolution(resolution);
+            }
+        });
+        JPanel header = new JPanel(new BorderLayout());
+        header.add(new JLabel("Trend"), BorderLayout.WEST);
+        header.add(resolutionCombo, BorderLayout.EAST);
 
-            @Override
-            protected void done() {
-                try {
-                    String result = get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
-                    textArea.setText(result);
-                } catch (TimeoutException e) {
-                    textArea.setText("Error: Timeout while loading system information");
-                } catch (Exception e) {
-                    textArea.setText("Error loading system information: " + e.getMessage());
+        JPanel trendPanel = new JPanel(new BorderLayout(5, 5));
+        trendPanel.add(header, BorderLayout.NORTH);
+        trendPanel.add(grid, BorderLayout.CENTER);
+        return trendPanel;
+    }
+
+    private void refreshInfo() {
+        // One round at a time; a slow server skips ticks instead of piling them up
+        if (pending != null && !pending.isDone()) {
+            return;
+        }
+        Section[] sections = Section.values();
+        CompletableFuture<?>[] round = new CompletableFuture<?>[sections.length];
+        CompletableFuture<?>[] roundCalls = new CompletableFuture<?>[sections.length];
+        for (int i = 0; i < sections.length; i++) {
+            Section section = sections[i];
+            CompletableFuture<JSONObject> call = client.getJson(section.endpoint);
+            CompletableFuture<String> fetch = call.thenApply(section.formatter);
+            fetch.whenComplete((text, e) -> {
+                if (e instanceof CancellationException || (e != null && e.getCause() instanceof CancellationException)) {
+                    return;
+                }
+                String shown = e != null ? "Error: " + rootMessage(e) + "\n" : text;
+                SwingUtilities.invokeLater(() -> showSection(section, shown));
+            });
+            round[i] = fetch;
+            roundCalls[i] = call;
+        }
+        calls = roundCalls;
+        // All fetches share one deadline; the calls still running then are cancelled
+        pending = CompletableFuture.allOf(round).orTimeout(DEADLINE_MILLIS, TimeUnit.MILLISECONDS);
+        pending.whenComplete((v, e) -> {
+            if (e instanceof TimeoutException) {
+                for (int i = 0; i < roundCalls.length; i++) {
+                    if (roundCalls[i].cancel(true)) {
+                        Section section = sections[i];
+                        SwingUtilities.invokeLater(() -> showSection(section, "Error: Timeout\n"));
+                    }
                 }
             }
-        };
-        worker.execute();
+        });
     }
 
-    private String loadSystemInfo() {
-        try {
-            StringBuilder output = new StringBuilder();
-            
-            try {
-                JSONObject healthJson = fetchJson("health");
-                output.append("=== Health Status ===\n");
-                output.append("Status: ").append(healthJson.getString("status")).append("\n");
-            } catch (Exception e) {
-                output.append("=== Health Status ===\nError: ").append(e.getMessage()).append("\n");
+    private void showSection(Section section, String text) {
+        sectionTexts.put(section, text);
+        StringBuilder output = new StringBuilder();
+        for (Section s : Section.values()) {
+            if (output.length() > 0) {
+                output.append('\n');
             }
-            
-            output.append("\n=== Memory Usage ===\n");
-            try {
-                JSONObject memoryJson = fetchJson("metrics/jvm.memory.used");
-                double memoryUsed = memoryJson.getJSONArray("measurements").getJSONObject(0).getDouble("value");
-                output.append(String.format("Memory Used: %.1f MB\n", memoryUsed/1024/1024));
-            } catch (Exception e) {
-                output.append("Error: ").append(e.getMessage()).append("\n");
-            }
-            
-            output.append("\n=== CPU Usage ===\n");
-            try {
-                JSONObject cpuJson = fetchJson("metrics/process.cpu.usage");
-                double cpuUsage = cpuJson.getJSONArray("measurements").getJSONObject(0).getDouble("value");
-                output.append(String.format("Process CPU Usage: %.1f%%\n", cpuUsage * 100));
-            } catch (Exception e) {
-                output.append("Error: ").append(e.getMessage()).append("\n");
-            }
-            
-            output.append("\n=== Threads ===\n");
-            try {
-                JSONObject threadsJson = fetchJson("metrics/jvm.threads.live");
-                int threadCount = (int) threadsJson.getJSONArray("measurements").getJSONObject(0).getDouble("value");
-                output.append(String.format("Live Threads: %d\n", threadCount));
-            } catch (Exception e) {
-                output.append("Error: ").append(e.getMessage()).append("\n");
-            }
-            
-            return output.toString();
-        } catch (Exception e) {
-            return "Error: " + e.getMessage();
+            output.append("=== ").append(s.title).append(" ===\n");
+            output.append(sectionTexts.getOrDefault(s, "Loading...\n"));
         }
+        textArea.setText(output.toString());
     }
 
-    private JSONObject fetchJson(String endpoint) throws IOException {
-        URL url = new URL("http://localhost:" + port + "/actuator/" + endpoint);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setConnectTimeout(2000);
-        conn.setReadTimeout(2000);
-        
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(conn.getInputStream()))) {
-            String response = reader.lines().collect(Collectors.joining("\n"));
-            return new JSONObject(response);
-        } finally {
-            conn.disconnect();
+    private static String rootMessage(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e.getMessage();
+    }
+
+    private static double firstMeasurement(JSONObject metric) {
+        return metric.getJSONArray("measurements").getJSONObject(0).getDouble("value");
+    }
+
+    private enum Section {
+        HEALTH("Health Status", "health",
+            json -> "Status: " + json.getString("status") + "\n"),
+        MEMORY("Memory Usage", "metrics/jvm.memory.used",
+            json -> String.format("Memory Used: %.1f MB\n", firstMeasurement(json) / 1024 / 1024)),
+        CPU("CPU Usage", "metrics/process.cpu.usage",
+            json -> String.format("Process CPU Usage: %.1f%%\n", firstMeasurement(json) * 100)),
+        THREADS("Threads", "metrics/jvm.threads.live",
+            json -> String.format("Live Threads: %d\n", (int) firstMeasurement(json)));
+
+        private final String title;
+        private final String endpoint;
+        private final Function<JSONObject, String> formatter;
+
+        Section(String title, String endpoint, Function<JSONObject, String> formatter) {
+            this.title = title;
+            this.endpoint = endpoint;
+            this.formatter = formatter;
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,225 @@
+package com.github.thkwag.thymelab.launcher.ui.dialogs;
+
+import com.github.thkwag.thymelab.launcher.benchmark.BenchmarkHistory;
+import com.github.thkwag.thymelab.launcher.benchmark.BenchmarkResult;
+import com.github.thkwag.thymelab.launcher.benchmark.LoadGenerator;
+import com.github.thkwag.thymelab.launcher.util.AppLogger;
+import com.github.thkwag.thymelab.launcher.util.TaskRuntime;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+/**
+ * Drives load against the running processor and lists the results of this
+ * and earlier runs, newest first, to compare cache and JVM settings.
+ */
+public class BenchmarkDialog extends JDialog {
+    private static final int BORDER_PADDING = 10;
+    private static final int PROGRESS_INTERVAL = 250;
+    private static final int DEFAULT_CONCURRENCY = 8;
+    private static final int MAX_CONCURRENCY = 512;
+    private static final int DEFAULT_DURATION_SECONDS = 10;
+    private static final int MAX_DURATION_SECONDS = 600;
+
+    private final ResourceBundle bundle;
+    private final String serverUrl;
+    private final BenchmarkHistory history = BenchmarkHistory.create();
+    private final JTextArea pathsArea = new JTextArea("/", 4, 30);
+    private final JSpinner concurrencySpinner = new JSpinner(new SpinnerNumberModel(DEFAULT_CONCURRENCY, 1, MAX_CONCURRENCY, 1));
+    private final JSpinner durationSpinner = new JSpinner(new SpinnerNumberModel(DEFAULT_DURATION_SECONDS, 1, MAX_DURATION_SECONDS, 1));
+    private final JButton runButton = new JButton();
+    private final JButton stopButton = new JButton();
+    private final JLabel progressLabel = new JLabel(" ");
+    private final DefaultTableModel model;
+    private final Timer progressTimer;
+    private LoadGenerator generator;
+
+    public BenchmarkDialog(Frame owner, ResourceBundle bundle, String serverUrl) {
+        super(owner, bundle.getString("benchmark_title") + " - " + serverUrl, false);
+        this.bundle = bundle;
+        this.serverUrl = serverUrl;
+        setSize(900, 500);
+        setLocationRelativeTo(owner);
+
+        model = new DefaultTableModel(new Object[] {
+            bundle.getString("benchmark_col_time"), bundle.getString("benchmark_col_paths"),
+            bundle.getString("benchmark_col_concurrency"), bundle.getString("benchmark_col_duration"),
+            bundle.getString("benchmark_col_requests"), bundle.getString("benchmark_col_errors"),
+            bundle.getString("benchmark_col_throughput"),
+            "p50 (ms)", "p90 (ms)", "p99 (ms)", "p99.9 (ms)", bundle.getString("benchmark_col_max")
+        }, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable table = new JTable(model);
+        table.setFillsViewportHeight(true);
+
+        JPanel settings = new JPanel(new GridBagLayout());
+        GridBagConstraints c = new GridBagConstraints();
+        c.insets = new Insets(2, 2, 2, 2);
+        c.anchor = GridBagConstraints.NORTHWEST;
+        c.gridx = 0;
+        c.gridy = 0;
+        settings.add(new JLabel(bundle.getString("benchmark_paths")), c);
+        c.gridx = 1;
+        c.gridheight = 3;
+        c.weightx = 1;
+        c.fill = GridBagConstraints.BOTH;
+        settings.add(new JScrollPane(pathsArea), c);
+        c.gridheight = 1;
+        c.weightx = 0;
+        c.fill = GridBagConstraints.NONE;
+        c.gridx = 2;
+        settings.add(new JLabel(bundle.getString("benchmark_concurrency")), c);
+        c.gridx = 3;
+        settings.add(concurrencySpinner, c);
+        c.gridy = 1;
+        c.gridx = 2;
+        settings.add(new JLabel(bundle.getString("benchmark_duration")), c);
+        c.gridx = 3;
+        settings.add(durationSpinner, c);
+        c.gridy = 2;
+        c.gridx = 2;
+        c.gridwidth = 2;
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        buttons.add(runButton);
+        buttons.add(stopButton);
+        settings.add(buttons, c);
+
+        runButton.setText(bundle.getString("benchmark_run"));
+        stopButton.setText(bundle.getString("benchmark_stop"));
+        stopButton.setEnabled(false);
+        runButton.addActionListener(e -> run());
+        stopButton.addActionListener(e -> {
+            if (generator != null) {
+                generator.stop();
+            }
+        });
+
+        JPanel panel = new JPanel(new BorderLayout(BORDER_PADDING, BORDER_PADDING));
+        panel.setBorder(BorderFactory.createEmptyBorder(BORDER_PADDING, BORDER_PADDING, BORDER_PADDING, BORDER_PADDING));
+        panel.add(settings, BorderLayout.NORTH);
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        panel.add(progressLabel, BorderLayout.SOUTH);
+        add(panel);
+
+        progressTimer = new Timer(PROGRESS_INTERVAL, e -> showProgress());
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                progressTimer.stop();
+                if (generator != null) {
+                    generator.stop();
+                }
+            }
+        });
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        loadHistory();
+    }
+
+    private void loadHistory() {
+        TaskRuntime.get().background().supply("benchmark-history", history::load)
+            .whenComplete((results, e) -> SwingUtilities.invokeLater(() -> {
+                if (e != null) {
+                    AppLogger.error("Failed to load benchmark results: " + e.getMessage(), e);
+                    return;
+                }
+                for (BenchmarkResult result : results) {
+                    model.addRow(toRow(result));
+                }
+            }));
+    }
+
+    private void run() {
+        List<String> paths = new ArrayList<>();
+        for (String line : pathsArea.getText().split("\\R")) {
+            if (!line.isBlank()) {
+                paths.add(line.trim());
+            }
+        }
+        LoadGenerator run;
+        try {
+            run = new LoadGenerator(serverUrl, paths, (Integer) concurrencySpinner.getValue(),
+                (Integer) durationSpinner.getValue() * 1000L);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, String.format(bundle.getString("benchmark_invalid"), e.getMessage()),
+                bundle.getString("benchmark_title"), JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        generator = run;
+        setRunning(true);
+        run.start().whenComplete((result, e) -> {
+            if (result != null) {
+                history.save(result);
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (generator != run) {
+                    return;
+                }
+                generator = null;
+                setRunning(false);
+                if (e != null) {
+                    progressLabel.setText(e.getMessage());
+                } else {
+                    model.insertRow(0, toRow(result));
+                    progressLabel.setText(String.format(bundle.getString("benchmark_progress"),
+                        result.requests(), result.errors()));
+                }
+            });
+        });
+    }
+
+    private void setRunning(boolean running) {
+        runButton.setEnabled(!running);
+        stopButton.setEnabled(running);
+        pathsArea.setEnabled(!running);
+        concurrencySpinner.setEnabled(!running);
+        durationSpinner.setEnabled(!running);
+        if (running) {
+            progressTimer.start();
+        } else {
+            progressTimer.stop();
+        }
+        showProgress();
+    }
+
+    private void showProgress() {
+        LoadGenerator run = generator;
+        if (run != null) {
+            progressLabel.setText(String.format(bundle.getString("benchmark_progress"),
+                run.getCompleted(), run.getErrors()));
+        }
+    }
+
+    private static Object[] toRow(BenchmarkResult result) {
+        return new Object[] {
+            new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(result.startMillis())),
+            String.join(", ", result.paths()),
+            result.concurrency(),
+            String.format(Locale.ROOT, "%.1f s", result.durationMillis() / 1000.0),
+            result.requests(),
+            result.errors(),
+            String.format(Locale.ROOT, "%.1f", result.throughput()),
+            formatMillis(result.p50Micros()),
+            formatMillis(result.p90Micros()),
+            formatMillis(result.p99Micros()),
+            formatMillis(result.p999Micros()),
+            formatMillis(result.maxMicros())
+        };
+    }
+
+    private static String formatMillis(long micros) {
+        return String.format(Locale.ROOT, "%.2f", micros / 1000.0);
+    }
+}
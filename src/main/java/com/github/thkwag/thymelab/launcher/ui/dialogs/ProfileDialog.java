@@ -0,0 +1,205 @@
+package com.github.thkwag.thymelab.launcher.ui.dialogs;
+
+import com.github.thkwag.thymelab.launcher.process.AppProcessManager;
+import com.github.thkwag.thymelab.launcher.process.ProcessState;
+import com.github.thkwag.thymelab.launcher.profile.JfrProfiler;
+import com.github.thkwag.thymelab.launcher.profile.JfrReport;
+import com.github.thkwag.thymelab.launcher.util.AppLogger;
+import com.github.thkwag.thymelab.launcher.util.TaskRuntime;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Records the processor with Java Flight Recorder and shows where it spent
+ * its CPU time, what it allocated and where its threads waited. A running
+ * processor is attached to when its JDK has {@code jcmd}; otherwise it is
+ * restarted with the recording switched on.
+ */
+public class ProfileDialog extends JDialog {
+    private static final int BORDER_PADDING = 10;
+    private static final int DEFAULT_DURATION_SECONDS = 30;
+    private static final int MAX_DURATION_SECONDS = 600;
+    private static final int TOP_ENTRIES = 50;
+    // Time allowed for the processor to start before the recording runs
+    private static final long STARTUP_ALLOWANCE_MS = 120_000;
+
+    private final ResourceBundle bundle;
+    private final AppProcessManager manager;
+    private final Supplier<CompletableFuture<Void>> restarter;
+    private final JfrProfiler profiler = JfrProfiler.create();
+    private final JSpinner durationSpinner = new JSpinner(new SpinnerNumberModel(DEFAULT_DURATION_SECONDS, 1, MAX_DURATION_SECONDS, 1));
+    private final JButton startButton = new JButton();
+    private final JLabel statusLabel = new JLabel(" ");
+    private final DefaultTableModel hotModel;
+    private final DefaultTableModel allocationModel;
+    private final DefaultTableModel contentionModel;
+    private CompletableFuture<?> recording;
+    // Cancelled on close as well, since cancelling the chain does not stop an attached recording
+    private CompletableFuture<Path> recordingFile;
+
+    /**
+     * @param restarter restarts the processor, or starts it when it is stopped,
+     *                  the way the Start button does
+     */
+    public ProfileDialog(Frame owner, ResourceBundle bundle, AppProcessManager manager,
+                         Supplier<CompletableFuture<Void>> restarter) {
+        super(owner, bundle.getString("profile_title"), false);
+        this.bundle = bundle;
+        this.manager = manager;
+        this.restarter = restarter;
+        setSize(900, 560);
+        setLocationRelativeTo(owner);
+
+        hotModel = createModel(bundle.getString("profile_col_method"), bundle.getString("profile_col_samples"),
+            bundle.getString("profile_col_share"));
+        allocationModel = createModel(bundle.getString("profile_col_site"), bundle.getString("profile_col_class"),
+            bundle.getString("profile_col_samples"), bundle.getString("profile_col_bytes"));
+        contentionModel = createModel(bundle.getString("profile_col_site"), bundle.getString("profile_col_class"),
+            bundle.getString("profile_col_events"), bundle.getString("profile_col_time"));
+
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab(bundle.getString("profile_tab_cpu"), createTable(hotModel));
+        tabs.addTab(bundle.getString("profile_tab_allocations"), createTable(allocationModel));
+        tabs.addTab(bundle.getString("profile_tab_contention"), createTable(contentionModel));
+
+        JPanel settings = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        settings.add(new JLabel(bundle.getString("profile_duration")));
+        settings.add(durationSpinner);
+        settings.add(startButton);
+        startButton.setText(bundle.getString("profile_start"));
+        startButton.addActionListener(e -> record());
+
+        JPanel panel = new JPanel(new BorderLayout(BORDER_PADDING, BORDER_PADDING));
+        panel.setBorder(BorderFactory.createEmptyBorder(BORDER_PADDING, BORDER_PADDING, BORDER_PADDING, BORDER_PADDING));
+        panel.add(settings, BorderLayout.NORTH);
+        panel.add(tabs, BorderLayout.CENTER);
+        panel.add(statusLabel, BorderLayout.SOUTH);
+        add(panel);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                if (recording != null) {
+                    recording.cancel(true);
+                    recordingFile.cancel(true);
+                }
+            }
+        });
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+    }
+
+    private void record() {
+        int seconds = (Integer) durationSpinner.getValue();
+        CompletableFuture<Path> file;
+        Path jcmd = JfrProfiler.findJcmd(manager.getRunningJavaPath());
+        long pid = manager.getPid();
+        if (manager.getState() == ProcessState.READY && pid > 0 && jcmd != null) {
+            file = profiler.attach(jcmd, pid, seconds);
+        } else {
+            if (manager.getState() != ProcessState.STOPPED && JOptionPane.showConfirmDialog(this,
+                    bundle.getString("profile_restart_confirm"), bundle.getString("profile_title"),
+                    JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) {
+                return;
+            }
+            Path target;
+            try {
+                target = profiler.newRecordingFile();
+            } catch (IOException e) {
+                showFailure(e);
+                return;
+            }
+            manager.addNextStartOptions(JfrProfiler.startOptions(target, seconds));
+            file = restarter.get()
+                .thenCompose(v -> JfrProfiler.awaitFile(target, seconds * 1000L + STARTUP_ALLOWANCE_MS));
+        }
+        startButton.setEnabled(false);
+        durationSpinner.setEnabled(false);
+        statusLabel.setText(String.format(bundle.getString("profile_recording"), seconds));
+        CompletableFuture<Void> run = file
+            .thenCompose(path -> {
+                SwingUtilities.invokeLater(() -> statusLabel.setText(bundle.getString("profile_reading")));
+                return TaskRuntime.get().background().supply("jfr-report", () -> {
+                    try {
+                        return JfrReport.read(path, TOP_ENTRIES);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }).thenAccept(report -> SwingUtilities.invokeLater(() -> showReport(report, path)));
+            });
+        recording = run;
+        recordingFile = file;
+        run.whenComplete((v, e) -> SwingUtilities.invokeLater(() -> {
+            if (recording != run) {
+                return;
+            }
+            recording = null;
+            recordingFile = null;
+            startButton.setEnabled(true);
+            durationSpinner.setEnabled(true);
+            if (e != null && !(unwrap(e) instanceof CancellationException)) {
+                showFailure(unwrap(e));
+            }
+        }));
+    }
+
+    private void showReport(JfrReport report, Path file) {
+        long samples = Math.max(1, report.getSamples());
+        fill(hotModel, report.getHotMethods(), entry -> new Object[] {
+            entry.site(), entry.count(), String.format(Locale.ROOT, "%.1f %%", entry.count() * 100.0 / samples)
+        });
+        fill(allocationModel, report.getAllocations(), entry -> new Object[] {
+            entry.site(), entry.detail(), entry.count(), String.format(Locale.ROOT, "%.1f MB", entry.total() / (1024.0 * 1024))
+        });
+        fill(contentionModel, report.getContention(), entry -> new Object[] {
+            entry.site(), entry.detail(), entry.count(), String.format(Locale.ROOT, "%.1f ms", entry.total() / 1_000_000.0)
+        });
+        statusLabel.setText(String.format(bundle.getString("profile_done"), report.getSamples(), file));
+    }
+
+    private void showFailure(Throwable e) {
+        AppLogger.error("Profiling failed: " + e.getMessage(), e);
+        statusLabel.setText(String.format(bundle.getString("profile_failed"), e.getMessage()));
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static void fill(DefaultTableModel model, List<JfrReport.Entry> entries,
+                             Function<JfrReport.Entry, Object[]> toRow) {
+        model.setRowCount(0);
+        for (JfrReport.Entry entry : entries) {
+            model.addRow(toRow.apply(entry));
+        }
+    }
+
+    private static DefaultTableModel createModel(String... columns) {
+        return new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+
+    private static JScrollPane createTable(DefaultTableModel model) {
+        JTable table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(420);
+        return new JScrollPane(table);
+    }
+}
@@ -1,9 +1,12 @@
 package com.github.thkwag.thymelab.launcher.ui.dialogs;
 
 import com.github.thkwag.thymelab.launcher.config.ConfigManager;
+import com.github.thkwag.thymelab.launcher.config.JvmProfile;
+import com.github.thkwag.thymelab.launcher.process.ProcessSupervisor;
 import com.github.thkwag.thymelab.launcher.ui.MainFrame;
 import com.github.thkwag.thymelab.launcher.ui.components.LogPanel;
 import com.github.thkwag.thymelab.launcher.util.AppLogger;
+import com.github.thkwag.thymelab.launcher.util.TaskRuntime;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
@@ -14,7 +17,6 @@ import org.kohsuke.github.*;
 import okhttp3.*;
 import java.io.*;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 public class SettingsDialog extends JDialog {
     private JComboBox<LanguageItem> languageCombo;
@@ -24,12 +26,20 @@ public class SettingsDialog extends JDialog {
     private JTextField jarPathField;
     private final ConfigManager config;
     private ResourceBundle bundle;
-    private static final String[] LABEL_KEYS = {"language", "font", "log_buffer_size", "font_size", "port", "lines", "processor_jar_path"};
+    private static final String[] LABEL_KEYS = {"language", "font", "log_buffer_size", "font_size", "port", "lines", "processor_jar_path",
+        "jvm_profile", "jvm_options", "auto_restart"};
     private JLabel[] labels;
     private JButton saveButton;
     private JSpinner portSpinner;
     private JLabel logBufferUnitLabel;
     private JButton selectJarButton;
+    private JComboBox<JvmProfile> jvmProfileCombo;
+    private JTextField jvmOptionsField;
+    private JButton jvmOptionsResetButton;
+    private JCheckBox autoRestartCheck;
+    // Options edited in this dialog per profile, saved together
+    private final Map<JvmProfile, String> jvmOptions = new EnumMap<>(JvmProfile.class);
+    private JvmProfile shownJvmProfile;
 
     // Port settings
     private static final int MIN_PORT = 1024;
@@ -127,6 +137,27 @@ public class SettingsDialog extends JDialog {
             }
         });
 
+        // JVM profile, applied on the next start
+        jvmProfileCombo = new JComboBox<>(JvmProfile.values());
+        jvmProfileCombo.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value,
+                    int index, boolean isSelected, boolean cellHasFocus) {
+                String name = value instanceof JvmProfile profile ? bundle.getString(profile.getMessageKey()) : "";
+                return super.getListCellRendererComponent(list, name, index, isSelected, cellHasFocus);
+            }
+        });
+        jvmOptionsField = new JTextField(TEXT_FIELD_COLUMNS);
+        jvmOptionsResetButton = new JButton(bundle.getString("jvm_options_reset"));
+        autoRestartCheck = new JCheckBox(bundle.getString("auto_restart_enabled"));
+
+        jvmProfileCombo.addActionListener(e -> showJvmProfile((JvmProfile) jvmProfileCombo.getSelectedItem()));
+        jvmOptionsResetButton.addActionListener(e -> {
+            if (shownJvmProfile != null) {
+                jvmOptionsField.setText(shownJvmProfile.getDefaultOptions());
+            }
+        });
+
         // Add listener for immediate application
         fontCombo.addActionListener(e -> {
             String selectedFont = (String) fontCombo.getSelectedItem();
@@ -300,6 +331,43 @@ public class SettingsDialog extends JDialog {
         panel.add(jarPathPanel, gbc);
         gbc.gridwidth = 1;
 
+        // JVM profile
+        gbc.gridy = 7;
+        gbc.gridx = 0;
+        gbc.weightx = 0.0;
+        gbc.fill = GridBagConstraints.NONE;
+        panel.add(labels[7], gbc);
+
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        jvmProfileCombo.setPreferredSize(new Dimension(COMBO_WIDTH, jvmProfileCombo.getPreferredSize().height));
+        panel.add(jvmProfileCombo, gbc);
+
+        // JVM options of the selected profile
+        gbc.gridy = 8;
+        gbc.gridx = 0;
+        gbc.weightx = 0.0;
+        panel.add(labels[8], gbc);
+
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        JPanel jvmOptionsPanel = new JPanel(new BorderLayout(5, 0));
+        jvmOptionsPanel.add(jvmOptionsField, BorderLayout.CENTER);
+        jvmOptionsPanel.add(jvmOptionsResetButton, BorderLayout.EAST);
+        panel.add(jvmOptionsPanel, gbc);
+
+        // Restart after crashes
+        gbc.gridy = 9;
+        gbc.gridx = 0;
+        gbc.weightx = 0.0;
+        gbc.fill = GridBagConstraints.NONE;
+        panel.add(labels[9], gbc);
+
+        gbc.gridx = 1;
+        gbc.weightx = 1.0;
+        panel.add(autoRestartCheck, gbc);
+
         // Save button panel
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         buttonPanel.setBorder(BorderFactory.createEmptyBorder(COMPONENT_SPACING, 0, COMPONENT_SPACING, 0));
@@ -343,6 +411,27 @@ public class SettingsDialog extends JDialog {
         
         // Set JAR path
         jarPathField.setText(config.getProcessorJarPath());
+
+        // Set JVM profile
+        for (JvmProfile profile : JvmProfile.values()) {
+            jvmOptions.put(profile, config.getJvmOptions(profile));
+        }
+        jvmProfileCombo.setSelectedItem(config.getJvmProfile());
+        showJvmProfile(config.getJvmProfile());
+
+        autoRestartCheck.setSelected(config.getBoolean(ProcessSupervisor.KEY_ENABLED, false));
+    }
+
+    private void showJvmProfile(JvmProfile profile) {
+        if (profile == null || profile == shownJvmProfile) {
+            return;
+        }
+        if (shownJvmProfile != null) {
+            jvmOptions.put(shownJvmProfile, jvmOptionsField.getText().trim());
+        }
+        shownJvmProfile = profile;
+        jvmOptionsField.setText(jvmOptions.get(profile));
+        jvmOptionsField.setCaretPosition(0);
     }
 
     private void saveSettings() {
@@ -374,6 +463,17 @@ public class SettingsDialog extends JDialog {
             config.setInt("server.port", port);
         }
 
+        // Save JVM profiles
+        if (shownJvmProfile != null) {
+            jvmOptions.put(shownJvmProfile, jvmOptionsField.getText().trim());
+            config.setJvmProfile(shownJvmProfile);
+        }
+        for (Map.Entry<JvmProfile, String> entry : jvmOptions.entrySet()) {
+            config.setJvmOptions(entry.getKey(), entry.getValue());
+        }
+
+        config.setBoolean(ProcessSupervisor.KEY_ENABLED, autoRestartCheck.isSelected());
+
         // Save JAR path
         config.setProcessorJarPath(jarPathField.getText().trim());
     }
@@ -392,6 +492,9 @@ public class SettingsDialog extends JDialog {
         // Update buttons
         saveButton.setText(bundle.getString("save"));
         selectJarButton.setText(bundle.getString("select_jar"));
+        jvmOptionsResetButton.setText(bundle.getString("jvm_options_reset"));
+        autoRestartCheck.setText(bundle.getString("auto_restart_enabled"));
+        jvmProfileCombo.repaint();
 
         // Update download panel if exists
         for (Component comp : ((JPanel)getContentPane().getComponent(0)).getComponents()) {
@@ -509,7 +612,7 @@ public class SettingsDialog extends JDialog {
             progressDialog.setLocationRelativeTo(this);
             
             // Start download in background
-            CompletableFuture.runAsync(() -> {
+            TaskRuntime.get().background().run("release-download", () -> {
                 try {
                     // Create download request
                     Request request = new Request.Builder()
@@ -0,0 +1,74 @@
+package com.github.thkwag.thymelab.launcher.ui.dialogs;
+
+import com.github.thkwag.thymelab.launcher.util.TaskRuntime;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+/**
+ * Lists the launcher's background tasks in flight, refreshed every second,
+ * to see what is still running or stuck.
+ */
+public class TaskListDialog extends JDialog {
+    private static final int REFRESH_INTERVAL = 1000;
+    private static final int BORDER_PADDING = 10;
+
+    private final DefaultTableModel model;
+    private final JLabel summaryLabel = new JLabel();
+    private final Timer refreshTimer;
+    private final ResourceBundle bundle;
+
+    public TaskListDialog(Frame owner, ResourceBundle bundle) {
+        super(owner, bundle.getString("tasks_title"), false);
+        this.bundle = bundle;
+        setSize(600, 300);
+        setLocationRelativeTo(owner);
+
+        model = new DefaultTableModel(new Object[] {
+            bundle.getString("tasks_scope"), bundle.getString("tasks_task"),
+            bundle.getString("tasks_thread"), bundle.getString("tasks_running_for")
+        }, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable table = new JTable(model);
+        table.setFillsViewportHeight(true);
+
+        JPanel panel = new JPanel(new BorderLayout(BORDER_PADDING, BORDER_PADDING));
+        panel.setBorder(BorderFactory.createEmptyBorder(BORDER_PADDING, BORDER_PADDING, BORDER_PADDING, BORDER_PADDING));
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        panel.add(summaryLabel, BorderLayout.SOUTH);
+        add(panel);
+
+        refreshTimer = new Timer(REFRESH_INTERVAL, e -> refresh());
+        refreshTimer.start();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                refreshTimer.stop();
+            }
+        });
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        refresh();
+    }
+
+    private void refresh() {
+        long now = System.currentTimeMillis();
+        model.setRowCount(0);
+        for (TaskRuntime.TaskInfo task : TaskRuntime.get().getTasks()) {
+            model.addRow(new Object[] {
+                task.getScope(), task.getName(), task.getThreadName(),
+                String.format(Locale.ROOT, "%.1f s", (now - task.getStartMillis()) / 1000.0)
+            });
+        }
+        summaryLabel.setText(String.format(bundle.getString("tasks_summary"), model.getRowCount(),
+            bundle.getString(TaskRuntime.get().usesVirtualThreads() ? "tasks_virtual" : "tasks_platform")));
+    }
+}
@@ -0,0 +1,414 @@
+package com.github.thkwag.thymelab.launcher.util;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the launcher's background work. Tasks run on virtual threads when the
+ * runtime has them (Java 21 and later) and on a pool of daemon threads
+ * otherwise, so the launcher still runs on Java 17.
+ * <p>
+ * Work is grouped in named {@link Scope}s, such as one per processor
+ * instance. Closing a scope interrupts its tasks, and every task in flight
+ * can be listed with {@link #getTasks()}. The runtime closes all scopes on
+ * JVM shutdown.
+ */
+public final class TaskRuntime {
+    private static final String BACKGROUND_SCOPE = "launcher";
+    private static final String DEFAULT_TASK_NAME = "task";
+    private static final long SHUTDOWN_TIMEOUT_MS = 2000;
+
+    private static final TaskRuntime INSTANCE = new TaskRuntime();
+
+    private final boolean virtualThreads;
+    private final ThreadFactory virtualThreadFactory;
+    private final ExecutorService platformPool;
+    private final Set<Scope> scopes = ConcurrentHashMap.newKeySet();
+    private final Scope background;
+
+    private TaskRuntime() {
+        virtualThreadFactory = createVirtualThreadFactory();
+        virtualThreads = virtualThreadFactory != null;
+        if (virtualThreads) {
+            platformPool = null;
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            platformPool = Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "launcher-task-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        background = openScope(BACKGROUND_SCOPE);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "task-runtime-shutdown"));
+    }
+
+    public static TaskRuntime get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns {@code Thread.ofVirtual().name("launcher-vtask-", 0).factory()},
+     * looked up reflectively because the launcher is compiled for Java 17.
+     */
+    private static ThreadFactory createVirtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "launcher-vtask-", 0L);
+            Method factory = builderType.getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Returns the scope for short one-off work that belongs to no processor,
+     * such as actuator calls from the UI. It lives as long as the launcher.
+     */
+    public Scope background() {
+        return background;
+    }
+
+    /**
+     * Opens a scope whose tasks are interrupted when it is closed.
+     */
+    public Scope openScope(String name) {
+        Scope scope = new Scope(name);
+        scopes.add(scope);
+        return scope;
+    }
+
+    /**
+     * Returns the tasks running in all scopes, oldest first.
+     */
+    public List<TaskInfo> getTasks() {
+        List<TaskInfo> tasks = new ArrayList<>();
+        for (Scope scope : scopes) {
+            tasks.addAll(scope.getTasks());
+        }
+        tasks.sort(Comparator.comparingLong(TaskInfo::getStartMillis));
+        return tasks;
+    }
+
+    /**
+     * Wraps a task so the scope that runs it lists it under {@code name}.
+     * Other executors run it as it is.
+     */
+    public static Runnable named(String name, Runnable task) {
+        return new NamedRunnable(name, task);
+    }
+
+    private void start(Runnable task) {
+        if (virtualThreads) {
+            virtualThreadFactory.newThread(task).start();
+        } else {
+            platformPool.execute(task);
+        }
+    }
+
+    private void shutdown() {
+        List<Scope> open = new ArrayList<>(scopes);
+        for (Scope scope : open) {
+            scope.shutdownNow();
+        }
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MS;
+        for (Scope scope : open) {
+            try {
+                scope.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+        if (platformPool != null) {
+            platformPool.shutdownNow();
+        }
+    }
+
+    /**
+     * A named group of tasks that is shut down as one. Usable wherever an
+     * {@link ExecutorService} is expected; closing it is
+     * {@link #shutdownNow()}.
+     */
+    public final class Scope extends AbstractExecutorService implements AutoCloseable {
+        private final String name;
+        private final Set<Task> tasks = ConcurrentHashMap.newKeySet();
+        private volatile boolean shutdown;
+
+        private Scope(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Runs a named task, returning a future that interrupts the task when
+         * cancelled or completed exceptionally, as by
+         * {@link CompletableFuture#orTimeout}.
+         */
+        public CompletableFuture<Void> run(String taskName, Runnable body) {
+            return supply(taskName, () -> {
+                body.run();
+                return null;
+            });
+        }
+
+        /**
+         * Computes a value in a named task. The future interrupts the task
+         * like the one of {@link #run(String, Runnable)}.
+         */
+        public <T> CompletableFuture<T> supply(String taskName, Supplier<T> body) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            Task task = new Task(taskName, () -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(body.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+            // Cancelled or timed out from outside, so stop the work too
+            future.whenComplete((value, e) -> {
+                if (e != null) {
+                    task.interrupt();
+                }
+            });
+            submitTask(task);
+            return future;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            String taskName = DEFAULT_TASK_NAME;
+            if (command instanceof NamedRunnable) {
+                taskName = ((NamedRunnable) command).name;
+            } else if (command instanceof NamedFutureTask) {
+                taskName = ((NamedFutureTask<?>) command).name;
+            }
+            submitTask(new Task(taskName, command));
+        }
+
+        @Override
+        protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+            return runnable instanceof NamedRunnable
+                ? new NamedFutureTask<>(((NamedRunnable) runnable).name, runnable, value)
+                : super.newTaskFor(runnable, value);
+        }
+
+        private void submitTask(Task task) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Scope " + name + " is closed");
+            }
+            tasks.add(task);
+            try {
+                start(task);
+            } catch (RejectedExecutionException e) {
+                finished(task);
+                throw e;
+            }
+        }
+
+        private void finished(Task task) {
+            tasks.remove(task);
+            if (shutdown && tasks.isEmpty()) {
+                synchronized (this) {
+                    notifyAll();
+                }
+                scopes.remove(this);
+            }
+        }
+
+        public List<TaskInfo> getTasks() {
+            List<TaskInfo> infos = new ArrayList<>();
+            for (Task task : tasks) {
+                infos.add(new TaskInfo(name, task.name, task.getThreadName(), task.startMillis, virtualThreads));
+            }
+            return infos;
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+            if (tasks.isEmpty()) {
+                scopes.remove(this);
+            }
+        }
+
+        /**
+         * Closes the scope and interrupts its running tasks.
+         *
+         * @return always empty, tasks are never queued
+         */
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown();
+            for (Task task : tasks) {
+                task.interrupt();
+            }
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown && tasks.isEmpty();
+        }
+
+        @Override
+        public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!isTerminated()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+            shutdownNow();
+        }
+
+        private final class Task implements Runnable {
+            private final String name;
+            private final Runnable body;
+            private final long startMillis = System.currentTimeMillis();
+            private volatile Thread thread;
+
+            Task(String name, Runnable body) {
+                this.name = name;
+                this.body = body;
+            }
+
+            @Override
+            public void run() {
+                Thread current = Thread.currentThread();
+                String threadName = current.getName();
+                current.setName(Scope.this.name + "/" + name);
+                thread = current;
+                try {
+                    body.run();
+                } catch (Throwable e) {
+                    AppLogger.error("Task " + Scope.this.name + "/" + name + " failed: " + e.getMessage(), e);
+                } finally {
+                    thread = null;
+                    // A pooled thread must not carry an interrupt meant for this task
+                    Thread.interrupted();
+                    current.setName(threadName);
+                    finished(this);
+                }
+            }
+
+            void interrupt() {
+                Thread running = thread;
+                if (running != null) {
+                    running.interrupt();
+                }
+            }
+
+            String getThreadName() {
+                Thread running = thread;
+                return running != null ? running.getName() : null;
+            }
+        }
+    }
+
+    /**
+     * What a task in flight is and where it runs, for diagnostics.
+     */
+    public static final class TaskInfo {
+        private final String scope;
+        private final String name;
+        private final String threadName;
+        private final long startMillis;
+        private final boolean virtual;
+
+        TaskInfo(String scope, String name, String threadName, long startMillis, boolean virtual) {
+            this.scope = scope;
+            this.name = name;
+            this.threadName = threadName;
+            this.startMillis = startMillis;
+            this.virtual = virtual;
+        }
+
+        public String getScope() {
+            return scope;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the name of the thread running the task, or null while it
+         * waits for one.
+         */
+        public String getThreadName() {
+            return threadName;
+        }
+
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        public boolean isVirtual() {
+            return virtual;
+        }
+    }
+
+    private static final class NamedRunnable implements Runnable {
+        private final String name;
+        private final Runnable task;
+
+        NamedRunnable(String name, Runnable task) {
+            this.name = name;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    private static final class NamedFutureTask<T> extends FutureTask<T> {
+        private final String name;
+
+        NamedFutureTask(String name, Runnable runnable, T value) {
+            super(runnable, value);
+            this.name = name;
+        }
+    }
+}
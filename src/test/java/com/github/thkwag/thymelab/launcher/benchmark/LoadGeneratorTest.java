@@ -0,0 +1,75 @@
+package com.github.thkwag.thymelab.launcher.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTest {
+
+    @Test
+    @DisplayName("A run requests every path and counts failed requests as errors")
+    void testRun() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            boolean found = exchange.getRequestURI().getPath().equals("/home");
+            byte[] body = "<html></html>".getBytes();
+            exchange.sendResponseHeaders(found ? 200 : 404, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            LoadGenerator generator = new LoadGenerator("http://127.0.0.1:" + server.getAddress().getPort(),
+                List.of("/home", "missing"), 2, 300);
+            BenchmarkResult result = generator.start().get(10, TimeUnit.SECONDS);
+
+            assertTrue(result.requests() > 0);
+            assertTrue(result.errors() > 0);
+            assertTrue(result.errors() < result.requests());
+            assertTrue(result.p99Micros() >= result.p50Micros());
+            assertTrue(result.throughput() > 0);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @DisplayName("Only loopback servers and plain paths are accepted")
+    void testLocalOnly() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new LoadGenerator("http://example.com:8080", List.of("/"), 1, 100));
+        assertThrows(IllegalArgumentException.class,
+            () -> new LoadGenerator("http://localhost:8080", List.of("http://example.com/"), 1, 100));
+        assertThrows(IllegalArgumentException.class,
+            () -> new LoadGenerator("http://localhost:8080", List.of(), 1, 100));
+    }
+
+    @Test
+    @DisplayName("Saved runs are read back newest first")
+    void testHistory(@TempDir Path dir) {
+        BenchmarkHistory history = new BenchmarkHistory(dir);
+        history.save(new BenchmarkResult(1000, "http://localhost:8080", List.of("/"), 4, 10_000,
+            500, 2, 900, 1500, 4000, 9000, 12_000, 1100.5));
+        history.save(new BenchmarkResult(2000, "http://localhost:8080", List.of("/a", "/b"), 8, 10_000,
+            900, 0, 800, 1400, 3000, 8000, 10_000, 950.0));
+
+        List<BenchmarkResult> results = history.load();
+
+        assertEquals(2, results.size());
+        assertEquals(2000, results.get(0).startMillis());
+        assertEquals(List.of("/a", "/b"), results.get(0).paths());
+        assertEquals(1100.5, results.get(1).meanMicros());
+        assertEquals(50.0, results.get(1).throughput());
+    }
+}
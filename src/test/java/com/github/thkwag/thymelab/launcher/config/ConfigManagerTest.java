@@ -9,6 +9,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import java.nio.file.Path;
 import java.io.*;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -140,4 +141,33 @@ class ConfigManagerTest {
         // Then
         assertEquals(unicodeText, configManager.getProperty("unicode.text", ""));
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("Instance views keep their own port and folders and share the rest")
+    void testInstanceView() {
+        // Given
+        configManager.setInt("server.port", 8080);
+        configManager.setProperty("templates.folder.path", "/site/templates");
+        String id = configManager.addInstance();
+        ConfigManager instance = configManager.forInstance(id);
+
+        // When
+        instance.setInt("server.port", 8081);
+        instance.setProperty("font.family", "Monospaced");
+        configManager.save();
+        ConfigManager reloaded = new ConfigManager(configFile.getAbsolutePath());
+        reloaded.load();
+
+        // Then
+        assertEquals(List.of(ConfigManager.DEFAULT_INSTANCE, id), reloaded.getInstanceIds());
+        assertSame(reloaded, reloaded.forInstance(ConfigManager.DEFAULT_INSTANCE));
+        assertEquals(8080, reloaded.getInt("server.port", 0));
+        assertEquals(8081, reloaded.forInstance(id).getInt("server.port", 0));
+        assertEquals("/site/templates", reloaded.forInstance(id).getProperty("templates.folder.path", ""));
+        assertEquals("Monospaced", reloaded.getProperty("font.family", ""));
+
+        reloaded.removeInstance(id);
+        assertEquals(List.of(ConfigManager.DEFAULT_INSTANCE), reloaded.getInstanceIds());
+        assertEquals(8080, reloaded.forInstance(id).getInt("server.port", 0));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.github.thkwag.thymelab.launcher.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JvmProfileTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Options are split on whitespace with quotes grouping")
+    void testSplitOptions() {
+        assertEquals(List.of("-Xmx512m", "-Dname=a b", "-XX:+UseSerialGC"),
+            JvmProfile.splitOptions("  -Xmx512m \"-Dname=a b\"\t-XX:+UseSerialGC "));
+        assertEquals(List.of(""), JvmProfile.splitOptions("\"\""));
+        assertTrue(JvmProfile.splitOptions("   ").isEmpty());
+        assertTrue(JvmProfile.splitOptions(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Profiles and their edited options are stored in the config")
+    void testStoredProfiles() {
+        String path = tempDir.resolve("thymelab-launcher.properties").toString();
+        ConfigManager config = new ConfigManager(path);
+        assertEquals(JvmProfile.CUSTOM, config.getJvmProfile());
+        assertEquals(JvmProfile.FAST_START.getDefaultOptions(), config.getJvmOptions(JvmProfile.FAST_START));
+
+        config.setJvmProfile(JvmProfile.LOW_MEMORY);
+        config.setJvmOptions(JvmProfile.LOW_MEMORY, "-Xmx128m");
+        config.save();
+
+        ConfigManager reloaded = new ConfigManager(path);
+        reloaded.load();
+        assertEquals(JvmProfile.LOW_MEMORY, reloaded.getJvmProfile());
+        assertEquals("-Xmx128m", reloaded.getJvmOptions(JvmProfile.LOW_MEMORY));
+        assertEquals(JvmProfile.CUSTOM, JvmProfile.fromId("unknown"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnsiParserTest {
+    private AnsiParser parser;
+
+    @BeforeEach
+    void setUp() {
+        parser = new AnsiParser();
+    }
+
+    @Test
+    @DisplayName("Plain text has no style runs")
+    void testPlainText() {
+        LogLine line = parser.parseLine("Started ThymeLabApplication in 2.1 seconds");
+
+        assertEquals("Started ThymeLabApplication in 2.1 seconds", line.text());
+        assertNull(line.runs());
+    }
+
+    @Test
+    @DisplayName("Basic colors produce runs and escape codes are stripped")
+    void testBasicColors() {
+        LogLine line = parser.parseLine("\u001B[32m INFO\u001B[0m done");
+
+        assertEquals(" INFO done", line.text());
+        int[] runs = line.runs();
+        assertEquals(4, runs.length);
+        assertEquals(0, runs[0]);
+        assertEquals(new Color(0, 205, 0), LogStyle.get(runs[1]).getForeground());
+        assertEquals(5, runs[2]);
+        assertEquals(LogStyle.DEFAULT.getId(), runs[3]);
+    }
+
+    @Test
+    @DisplayName("256-color and 24-bit codes are supported")
+    void testExtendedColors() {
+        LogLine indexed = parser.parseLine("\u001B[38;5;196mred\u001B[0m");
+        LogLine rgb = parser.parseLine("\u001B[1;38;2;10;20;30;48;5;232mrgb");
+
+        LogStyle indexedStyle = LogStyle.get(indexed.runs()[1]);
+        assertEquals(new Color(255, 0, 0), indexedStyle.getForeground());
+
+        LogStyle rgbStyle = LogStyle.get(rgb.runs()[1]);
+        assertEquals(new Color(10, 20, 30), rgbStyle.getForeground());
+        assertEquals(new Color(8, 8, 8), rgbStyle.getBackground());
+        assertTrue(rgbStyle.isBold());
+    }
+
+    @Test
+    @DisplayName("Style state carries across line boundaries")
+    void testStyleCarriesOver() {
+        parser.parseLine("\u001B[31mfirst");
+        LogLine second = parser.parseLine("second");
+        LogLine third = parser.parseLine("\u001B[mthird");
+
+        assertNotNull(second.runs());
+        assertEquals(new Color(205, 0, 0), LogStyle.get(second.runs()[1]).getForeground());
+        assertNull(third.runs());
+    }
+
+    @Test
+    @DisplayName("Non-SGR sequences are removed and tabs are expanded")
+    void testOtherSequencesAndTabs() {
+        LogLine line = parser.parseLine("\u001B[2K\u001B[?25l\tat Foo.bar\r");
+
+        assertEquals("    at Foo.bar", line.text());
+        assertNull(line.runs());
+    }
+
+    @Test
+    @DisplayName("Same style maps to the same interned instance")
+    void testStyleCache() {
+        LogLine first = parser.parseLine("\u001B[33;44ma\u001B[0m");
+        LogLine second = parser.parseLine("\u001B[33m\u001B[44mb\u001B[0m");
+
+        assertEquals(first.runs()[1], second.runs()[1]);
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogLineBufferTest {
+
+    @Test
+    @DisplayName("Oldest lines are evicted once capacity is reached")
+    void testEviction() {
+        LogLineBuffer buffer = new LogLineBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.append("line " + i, null);
+        }
+
+        assertEquals(3, buffer.size());
+        assertEquals(2, buffer.getFirstLineNumber());
+        assertEquals("line 2", buffer.getText(0));
+        assertEquals("line 4", buffer.getText(2));
+        assertEquals(-1, buffer.indexOf(1));
+        assertEquals(1, buffer.indexOf(3));
+    }
+
+    @Test
+    @DisplayName("Buffer grows past its initial allocation up to capacity")
+    void testGrowth() {
+        LogLineBuffer buffer = new LogLineBuffer(5000);
+        for (int i = 0; i < 6000; i++) {
+            buffer.append(String.valueOf(i), null);
+        }
+
+        assertEquals(5000, buffer.size());
+        assertEquals("1000", buffer.getText(0));
+        assertEquals("5999", buffer.getText(4999));
+    }
+
+    @Test
+    @DisplayName("Shrinking capacity keeps the newest lines and their runs")
+    void testSetCapacity() {
+        LogLineBuffer buffer = new LogLineBuffer(10);
+        int[] runs = {0, 1, 3, 2};
+        for (int i = 0; i < 10; i++) {
+            buffer.append("line " + i, i == 9 ? runs : null);
+        }
+
+        assertEquals(6, buffer.setCapacity(4));
+        assertEquals(4, buffer.size());
+        assertEquals("line 6", buffer.getText(0));
+        assertSame(runs, buffer.getRuns(3));
+        assertNull(buffer.getRuns(0));
+    }
+
+    @Test
+    @DisplayName("Clearing keeps line numbers increasing")
+    void testClear() {
+        LogLineBuffer buffer = new LogLineBuffer(10);
+        buffer.append("first", null);
+        buffer.append("second", null);
+        buffer.clear();
+        buffer.append("third", null);
+
+        assertEquals(1, buffer.size());
+        assertEquals(2, buffer.getFirstLineNumber());
+        assertEquals("third", buffer.getText(0));
+        assertEquals(5, buffer.getMaxLineLength());
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogScrollbackTest {
+
+    @Test
+    @DisplayName("Filtered rows follow appends and evictions")
+    void testFilter() {
+        LogScrollback scrollback = new LogScrollback(new LogLineBuffer(10));
+        int logger = LogSymbolTable.LOGGERS.intern("test.Logger");
+        for (int i = 0; i < 8; i++) {
+            byte level = (i % 2 == 0 ? LogLevel.ERROR : LogLevel.DEBUG).code();
+            scrollback.append(new LogLine("line " + i, null, 0, level, LogSymbolTable.NONE, logger));
+        }
+
+        scrollback.setFilter(new LogFilter(LogLevel.WARN.code(), LogSymbolTable.NONE, LogSymbolTable.NONE));
+        assertEquals(4, scrollback.getRowCount());
+        assertEquals(2, scrollback.getLineAt(1));
+        assertEquals(1, scrollback.getRowOf(2));
+        assertEquals(-1, scrollback.getRowOf(3));
+
+        for (int i = 8; i < 14; i++) {
+            scrollback.append(new LogLine("line " + i, null, 0, LogLevel.ERROR.code(), LogSymbolTable.NONE, logger));
+        }
+        // Lines 0-3 are evicted, leaving 4, 6 and 8-13
+        assertEquals(8, scrollback.getRowCount());
+        assertEquals(4, scrollback.getLineAt(0));
+        assertEquals(2, scrollback.getTopRowNumber());
+
+        scrollback.setFilter(LogFilter.NONE);
+        assertEquals(10, scrollback.getRowCount());
+        assertEquals(4, scrollback.getLineAt(0));
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogSearchIndexTest {
+
+    @Test
+    @DisplayName("Finds every occurrence ignoring case, in position order")
+    void testSearch() {
+        LogLineBuffer buffer = new LogLineBuffer(1000);
+        LogSearchIndex index = new LogSearchIndex(buffer);
+        append(buffer, index, "Started Application in 2.1 seconds");
+        append(buffer, index, "GET /index.html 200");
+        append(buffer, index, "application ready, application listening");
+
+        LogSearchResult result = index.search("APPLICATION", 100);
+
+        assertEquals(3, result.size());
+        assertEquals(0, result.getLine(0));
+        assertEquals(8, result.getColumn(0));
+        assertEquals(2, result.getLine(1));
+        assertEquals(0, result.getColumn(1));
+        assertEquals(2, result.getLine(2));
+        assertEquals(19, result.getColumn(2));
+        assertEquals(1, result.indexAtOrAfter(1, 0));
+        assertEquals(0, index.search("missing", 100).size());
+        assertEquals(1, index.search("GE", 100).size());
+    }
+
+    @Test
+    @DisplayName("Evicted lines drop out of the results")
+    void testEviction() {
+        LogLineBuffer buffer = new LogLineBuffer(100);
+        LogSearchIndex index = new LogSearchIndex(buffer);
+        for (int i = 0; i < 1000; i++) {
+            append(buffer, index, (i % 10 == 0 ? "marker " : "line ") + i);
+        }
+
+        LogSearchResult result = index.search("marker", 100);
+
+        assertEquals(10, result.size());
+        assertEquals(900, result.getLine(0));
+        assertEquals(990, result.getLine(9));
+    }
+
+    @Test
+    @DisplayName("Hits beyond the limit are reported as truncated")
+    void testTruncated() {
+        LogLineBuffer buffer = new LogLineBuffer(100);
+        LogSearchIndex index = new LogSearchIndex(buffer);
+        for (int i = 0; i < 50; i++) {
+            append(buffer, index, "error error");
+        }
+
+        LogSearchResult result = index.search("error", 20);
+
+        assertEquals(20, result.size());
+        assertTrue(result.isTruncated());
+    }
+
+    private static void append(LogLineBuffer buffer, LogSearchIndex index, String text) {
+        buffer.append(text, null);
+        index.add(buffer.getFirstLineNumber() + buffer.size() - 1, text);
+    }
+}
@@ -0,0 +1,152 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogSpoolTest {
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long ONE_DAY = TimeUnit.DAYS.toMillis(1);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Segments roll once they reach the size limit")
+    void testRolloverBySize() throws Exception {
+        LogSpool spool = new LogSpool(tempDir, 1024, ONE_HOUR, Long.MAX_VALUE, ONE_DAY);
+        for (int i = 0; i < 500; i++) {
+            spool.append(String.format("line %03d of the session", i));
+        }
+        spool.close();
+
+        List<Path> segments = list(spool.getSessionDir(), ".log");
+        assertTrue(segments.size() > 1, segments.toString());
+        StringBuilder text = new StringBuilder();
+        for (Path segment : segments) {
+            // A line starts a new segment only once the current one is full
+            assertTrue(Files.size(segment) < 1024 + 64, segment + " has " + Files.size(segment) + " bytes");
+            text.append(Files.readString(segment, StandardCharsets.UTF_8));
+        }
+        String[] lines = text.toString().split("\n");
+        assertEquals(500, lines.length);
+        assertEquals("line 000 of the session", lines[0]);
+        assertEquals("line 499 of the session", lines[499]);
+    }
+
+    @Test
+    @DisplayName("Segments of an ended session are gzipped by the next spool")
+    void testCompressEndedSession() throws Exception {
+        LogSpool ended = new LogSpool(tempDir, 1024, ONE_HOUR, Long.MAX_VALUE, ONE_DAY, "ended");
+        for (int i = 0; i < 100; i++) {
+            ended.append("ended line " + i);
+        }
+        ended.close();
+        Path endedDir = ended.getSessionDir();
+        List<Path> plain = list(endedDir, ".log");
+        assertFalse(plain.isEmpty());
+
+        try (LogSpool live = new LogSpool(tempDir, 1024, ONE_HOUR, Long.MAX_VALUE, ONE_DAY, "live")) {
+            await(() -> list(endedDir, ".log").isEmpty() && list(endedDir, ".gz").size() == plain.size());
+
+            StringBuilder text = new StringBuilder();
+            for (Path segment : list(endedDir, ".gz")) {
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(segment))) {
+                    text.append(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+            String[] lines = text.toString().split("\n");
+            assertEquals(100, lines.length);
+            assertEquals("ended line 99", lines[99]);
+            // Its own segments stay plain, so the store can map them
+            assertTrue(list(live.getSessionDir(), ".gz").isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Retention deletes ended sessions but never a live one or the segment being written")
+    void testPruneSkipsLiveSessions() throws Exception {
+        Path oldDir = Files.createDirectories(tempDir.resolve("20000101-000000"));
+        Path oldSegment = Files.writeString(oldDir.resolve("segment-00001.log.gz"), "old");
+        Files.setLastModifiedTime(oldSegment, FileTime.fromMillis(System.currentTimeMillis() - 30 * ONE_DAY));
+
+        try (LogSpool other = new LogSpool(tempDir, 1024, ONE_HOUR, Long.MAX_VALUE, ONE_DAY, "other")) {
+            for (int i = 0; i < 200; i++) {
+                other.append("other line " + i);
+            }
+            await(() -> other.getStore().getLineCount() == 200);
+            List<Path> otherSegments = list(other.getSessionDir(), ".log");
+
+            // Allows one byte, so everything it may delete is deleted
+            try (LogSpool pruning = new LogSpool(tempDir, 1024, ONE_HOUR, 1, ONE_DAY, "pruning")) {
+                pruning.append("pruning line");
+                await(() -> !Files.exists(oldDir));
+
+                for (Path segment : otherSegments) {
+                    assertTrue(Files.exists(segment), segment + " of the live session was deleted");
+                }
+                assertEquals(1, list(pruning.getSessionDir(), ".log").size());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Closing twice is harmless and later lines are dropped")
+    void testCloseTwice() throws Exception {
+        LogSpool spool = new LogSpool(tempDir, 1024, ONE_HOUR, Long.MAX_VALUE, ONE_DAY);
+        assertEquals(0, spool.append("only line"));
+        spool.close();
+        spool.close();
+
+        assertEquals(LogLine.NOT_SPOOLED, spool.append("too late"));
+        assertEquals(1, spool.getDroppedLines());
+        assertFalse(Files.exists(spool.getSessionDir().resolve("session.lock")));
+        assertEquals("only line\n", Files.readString(list(spool.getSessionDir(), ".log").get(0)));
+    }
+
+    @Test
+    @DisplayName("A session without lines is removed on close")
+    void testEmptySessionRemoved() throws Exception {
+        LogSpool spool = new LogSpool(tempDir, 1024, ONE_HOUR, Long.MAX_VALUE, ONE_DAY);
+        spool.close();
+
+        assertFalse(Files.exists(spool.getSessionDir()));
+    }
+
+    private static List<Path> list(Path dir, String suffix) {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(suffix))
+                .sorted()
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            // Changed by the housekeeping thread while listed
+            return List.of();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() - deadline < 0, "Timed out");
+            Thread.sleep(10);
+        }
+    }
+}
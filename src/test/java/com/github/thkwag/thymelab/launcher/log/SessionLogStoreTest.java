@@ -0,0 +1,96 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionLogStoreTest {
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Lines are read back by number across segment boundaries")
+    void testReadAcrossSegments() throws Exception {
+        try (LogSpool spool = new LogSpool(tempDir, 1024, ONE_HOUR, Long.MAX_VALUE, ONE_HOUR)) {
+            for (int i = 0; i < 2000; i++) {
+                assertEquals(i, spool.append("line " + i + " 한글"));
+            }
+            SessionLogStore store = awaitLines(spool, 2000);
+
+            assertEquals(0, store.getFirstLine());
+            assertEquals("line 0 한글", store.getLine(0));
+            assertEquals("line 1234 한글", store.getLine(1234));
+            assertEquals("line 1999 한글", store.getLine(1999));
+            assertNull(store.getLine(2000));
+        }
+    }
+
+    @Test
+    @DisplayName("Scrollback pages evicted lines in from the store")
+    void testScrollbackHistory() throws Exception {
+        try (LogSpool spool = new LogSpool(tempDir, 1024, ONE_HOUR, Long.MAX_VALUE, ONE_HOUR)) {
+            LogScrollback scrollback = new LogScrollback(new LogLineBuffer(10));
+            scrollback.attachStore(spool.getStore());
+            for (int i = 0; i < 100; i++) {
+                long spoolLine = spool.append("line " + i);
+                scrollback.append(LogLine.plain("line " + i).withSpoolLine(spoolLine));
+            }
+            awaitLines(spool, 100);
+
+            assertEquals(0, scrollback.getFirstLineNumber());
+            assertEquals(100, scrollback.size());
+            assertEquals("line 5", scrollback.getText(5));
+            assertNull(scrollback.getRuns(5));
+            assertEquals("line 95", scrollback.getText(95));
+
+            scrollback.clear();
+            assertEquals(0, scrollback.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Lines the view skipped show up in the history")
+    void testSkippedLinesInHistory() throws Exception {
+        try (LogSpool spool = new LogSpool(tempDir, 1024, ONE_HOUR, Long.MAX_VALUE, ONE_HOUR)) {
+            LogScrollback scrollback = new LogScrollback(new LogLineBuffer(10));
+            scrollback.attachStore(spool.getStore());
+            for (int i = 0; i < 100; i++) {
+                long spoolLine = spool.append("line " + i);
+                // Lines 20-49 are dropped on their way to the view and replaced by one marker
+                if (i == 20) {
+                    scrollback.append(LogLine.plain("··· 30 lines skipped ···"));
+                }
+                if (i < 20 || i >= 50) {
+                    scrollback.append(LogLine.plain("line " + i).withSpoolLine(spoolLine));
+                }
+            }
+            awaitLines(spool, 100);
+
+            // 71 lines were shown, 10 are buffered; the history holds all 90 stored lines before them
+            assertEquals(71, scrollback.getEndLineNumber());
+            assertEquals(100, scrollback.size());
+            assertEquals(-29, scrollback.getFirstLineNumber());
+            assertEquals("line 0", scrollback.getText(-29));
+            assertEquals("line 35", scrollback.getText(6));
+            assertEquals("line 89", scrollback.getText(60));
+            assertEquals("line 90", scrollback.getText(61));
+        }
+    }
+
+    private static SessionLogStore awaitLines(LogSpool spool, long count) throws InterruptedException {
+        SessionLogStore store = spool.getStore();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (store.getLineCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, store.getLineCount());
+        return store;
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.thkwag.thymelab.launcher.log;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpringLogLineParserTest {
+
+    @Test
+    @DisplayName("Spring Boot 3 lines with offset and application name are parsed")
+    void testBoot3Line() {
+        SpringLogLineParser parser = new SpringLogLineParser(ZoneOffset.UTC);
+        LogLine line = parser.parse(LogLine.plain(
+            "2024-01-15T10:23:45.123+09:00  WARN 12345 --- [thymelab] [nio-8080-exec-1] c.g.t.t.TemplateController  : Template not found"));
+
+        assertEquals(Instant.parse("2024-01-15T01:23:45.123Z").toEpochMilli(), line.timestamp());
+        assertEquals(LogLevel.WARN.code(), line.level());
+        assertEquals("nio-8080-exec-1", LogSymbolTable.THREADS.getName(line.threadId()));
+        assertEquals("c.g.t.t.TemplateController", LogSymbolTable.LOGGERS.getName(line.loggerId()));
+    }
+
+    @Test
+    @DisplayName("Spring Boot 2 lines use the configured zone")
+    void testBoot2Line() {
+        SpringLogLineParser parser = new SpringLogLineParser(ZoneOffset.ofHours(2));
+        LogLine line = parser.parse(LogLine.plain(
+            "2024-01-15 10:23:45.123  INFO 12345 --- [           main] c.g.t.t.Application                      : Started"));
+
+        assertEquals(Instant.parse("2024-01-15T08:23:45.123Z").toEpochMilli(), line.timestamp());
+        assertEquals(LogLevel.INFO.code(), line.level());
+        assertEquals("main", LogSymbolTable.THREADS.getName(line.threadId()));
+    }
+
+    @Test
+    @DisplayName("Continuation lines inherit the fields of their entry")
+    void testContinuationLines() {
+        SpringLogLineParser parser = new SpringLogLineParser(ZoneOffset.UTC);
+        LogLine banner = parser.parse(LogLine.plain("  .   ____          _            __ _ _"));
+        LogLine error = parser.parse(LogLine.plain(
+            "2024-01-15T10:23:45.123Z ERROR 1 --- [main] o.s.boot.SpringApplication : Application run failed"));
+        LogLine frame = parser.parse(LogLine.plain("\tat org.example.Main.main(Main.java:10)"));
+
+        assertEquals(LogLevel.UNKNOWN_CODE, banner.level());
+        assertEquals(LogSymbolTable.NONE, banner.loggerId());
+        assertEquals(LogLevel.ERROR.code(), frame.level());
+        assertEquals(error.loggerId(), frame.loggerId());
+        assertEquals(error.timestamp(), frame.timestamp());
+    }
+}
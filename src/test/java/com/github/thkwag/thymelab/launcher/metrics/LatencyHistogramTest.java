@@ -0,0 +1,60 @@
+package com.github.thkwag.thymelab.launcher.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Buckets are contiguous and each value falls in its own bucket")
+    void testBuckets() {
+        for (long value : new long[] {0, 1, 127, 128, 129, 255, 256, 1000, 65_535, 1_000_000, (1L << 36) - 1}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.lowerBound(bucket) <= value, "lower bound of " + value);
+            assertTrue(LatencyHistogram.upperBound(bucket) >= value, "upper bound of " + value);
+        }
+        for (int bucket = 1; bucket < LatencyHistogram.bucketOf((1L << 36) - 1); bucket++) {
+            assertEquals(LatencyHistogram.upperBound(bucket - 1) + 1, LatencyHistogram.lowerBound(bucket));
+        }
+    }
+
+    @Test
+    @DisplayName("Percentiles are within the bucket precision of the exact values")
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 10_000; micros++) {
+            histogram.recordMicros(micros);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(1, histogram.getMinMicros());
+        assertEquals(10_000, histogram.getMaxMicros());
+        assertEquals(5000.5, histogram.getMeanMicros(), 1e-9);
+        assertEquals(5000, histogram.getValueAtPercentile(50), 5000 * 0.02);
+        assertEquals(9900, histogram.getValueAtPercentile(99), 9900 * 0.02);
+        assertEquals(9990, histogram.getValueAtPercentile(99.9), 9990 * 0.02);
+        assertEquals(10_000, histogram.getValueAtPercentile(100), 10_000 * 0.02);
+    }
+
+    @Test
+    @DisplayName("Merged histograms count the values of both")
+    void testAdd() {
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            fast.recordNanos(1_000_000);
+        }
+        for (int i = 0; i < 10; i++) {
+            slow.recordNanos(100_000_000);
+        }
+
+        fast.add(slow);
+
+        assertEquals(100, fast.getCount());
+        assertEquals(1000, fast.getValueAtPercentile(90), 1000 * 0.02);
+        assertEquals(100_000, fast.getValueAtPercentile(91), 100_000 * 0.02);
+        assertEquals(0, new LatencyHistogram().getValueAtPercentile(99));
+    }
+}
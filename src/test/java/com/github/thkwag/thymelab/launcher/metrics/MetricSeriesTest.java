@@ -0,0 +1,50 @@
+package com.github.thkwag.thymelab.launcher.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricSeriesTest {
+
+    @Test
+    @DisplayName("The ring keeps the latest samples, addressed by age")
+    void testRing() {
+        MetricSeries series = new MetricSeries("m", 3);
+        for (int i = 1; i <= 5; i++) {
+            series.add(i * 1000L, i);
+        }
+
+        assertEquals(3, series.size(MetricSeries.Resolution.SECOND));
+        assertEquals(5, series.getLatest());
+        assertEquals(3, series.getValue(MetricSeries.Resolution.SECOND, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> series.getValue(MetricSeries.Resolution.SECOND, 3));
+
+        double[] out = new double[5];
+        assertEquals(3, series.copyValues(MetricSeries.Resolution.SECOND, out));
+        assertArrayEquals(new double[] {3, 4, 5}, Arrays.copyOf(out, 3));
+    }
+
+    @Test
+    @DisplayName("Coarser resolutions keep the average of each finished bucket")
+    void testDownsampling() {
+        MetricSeries series = new MetricSeries("m", 100);
+        // 0..9 s average 4.5, 10..19 s average 14.5, then one sample of the open bucket
+        for (int second = 0; second <= 20; second++) {
+            series.add(second * 1000L, second);
+        }
+
+        assertEquals(21, series.size(MetricSeries.Resolution.SECOND));
+        assertEquals(2, series.size(MetricSeries.Resolution.TEN_SECONDS));
+        assertEquals(14.5, series.getValue(MetricSeries.Resolution.TEN_SECONDS, 0));
+        assertEquals(10_000, series.getTime(MetricSeries.Resolution.TEN_SECONDS, 0));
+        assertEquals(4.5, series.getValue(MetricSeries.Resolution.TEN_SECONDS, 1));
+        assertEquals(0, series.size(MetricSeries.Resolution.MINUTE));
+
+        series.add(60_000, 100);
+        assertEquals(1, series.size(MetricSeries.Resolution.MINUTE));
+        assertEquals(10, series.getValue(MetricSeries.Resolution.MINUTE, 0));
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.thkwag.thymelab.launcher.metrics;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsStoreTest {
+
+    @Test
+    @DisplayName("Actuator measurements are stored by name and statistic")
+    void testRecordMeasurements() {
+        MetricsStore store = new MetricsStore(1000, 10, null);
+        store.recordMeasurements("jvm.gc.pause", 1000, new JSONObject(
+            "{\"measurements\":[{\"statistic\":\"COUNT\",\"value\":3},{\"statistic\":\"MAX\",\"value\":0.012}]}"));
+        store.recordMeasurements("jvm.threads.live", 1000, new JSONObject(
+            "{\"measurements\":[{\"statistic\":\"VALUE\",\"value\":31}]}"));
+
+        assertEquals(0.012, store.getSeries(MetricsStore.GC_PAUSE_MAX).getLatest());
+        assertEquals(3, store.getSeries("jvm.gc.pause.count").getLatest());
+        assertEquals(31, store.getSeries(MetricsStore.THREADS_LIVE).getLatest());
+    }
+
+    @Test
+    @DisplayName("A scrape cut off mid-body leaves no sums behind for the next one")
+    void testScrapeCutOff() throws IOException {
+        MetricsStore store = new MetricsStore(1000, 10, null);
+        String body = "jvm_memory_used_bytes{area=\"heap\",} 100.0\n"
+            + "jvm_memory_used_bytes{area=\"nonheap\",} 50.0\n";
+        InputStream cutOff = new SequenceInputStream(stream("jvm_memory_used_bytes{area=\"heap\",} 100.0\n"),
+            new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    throw new IOException("Connection reset");
+                }
+            });
+
+        assertThrows(IOException.class, () -> store.recordScrape(cutOff, 1000));
+        assertNull(store.getSeries(MetricsStore.MEMORY_USED));
+        store.recordScrape(stream(body), 2000);
+
+        assertEquals(150.0, store.getSeries(MetricsStore.MEMORY_USED).getLatest());
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.thkwag.thymelab.launcher.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrometheusParserTest {
+
+    @Test
+    @DisplayName("Samples are reported with labels, comments and timestamps skipped")
+    void testParse() throws IOException {
+        String exposition = "# HELP jvm_threads_live_threads The current number of live threads\n"
+            + "# TYPE jvm_threads_live_threads gauge\n"
+            + "jvm_threads_live_threads 31.0\n"
+            + "jvm_memory_used_bytes{area=\"heap\",id=\"G1 Eden {Space}\",} 1.2582912E7\n"
+            + "jvm_memory_used_bytes{area=\"nonheap\",id=\"a \\\"quoted\\\" id\",} 4096.0 1700000000000\r\n"
+            + "\n"
+            + "broken{area=\"heap\" 1.0\n"
+            + "process_cpu_usage NaN";
+        List<String> names = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+
+        new PrometheusParser().parse(stream(exposition), (name, value) -> {
+            names.add(name);
+            values.add(value);
+        });
+
+        assertEquals(List.of("jvm_threads_live_threads", "jvm_memory_used_bytes", "jvm_memory_used_bytes",
+            "process_cpu_usage"), names);
+        assertEquals(31.0, values.get(0));
+        assertEquals(1.2582912E7, values.get(1), 1e-3);
+        assertEquals(4096.0, values.get(2));
+        assertTrue(Double.isNaN(values.get(3)));
+        // Repeated names come from the cache
+        assertSame(names.get(1), names.get(2));
+    }
+
+    @Test
+    @DisplayName("Histogram buckets and summary quantiles are reported apart from other samples")
+    void testDistributionSamples() throws IOException {
+        String exposition = "http_server_requests_seconds_bucket{method=\"GET\",le=\"0.005\",} 3.0\n"
+            + "http_server_requests_seconds_bucket{le=\"+Inf\",method=\"GET\",} 7.0\n"
+            + "http_server_requests_seconds_count{method=\"GET\",} 7.0\n"
+            + "jvm_gc_pause_seconds{action=\"end of minor GC\",quantile=\"0.5\",} 0.002\n"
+            + "jvm_gc_pause_seconds_sum{action=\"end of minor GC\",} 0.01\n"
+            + "tomcat_sessions{name=\"le=1\",} 2.0\n";
+        List<String> samples = new ArrayList<>();
+        List<String> distributions = new ArrayList<>();
+
+        new PrometheusParser().parse(stream(exposition), new PrometheusParser.SampleSink() {
+            @Override
+            public void sample(String name, double value) {
+                samples.add(name);
+            }
+
+            @Override
+            public void distributionSample(String name, double value) {
+                distributions.add(name);
+            }
+        });
+
+        assertEquals(List.of("http_server_requests_seconds_count", "jvm_gc_pause_seconds_sum", "tomcat_sessions"),
+            samples);
+        assertEquals(List.of("http_server_requests_seconds_bucket", "http_server_requests_seconds_bucket",
+            "jvm_gc_pause_seconds"), distributions);
+    }
+
+    @Test
+    @DisplayName("Values parse like Double.parseDouble, including infinities")
+    void testParseDouble() {
+        for (String text : new String[] {"0", "-1.5", "3.0E-4", "1e+3", "123456.789", "0.000123"}) {
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Double.parseDouble(text), PrometheusParser.parseDouble(bytes, 0, bytes.length), 1e-12, text);
+        }
+        byte[] inf = "+Inf".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(Double.POSITIVE_INFINITY, PrometheusParser.parseDouble(inf, 0, inf.length));
+        byte[] junk = "1.2x".getBytes(StandardCharsets.US_ASCII);
+        assertTrue(Double.isNaN(PrometheusParser.parseDouble(junk, 0, junk.length)));
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
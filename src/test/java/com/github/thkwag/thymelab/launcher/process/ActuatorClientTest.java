@@ -0,0 +1,88 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActuatorClientTest {
+    private HttpServer server;
+    private ActuatorClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.start();
+        client = ActuatorClient.forPort(server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("JSON endpoints are fetched and their latency recorded")
+    void testGetJson() throws Exception {
+        respond("/actuator/health", 200, "{\"status\":\"UP\"}");
+
+        JSONObject health = client.getJson("health").get(5, TimeUnit.SECONDS);
+        client.getJson("health").get(5, TimeUnit.SECONDS);
+
+        assertEquals("UP", health.getString("status"));
+        ActuatorClient.EndpointStats stats = client.getEndpointStats().get("health");
+        assertEquals(2, stats.getCalls());
+        assertEquals(0, stats.getFailures());
+        assertTrue(stats.getMaxMillis() >= stats.getMeanMillis());
+    }
+
+    @Test
+    @DisplayName("A non-2xx answer fails the future with an IOException")
+    void testErrorStatus() {
+        respond("/actuator/metrics/missing", 404, "");
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+            () -> client.getJson("metrics/missing").get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, e.getCause());
+        assertEquals(1, client.getEndpointStats().get("metrics/missing").getFailures());
+    }
+
+    @Test
+    @DisplayName("Posts send their JSON body and return the status")
+    void testPost() throws Exception {
+        AtomicReference<String> received = new AtomicReference<>();
+        server.createContext("/actuator/loggers/app", exchange -> {
+            received.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+
+        int status = client.post("loggers/app", "{\"configuredLevel\":\"DEBUG\"}").get(5, TimeUnit.SECONDS);
+
+        assertEquals(204, status);
+        assertEquals("{\"configuredLevel\":\"DEBUG\"}", received.get());
+    }
+
+    private void respond(String path, int status, String body) {
+        server.createContext(path, exchange -> {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+    }
+}
@@ -9,9 +9,16 @@ import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -92,4 +99,74 @@ class AppProcessManagerTest {
         processManager.startProcess();
         verify(logConsumer, atLeastOnce()).accept(anyString());
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("A start that cannot find the jar goes back to STOPPED")
+    void testLifecycleWithoutJar() {
+        CompletableFuture<Void> start = processManager.start();
+        assertThrows(CompletionException.class, start::join);
+        assertEquals(ProcessState.STOPPED, processManager.getState());
+        assertTrue(processExited.get());
+        assertTrue(processManager.stop().isDone());
+    }
+
+    @Test
+    @DisplayName("A stop during the launch returns at once and ends the start")
+    void testStopWhileStarting() throws Exception {
+        CountDownLatch lookingUp = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(configManager.getProcessorJarPath()).thenAnswer(invocation -> {
+            lookingUp.countDown();
+            release.await();
+            return "";
+        });
+        CompletableFuture<Void> start = processManager.start();
+        assertTrue(lookingUp.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> stop = assertTimeoutPreemptively(Duration.ofSeconds(1), processManager::stop);
+        assertEquals(ProcessState.STOPPING, processManager.getState());
+        assertFalse(stop.isDone());
+        assertSame(stop, processManager.stop());
+
+        release.countDown();
+        stop.get(5, TimeUnit.SECONDS);
+        assertThrows(CompletionException.class, start::join);
+        assertEquals(ProcessState.STOPPED, processManager.getState());
+        assertTrue(processExited.get());
+    }
+
+    @Test
+    @DisplayName("isRunning() stays safe while starts replace the process")
+    void testIsRunningDuringStarts() throws Exception {
+        // Not a jar, so every start spawns a java process that exits at once
+        Path jar = Files.createFile(tempDir.resolve("broken.jar"));
+        when(configManager.getProcessorJarPath()).thenReturn(jar.toString());
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    processManager.isRunning();
+                    processManager.getPid();
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+        try {
+            for (int i = 0; i < 5; i++) {
+                processManager.startProcess();
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+                while (processManager.getState() != ProcessState.STOPPED && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertEquals(ProcessState.STOPPED, processManager.getState());
+            }
+        } finally {
+            done.set(true);
+            reader.join();
+        }
+        assertNull(failure.get());
+    }
+}
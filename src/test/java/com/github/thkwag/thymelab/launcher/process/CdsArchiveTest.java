@@ -0,0 +1,53 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CdsArchiveTest {
+    @TempDir
+    Path tempDir;
+
+    private final String javaPath = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+
+    @Test
+    @DisplayName("The first run dumps an archive that later runs map")
+    void testArchiveLifecycle() throws IOException {
+        File jar = Files.writeString(tempDir.resolve("processor.jar"), "version 1").toFile();
+        CdsArchive cds = new CdsArchive(tempDir.resolve("cds"));
+
+        CdsArchive.Run first = cds.prepare(javaPath, jar);
+        assertFalse(first.isUsingArchive());
+        String dumpOption = first.getVmOptions().get(1);
+        assertTrue(dumpOption.startsWith("-XX:ArchiveClassesAtExit="));
+        assertEquals("Startup took 3.00 s without the CDS archive", first.recordStartup(3.0));
+
+        // Simulate the JVM writing the archive on exit
+        Files.writeString(Paths.get(dumpOption.substring(dumpOption.indexOf('=') + 1)), "archive");
+        assertTrue(first.processExited());
+
+        CdsArchive.Run second = cds.prepare(javaPath, jar);
+        assertTrue(second.isUsingArchive());
+        assertEquals("-XX:SharedArchiveFile=" + second.getArchive(), second.getVmOptions().get(1));
+        assertEquals("Startup took 1.50 s with the CDS archive (3.00 s without)", second.recordStartup(1.5));
+
+        // A changed jar gets a new key, and its archive replaces the old one
+        Files.writeString(jar.toPath(), "version 2");
+        jar.setLastModified(jar.lastModified() + 2000);
+        CdsArchive.Run third = cds.prepare(javaPath, jar);
+        assertFalse(third.isUsingArchive());
+        String thirdDump = third.getVmOptions().get(1);
+        Files.writeString(Paths.get(thirdDump.substring(thirdDump.indexOf('=') + 1)), "archive");
+        assertTrue(third.processExited());
+        assertFalse(Files.exists(second.getArchive()));
+        assertTrue(Files.exists(third.getArchive()));
+    }
+}
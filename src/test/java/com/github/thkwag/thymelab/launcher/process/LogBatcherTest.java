@@ -0,0 +1,75 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import com.github.thkwag.thymelab.launcher.log.LogLine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogBatcherTest {
+    private ScheduledExecutorService scheduler;
+    private final List<List<LogLine>> batches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Lines arriving within one interval are delivered as a single batch")
+    void testLinesAreBatched() throws InterruptedException {
+        CountDownLatch delivered = new CountDownLatch(1);
+        LogBatcher batcher = new LogBatcher(new LogConsumer() {
+            @Override
+            public void accept(String line) {
+                fail("Single line delivery is not expected");
+            }
+
+            @Override
+            public void acceptBatch(List<LogLine> lines) {
+                synchronized (batches) {
+                    batches.add(lines);
+                }
+                delivered.countDown();
+            }
+        }, scheduler, 50);
+
+        for (int i = 0; i < 1000; i++) {
+            batcher.add(LogLine.plain("line " + i));
+        }
+
+        assertTrue(delivered.await(2, TimeUnit.SECONDS));
+        synchronized (batches) {
+            assertEquals(1, batches.size());
+            assertEquals(1000, batches.get(0).size());
+            assertEquals("line 0", batches.get(0).get(0).text());
+            assertEquals("line 999", batches.get(0).get(999).text());
+        }
+    }
+
+    @Test
+    @DisplayName("Explicit flush delivers pending lines immediately")
+    void testFlush() {
+        List<String> received = new ArrayList<>();
+        LogBatcher batcher = new LogBatcher(received::add, scheduler, 10_000);
+
+        batcher.accept("first\nsecond\n");
+        batcher.flush();
+
+        assertEquals(List.of("first\n", "second\n"), received);
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import com.github.thkwag.thymelab.launcher.log.LogLine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogQueueTest {
+
+    @Test
+    @DisplayName("Drop-oldest keeps the newest lines and counts the rest")
+    void testDropOldest() {
+        LogQueue queue = new LogQueue(1024, LogQueue.OverflowPolicy.DROP_OLDEST, 1);
+        for (int i = 0; i < 1500; i++) {
+            assertTrue(queue.offer(LogLine.plain("line " + i)));
+        }
+
+        List<LogLine> lines = new ArrayList<>();
+        queue.drainTo(lines, Integer.MAX_VALUE);
+        assertEquals(1024, lines.size());
+        assertEquals("line 476", lines.get(0).text());
+        assertEquals("line 1499", lines.get(lines.size() - 1).text());
+        assertEquals(476, queue.getDroppedLines());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Sampling thins out lines past half capacity")
+    void testSample() {
+        LogQueue queue = new LogQueue(1024, LogQueue.OverflowPolicy.SAMPLE, 4);
+        for (int i = 0; i < 1024; i++) {
+            queue.offer(LogLine.plain("line " + i));
+        }
+
+        assertEquals(512 + 128, queue.size());
+        assertEquals(384, queue.getSampledOutLines());
+        assertEquals(384, queue.getSkippedLines());
+    }
+
+    @Test
+    @DisplayName("Block waits until the consumer drains")
+    void testBlockUntilDrained() throws InterruptedException {
+        LogQueue queue = new LogQueue(1024, LogQueue.OverflowPolicy.BLOCK, 1);
+        for (int i = 0; i < 1024; i++) {
+            queue.offer(LogLine.plain("line " + i));
+        }
+
+        Thread producer = new Thread(() -> queue.offer(LogLine.plain("last")));
+        producer.start();
+        producer.join(100);
+        assertTrue(producer.isAlive());
+
+        List<LogLine> lines = new ArrayList<>();
+        queue.drainTo(lines, 10);
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+
+        queue.drainTo(lines, Integer.MAX_VALUE);
+        assertEquals(1025, lines.size());
+        assertEquals("last", lines.get(lines.size() - 1).text());
+        assertEquals(0, queue.getDroppedLines());
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessOutputReaderTest {
+
+    @Test
+    @DisplayName("Lines are split on raw bytes even when characters straddle reads")
+    void testSplitsAcrossReads() throws IOException {
+        String text = "INFO 서버 시작\r\nWARN 設定ファイル\n\nlast line";
+        // Hand out at most three bytes per read so multi-byte characters get cut
+        ByteArrayInputStream in = new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 3));
+            }
+        };
+
+        assertEquals(List.of("INFO 서버 시작", "WARN 設定ファイル", "", "last line"),
+            readAll(in, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Output is decoded with the configured charset")
+    void testConfiguredCharset() throws IOException {
+        Charset charset = ProcessOutputReader.charsetOf("Shift_JIS");
+        ByteArrayInputStream in = new ByteArrayInputStream("起動しました\n".getBytes(charset));
+
+        assertEquals(List.of("起動しました"), readAll(in, charset));
+        assertEquals(StandardCharsets.UTF_8, ProcessOutputReader.charsetOf("no-such-charset"));
+        assertEquals(StandardCharsets.UTF_8, ProcessOutputReader.charsetOf(null));
+    }
+
+    @Test
+    @DisplayName("Lines longer than the read buffer arrive intact")
+    void testLongLine() throws IOException {
+        String line = "가".repeat(100_000);
+        ByteArrayInputStream in = new ByteArrayInputStream((line + "\nnext\n").getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(List.of(line, "next"), readAll(in, StandardCharsets.UTF_8));
+    }
+
+    private static List<String> readAll(ByteArrayInputStream in, Charset charset) throws IOException {
+        List<String> lines = new ArrayList<>();
+        new ProcessOutputReader(in, charset).readLines((chars, start, end) ->
+            lines.add(chars.subSequence(start, end).toString()));
+        return lines;
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessResourceSamplerTest {
+
+    @Test
+    @DisplayName("CPU ticks are read after the command name, even one with spaces and parentheses")
+    void testParseStat() {
+        byte[] stat = ("4242 (java (main) x) S 1 4242 4242 0 -1 4194560 1200 0 3 0 "
+            + "250 75 0 0 20 0 31 0 123456 3000000000 50000 18446744073709551615\n").getBytes(StandardCharsets.US_ASCII);
+        assertEquals(325, ProcessResourceSampler.parseStatCpuTicks(stat, stat.length));
+
+        byte[] truncated = "4242 (java) S 1 4242".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(-1, ProcessResourceSampler.parseStatCpuTicks(truncated, truncated.length));
+    }
+
+    @Test
+    @DisplayName("Status values are found by key and missing keys give -1")
+    void testParseStatus() {
+        byte[] status = "Name:\tjava\nVmPeak:\t 9000 kB\nVmRSS:\t  245760 kB\nThreads:\t31\n"
+            .getBytes(StandardCharsets.US_ASCII);
+        assertEquals(245760, ProcessResourceSampler.parseStatusValue(status, status.length,
+            "VmRSS:".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(31, ProcessResourceSampler.parseStatusValue(status, status.length,
+            "Threads:".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(-1, ProcessResourceSampler.parseStatusValue(status, status.length,
+            "VmSwap:".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    @DisplayName("Samples of a live process are kept newest first in a bounded history")
+    void testSampleCurrentProcess() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            ProcessResourceSampler sampler = new ProcessResourceSampler(100, 2, scheduler);
+            Semaphore sampled = new Semaphore(0);
+            sampler.addListener(s -> sampled.release());
+            sampler.start(ProcessHandle.current());
+            assertTrue(sampled.tryAcquire(3, 5, TimeUnit.SECONDS));
+            sampler.stop();
+
+            assertFalse(sampler.isSampling());
+            assertEquals(2, sampler.size());
+            assertTrue(sampler.getTime(0) >= sampler.getTime(1));
+            assertTrue(sampler.getCpuPercent(0) >= 0);
+            assertThrows(IndexOutOfBoundsException.class, () -> sampler.getTime(2));
+            if (Files.isDirectory(Paths.get("/proc/self"))) {
+                assertTrue(sampler.getRssBytes(0) > 0);
+                assertTrue(sampler.getThreadCount(0) > 0);
+                assertTrue(sampler.getFdCount(0) > 0);
+            }
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+}
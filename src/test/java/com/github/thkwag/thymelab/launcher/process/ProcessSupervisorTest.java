@@ -0,0 +1,86 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import com.github.thkwag.thymelab.launcher.config.ConfigManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessSupervisorTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Restart delays double up to the maximum and stay within the jitter")
+    void testBackoff() {
+        assertEquals(1000, ProcessSupervisor.backoffMillis(1, 1000, 60_000, 0.2, 0.5));
+        assertEquals(4000, ProcessSupervisor.backoffMillis(3, 1000, 60_000, 0.2, 0.5));
+        assertEquals(60_000, ProcessSupervisor.backoffMillis(30, 1000, 60_000, 0.2, 0.5));
+        assertEquals(3200, ProcessSupervisor.backoffMillis(3, 1000, 60_000, 0.2, 0.0));
+        assertEquals(4800, ProcessSupervisor.backoffMillis(3, 1000, 60_000, 0.2, 1.0));
+    }
+
+    @Test
+    @DisplayName("Crashes are restarted until too many fall within the window")
+    void testCrashLoop() throws Exception {
+        ConfigManager config = new ConfigManager(tempDir.resolve("thymelab-launcher.properties").toString());
+        config.setBoolean(ProcessSupervisor.KEY_ENABLED, true);
+        config.setInt("supervisor.backoff.initial.ms", 1);
+        config.setInt("supervisor.crashloop.crashes", 3);
+        AppProcessManager manager = new AppProcessManager(line -> {}, () -> {}, config);
+
+        List<Integer> attempts = new CopyOnWriteArrayList<>();
+        Semaphore restarted = new Semaphore(0);
+        CountDownLatch gaveUp = new CountDownLatch(1);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try (ProcessSupervisor supervisor = new ProcessSupervisor(manager, new ProcessSupervisor.Listener() {
+            @Override
+            public void onRestartScheduled(int attempt, long delayMillis) {
+                attempts.add(attempt);
+            }
+
+            @Override
+            public void onRestarted(int restarts) {
+                restarted.release();
+            }
+
+            @Override
+            public void onCrashLoop(int crashes, int windowMinutes) {
+                gaveUp.countDown();
+            }
+        }, scheduler)) {
+            // Stops asked for and clean exits are not crashes
+            supervisor.onExit(143, true);
+            supervisor.onExit(0, false);
+            assertTrue(attempts.isEmpty());
+
+            supervisor.onExit(1, false);
+            assertTrue(restarted.tryAcquire(5, TimeUnit.SECONDS));
+            supervisor.onExit(1, false);
+            assertTrue(restarted.tryAcquire(5, TimeUnit.SECONDS));
+            assertEquals(List.of(1, 2), attempts);
+            assertEquals(2, supervisor.getRestarts());
+
+            supervisor.onExit(1, false);
+            assertTrue(gaveUp.await(5, TimeUnit.SECONDS));
+            assertFalse(supervisor.isRestartPending());
+
+            // Starting by hand re-arms it
+            supervisor.processStarted();
+            supervisor.onExit(1, false);
+            assertEquals(List.of(1, 2, 1), attempts);
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+}
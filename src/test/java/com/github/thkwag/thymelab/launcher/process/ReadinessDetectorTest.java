@@ -0,0 +1,88 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadinessDetectorTest {
+
+    @Test
+    @DisplayName("Readiness is reported once the port opens and health answers 200")
+    void testReadyWhenHealthy() throws Exception {
+        int port = freePort();
+        CountDownLatch ready = new CountDownLatch(1);
+        ReadinessDetector detector = new ReadinessDetector(port, listener(ready, new CountDownLatch(1)));
+        detector.start();
+
+        // Let the detector probe a closed port for a while before the server comes up
+        Thread.sleep(100);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        AtomicInteger healthCalls = new AtomicInteger();
+        server.createContext("/actuator/health", exchange -> {
+            // Report DOWN once, like a context that is still refreshing
+            int status = healthCalls.incrementAndGet() == 1 ? 503 : 200;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            assertTrue(ready.await(5, TimeUnit.SECONDS));
+            assertEquals(2, healthCalls.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @DisplayName("A cancelled detector makes no callback")
+    void testCancel() throws Exception {
+        CountDownLatch ready = new CountDownLatch(1);
+        CountDownLatch timedOut = new CountDownLatch(1);
+        ReadinessDetector detector = new ReadinessDetector(freePort(), listener(ready, timedOut), 300);
+        detector.start();
+        detector.cancel();
+
+        assertFalse(timedOut.await(600, TimeUnit.MILLISECONDS));
+        assertEquals(1, ready.getCount());
+    }
+
+    @Test
+    @DisplayName("A processor that never opens its port times out")
+    void testTimeout() throws Exception {
+        CountDownLatch timedOut = new CountDownLatch(1);
+        ReadinessDetector detector = new ReadinessDetector(freePort(), listener(new CountDownLatch(1), timedOut), 300);
+        detector.start();
+
+        assertTrue(timedOut.await(5, TimeUnit.SECONDS));
+    }
+
+    private static ReadinessDetector.Listener listener(CountDownLatch ready, CountDownLatch timedOut) {
+        return new ReadinessDetector.Listener() {
+            @Override
+            public void onReady() {
+                ready.countDown();
+            }
+
+            @Override
+            public void onTimeout() {
+                timedOut.countDown();
+            }
+        };
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.thkwag.thymelab.launcher.process;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupTimelineTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Only the first mark of a phase counts and begin clears them")
+    void testMarks() {
+        StartupTimeline timeline = new StartupTimeline();
+        timeline.begin();
+        assertEquals(-1, timeline.getMillis(StartupTimeline.Phase.SPAWNED));
+
+        timeline.mark(StartupTimeline.Phase.SPAWNED);
+        long spawned = timeline.getMillis(StartupTimeline.Phase.SPAWNED);
+        assertTrue(spawned >= 0);
+        assertFalse(timeline.markIfStarted("Starting ThymeLabApplication using Java 17"));
+        assertTrue(timeline.markIfStarted("Started ThymeLabApplication in 2.1 seconds (process running for 2.6)"));
+        assertFalse(timeline.markIfStarted("Started ThymeLabApplication in 9.0 seconds (process running for 9.5)"));
+        assertEquals(2.6, timeline.getReportedSeconds());
+        assertTrue(timeline.claimRecording());
+        assertFalse(timeline.claimRecording());
+
+        timeline.begin();
+        assertFalse(timeline.isReached(StartupTimeline.Phase.STARTED));
+        assertEquals(-1, timeline.getReportedSeconds());
+        assertTrue(timeline.claimRecording());
+    }
+
+    @Test
+    @DisplayName("The JVM startup time is read from Spring Boot's Started line")
+    void testParseStartedSeconds() {
+        assertEquals(2.6, StartupTimeline.parseStartedSeconds(
+            "Started ThymeLabApplication in 2.1 seconds (process running for 2.6)"));
+        assertEquals(4.25, StartupTimeline.parseStartedSeconds(
+            "Started ThymeLabApplication in 3.9 seconds (JVM running for 4.25)"));
+        assertEquals(1.5, StartupTimeline.parseStartedSeconds("Started App in 1.5 seconds"));
+        assertTrue(StartupTimeline.parseStartedSeconds("Starting ThymeLabApplication using Java 17") < 0);
+    }
+
+    @Test
+    @DisplayName("Each start is appended to the history with empty cells for missed phases")
+    void testHistory() throws IOException {
+        StartupHistory history = new StartupHistory(tempDir.resolve("startup-history.csv"));
+        StartupTimeline timeline = new StartupTimeline();
+        timeline.begin();
+        timeline.mark(StartupTimeline.Phase.JAR_FOUND);
+        StartupHistory.Session session = new StartupHistory.Session("/opt/a,b.jar", 42, "fast-start", "with", "java");
+
+        history.append(session, timeline);
+        history.append(session, timeline);
+
+        List<String> lines = Files.readAllLines(history.getFile());
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("time,processor_jar,"));
+        String[] cells = lines.get(1).split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
+        assertEquals(lines.get(0).split(",").length, cells.length);
+        assertEquals("\"/opt/a,b.jar\"", cells[1]);
+        assertEquals("fast-start", cells[3]);
+        assertFalse(cells[8].isEmpty());
+        assertTrue(cells[12].isEmpty());
+    }
+}
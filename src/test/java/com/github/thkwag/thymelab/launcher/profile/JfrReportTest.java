@@ -0,0 +1,127 @@
+package com.github.thkwag.thymelab.launcher.profile;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrReportTest {
+    private static volatile long sink;
+
+    @Test
+    @DisplayName("A recording is summarized into hot methods and allocation sites, heaviest first")
+    void testRead(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("test.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(JfrReport.EXECUTION_SAMPLE).withPeriod(Duration.ofMillis(10));
+            recording.enable(JfrReport.ALLOCATION_IN_TLAB);
+            recording.enable(JfrReport.ALLOCATION_OUTSIDE_TLAB);
+            recording.start();
+            long deadline = System.nanoTime() + Duration.ofMillis(500).toNanos();
+            while (System.nanoTime() < deadline) {
+                burn();
+                allocate();
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+
+        JfrReport report = JfrReport.read(file, 5);
+
+        assertTrue(report.getSamples() > 0);
+        List<JfrReport.Entry> hot = report.getHotMethods();
+        assertFalse(hot.isEmpty());
+        assertTrue(hot.size() <= 5);
+        assertTrue(hot.stream().anyMatch(entry -> entry.site().startsWith(JfrReportTest.class.getName() + ".")));
+        for (int i = 1; i < hot.size(); i++) {
+            assertTrue(hot.get(i - 1).total() >= hot.get(i).total());
+        }
+        assertFalse(report.getAllocations().isEmpty());
+        assertTrue(report.getAllocations().get(0).total() > 0);
+    }
+
+    @Test
+    @DisplayName("Lock waits are attributed to the waiting code, and idle condition waits are left out")
+    void testContention(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("contention.jfr");
+        ReentrantLock lock = new ReentrantLock();
+        ReentrantLock idleLock = new ReentrantLock();
+        Condition idle = idleLock.newCondition();
+        try (Recording recording = new Recording()) {
+            recording.enable(JfrReport.THREAD_PARK).withThreshold(Duration.ofMillis(10)).withStackTrace();
+            recording.start();
+            Thread idler = new Thread(() -> {
+                idleLock.lock();
+                try {
+                    idle.await(200, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ignored) {
+                } finally {
+                    idleLock.unlock();
+                }
+            });
+            idler.start();
+            lock.lock();
+            Thread waiter = new Thread(() -> waitForLock(lock));
+            try {
+                waiter.start();
+                Thread.sleep(200);
+            } finally {
+                lock.unlock();
+            }
+            waiter.join();
+            idler.join();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<JfrReport.Entry> contention = JfrReport.read(file, 50).getContention();
+
+        assertTrue(contention.stream().anyMatch(entry ->
+            entry.site().startsWith(JfrReportTest.class.getName() + ".waitForLock")
+                && entry.detail().startsWith(ReentrantLock.class.getName())), contention.toString());
+        assertTrue(contention.stream().noneMatch(entry -> entry.site().startsWith("jdk.internal.misc.Unsafe")
+            || entry.site().startsWith("java.util.concurrent.") || entry.detail().endsWith("$ConditionObject")),
+            contention.toString());
+    }
+
+    @Test
+    @DisplayName("Start options name the recording, its length and its file")
+    void testStartOptions(@TempDir Path dir) {
+        Path file = dir.resolve("profile.jfr");
+
+        List<String> options = JfrProfiler.startOptions(file, 30);
+
+        assertEquals(List.of("-XX:StartFlightRecording=name=thymelab-profile,settings=profile,duration=30s,filename="
+            + file.toAbsolutePath()), options);
+    }
+
+    private static void waitForLock(ReentrantLock lock) {
+        lock.lock();
+        lock.unlock();
+    }
+
+    private static void burn() {
+        long value = sink;
+        for (int i = 0; i < 100_000; i++) {
+            value = value * 31 + i;
+        }
+        sink = value;
+    }
+
+    private static void allocate() {
+        byte[][] blocks = new byte[64][];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = new byte[16 * 1024];
+        }
+        sink += blocks[blocks.length - 1].length;
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.thkwag.thymelab.launcher.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskRuntimeTest {
+
+    @Test
+    @DisplayName("Running tasks are listed by scope and name and closing the scope interrupts them")
+    void testCloseScope() throws Exception {
+        TaskRuntime.Scope scope = TaskRuntime.get().openScope("test-close");
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        scope.execute(TaskRuntime.named("sleeper", () -> {
+            running.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        }));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        assertTrue(TaskRuntime.get().getTasks().stream()
+            .anyMatch(task -> task.getScope().equals("test-close") && task.getName().equals("sleeper")));
+
+        scope.close();
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(scope.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(TaskRuntime.get().getTasks().stream().noneMatch(task -> task.getScope().equals("test-close")));
+        assertThrows(RejectedExecutionException.class, () -> scope.execute(() -> {}));
+    }
+
+    @Test
+    @DisplayName("Cancelling a task's future interrupts the task")
+    void testCancelFuture() throws Exception {
+        TaskRuntime.Scope scope = TaskRuntime.get().openScope("test-cancel");
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<Void> future = scope.run("sleeper", () -> {
+            running.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        future.cancel(true);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+
+        assertEquals("done", scope.supply("value", () -> "done").get(5, TimeUnit.SECONDS));
+        scope.close();
+    }
+}